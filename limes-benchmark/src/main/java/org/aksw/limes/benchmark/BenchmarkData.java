@@ -0,0 +1,284 @@
+package org.aksw.limes.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.measures.measure.MeasureType;
+
+import com.opencsv.CSVReader;
+
+/**
+ * Creates the source and target caches of the mapper benchmarks, either
+ * synthetically for a given measure type or from the datasets bundled with
+ * limes-core. The synthetic data is seeded, so every run and every LIMES
+ * version sees exactly the same input.
+ */
+public class BenchmarkData {
+
+    public static final String LABEL = "label";
+    public static final String X = "a";
+    public static final String Y = "b";
+    public static final String LAT = "lat";
+    public static final String LONG = "long";
+    public static final String GEOMETRY = "asWKT";
+    public static final String BEGIN = "begin";
+    public static final String END = "end";
+    public static final String MACHINE = "machine";
+
+    private static final String[] SYLLABLES = { "ka", "lo", "mi", "ne", "ru", "sa", "te", "vi", "do", "pe", "gra",
+            "bel", "son", "ter", "man", "ric", "hal", "ston", "wick", "ber" };
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX",
+            Locale.ENGLISH);
+    private static final long START = 1432102864L;
+
+    /**
+     * The kind of data a measure type needs.
+     */
+    public enum DataType {
+        STRING, STRING_SET, VECTOR, POINT, POLYGON, INTERVAL, EVENT
+    }
+
+    /**
+     * @param type
+     *            the measure type
+     * @return the kind of data the mapper of the measure type reads
+     */
+    public static DataType getDataType(MeasureType type) {
+        switch (type) {
+        case EUCLIDEAN:
+        case MANHATTAN:
+            return DataType.VECTOR;
+        case GEO_ORTHODROMIC:
+        case GEO_GREAT_ELLIPTIC:
+            return DataType.POINT;
+        case SET_JACCARD:
+            return DataType.STRING_SET;
+        case TMP_CONCURRENT:
+        case TMP_PREDECESSOR:
+        case TMP_SUCCESSOR:
+            return DataType.EVENT;
+        default:
+        }
+        String name = type.name();
+        if (name.startsWith("GEO_") || name.startsWith("TOP_")) {
+            return DataType.POLYGON;
+        }
+        if (name.startsWith("TMP_")) {
+            return DataType.INTERVAL;
+        }
+        return DataType.STRING;
+    }
+
+    /**
+     * @param measure
+     *            the name of the measure as used in link specifications
+     * @param type
+     *            the measure type of measure
+     * @return an atomic metric expression over the properties generated by
+     *         {@link #createCache(DataType, int, long, boolean)}
+     */
+    public static String getExpression(String measure, MeasureType type) {
+        switch (getDataType(type)) {
+        case VECTOR:
+            return measure + "(x." + X + "|" + Y + ",y." + X + "|" + Y + ")";
+        case POINT:
+            return measure + "(x." + LAT + "|" + LONG + ",y." + LAT + "|" + LONG + ")";
+        case POLYGON:
+            return measure + "(x." + GEOMETRY + ",y." + GEOMETRY + ")";
+        case INTERVAL:
+            return measure + "(x." + BEGIN + "|" + END + ",y." + BEGIN + "|" + END + ")";
+        case EVENT:
+            return measure + "(x." + BEGIN + "|" + MACHINE + ",y." + BEGIN + "|" + MACHINE + ")";
+        default:
+            return measure + "(x." + LABEL + ",y." + LABEL + ")";
+        }
+    }
+
+    /**
+     * Creates a synthetic cache. Source and target caches created with the
+     * same seed draw the same values. Each target value is either an exact or
+     * a perturbed copy of the source value with the same index, so that every
+     * mapper returns a non-trivial number of links.
+     *
+     * @param type
+     *            the kind of data
+     * @param size
+     *            the number of instances
+     * @param seed
+     *            the seed of the cache, use the same seed for source and
+     *            target to get matching values
+     * @param target
+     *            true to create the target cache
+     * @return the cache
+     */
+    public static ACache createCache(DataType type, int size, long seed, boolean target) {
+        ACache cache = new MemoryCache();
+        Random values = new Random(seed);
+        Random noise = new Random(seed + (target ? 1 : 0));
+        String prefix = target ? "http://example.org/target/" : "http://example.org/source/";
+        for (int i = 0; i < size; i++) {
+            // the same random sequence is consumed for source and target
+            Random r = target && noise.nextBoolean() ? noise : values;
+            String uri = prefix + i;
+            switch (type) {
+            case VECTOR:
+                cache.addTriple(uri, X, "" + perturb(100 * values.nextDouble(), r, noise));
+                cache.addTriple(uri, Y, "" + perturb(100 * values.nextDouble(), r, noise));
+                break;
+            case POINT:
+                cache.addTriple(uri, LAT, "" + perturb(47 + 8 * values.nextDouble(), r, noise));
+                cache.addTriple(uri, LONG, "" + perturb(6 + 9 * values.nextDouble(), r, noise));
+                break;
+            case POLYGON:
+                cache.addTriple(uri, GEOMETRY, createPolygon(values, r, noise));
+                break;
+            case INTERVAL:
+            case EVENT:
+                long begin = START + values.nextInt(size * 60);
+                long end = begin + 60 + values.nextInt(3600);
+                if (r == noise) {
+                    begin += noise.nextInt(120);
+                }
+                cache.addTriple(uri, BEGIN, format(begin));
+                cache.addTriple(uri, END, format(end));
+                cache.addTriple(uri, MACHINE, "m" + values.nextInt(10));
+                break;
+            case STRING_SET:
+                for (int j = 0; j < 4; j++) {
+                    String word = createWord(values);
+                    cache.addTriple(uri, LABEL, r == noise && j == 0 ? createWord(noise) : word);
+                }
+                break;
+            default:
+                String label = createWord(values) + " " + createWord(values);
+                cache.addTriple(uri, LABEL, r == noise ? addTypo(label, noise) : label);
+            }
+        }
+        return cache;
+    }
+
+    private static double perturb(double value, Random r, Random noise) {
+        return r == noise ? value + noise.nextGaussian() * 0.01 : value;
+    }
+
+    private static String format(long epochSecond) {
+        return Instant.ofEpochSecond(epochSecond).atOffset(ZoneOffset.ofHours(2)).format(DATE_FORMAT);
+    }
+
+    private static String createWord(Random r) {
+        StringBuilder word = new StringBuilder();
+        int length = 2 + r.nextInt(3);
+        for (int i = 0; i < length; i++) {
+            word.append(SYLLABLES[r.nextInt(SYLLABLES.length)]);
+        }
+        return word.toString();
+    }
+
+    private static String addTypo(String label, Random r) {
+        char[] chars = label.toCharArray();
+        chars[r.nextInt(chars.length)] = (char) ('a' + r.nextInt(26));
+        return new String(chars);
+    }
+
+    private static String createPolygon(Random values, Random r, Random noise) {
+        double x = 6 + 9 * values.nextDouble();
+        double y = 47 + 8 * values.nextDouble();
+        double size = 0.01 + 0.05 * values.nextDouble();
+        if (r == noise) {
+            x += noise.nextGaussian() * size;
+            y += noise.nextGaussian() * size;
+        }
+        StringBuilder wkt = new StringBuilder("POLYGON ((");
+        int corners = 4 + values.nextInt(5);
+        for (int i = 0; i < corners; i++) {
+            double angle = 2 * Math.PI * i / corners;
+            wkt.append(x + size * Math.cos(angle)).append(' ').append(y + size * Math.sin(angle)).append(", ");
+        }
+        wkt.append(x + size).append(' ').append(y).append("))");
+        return wkt.toString();
+    }
+
+    /**
+     * Reads the given columns of a CSV file bundled with limes-core.
+     *
+     * @param resource
+     *            the class path resource, e.g.
+     *            datasets/Amazon-GoogleProducts/Amazon.csv
+     * @param property
+     *            the property the values are stored under
+     * @param column
+     *            the index of the value column, the first column holds the
+     *            URI
+     * @param size
+     *            the maximal number of instances, 0 reads all of them
+     * @return the cache
+     * @throws IOException
+     *             if the resource can not be read
+     */
+    public static ACache readCsv(String resource, String property, int column, int size) throws IOException {
+        ACache cache = new MemoryCache();
+        try (CSVReader reader = new CSVReader(new InputStreamReader(open(resource), StandardCharsets.UTF_8))) {
+            // skip the header
+            reader.readNext();
+            for (String[] line = reader.readNext(); line != null
+                    && (size <= 0 || cache.size() < size); line = reader.readNext()) {
+                if (line.length > column && !line[column].isEmpty()) {
+                    cache.addTriple(line[0], property, line[column].toLowerCase());
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Reads the NUTS regions bundled with limes-core. Each line holds the
+     * region id followed by the longitude and latitude of its boundary
+     * points.
+     *
+     * @param size
+     *            the maximal number of regions, 0 reads all of them
+     * @return a cache with the WKT polygon of each region under
+     *         {@link #GEOMETRY}
+     * @throws IOException
+     *             if the resource can not be read
+     */
+    public static ACache readNuts(int size) throws IOException {
+        ACache cache = new MemoryCache();
+        try (CSVReader reader = new CSVReader(
+                new InputStreamReader(open("datasets/nuts/nuts_geometry.csv"), StandardCharsets.UTF_8), '\t')) {
+            for (String[] line = reader.readNext(); line != null
+                    && (size <= 0 || cache.size() < size); line = reader.readNext()) {
+                String[] coordinates = line[1].trim().split("\\s+");
+                List<String> points = new ArrayList<>();
+                for (int i = 0; i + 1 < coordinates.length; i += 2) {
+                    points.add(coordinates[i] + " " + coordinates[i + 1]);
+                }
+                if (points.size() < 4) {
+                    continue;
+                }
+                cache.addTriple("http://nuts.geovocab.org/id/" + line[0].replace("_geometry.gml", ""), GEOMETRY,
+                        "POLYGON ((" + String.join(", ", points) + "))");
+            }
+        }
+        return cache;
+    }
+
+    private static InputStream open(String resource) throws IOException {
+        InputStream in = BenchmarkData.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Resource " + resource + " not found on the class path.");
+        }
+        return in;
+    }
+}
@@ -0,0 +1,82 @@
+package org.aksw.limes.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.measures.measure.MeasureType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the string mappers on the product titles of Amazon-GoogleProducts
+ * and on the publication titles of DBLP-Scholar, both bundled with limes-core.
+ * Only the DBLP part of DBLP-Scholar is bundled, hence its titles are linked
+ * against themselves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DatasetMapperBenchmark {
+
+    public static final String AMAZON_GOOGLE_PRODUCTS = "Amazon-GoogleProducts";
+    public static final String DBLP_SCHOLAR = "DBLP-Scholar";
+
+    @Param({ AMAZON_GOOGLE_PRODUCTS, DBLP_SCHOLAR })
+    public String dataset;
+
+    @Param({ MeasureFactory.LEVENSHTEIN, MeasureFactory.JACCARD, MeasureFactory.COSINE, MeasureFactory.OVERLAP,
+            MeasureFactory.TRIGRAM, MeasureFactory.QGRAMS, MeasureFactory.EXACTMATCH, MeasureFactory.JARO,
+            MeasureFactory.JAROWINKLER, MeasureFactory.RATCLIFF, MeasureFactory.SOUNDEX, MeasureFactory.DOUBLEMETA })
+    public String measure;
+
+    /**
+     * The maximal number of instances per cache, 0 uses the whole dataset.
+     */
+    @Param({ "1000", "0" })
+    public int size;
+
+    @Param({ "0.5", "0.8", "0.95" })
+    public double threshold;
+
+    private MeasureType type;
+    private String expression;
+    private ACache source;
+    private ACache target;
+
+    @Setup
+    public void setUp() throws IOException {
+        type = MeasureFactory.getMeasureType(measure);
+        expression = measure + "(x." + BenchmarkData.LABEL + ",y." + BenchmarkData.LABEL + ")";
+        if (dataset.equals(AMAZON_GOOGLE_PRODUCTS)) {
+            source = BenchmarkData.readCsv("datasets/Amazon-GoogleProducts/Amazon.csv", BenchmarkData.LABEL, 1, size);
+            target = BenchmarkData.readCsv("datasets/Amazon-GoogleProducts/GoogleProducts.csv", BenchmarkData.LABEL,
+                    1, size);
+        } else if (dataset.equals(DBLP_SCHOLAR)) {
+            source = BenchmarkData.readCsv("datasets/DBLP-Scholar/DBLP1.csv", BenchmarkData.LABEL, 1, size);
+            target = source;
+        } else {
+            throw new IllegalArgumentException("Unknown dataset " + dataset);
+        }
+    }
+
+    @Benchmark
+    public AMapping getMapping() {
+        return MapperFactory.createMapper(type).getMapping(source, target, "?x", "?y", expression, threshold);
+    }
+}
@@ -0,0 +1,99 @@
+package org.aksw.limes.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.limes.benchmark.BenchmarkData.DataType;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.measures.measure.MeasureType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one atomic link specification per measure of
+ * {@link MeasureFactory}, executed by the mapper that
+ * {@link MapperFactory#createMapper(MeasureType)} returns for it, on synthetic
+ * data of the given size and for the given threshold. The semantic measures
+ * are left out of the defaults as they need a local WordNet dictionary; they
+ * can be added with <code>-p measure=wupalmer</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({
+            // EDJoin, PPJoin+, FastNGram
+            MeasureFactory.LEVENSHTEIN, MeasureFactory.JACCARD, MeasureFactory.COSINE, MeasureFactory.OVERLAP,
+            MeasureFactory.TRIGRAM, MeasureFactory.QGRAMS, MeasureFactory.EXACTMATCH, MeasureFactory.MONGEELKAN,
+            // trie filters
+            MeasureFactory.JARO, MeasureFactory.JAROWINKLER, MeasureFactory.RATCLIFF,
+            // phonetic mappers
+            MeasureFactory.SOUNDEX, MeasureFactory.REFINEDSOUNDEX, MeasureFactory.DOUBLEMETA, MeasureFactory.META,
+            MeasureFactory.CAVERPHONE1, MeasureFactory.CAVERPHONE2, MeasureFactory.KOELN,
+            MeasureFactory.DAITCHMOKOTOFF, MeasureFactory.MATCHRATING, MeasureFactory.NYSIIS,
+            MeasureFactory.SET_JACCARD,
+            // HR3
+            MeasureFactory.EUCLIDEAN, MeasureFactory.MANHATTAN, MeasureFactory.GEO_ORTHODROMIC,
+            MeasureFactory.GEO_GREAT_ELLIPTIC,
+            // ORCHID
+            MeasureFactory.GEO_HAUSDORFF, MeasureFactory.GEO_CENTROID_INDEXED_HAUSDORFF,
+            MeasureFactory.GEO_FAST_HAUSDORFF, MeasureFactory.GEO_INDEXED_HAUSDORFF,
+            MeasureFactory.GEO_NAIVE_HAUSDORFF, MeasureFactory.GEO_SCAN_INDEXED_HAUSDORFF,
+            MeasureFactory.GEO_SYMMETRIC_HAUSDORFF, MeasureFactory.GEO_MAX, MeasureFactory.GEO_MEAN,
+            MeasureFactory.GEO_MIN, MeasureFactory.GEO_AVG, MeasureFactory.GEO_FRECHET, MeasureFactory.GEO_LINK,
+            MeasureFactory.GEO_SUM_OF_MIN, MeasureFactory.GEO_SURJECTION, MeasureFactory.GEO_FAIR_SURJECTION,
+            // RADON
+            MeasureFactory.TOP_CONTAINS, MeasureFactory.TOP_COVERED_BY, MeasureFactory.TOP_COVERS,
+            MeasureFactory.TOP_CROSSES, MeasureFactory.TOP_DISJOINT, MeasureFactory.TOP_EQUALS,
+            MeasureFactory.TOP_INTERSECTS, MeasureFactory.TOP_OVERLAPS, MeasureFactory.TOP_TOUCHES,
+            MeasureFactory.TOP_WITHIN,
+            // simple temporal mappers
+            MeasureFactory.TMP_CONCURRENT, MeasureFactory.TMP_PREDECESSOR, MeasureFactory.TMP_SUCCESSOR,
+            // Allen's algebra
+            MeasureFactory.TMP_AFTER, MeasureFactory.TMP_BEFORE, MeasureFactory.TMP_DURING,
+            MeasureFactory.TMP_DURING_REVERSE, MeasureFactory.TMP_EQUALS, MeasureFactory.TMP_FINISHES,
+            MeasureFactory.TMP_IS_FINISHED_BY, MeasureFactory.TMP_IS_MET_BY, MeasureFactory.TMP_IS_OVERLAPPED_BY,
+            MeasureFactory.TMP_IS_STARTED_BY, MeasureFactory.TMP_MEETS, MeasureFactory.TMP_OVERLAPS,
+            MeasureFactory.TMP_STARTS })
+    public String measure;
+
+    @Param({ "1000", "5000" })
+    public int size;
+
+    @Param({ "0.5", "0.8", "0.95" })
+    public double threshold;
+
+    private MeasureType type;
+    private String expression;
+    private ACache source;
+    private ACache target;
+
+    @Setup
+    public void setUp() {
+        type = MeasureFactory.getMeasureType(measure);
+        expression = BenchmarkData.getExpression(measure, type);
+        DataType dataType = BenchmarkData.getDataType(type);
+        source = BenchmarkData.createCache(dataType, size, 42, false);
+        target = BenchmarkData.createCache(dataType, size, 42, true);
+    }
+
+    @Benchmark
+    public AMapping getMapping() {
+        return MapperFactory.createMapper(type).getMapping(source, target, "?x", "?y", expression, threshold);
+    }
+}
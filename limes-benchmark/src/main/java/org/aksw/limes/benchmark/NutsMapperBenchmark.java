@@ -0,0 +1,68 @@
+package org.aksw.limes.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.measures.measure.MeasureType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the point set (ORCHID) and the topological (RADON) mappers on the
+ * NUTS region boundaries bundled with limes-core. The regions are linked
+ * against themselves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NutsMapperBenchmark {
+
+    @Param({ MeasureFactory.GEO_HAUSDORFF, MeasureFactory.GEO_CENTROID_INDEXED_HAUSDORFF,
+            MeasureFactory.GEO_FAST_HAUSDORFF, MeasureFactory.GEO_SYMMETRIC_HAUSDORFF, MeasureFactory.GEO_MEAN,
+            MeasureFactory.GEO_FRECHET, MeasureFactory.TOP_CONTAINS, MeasureFactory.TOP_COVERED_BY,
+            MeasureFactory.TOP_COVERS, MeasureFactory.TOP_CROSSES, MeasureFactory.TOP_DISJOINT,
+            MeasureFactory.TOP_EQUALS, MeasureFactory.TOP_INTERSECTS, MeasureFactory.TOP_OVERLAPS,
+            MeasureFactory.TOP_TOUCHES, MeasureFactory.TOP_WITHIN })
+    public String measure;
+
+    /**
+     * The maximal number of regions, 0 uses all of them.
+     */
+    @Param({ "500", "0" })
+    public int size;
+
+    @Param({ "0.5", "0.9" })
+    public double threshold;
+
+    private MeasureType type;
+    private String expression;
+    private ACache regions;
+
+    @Setup
+    public void setUp() throws IOException {
+        type = MeasureFactory.getMeasureType(measure);
+        expression = measure + "(x." + BenchmarkData.GEOMETRY + ",y." + BenchmarkData.GEOMETRY + ")";
+        regions = BenchmarkData.readNuts(size);
+    }
+
+    @Benchmark
+    public AMapping getMapping() {
+        return MapperFactory.createMapper(type).getMapping(regions, regions, "?x", "?y", expression, threshold);
+    }
+}
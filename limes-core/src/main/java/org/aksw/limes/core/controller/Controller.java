@@ -6,6 +6,7 @@ import static org.fusesource.jansi.Ansi.Color.RED;
 import org.aksw.commons.util.Files;
 import org.aksw.limes.core.evaluation.oracle.OracleFactory;
 import org.aksw.limes.core.exceptions.UnsupportedMLImplementationException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.execution.engine.ExecutionEngineFactory;
 import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory;
 import org.aksw.limes.core.execution.rewriter.RewriterFactory;
@@ -19,8 +20,10 @@ import org.aksw.limes.core.io.config.reader.rdf.RDFConfigurationReader;
 import org.aksw.limes.core.io.config.reader.xml.XMLConfigurationReader;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
 import org.aksw.limes.core.io.preprocessing.Preprocessor;
 import org.aksw.limes.core.io.serializer.ISerializer;
+import org.aksw.limes.core.io.serializer.LinkStreamWriter;
 import org.aksw.limes.core.io.serializer.SerializerFactory;
 import org.aksw.limes.core.measures.mapper.MappingOperations;
 import org.apache.commons.cli.BasicParser;
@@ -84,6 +87,16 @@ public class Controller {
                 System.exit(1);
             }
             Configuration config = getConfig(cmd);
+            if (cmd.hasOption('T')) {
+                config.setParallelism(Integer.parseInt(cmd.getOptionValue('T')));
+            }
+            if (cmd.hasOption('S') && config.getMlAlgorithmName().equals("")) {
+                if (cmd.hasOption('1') || cmd.hasOption('g')) {
+                    logger.warn("Options -1 and -g are ignored when streaming the result files.");
+                }
+                streamMapping(config);
+                return;
+            }
             LimesResult result = getMapping(config);
             if (cmd.hasOption('1')) {
                 //force 1-to-1 result
@@ -180,6 +193,7 @@ public class Controller {
     static LimesResult getMapping(Configuration config, int limit, ActiveLearningOracle oracle) {
         if (logger == null)
             logger = LoggerFactory.getLogger(Controller.class);
+        ExecutionContext.setParallelism(config.getParallelism());
         AMapping results = null;
 
         // 3. Fill Caches
@@ -201,6 +215,7 @@ public class Controller {
         // 5. Machine Learning or Planning
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
+        MappingType mappingType = MappingFactory.getMappingType(config.getMappingType());
         boolean isAlgorithm = !config.getMlAlgorithmName().equals("");
         if (isAlgorithm) {
             try {
@@ -216,11 +231,15 @@ public class Controller {
                     RewriterFactory.getRewriterType(config.getExecutionRewriter()),
                     ExecutionPlannerFactory.getExecutionPlannerType(config.getExecutionPlanner()),
                     ExecutionEngineFactory.getExecutionEngineType(config.getExecutionEngine()),
-                    config.getOptimizationTime(), config.getExpectedSelectivity());
+                    config.getOptimizationTime(), config.getExpectedSelectivity(), mappingType);
         }
         long runTime = stopWatch.getTime();
         logger.info("Mapping task finished in " + runTime + " ms");
         assert results != null;
+        if (mappingType == MappingType.COMPACT_MAPPING) {
+            // both parts of the split share the URI dictionaries of the results
+            results = MappingFactory.convert(results, MappingType.COMPACT_MAPPING);
+        }
         AMapping acceptanceMapping = results.getSubMap(config.getAcceptanceThreshold());
         AMapping verificationMapping = MappingOperations.difference(results, acceptanceMapping);
         logger.info("Mapping size: " + acceptanceMapping.size() + " (accepted) + " + verificationMapping.size()
@@ -228,6 +247,44 @@ public class Controller {
         return new LimesResult(verificationMapping, acceptanceMapping, sourceCache, targetCache, runTime);
     }
 
+    /**
+     * Execute LIMES and write the accepted links and the links that need
+     * verification while the link specification is executed, without holding
+     * the whole mapping in memory. Machine learning is not supported.
+     *
+     * @param config
+     *            LIMES configuration object
+     */
+    public static void streamMapping(Configuration config) {
+        if (logger == null)
+            logger = LoggerFactory.getLogger(Controller.class);
+        ExecutionContext.setParallelism(config.getParallelism());
+        ACache sourceCache = Preprocessor.applyFunctionsToCache(HybridCache.getData(config.getSourceInfo()),
+                config.getSourceInfo().getFunctions());
+        ACache targetCache = Preprocessor.applyFunctionsToCache(HybridCache.getData(config.getTargetInfo()),
+                config.getTargetInfo().getFunctions());
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        ISerializer acceptanceOutput = SerializerFactory.createSerializer(config.getOutputFormat());
+        acceptanceOutput.setPrefixes(config.getPrefixes());
+        ISerializer verificationOutput = SerializerFactory.createSerializer(config.getOutputFormat());
+        verificationOutput.setPrefixes(config.getPrefixes());
+        try (LinkStreamWriter writer = new LinkStreamWriter(acceptanceOutput, config.getAcceptanceRelation(),
+                config.getAcceptanceFile(), verificationOutput, config.getVerificationRelation(),
+                config.getVerificationFile(), config.getAcceptanceThreshold())) {
+            LSPipeline.execute(sourceCache, targetCache, config.getMetricExpression(),
+                    config.getVerificationThreshold(), config.getSourceInfo().getVar(), config.getTargetInfo().getVar(),
+                    RewriterFactory.getRewriterType(config.getExecutionRewriter()),
+                    ExecutionPlannerFactory.getExecutionPlannerType(config.getExecutionPlanner()),
+                    ExecutionEngineFactory.getExecutionEngineType(config.getExecutionEngine()),
+                    config.getOptimizationTime(), config.getExpectedSelectivity(), writer);
+            logger.info("Mapping task finished in " + stopWatch.getTime() + " ms");
+            logger.info("Mapping size: " + writer.getAcceptanceSize() + " (accepted) + "
+                    + writer.getVerificationSize() + " (need verification) = "
+                    + (writer.getAcceptanceSize() + writer.getVerificationSize()) + " (total)");
+        }
+    }
+
     private static void writeResults(LimesResult mappings, Configuration config) {
         String outputFormat = config.getOutputFormat();
         ISerializer output = SerializerFactory.createSerializer(outputFormat);
@@ -264,6 +321,8 @@ public class Controller {
         options.addOption("l", true, "Optionally configure a limit for source and target resources processed by LIMES Server. Only effective if -s is specified. Default value is -1 (no limit).");
         options.addOption("1", false, "Force 1-to-1 mappings, i.e. for each source resource only keep the link with the highest probability.");
         options.addOption("d", true, "Configure path for the statistics JSON output file.");
+        options.addOption("S", false, "Stream the accepted links and the links that need verification into the output files while the link specification is executed. No statistics file is written.");
+        options.addOption("T", true, "Configure the number of threads that execute the link specification. Overrides the parallelism of the configuration file. Default is the number of available processors.");
         // options.addOption("v", false, "Verbose run");
         return options;
     }
@@ -9,6 +9,8 @@ import org.aksw.limes.core.execution.rewriter.RewriterFactory;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.ILinkSink;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
 
 /**
  * Execution pipeline for generating mappings out of link specifications.
@@ -48,9 +50,93 @@ public class LSPipeline {
             String sourceVar, String targetVar, RewriterFactory.RewriterType rewriterType,
             ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType,
             ExecutionEngineFactory.ExecutionEngineType executionEngineType, long maxOpt, double k) {
+        return execute(sourceCache, targetCache, metricExpression, threshold, sourceVar, targetVar, rewriterType,
+                executionPlannerType, executionEngineType, maxOpt, k, MappingType.DEFAULT);
+    }
+
+    /**
+     * Execute a LS given a string metric expression and a double threshold,
+     * generating a mapping of the given type.
+     *
+     * @param sourceCache
+     *            Resources from source KB
+     * @param targetCache
+     *            Resources from target KB
+     * @param metricExpression
+     *            Specifies which measures are used and how they are combined to
+     *            assert the similarity between two resources
+     * @param threshold
+     *            Minimal similarity value for resource pairs to be included in
+     *            the generated mapping
+     * @param sourceVar
+     *            Name of SPARQL variable for resources from source KB
+     * @param targetVar
+     *            Name of SPARQL variable for resources from target KB
+     * @param rewriterType
+     *            Specifies rewriter module to use
+     * @param executionPlannerType
+     *            Specifies executionPlanner module to use
+     * @param executionEngineType
+     *            Specifies executionEngine module to use
+     * @param mappingType
+     *            Specifies the type of the mappings produced by the execution
+     *            engine
+     * @return Mapping of resources in sourceCache to resources in targetCache
+     *         with similarity &gt; threshold
+     */
+    public static AMapping execute(ACache sourceCache, ACache targetCache, String metricExpression, double threshold,
+            String sourceVar, String targetVar, RewriterFactory.RewriterType rewriterType,
+            ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType,
+            ExecutionEngineFactory.ExecutionEngineType executionEngineType, long maxOpt, double k,
+            MappingType mappingType) {
         LinkSpecification ls = new LinkSpecification(metricExpression, threshold);
         return execute(sourceCache, targetCache, ls, sourceVar, targetVar, rewriterType, executionPlannerType,
-                executionEngineType, maxOpt, k);
+                executionEngineType, maxOpt, k, mappingType);
+    }
+
+    /**
+     * Execute a LS given a string metric expression and a double threshold,
+     * pushing the links of the result into a sink while the root of the
+     * execution plan is executed.
+     *
+     * @param sourceCache
+     *            Resources from source KB
+     * @param targetCache
+     *            Resources from target KB
+     * @param metricExpression
+     *            Specifies which measures are used and how they are combined to
+     *            assert the similarity between two resources
+     * @param threshold
+     *            Minimal similarity value for resource pairs to be included in
+     *            the generated mapping
+     * @param sourceVar
+     *            Name of SPARQL variable for resources from source KB
+     * @param targetVar
+     *            Name of SPARQL variable for resources from target KB
+     * @param rewriterType
+     *            Specifies rewriter module to use
+     * @param executionPlannerType
+     *            Specifies executionPlanner module to use
+     * @param executionEngineType
+     *            Specifies executionEngine module to use
+     * @param sink
+     *            Sink of the links of resources in sourceCache to resources in
+     *            targetCache with similarity &gt; threshold
+     */
+    public static void execute(ACache sourceCache, ACache targetCache, String metricExpression, double threshold,
+            String sourceVar, String targetVar, RewriterFactory.RewriterType rewriterType,
+            ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType,
+            ExecutionEngineFactory.ExecutionEngineType executionEngineType, long maxOpt, double k, ILinkSink sink) {
+        LinkSpecification ls = new LinkSpecification(metricExpression, threshold);
+        Rewriter rw = RewriterFactory.getRewriter(rewriterType);
+        assert rw != null;
+        LinkSpecification rwLs = rw.rewrite(ls);
+        Planner planner = ExecutionPlannerFactory.getPlanner(executionPlannerType, sourceCache, targetCache);
+        assert planner != null;
+        ExecutionEngine engine = ExecutionEngineFactory.getEngine(executionEngineType, sourceCache, targetCache,
+                sourceVar, targetVar, maxOpt, k);
+        assert engine != null;
+        engine.execute(rwLs, planner, sink);
     }
 
     /**
@@ -79,6 +165,40 @@ public class LSPipeline {
             String targetVar, RewriterFactory.RewriterType rewriterType,
             ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType,
             ExecutionEngineFactory.ExecutionEngineType executionEngineType, long maxOpt, double k) {
+        return execute(sourceCache, targetCache, ls, sourceVar, targetVar, rewriterType, executionPlannerType,
+                executionEngineType, maxOpt, k, MappingType.DEFAULT);
+    }
+
+    /**
+     * Execute a given LS, generating a mapping of the given type.
+     *
+     * @param sourceCache
+     *            Resources from source KB
+     * @param targetCache
+     *            Resources from target KB
+     * @param ls
+     *            LIMES Link Specification
+     * @param sourceVar
+     *            Name of SPARQL variable for resources from source KB
+     * @param targetVar
+     *            Name of SPARQL variable for resources from target KB
+     * @param rewriterType
+     *            Specifies rewriter module to use
+     * @param executionPlannerType
+     *            Specifies executionPlanner module to use
+     * @param executionEngineType
+     *            Specifies executionEngine module to use
+     * @param mappingType
+     *            Specifies the type of the mappings produced by the execution
+     *            engine
+     * @return Mapping of resources in sourceCache to resources in targetCache
+     *         with similarity &gt; threshold
+     */
+    public static AMapping execute(ACache sourceCache, ACache targetCache, LinkSpecification ls, String sourceVar,
+            String targetVar, RewriterFactory.RewriterType rewriterType,
+            ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType,
+            ExecutionEngineFactory.ExecutionEngineType executionEngineType, long maxOpt, double k,
+            MappingType mappingType) {
         // Optimize LS by rewriting
         Rewriter rw = RewriterFactory.getRewriter(rewriterType);
         assert rw != null;
@@ -90,6 +210,7 @@ public class LSPipeline {
         ExecutionEngine engine = ExecutionEngineFactory.getEngine(executionEngineType, sourceCache, targetCache,
                 sourceVar, targetVar, maxOpt, k);
         assert engine != null;
+        engine.setMappingType(mappingType);
         return engine.execute(rwLs, planner);
     }
 
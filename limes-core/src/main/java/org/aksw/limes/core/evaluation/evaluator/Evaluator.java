@@ -620,11 +620,11 @@ public class Evaluator {
 						for (String k : refMap.getMap().get(key).keySet()) {
 							help.put(k, 1.0);
 						}
-						foldMap.getMap().put(key, help);
+						foldMap.add(key, help);
 					} else if (withNegativeExamples && index.contains(count)) {
 						HashMap<String, Double> help = new HashMap<String, Double>();
 						help.put(getRandomTargetInstance(source, target, values, rand, refMap.getMap(), key, -1), 0.0);
-						foldMap.getMap().put(key, help);
+						foldMap.add(key, help);
 					}
 				} else {
 					if (index.contains(count)) {
@@ -632,7 +632,7 @@ public class Evaluator {
 						for (String k : refMap.getMap().get(key).keySet()) {
 							help.put(k, 1.0);
 						}
-						foldMap.getMap().put(key, help);
+						foldMap.add(key, help);
 					}
 				}
 				count++;
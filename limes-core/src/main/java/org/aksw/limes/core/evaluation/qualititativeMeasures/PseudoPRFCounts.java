@@ -0,0 +1,115 @@
+package org.aksw.limes.core.evaluation.qualititativeMeasures;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map.Entry;
+
+import org.aksw.limes.core.datastrutures.GoldStandard;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.CompactMapping;
+
+/**
+ * Counts the links and the distinct source and target URIs of a mapping that
+ * the pseudo precision and the pseudo recall are computed from, in one pass
+ * over the links. The URIs are encoded as ints and the distinct ones are
+ * counted with bitsets: a {@link CompactMapping} provides the ids of its
+ * dictionaries, for other mappings the target URIs are numbered on the fly.
+ * Thereby, neither the positive links nor the reversed mapping have to be
+ * materialized.
+ */
+final class PseudoPRFCounts {
+
+    /** Number of links with a positive similarity */
+    private int positiveLinks = 0;
+    /** Number of source URIs with a link of positive similarity */
+    private int positiveSources = 0;
+    /** Number of target URIs with a link of positive similarity */
+    private int positiveTargets = 0;
+    /** Number of source URIs of the mapping */
+    private int sources = 0;
+    /** Number of target URIs of the mapping */
+    private int targets = 0;
+
+    private PseudoPRFCounts() {
+    }
+
+    /**
+     * @param mapping
+     *            the predictions
+     * @return the counts of the mapping
+     */
+    static PseudoPRFCounts of(AMapping mapping) {
+        PseudoPRFCounts counts = new PseudoPRFCounts();
+        if (mapping instanceof CompactMapping) {
+            BitSet sources = new BitSet();
+            BitSet targets = new BitSet();
+            BitSet positiveSources = new BitSet();
+            BitSet positiveTargets = new BitSet();
+            ((CompactMapping) mapping).forEachLink((s, t, sim) -> {
+                sources.set(s);
+                targets.set(t);
+                if (sim > 0) {
+                    counts.positiveLinks++;
+                    positiveSources.set(s);
+                    positiveTargets.set(t);
+                }
+            });
+            counts.sources = sources.cardinality();
+            counts.targets = targets.cardinality();
+            counts.positiveSources = positiveSources.cardinality();
+            counts.positiveTargets = positiveTargets.cardinality();
+        } else {
+            HashMap<String, Integer> targetIds = new HashMap<>();
+            BitSet positiveTargets = new BitSet();
+            for (Entry<String, HashMap<String, Double>> s : mapping.getMap().entrySet()) {
+                boolean positive = false;
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    Integer id = targetIds.get(t.getKey());
+                    if (id == null) {
+                        id = targetIds.size();
+                        targetIds.put(t.getKey(), id);
+                    }
+                    if (t.getValue() > 0) {
+                        counts.positiveLinks++;
+                        positiveTargets.set(id);
+                        positive = true;
+                    }
+                }
+                counts.sources++;
+                if (positive) {
+                    counts.positiveSources++;
+                }
+            }
+            counts.targets = targetIds.size();
+            counts.positiveTargets = positiveTargets.cardinality();
+        }
+        return counts;
+    }
+
+    /**
+     * @param symmetric
+     *            true for the symmetric pseudo precision
+     * @return the pseudo precision of the links with positive similarity
+     */
+    double precision(boolean symmetric) {
+        double p = positiveSources;
+        double q = positiveLinks;
+        if (symmetric) {
+            p = positiveSources + positiveTargets;
+            q = 2 * q;
+        }
+        if (p == 0 || q == 0)
+            return 0;
+        return p / q;
+    }
+
+    /**
+     * @param goldStandard
+     *            holds the source and target URIs
+     * @return the pseudo recall of all links
+     */
+    double recall(GoldStandard goldStandard) {
+        double reference = (double) (goldStandard.sourceUris.size() + goldStandard.targetUris.size());
+        return (sources + targets) / reference;
+    }
+}
@@ -42,6 +42,9 @@ public class PseudoPrecision extends APseudoPRF {
      */
     @Override
     public double calculate(AMapping predictions, GoldStandard goldStandard) {
+        if (!useOneToOneMapping) {
+            return PseudoPRFCounts.of(predictions).precision(isSymmetricPrecision());
+        }
 		predictions = predictions.getOnlyPositiveExamples();
 		AMapping res = predictions;
         AMapping rev = res.reverseSourceTarget();
@@ -47,10 +47,10 @@ public class PseudoRecall extends APseudoPRF {
      */
 
     public double calculate(AMapping predictions, GoldStandard goldStandard) {
-        AMapping res = predictions;
-        if (useOneToOneMapping) {
-            res = predictions.getBestOneToNMapping();
+        if (!useOneToOneMapping) {
+            return PseudoPRFCounts.of(predictions).recall(goldStandard);
         }
+        AMapping res = predictions.getBestOneToNMapping();
         double q = res.getMap().keySet().size();
         Set<String> values = new HashSet<String>();
         for (String s : res.getMap().keySet()) {
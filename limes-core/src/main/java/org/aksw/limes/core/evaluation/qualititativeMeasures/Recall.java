@@ -2,7 +2,6 @@ package org.aksw.limes.core.evaluation.qualititativeMeasures;
 
 import org.aksw.limes.core.datastrutures.GoldStandard;
 import org.aksw.limes.core.io.mapping.AMapping;
-import org.aksw.limes.core.io.mapping.MemoryMapping;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,7 +28,7 @@ public class Recall extends APRF implements IQualitativeMeasure {
         if (predictions.size() == 0)
             return 0;
 		return trueFalsePositive(predictions, goldStandard.referenceMappings, true)
-				/ (double) ((MemoryMapping) goldStandard.referenceMappings).getNumberofPositiveMappings();
+				/ (double) goldStandard.referenceMappings.getNumberofPositiveMappings();
     }
 
 }
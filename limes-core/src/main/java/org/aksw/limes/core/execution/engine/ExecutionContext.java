@@ -0,0 +1,165 @@
+package org.aksw.limes.core.execution.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements the execution context of LIMES, i.e., the one bounded
+ * work-stealing pool that executes the subplans of the
+ * {@link ParallelExecutionEngine} as well as the partitions of all parallel
+ * mappers. Tasks that are submitted from a thread of the pool are forked into
+ * it and joined with work stealing, so a parallel mapper that runs within a
+ * parallel plan does not start any further threads.
+ * <p>
+ * The parallelism defaults to the number of available processors. It is set
+ * from the PARALLELISM execution parameter of the configuration or the -T
+ * option of the command line. With a parallelism of 1, all tasks are executed
+ * by the calling thread.
+ */
+public class ExecutionContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionContext.class);
+
+    private static int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private static ForkJoinPool pool;
+
+    /**
+     * Sets the number of threads of the pool. A running pool with a different
+     * parallelism is shut down after its current tasks are done, hence
+     * callers must look the pool up with {@link #getPool()} when they submit
+     * tasks instead of keeping a reference to it.
+     *
+     * @param parallelism
+     *            number of threads, values smaller than 1 stand for the
+     *            number of available processors
+     */
+    public static synchronized void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        if (parallelism != ExecutionContext.parallelism) {
+            logger.info("Setting parallelism to " + parallelism + ".");
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+            ExecutionContext.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * @return the number of threads of the pool
+     */
+    public static synchronized int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the pool, created on first use
+     */
+    public static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Submits a task to the pool.
+     *
+     * @param task
+     *            the task
+     * @param <T>
+     *            type of the result of the task
+     * @return the future of the task, already done if the parallelism is 1
+     */
+    public static <T> Future<T> submit(Callable<T> task) {
+        if (getParallelism() == 1) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            future.run();
+            return future;
+        }
+        ForkJoinPool p = getPool();
+        if (ForkJoinTask.getPool() == p) {
+            return ForkJoinTask.adapt(task).fork();
+        }
+        return p.submit(task);
+    }
+
+    /**
+     * Waits for the given futures.
+     *
+     * @param futures
+     *            futures returned by {@link #submit(Callable)}
+     * @param <T>
+     *            type of the results
+     * @return the results in the order of the futures
+     */
+    public static <T> List<T> getAll(List<Future<T>> futures) {
+        // forked tasks are taken from the local queue last in, first out
+        List<T> results = new ArrayList<T>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(null);
+        }
+        for (int i = futures.size() - 1; i >= 0; i--) {
+            try {
+                results.set(i, futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Executes the tasks in the pool and waits for them.
+     *
+     * @param tasks
+     *            the tasks
+     * @param <T>
+     *            type of the results
+     * @return the results in the order of the tasks
+     */
+    public static <T> List<T> invokeAll(Collection<? extends Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(submit(task));
+        }
+        return getAll(futures);
+    }
+
+    /**
+     * Executes the tasks in the pool and waits for them.
+     *
+     * @param tasks
+     *            the tasks
+     */
+    public static void runAll(Collection<? extends Runnable> tasks) {
+        List<Callable<Object>> callables = new ArrayList<Callable<Object>>(tasks.size());
+        for (Runnable task : tasks) {
+            callables.add(Executors.callable(task));
+        }
+        invokeAll(callables);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +45,18 @@ public abstract class ExecutionEngine implements IExecutionEngine {
 
     protected double expectedSelectivity = 1.0d;
 
+    /**
+     * Type of the mappings produced by the engine. The results of the mappers
+     * are converted to this type, filters and set operations keep it.
+     */
+    protected MappingType mappingType = MappingType.DEFAULT;
+
+    /**
+     * Cache of the mappings of atomic measures, null if results are not
+     * cached.
+     */
+    protected ResultCache resultCache = null;
+
     /**
      * Constructor for an execution engine.
      *
@@ -109,4 +122,28 @@ public abstract class ExecutionEngine implements IExecutionEngine {
     public void setBuffer(List<AMapping> buffer) {
         this.buffer = buffer;
     }
+
+    public MappingType getMappingType() {
+        return mappingType;
+    }
+
+    public void setMappingType(MappingType mappingType) {
+        this.mappingType = mappingType;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Sets the cache that the mappings of atomic measures are taken from and
+     * stored in. The cache can be shared by the engines of one run, e.g., of a
+     * learner, and should be dropped or cleared when the run ends.
+     *
+     * @param resultCache
+     *            result cache, null disables caching
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
 }
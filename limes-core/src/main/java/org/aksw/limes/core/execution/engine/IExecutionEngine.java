@@ -3,6 +3,7 @@ package org.aksw.limes.core.execution.engine;
 import org.aksw.limes.core.execution.planning.planner.IPlanner;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.ILinkSink;
 
 /**
  * Implements the engine interface. The engine is responsible for executing the
@@ -25,4 +26,17 @@ public interface IExecutionEngine {
      */
     AMapping execute(LinkSpecification spec, IPlanner planner);
 
+    /**
+     * Implementation of the execution of a link specification that pushes the
+     * links of the result into a sink instead of returning a mapping.
+     *
+     * @param spec
+     *            The link specification
+     * @param planner,
+     *            The type of the planner
+     * @param sink
+     *            Sink of the links of the result
+     */
+    void execute(LinkSpecification spec, IPlanner planner, ILinkSink sink);
+
 }
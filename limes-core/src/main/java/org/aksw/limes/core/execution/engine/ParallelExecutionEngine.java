@@ -1,21 +1,85 @@
 package org.aksw.limes.core.execution.engine;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.aksw.limes.core.datastrutures.LogicOperator;
+import org.aksw.limes.core.execution.planning.plan.Instruction;
+import org.aksw.limes.core.execution.planning.plan.NestedPlan;
+import org.aksw.limes.core.execution.planning.plan.Plan;
+import org.aksw.limes.core.execution.planning.planner.DynamicPlanner;
 import org.aksw.limes.core.execution.planning.planner.IPlanner;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.ILinkSink;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.measures.measure.MeasureType;
 
 /**
- * Implements the default execution engine class. The idea is that the engine
+ * Implements the parallel execution engine class. The idea is that the engine
  * gets as input a link specification and a planner type, executes the
  * independent parts of the plan returned from the planner in parallel and
- * returns a MemoryMemoryMapping.
- *
+ * returns a MemoryMapping.
+ * <p>
+ * For the static planners (Canonical and Helios), all subplans of a nested
+ * plan are executed as fork-join tasks on a work-stealing pool and their
+ * results are merged with the same operators and in the same order as in the
+ * {@link SimpleExecutionEngine}. For the Dynamic planner, the two children of
+ * an OR or XOR specification are executed concurrently. The second child of
+ * an AND or MINUS specification is planned using the results of the first
+ * child, hence these children are executed one after the other.
  *
  * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
  * @version 1.0
  */
-public class ParallelExecutionEngine extends ExecutionEngine {
+public class ParallelExecutionEngine extends SimpleExecutionEngine {
+
+    /**
+     * Measures whose mappers keep their state in static fields, i.e., the
+     * measures of the OrchidMapper and of the SymmetricHausdorffMapper, which
+     * runs an OrchidMapper. Runs of these measures are not executed
+     * concurrently.
+     */
+    private static final Set<MeasureType> SEQUENTIAL_MEASURES = EnumSet.of(
+            MeasureType.GEO_CENTROID_INDEXED_HAUSDORFF, MeasureType.GEO_FAST_HAUSDORFF, MeasureType.GEO_HAUSDORFF,
+            MeasureType.GEO_INDEXED_HAUSDORFF, MeasureType.GEO_NAIVE_HAUSDORFF,
+            MeasureType.GEO_SCAN_INDEXED_HAUSDORFF, MeasureType.GEO_SYMMETRIC_HAUSDORFF, MeasureType.GEO_MAX,
+            MeasureType.GEO_MEAN, MeasureType.GEO_MIN, MeasureType.GEO_AVG, MeasureType.GEO_FRECHET,
+            MeasureType.GEO_LINK, MeasureType.GEO_SUM_OF_MIN, MeasureType.GEO_NAIVE_SURJECTION,
+            MeasureType.GEO_FAIR_SURJECTION);
+
+    /** Monitor of the runs of the {@link #SEQUENTIAL_MEASURES} */
+    private static final Object SEQUENTIAL_LOCK = new Object();
+
+    /**
+     * Pool that executes the subplans, null for the pool of the
+     * {@link ExecutionContext} at the time of the execution.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for a parallel execution engine that uses the shared pool
+     * of the {@link ExecutionContext}.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     */
+    public ParallelExecutionEngine(ACache source, ACache target, String sourceVar, String targetVar) {
+        this(source, target, sourceVar, targetVar, null);
+    }
+
     /**
      * Constructor for a parallel execution engine.
      *
@@ -27,10 +91,143 @@ public class ParallelExecutionEngine extends ExecutionEngine {
      *            Source variable
      * @param targetVar
      *            Target variable
+     * @param pool
+     *            Pool that executes the subplans, null for the shared pool
+     *            of the {@link ExecutionContext}
+     */
+    public ParallelExecutionEngine(ACache source, ACache target, String sourceVar, String targetVar,
+            ForkJoinPool pool) {
+        super(source, target, sourceVar, targetVar);
+        this.pool = pool;
+    }
+
+    /**
+     * Constructor for a parallel execution engine that uses the shared pool
+     * of the {@link ExecutionContext}.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     * @param maxOpt,
+     *            optimization time constraint
+     * @param k,
+     *            expected selectivity
      */
     public ParallelExecutionEngine(ACache source, ACache target, String sourceVar, String targetVar, long maxOpt,
             double k) {
-        super(source, target, sourceVar, targetVar);
+        super(source, target, sourceVar, targetVar, maxOpt, k);
+        this.pool = null;
+    }
+
+    /**
+     * The shared pool is looked up for every execution, since changing the
+     * parallelism of the {@link ExecutionContext} replaces it.
+     *
+     * @return the pool that executes the subplans
+     */
+    private ForkJoinPool getPool() {
+        return pool != null ? pool : ExecutionContext.getPool();
+    }
+
+    /**
+     * Implementation of the execution of a plan. Since atomic plans are
+     * executed concurrently, every plan is executed with its own buffer of
+     * intermediate mappings.
+     *
+     * @param plan
+     *            An execution plan
+     * @return The mapping obtained from executing the plan
+     */
+    @Override
+    public AMapping executeInstructions(Plan plan) {
+        SimpleExecutionEngine engine = new SimpleExecutionEngine(source, target, sourceVariable, targetVariable) {
+            @Override
+            public AMapping executeRun(Instruction inst) {
+                return ParallelExecutionEngine.this.executeRun(inst);
+            }
+        };
+        engine.setMappingType(mappingType);
+        engine.setResultCache(resultCache);
+        return engine.executeInstructions(plan);
+    }
+
+    /**
+     * Implements the execution of the RUN operator. Mappers that are not
+     * thread-safe are executed one at a time.
+     *
+     * @param inst
+     *            Atomic RUN instruction
+     * @return The mapping obtained from executing the atomic RUN instruction
+     */
+    @Override
+    public AMapping executeRun(Instruction inst) {
+        if (SEQUENTIAL_MEASURES.contains(MeasureFactory.getMeasureType(inst.getMeasureExpression()))) {
+            synchronized (SEQUENTIAL_LOCK) {
+                return super.executeRun(inst);
+            }
+        }
+        return super.executeRun(inst);
+    }
+
+    /**
+     * Executes the subplans of a complex nested plan in parallel. The
+     * topological measures of the subplans are computed together first, see
+     * {@link #batchTopologicalRuns(List)}.
+     *
+     * @param subPlans
+     *            The subplans of a complex nested plan
+     * @return The mappings obtained from executing the subplans, in the order
+     *         of the subplans
+     */
+    @Override
+    protected List<AMapping> executeSubPlans(List<NestedPlan> subPlans) {
+        batchTopologicalRuns(subPlans);
+        List<ForkJoinTask<AMapping>> tasks = new ArrayList<ForkJoinTask<AMapping>>(subPlans.size());
+        for (NestedPlan subPlan : subPlans) {
+            tasks.add(ForkJoinTask.adapt((Callable<AMapping>) () -> executeStatic(subPlan)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        List<AMapping> results = new ArrayList<AMapping>(subPlans.size());
+        for (ForkJoinTask<AMapping> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Executes an input link specification in a dynamic fashion. See
+     * {@link SimpleExecutionEngine#executeDynamic(LinkSpecification, DynamicPlanner)}.
+     * If the specification has not been executed yet and has an OR or XOR
+     * operator, both children are executed concurrently first. The results of
+     * the children are then retrieved from the executed results.
+     *
+     * @param spec
+     *            The input link specification
+     * @param planner,
+     *            The dynamic planner
+     * @return The mapping obtained from executing the link specification.
+     */
+    @Override
+    public AMapping executeDynamic(LinkSpecification spec, DynamicPlanner planner) {
+        if (!spec.isEmpty() && !spec.isAtomic() && !planner.isExecuted(spec) && planner.getDependency(spec) == null
+                && (spec.getOperator().equals(LogicOperator.OR) || spec.getOperator().equals(LogicOperator.XOR))) {
+            NestedPlan plan = planner.plan(spec);
+            if (plan.getSubPlans() != null && plan.getSubPlans().size() > 1) {
+                LinkSpecification firstSpec = planner.getLinkSpec(plan.getSubPlans().get(0));
+                LinkSpecification secondSpec = planner.getLinkSpec(plan.getSubPlans().get(1));
+                if (firstSpec != null && secondSpec != null) {
+                    ForkJoinTask.invokeAll(
+                            ForkJoinTask.adapt((Callable<AMapping>) () -> executeDynamic(firstSpec, planner)),
+                            ForkJoinTask.adapt((Callable<AMapping>) () -> executeDynamic(secondSpec, planner)));
+                }
+            }
+        }
+        return super.executeDynamic(spec, planner);
     }
 
     /**
@@ -45,7 +242,31 @@ public class ParallelExecutionEngine extends ExecutionEngine {
      */
     @Override
     public AMapping execute(LinkSpecification spec, IPlanner planner) {
-        throw new UnsupportedOperationException("Not implemented yet");
+        if (ForkJoinTask.inForkJoinPool()) {
+            return super.execute(spec, planner);
+        }
+        return getPool().invoke(ForkJoinTask.adapt((Callable<AMapping>) () -> super.execute(spec, planner)));
+    }
+
+    /**
+     * Implementation of the execution of an execution plan that pushes the
+     * links of the result into a sink. Independent parts of the plan are
+     * executed in parallel, the links are pushed by a single thread.
+     *
+     * @param spec
+     *            The input link specification
+     * @param planner
+     *            The chosen planner
+     * @param sink
+     *            Sink of the links of the result
+     */
+    @Override
+    public void execute(LinkSpecification spec, IPlanner planner, ILinkSink sink) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            super.execute(spec, planner, sink);
+        } else {
+            getPool().invoke(ForkJoinTask.adapt(() -> super.execute(spec, planner, sink)));
+        }
     }
 
 }
@@ -0,0 +1,349 @@
+package org.aksw.limes.core.execution.engine;
+
+import java.lang.ref.WeakReference;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.ComplementMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.measures.measure.MeasureType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements a cache of the mappings of atomic measures as computed by the
+ * RUN instructions of the {@link SimpleExecutionEngine}. Learners execute the
+ * same atomic measures against the same caches many times, so they hand one
+ * result cache to all engines of a learning run by
+ * {@link ExecutionEngine#setResultCache(ResultCache)} and drop it afterwards.
+ * Engines do not cache results unless a result cache is set.
+ * <p>
+ * A mapping is identified by the identity and the
+ * {@link ACache#getModificationStamp() modification stamp} of the source and
+ * target cache, the variables and the measure expression without white
+ * space, hence mappings computed before a cache was changed are not reused.
+ * Per measure, only the mapping of the lowest threshold is kept, since the
+ * mapping of any higher threshold is obtained from it by filtering. The
+ * mappers of some measures prune candidates depending on the threshold, such
+ * that they are not guaranteed to return a subset of the links of a lower
+ * threshold: their mappings are only reused for the same threshold. The size
+ * of the cache is measured in links, counting one additional link per
+ * mapping: the least recently used mappings are evicted as soon as their
+ * total size exceeds the capacity, and mappings larger than the capacity are
+ * not cached at all. The caches are only weakly referenced.
+ */
+public class ResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    public static final long DEFAULT_CAPACITY = 1000000;
+
+    /** Measures whose mappings are not reused for higher thresholds */
+    private static final Set<MeasureType> THRESHOLD_DEPENDENT = EnumSet.of(MeasureType.JAROWINKLER,
+            MeasureType.KOELN);
+
+    private long capacity;
+
+    private long size = 0;
+
+    private final LinkedHashMap<Key, CachedMapping> mappings = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructor with a capacity of {@value #DEFAULT_CAPACITY} links.
+     */
+    public ResultCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            maximal total number of links of the cached mappings
+     */
+    public ResultCache(long capacity) {
+        this.capacity = Math.max(0, capacity);
+    }
+
+    /**
+     * Sets the maximal total number of links of the cached mappings and evicts
+     * the least recently used mappings as long as it is exceeded.
+     *
+     * @param capacity
+     *            number of links, 0 disables the cache
+     */
+    public synchronized void setCapacity(long capacity) {
+        if (capacity != this.capacity) {
+            logger.info("Setting capacity of the result cache to " + capacity + " links.");
+            this.capacity = Math.max(0, capacity);
+            evict();
+        }
+    }
+
+    /**
+     * @return the maximal total number of links of the cached mappings
+     */
+    public synchronized long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the links of a cached mapping of the measure whose similarity
+     * reaches the threshold. The cached mapping is not changed by changes of
+     * the returned mapping.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     * @param expression
+     *            Atomic measure expression
+     * @param threshold
+     *            Similarity threshold
+     * @param type
+     *            Type of the returned mapping
+     * @return a new mapping of the given type or null if no mapping of the
+     *         measure at the threshold or below is cached
+     */
+    public AMapping get(ACache source, ACache target, String sourceVar, String targetVar, String expression,
+            double threshold, MappingType type) {
+        CachedMapping cached = lookup(source, target, sourceVar, targetVar, expression, threshold);
+        if (cached == null) {
+            return null;
+        }
+        return copy(cached.mapping, cached.threshold == threshold ? Double.NEGATIVE_INFINITY : threshold, type);
+    }
+
+    /**
+     * Checks whether {@link #get(ACache, ACache, String, String, String, double, MappingType)}
+     * would return a mapping, without copying it.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     * @param expression
+     *            Atomic measure expression
+     * @param threshold
+     *            Similarity threshold
+     * @return true if a mapping of the measure at the threshold or below is
+     *         cached
+     */
+    public boolean contains(ACache source, ACache target, String sourceVar, String targetVar,
+            String expression, double threshold) {
+        return lookup(source, target, sourceVar, targetVar, expression, threshold) != null;
+    }
+
+    private CachedMapping lookup(ACache source, ACache target, String sourceVar, String targetVar,
+            String expression, double threshold) {
+        if (source == null || target == null) {
+            return null;
+        }
+        Key key = new Key(source, target, sourceVar, targetVar, expression);
+        CachedMapping cached;
+        synchronized (this) {
+            cached = mappings.get(key);
+        }
+        if (cached == null || cached.threshold > threshold
+                || (cached.threshold < threshold && !isFilterable(expression))) {
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Caches the mapping of a measure, unless it is larger than the capacity
+     * or a mapping of the measure at the same or a lower threshold is cached
+     * already. A cached mapping must not be changed afterwards.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     * @param expression
+     *            Atomic measure expression
+     * @param threshold
+     *            Similarity threshold the mapping was computed for
+     * @param mapping
+     *            Mapping of the measure
+     * @return true if the mapping was cached
+     */
+    public boolean put(ACache source, ACache target, String sourceVar, String targetVar,
+            String expression, double threshold, AMapping mapping) {
+        if (source == null || target == null) {
+            return false;
+        }
+        Key key = new Key(source, target, sourceVar, targetVar, expression);
+        synchronized (this) {
+            if (weight(mapping) > capacity) {
+                return false;
+            }
+            CachedMapping old = mappings.get(key);
+            if (old != null && old.threshold <= threshold) {
+                return false;
+            }
+            // drop the mappings of garbage collected caches
+            Iterator<Entry<Key, CachedMapping>> it = mappings.entrySet().iterator();
+            while (it.hasNext()) {
+                Entry<Key, CachedMapping> e = it.next();
+                if (!e.getKey().isValid()) {
+                    size -= weight(e.getValue().mapping);
+                    it.remove();
+                }
+            }
+            old = mappings.put(key, new CachedMapping(threshold, mapping));
+            if (old != null) {
+                size -= weight(old.mapping);
+            }
+            size += weight(mapping);
+            evict();
+            return true;
+        }
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    public synchronized void clear() {
+        mappings.clear();
+        size = 0;
+    }
+
+    /**
+     * @return the number of cached mappings
+     */
+    public synchronized int size() {
+        return mappings.size();
+    }
+
+    /**
+     * Copies the links of a mapping whose similarity reaches the threshold.
+     *
+     * @param mapping
+     *            Input mapping
+     * @param threshold
+     *            Similarity threshold
+     * @param type
+     *            Type of the copy
+     * @return a new mapping of the given type, a {@link ComplementMapping}
+     *         is only materialized if another type than
+     *         {@link MappingType#DEFAULT} is requested
+     */
+    static AMapping copy(AMapping mapping, double threshold, MappingType type) {
+        if (mapping instanceof ComplementMapping && ((ComplementMapping) mapping).isComplement()) {
+            // shares the URIs and the excluded links, but not later changes
+            return MappingFactory.convert(mapping.getSubMap(threshold), type);
+        }
+        AMapping result = MappingFactory.createMapping(type);
+        result.setPredicate(mapping.getPredicate());
+        for (Entry<String, HashMap<String, Double>> s : mapping.getMap().entrySet()) {
+            for (Entry<String, Double> t : s.getValue().entrySet()) {
+                if (t.getValue() >= threshold) {
+                    result.add(s.getKey(), t.getKey(), t.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isFilterable(String expression) {
+        return !THRESHOLD_DEPENDENT.contains(MeasureFactory.getMeasureType(expression));
+    }
+
+    private static long weight(AMapping mapping) {
+        return mapping.size() + 1L;
+    }
+
+    private void evict() {
+        Iterator<CachedMapping> eldest = mappings.values().iterator();
+        while (size > capacity) {
+            size -= weight(eldest.next().mapping);
+            eldest.remove();
+        }
+    }
+
+    private static class CachedMapping {
+
+        private final double threshold;
+        private final AMapping mapping;
+
+        CachedMapping(double threshold, AMapping mapping) {
+            this.threshold = threshold;
+            this.mapping = mapping;
+        }
+    }
+
+    /**
+     * Identifies a mapping by the identity and modification stamp of the
+     * caches, the variables and the normalized measure expression.
+     */
+    private static class Key {
+
+        private final WeakReference<ACache> source;
+        private final WeakReference<ACache> target;
+        private final long sourceStamp;
+        private final long targetStamp;
+        private final String sourceVar;
+        private final String targetVar;
+        private final String expression;
+        private final int hash;
+
+        Key(ACache source, ACache target, String sourceVar, String targetVar, String expression) {
+            this.source = new WeakReference<ACache>(source);
+            this.target = new WeakReference<ACache>(target);
+            this.sourceStamp = source.getModificationStamp();
+            this.targetStamp = target.getModificationStamp();
+            this.sourceVar = sourceVar;
+            this.targetVar = targetVar;
+            this.expression = expression.replaceAll("\\s", "");
+            this.hash = 31 * (31 * (31 * (31 * System.identityHashCode(source) + System.identityHashCode(target))
+                    + String.valueOf(sourceVar).hashCode()) + String.valueOf(targetVar).hashCode())
+                    + this.expression.hashCode();
+        }
+
+        boolean isValid() {
+            return source.get() != null && target.get() != null;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            ACache s = source.get();
+            ACache t = target.get();
+            return s != null && t != null && s == other.source.get() && t == other.target.get()
+                    && sourceStamp == other.sourceStamp && targetStamp == other.targetStamp
+                    && String.valueOf(sourceVar).equals(String.valueOf(other.sourceVar))
+                    && String.valueOf(targetVar).equals(String.valueOf(other.targetVar))
+                    && expression.equals(other.expression);
+        }
+    }
+}
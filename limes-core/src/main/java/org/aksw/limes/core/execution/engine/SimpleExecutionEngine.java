@@ -1,8 +1,11 @@
 package org.aksw.limes.core.execution.engine;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aksw.limes.core.datastrutures.LogicOperator;
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
@@ -16,11 +19,13 @@ import org.aksw.limes.core.execution.planning.planner.IPlanner;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.ILinkSink;
 import org.aksw.limes.core.io.mapping.MappingFactory;
-import org.aksw.limes.core.io.mapping.MemoryMapping;
 import org.aksw.limes.core.measures.mapper.IMapper;
 import org.aksw.limes.core.measures.mapper.MapperFactory;
 import org.aksw.limes.core.measures.mapper.MappingOperations;
+import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
+import org.aksw.limes.core.measures.mapper.topology.RADON;
 import org.aksw.limes.core.measures.measure.MeasureFactory;
 import org.aksw.limes.core.measures.measure.MeasureType;
 import org.slf4j.Logger;
@@ -42,7 +47,12 @@ public class SimpleExecutionEngine extends ExecutionEngine {
     /**
      * Map of intermediate mappings. Used for dynamic planning.
      */
-    private HashMap<String, AMapping> dynamicResults = new HashMap<String, AMapping>();
+    private Map<String, AMapping> dynamicResults = new ConcurrentHashMap<String, AMapping>();
+    /**
+     * Mappings of RUN instructions that were computed together with the RUN
+     * instructions of their siblings and have not been returned yet.
+     */
+    private Map<Instruction, AMapping> batchedRuns = new ConcurrentHashMap<Instruction, AMapping>();
 
     /**
      * Constructor for a simple execution engine.
@@ -122,7 +132,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
                 m = executeDifference(getBuffer().get(inst.getSourceIndex()), getBuffer().get(inst.getTargetIndex()));
             } // xor
             else if (inst.getCommand().equals(Command.XOR)) {
-                LinearFilter f = new LinearFilter();
+                LinearFilter f = new LinearFilter(mappingType);
                 AMapping m1 = executeUnion(getBuffer().get(inst.getSourceIndex()), getBuffer().get(inst.getTargetIndex()));
                 m1 = f.filter(m1, Double.parseDouble(inst.getThreshold()));
                 AMapping m2 = executeIntersection(getBuffer().get(inst.getSourceIndex()), getBuffer().get(inst.getTargetIndex()));
@@ -141,12 +151,12 @@ public class SimpleExecutionEngine extends ExecutionEngine {
             }
             // place resulting mapping in the buffer
             if (index < 0) {// add the new mapping at the end of the list
-                getBuffer().add((MemoryMapping) m);
+                getBuffer().add(m);
             } else {
                 // avoid overriding places in buffer
                 // by adding the result at the end
                 if (index < getBuffer().size()) {
-                    getBuffer().add((MemoryMapping) m);
+                    getBuffer().add(m);
                 } else {
                     // add placeholders to ensure that the mapping can be placed
                     // where the user wanted to have it
@@ -154,7 +164,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
                     while ((index + 1) > getBuffer().size()) {
                         getBuffer().add(MappingFactory.createDefaultMapping());
                     }
-                    getBuffer().set(index, (MemoryMapping) m);
+                    getBuffer().set(index, m);
                 }
 
             }
@@ -171,7 +181,10 @@ public class SimpleExecutionEngine extends ExecutionEngine {
 
     /**
      * Implements the execution of the RUN operator. The input instruction must
-     * include an atomic link specification.
+     * include an atomic link specification. The mapping is taken from the
+     * {@link ResultCache} of the engine, if any, if the measure was executed
+     * on the same caches at the same or a lower threshold before, or from the
+     * mappings computed by {@link #batchTopologicalRuns(List)}.
      *
      * @param inst
      *            Atomic RUN instruction
@@ -184,13 +197,30 @@ public class SimpleExecutionEngine extends ExecutionEngine {
             throw new InvalidThresholdException(threshold);
 
         } else {
-            IMapper mapper;
-            // try {
-            MeasureType type = MeasureFactory.getMeasureType(inst.getMeasureExpression());
-            mapper = MapperFactory.createMapper(type);
-
-            return mapper.getMapping(source, target, sourceVariable, targetVariable, inst.getMeasureExpression(),
-                    threshold);
+            ResultCache results = resultCache;
+            if (results != null) {
+                AMapping cached = results.get(source, target, sourceVariable, targetVariable,
+                        inst.getMeasureExpression(), threshold, mappingType);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            AMapping m = batchedRuns.remove(inst);
+            if (m == null) {
+                IMapper mapper;
+                // try {
+                MeasureType type = MeasureFactory.getMeasureType(inst.getMeasureExpression());
+                mapper = MapperFactory.createMapper(type);
+
+                m = mapper.getMapping(source, target, sourceVariable, targetVariable, inst.getMeasureExpression(),
+                        threshold);
+            }
+            if (results != null && results.put(source, target, sourceVariable, targetVariable,
+                    inst.getMeasureExpression(), threshold, m)) {
+                // the cached mapping must not be changed by the caller
+                return ResultCache.copy(m, Double.NEGATIVE_INFINITY, mappingType);
+            }
+            return MappingFactory.convert(m, mappingType);
             /*
              * } catch (InvalidMeasureException e) { e.printStackTrace();
              * logger.info("Returning an empty mapping"); }
@@ -213,7 +243,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
      * @return Filtered mapping
      */
     private AMapping executeReverseFilter(Instruction inst, AMapping input) {
-        LinearFilter filter = new LinearFilter();
+        LinearFilter filter = new LinearFilter(mappingType);
         return filter.reversefilter(input, inst.getMeasureExpression(), Double.parseDouble(inst.getThreshold()),
                 Double.parseDouble(inst.getMainThreshold()), source, target, sourceVariable, targetVariable);
     }
@@ -228,7 +258,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
      * @return filtered Mapping
      */
     public AMapping executeFilter(Instruction inst, AMapping input) {
-        LinearFilter filter = new LinearFilter();
+        LinearFilter filter = new LinearFilter(mappingType);
         AMapping m = MappingFactory.createDefaultMapping();
         if (inst.getMeasureExpression() == null)
             m = filter.filter(input, Double.parseDouble(inst.getThreshold()));
@@ -244,6 +274,29 @@ public class SimpleExecutionEngine extends ExecutionEngine {
         return m;
     }
 
+    /**
+     * Returns a sink that applies a filtering instruction to each link before
+     * pushing it into the given sink. See
+     * {@link #executeFilter(Instruction, AMapping)}.
+     *
+     * @param inst
+     *            Input instruction with FILTER command
+     * @param sink
+     *            Sink of the filtered links
+     * @return Sink of the links that are to be filtered
+     */
+    protected ILinkSink executeFilter(Instruction inst, ILinkSink sink) {
+        LinearFilter filter = new LinearFilter(mappingType);
+        if (inst.getMeasureExpression() == null)
+            return filter.filter(sink, Double.parseDouble(inst.getThreshold()));
+        else if (inst.getMainThreshold() != null)
+            return filter.filter(sink, inst.getMeasureExpression(), Double.parseDouble(inst.getThreshold()),
+                    Double.parseDouble(inst.getMainThreshold()), source, target, sourceVariable, targetVariable);
+        else
+            return filter.filter(sink, inst.getMeasureExpression(), Double.parseDouble(inst.getThreshold()), source,
+                    target, sourceVariable, targetVariable);
+    }
+
     /**
      * Implements the difference between two mappings.
      *
@@ -308,29 +361,10 @@ public class SimpleExecutionEngine extends ExecutionEngine {
           // subplan
         else {
             // run all the subplans
-            m = executeStatic(plan.getSubPlans().get(0));
-            AMapping m2, result = m;
-            for (int i = 1; i < plan.getSubPlans().size(); i++) {
-                m2 = executeStatic(plan.getSubPlans().get(i));
-                if (plan.getOperator().equals(Command.INTERSECTION)) {
-                    result = executeIntersection(m, m2);
-                } // union
-                else if (plan.getOperator().equals(Command.UNION)) {
-                    result = executeUnion(m, m2);
-                } // diff
-                else if (plan.getOperator().equals(Command.DIFF)) {
-                    result = executeDifference(m, m2);
-                    // exclusive or
-                } else if (plan.getOperator().equals(Command.XOR)) {
-                    LinearFilter f = new LinearFilter();
-                    AMapping mleft = executeUnion(m, m2);
-                    mleft = f.filter(mleft, Double.parseDouble(plan.getThreshold()));
-
-                    AMapping mright = executeIntersection(m, m2);
-                    mright = f.filter(mright, Double.parseDouble(plan.getThreshold()));
-                    result = executeDifference(mleft, mright);
-                }
-                m = result;
+            List<AMapping> subResults = executeSubPlans(plan.getSubPlans());
+            m = subResults.get(0);
+            for (int i = 1; i < subResults.size(); i++) {
+                m = executeOperator(plan, m, subResults.get(i));
             }
             // only run filtering if there is a filter indeed, else simply
             // return MemoryMapping
@@ -342,6 +376,215 @@ public class SimpleExecutionEngine extends ExecutionEngine {
         return m;
     }
 
+    /**
+     * Merges the results of two subplans of a complex nested plan using the
+     * operator of the plan.
+     *
+     * @param plan
+     *            A complex nested plan
+     * @param m
+     *            First Mapping
+     * @param m2
+     *            Second Mapping
+     * @return The merged mapping, m if the plan has no known operator
+     */
+    private AMapping executeOperator(NestedPlan plan, AMapping m, AMapping m2) {
+        if (plan.getOperator().equals(Command.INTERSECTION)) {
+            return executeIntersection(m, m2);
+        } // union
+        else if (plan.getOperator().equals(Command.UNION)) {
+            return executeUnion(m, m2);
+        } // diff
+        else if (plan.getOperator().equals(Command.DIFF)) {
+            return executeDifference(m, m2);
+            // exclusive or
+        } else if (plan.getOperator().equals(Command.XOR)) {
+            LinearFilter f = new LinearFilter(mappingType);
+            AMapping mleft = executeUnion(m, m2);
+            mleft = f.filter(mleft, Double.parseDouble(plan.getThreshold()));
+
+            AMapping mright = executeIntersection(m, m2);
+            mright = f.filter(mright, Double.parseDouble(plan.getThreshold()));
+            return executeDifference(mleft, mright);
+        }
+        return m;
+    }
+
+    /**
+     * Executes an immutable nested plan like
+     * {@link #executeStatic(NestedPlan)}, but pushes the links of the result
+     * into a sink instead of returning them. The results of the subplans are
+     * computed as usual, while the operator of the root and its filtering
+     * instruction are applied link by link, so that the result of the root is
+     * never held in memory.
+     *
+     * @param plan
+     *            A nested plan created by a static planner (Canonical or
+     *            Helios)
+     * @param sink
+     *            Sink of the links of the result
+     */
+    public void executeStatic(NestedPlan plan, ILinkSink sink) {
+        if (plan.isEmpty()) {
+        } else if (plan.isAtomic()) {
+            stream(executeInstructions(plan), sink);
+        } else {
+            if (plan.getFilteringInstruction() != null) {
+                sink = executeFilter(plan.getFilteringInstruction(), sink);
+            }
+            List<AMapping> subResults = executeSubPlans(plan.getSubPlans());
+            AMapping m = subResults.get(0);
+            int last = subResults.size() - 1;
+            for (int i = 1; i < last; i++) {
+                m = executeOperator(plan, m, subResults.get(i));
+            }
+            if (last == 0) {
+                stream(m, sink);
+            } else {
+                streamOperator(plan, m, subResults.get(last), sink);
+            }
+        }
+    }
+
+    /**
+     * Pushes the links of the merge of two mappings into a sink. Each link is
+     * pushed once, with the similarity the operator of the plan assigns it.
+     *
+     * @param plan
+     *            A complex nested plan
+     * @param m
+     *            First Mapping
+     * @param m2
+     *            Second Mapping
+     * @param sink
+     *            Sink of the merged links
+     */
+    private void streamOperator(NestedPlan plan, AMapping m, AMapping m2, ILinkSink sink) {
+        Command operator = plan.getOperator();
+        if (!operator.equals(Command.INTERSECTION) && !operator.equals(Command.UNION)
+                && !operator.equals(Command.DIFF) && !operator.equals(Command.XOR)) {
+            stream(m, sink);
+            return;
+        }
+        double threshold = operator.equals(Command.XOR) ? Double.parseDouble(plan.getThreshold()) : 0;
+        m.stream((source, target, sim) -> {
+            boolean both = m2.contains(source, target);
+            double sim2 = both ? m2.getConfidence(source, target) : 0;
+            if (operator.equals(Command.INTERSECTION)) {
+                if (both) {
+                    sink.add(source, target, Math.min(sim, sim2));
+                }
+            } else if (operator.equals(Command.UNION)) {
+                sink.add(source, target, both ? Math.max(sim, sim2) : sim);
+            } else if (operator.equals(Command.DIFF)) {
+                if (!both) {
+                    sink.add(source, target, sim);
+                }
+            } else {
+                // in the union of both filtered, but not in their
+                // filtered intersection
+                double union = both ? Math.max(sim, sim2) : sim;
+                if (passes(union, threshold) && !(both && passes(Math.min(sim, sim2), threshold))) {
+                    sink.add(source, target, union);
+                }
+            }
+        });
+        if (operator.equals(Command.UNION) || operator.equals(Command.XOR)) {
+            m2.stream((source, target, sim) -> {
+                if (!m.contains(source, target) && passes(sim, threshold)) {
+                    sink.add(source, target, sim);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return true iff a link with the similarity passes
+     *         {@link LinearFilter#filter(AMapping, double)}
+     */
+    private static boolean passes(double similarity, double threshold) {
+        return threshold <= 0 || similarity >= threshold;
+    }
+
+    /**
+     * Pushes all links of a mapping into a sink.
+     *
+     * @param m
+     *            Mapping
+     * @param sink
+     *            Sink of the links
+     */
+    protected static void stream(AMapping m, ILinkSink sink) {
+        m.stream(sink);
+    }
+
+    /**
+     * Executes the subplans of a complex nested plan. The subplans are
+     * independent of each other and are executed one after the other. The
+     * topological measures of the subplans are computed together first, see
+     * {@link #batchTopologicalRuns(List)}.
+     *
+     * @param subPlans
+     *            The subplans of a complex nested plan
+     * @return The mappings obtained from executing the subplans, in the order
+     *         of the subplans
+     */
+    protected List<AMapping> executeSubPlans(List<NestedPlan> subPlans) {
+        batchTopologicalRuns(subPlans);
+        List<AMapping> results = new ArrayList<AMapping>(subPlans.size());
+        for (NestedPlan subPlan : subPlans) {
+            results.add(executeStatic(subPlan));
+        }
+        return results;
+    }
+
+    /**
+     * Computes the mappings of the topological measures of the RUN
+     * instructions of sibling atomic subplans together. Measures that compare
+     * the same properties are grouped, and each group of at least two
+     * relations is computed by a single {@link RADON} call, which indexes the
+     * geometries once and derives all relations from one DE-9IM matrix per
+     * candidate pair. The mappings are returned by
+     * {@link #executeRun(Instruction)} when the subplans are executed.
+     * Measures whose mapping is cached already are left out.
+     *
+     * @param subPlans
+     *            The subplans of a complex nested plan
+     */
+    protected void batchTopologicalRuns(List<NestedPlan> subPlans) {
+        Map<List<String>, Map<String, Instruction>> groups = new LinkedHashMap<>();
+        for (NestedPlan subPlan : subPlans) {
+            if (subPlan.isEmpty() || !subPlan.isAtomic()) {
+                continue;
+            }
+            for (Instruction inst : subPlan.getInstructionList()) {
+                if (!inst.getCommand().equals(Command.RUN)) {
+                    continue;
+                }
+                String relation = RADON.getRelation(MeasureFactory.getMeasureType(inst.getMeasureExpression()));
+                double threshold = Double.parseDouble(inst.getThreshold());
+                if (relation == null || threshold <= 0 || (resultCache != null && resultCache.contains(source,
+                        target, sourceVariable, targetVariable, inst.getMeasureExpression(), threshold))) {
+                    continue;
+                }
+                List<String> properties = PropertyFetcher.getProperties(inst.getMeasureExpression(), threshold);
+                groups.computeIfAbsent(properties, k -> new LinkedHashMap<>()).putIfAbsent(relation, inst);
+            }
+        }
+        for (Map<String, Instruction> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            Instruction first = group.values().iterator().next();
+            Map<String, AMapping> mappings = RADON.getMappings(source, target, sourceVariable, targetVariable,
+                    first.getMeasureExpression(), Double.parseDouble(first.getThreshold()),
+                    group.keySet().toArray(new String[0]));
+            for (Entry<String, Instruction> e : group.entrySet()) {
+                batchedRuns.put(e.getValue(), mappings.get(e.getKey()));
+            }
+        }
+    }
+
     /**
      * Executes an input link specification L in a dynamic fashion. See
      * {@link #execute(LinkSpecification, IPlanner)}. If L is already executed,
@@ -449,7 +692,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
                             secondSpec = planner.getLinkSpec(plan.getSubPlans().get(1));
                         }
                         m2 = executeDynamic(secondSpec, planner);
-                        LinearFilter f = new LinearFilter();
+                        LinearFilter f = new LinearFilter(mappingType);
                         AMapping mleft = executeUnion(m, m2);
                         mleft = f.filter(mleft, Double.parseDouble(plan.getThreshold()));
 
@@ -516,4 +759,30 @@ public class SimpleExecutionEngine extends ExecutionEngine {
         return m;
     }
 
+    /**
+     * Executes a link specification like
+     * {@link #execute(LinkSpecification, IPlanner)}, but pushes the links of
+     * the result into a sink while the root of the plan is executed. For the
+     * Canonical and Helios planner, the root operator and filter are applied
+     * link by link, see {@link #executeStatic(NestedPlan, ILinkSink)}. The
+     * Dynamic planner needs the size of each result to update its plans,
+     * hence the result of the root is computed first and pushed afterwards.
+     *
+     * @param spec
+     *            The link specification, after it was re-written
+     * @param planner
+     *            The chosen planner
+     * @param sink
+     *            Sink of the links of the result
+     */
+    @Override
+    public void execute(LinkSpecification spec, IPlanner planner, ILinkSink sink) {
+        spec = planner.normalize(spec);
+        if (planner.isStatic() == false) {
+            stream(executeDynamic(spec, (DynamicPlanner) planner), sink);
+        } else {
+            executeStatic(planner.plan(spec), sink);
+        }
+    }
+
 }
@@ -3,8 +3,13 @@ package org.aksw.limes.core.execution.engine.filter;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.CompactMapping;
+import org.aksw.limes.core.io.mapping.ComplementMapping;
+import org.aksw.limes.core.io.mapping.ILinkSink;
 import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
 import org.aksw.limes.core.measures.mapper.MappingOperations;
+import org.aksw.limes.core.measures.measure.CompiledExpression;
 import org.aksw.limes.core.measures.measure.MeasureProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +25,28 @@ public class LinearFilter implements IFilter {
 
     static Logger logger = LoggerFactory.getLogger(LinearFilter.class);
 
+    /**
+     * Type of the filtered mappings.
+     */
+    private final MappingType mappingType;
+
+    /**
+     * Constructor for a filter that returns default mappings.
+     */
+    public LinearFilter() {
+        this(MappingType.DEFAULT);
+    }
+
+    /**
+     * Constructor for a filter that returns mappings of the given type.
+     *
+     * @param mappingType
+     *            Type of the filtered mappings
+     */
+    public LinearFilter(MappingType mappingType) {
+        this.mappingType = mappingType;
+    }
+
     /**
      * Naive filter function for mapping using a threshold as filtering
      * criterion. The output mapping includes set of links from the initial
@@ -35,8 +62,13 @@ public class LinearFilter implements IFilter {
         double sim = 0.0;
         if (threshold <= 0.0) {
             return map;
+        } else if (map instanceof CompactMapping && mappingType == MappingType.COMPACT_MAPPING) {
+            return map.getSubMap(threshold);
+        } else if (map instanceof ComplementMapping) {
+            // all links have the same similarity
+            return MappingFactory.convert(map.getSubMap(threshold), mappingType);
         } else {
-            AMapping result = MappingFactory.createDefaultMapping();
+            AMapping result = MappingFactory.createMapping(mappingType);
             // run on all pairs and remove those whose similarity is below
             // the threshold
             for (String key : map.getMap().keySet()) {
@@ -83,14 +115,15 @@ public class LinearFilter implements IFilter {
             logger.error("Null condition in filter function (LinearFilter). Exiting..");
             throw new RuntimeException();
         }
+        CompiledExpression compiled = MeasureProcessor.compile(condition, threshold, sourceVar, targetVar);
 
-        AMapping result = MappingFactory.createDefaultMapping();
+        AMapping result = MappingFactory.createMapping(mappingType);
         // 2. run on all pairs and remove those
         for (String key : map.getMap().keySet()) {
             s = source.getInstance(key);
             for (String value : map.getMap().get(key).keySet()) {
                 t = target.getInstance(value);
-                sim = MeasureProcessor.getSimilarity(s, t, condition, threshold, sourceVar, targetVar);
+                sim = compiled.getSimilarity(s, t);
                 if (sim >= threshold) {
                     result.add(s.getUri(), t.getUri(), sim);
                 }
@@ -133,17 +166,18 @@ public class LinearFilter implements IFilter {
             ACache target, String sourceVar, String targetVar) {
         double sim = 0.0;
         Instance s, t;
-        AMapping result = MappingFactory.createDefaultMapping();
+        AMapping result = MappingFactory.createMapping(mappingType);
         if (condition == null) {
             logger.info("Null condition in extended filter function (LinearFilter). Exiting..");
             throw new RuntimeException();
         }
+        CompiledExpression compiled = MeasureProcessor.compile(condition, threshold, sourceVar, targetVar);
 
         for (String key : map.getMap().keySet()) {
             s = source.getInstance(key);
             for (String value : map.getMap().get(key).keySet()) {
                 t = target.getInstance(value);
-                sim = MeasureProcessor.getSimilarity(s, t, condition, threshold, sourceVar, targetVar);
+                sim = compiled.getSimilarity(s, t);
                 // result must pass the filter threshold first!
                 if (sim >= threshold) {
                     double sim2 = map.getConfidence(key, value);
@@ -194,18 +228,19 @@ public class LinearFilter implements IFilter {
 
         double sim = 0.0;
         Instance s, t;
-        AMapping result = MappingFactory.createDefaultMapping();
+        AMapping result = MappingFactory.createMapping(mappingType);
         if (condition == null) {
             System.err.println("Null condition in extended reverse filter function (LinearFilter). Exiting..");
             throw new RuntimeException();
         }
+        CompiledExpression compiled = MeasureProcessor.compile(condition, threshold, sourceVar, targetVar);
 
         // 2. run on all pairs and remove those
         for (String key : map.getMap().keySet()) {
             s = source.getInstance(key);
             for (String value : map.getMap().get(key).keySet()) {
                 t = target.getInstance(value);
-                sim = MeasureProcessor.getSimilarity(s, t, condition, threshold, sourceVar, targetVar);
+                sim = compiled.getSimilarity(s, t);
 
                 // similarity of s and t must be 0 to be accepted
                 if (sim == 0) {
@@ -220,6 +255,102 @@ public class LinearFilter implements IFilter {
 
     }
 
+    /**
+     * Link by link version of {@link #filter(AMapping, double)}.
+     *
+     * @param sink
+     *            Sink of the filtered links
+     * @param threshold
+     *            Value of threshold
+     * @return a sink that only passes links with sim {@literal >}= threshold
+     *         on to the given sink
+     */
+    public ILinkSink filter(ILinkSink sink, double threshold) {
+        if (threshold <= 0.0) {
+            return sink;
+        }
+        return (s, t, sim) -> {
+            if (sim >= threshold) {
+                sink.add(s, t, sim);
+            }
+        };
+    }
+
+    /**
+     * Link by link version of
+     * {@link #filter(AMapping, String, double, ACache, ACache, String, String)}.
+     *
+     * @param sink
+     *            Sink of the filtered links
+     * @param condition
+     *            The condition for filtering
+     * @param threshold
+     *            Value of threshold
+     * @param source
+     *            Source knowledge base
+     * @param target
+     *            Target knowledge base
+     * @param sourceVar
+     *            Source property
+     * @param targetVar
+     *            Target property
+     * @return a sink that passes the links that satisfy the condition and the
+     *         threshold on to the given sink
+     */
+    public ILinkSink filter(ILinkSink sink, String condition, double threshold, ACache source, ACache target,
+            String sourceVar, String targetVar) {
+        if (condition == null) {
+            logger.error("Null condition in filter function (LinearFilter). Exiting..");
+            throw new RuntimeException();
+        }
+        CompiledExpression compiled = MeasureProcessor.compile(condition, threshold, sourceVar, targetVar);
+        return (s, t, sim) -> {
+            double conditionSim = compiled.getSimilarity(source.getInstance(s), target.getInstance(t));
+            if (conditionSim >= threshold) {
+                sink.add(s, t, conditionSim);
+            }
+        };
+    }
+
+    /**
+     * Link by link version of
+     * {@link #filter(AMapping, String, double, double, ACache, ACache, String, String)}.
+     *
+     * @param sink
+     *            Sink of the filtered links
+     * @param condition
+     *            The condition for filtering
+     * @param threshold
+     *            Value of the first threshold
+     * @param mainThreshold
+     *            Value of second threshold
+     * @param source
+     *            Source knowledge base
+     * @param target
+     *            Target knowledge base
+     * @param sourceVar
+     *            Source property
+     * @param targetVar
+     *            Target property
+     * @return a sink that passes the links that satisfy the condition and the
+     *         thresholds on to the given sink
+     */
+    public ILinkSink filter(ILinkSink sink, String condition, double threshold, double mainThreshold, ACache source,
+            ACache target, String sourceVar, String targetVar) {
+        if (condition == null) {
+            logger.info("Null condition in extended filter function (LinearFilter). Exiting..");
+            throw new RuntimeException();
+        }
+        CompiledExpression compiled = MeasureProcessor.compile(condition, threshold, sourceVar, targetVar);
+        return (s, t, sim) -> {
+            double conditionSim = compiled.getSimilarity(source.getInstance(s), target.getInstance(t));
+            // min similarity because of AND operator
+            if (conditionSim >= threshold && Math.min(conditionSim, sim) >= mainThreshold) {
+                sink.add(s, t, Math.min(conditionSim, sim));
+            }
+        };
+    }
+
     /**
      * Filter for linear combinations when operation is set to "add", given the
      * expression a*sim1 + b*sim2 {@literal >}= t or multiplication given the
@@ -250,7 +381,7 @@ public class LinearFilter implements IFilter {
     public AMapping filter(AMapping map1, AMapping map2, double coef1, double coef2, double threshold,
             String operation) {
         AMapping m = MappingOperations.intersection(map1, map2);
-        AMapping result = MappingFactory.createDefaultMapping();
+        AMapping result = MappingFactory.createMapping(mappingType);
         double sim;
         // we can be sure that each key in m is also in m1 and m2 as we used
         // intersection
@@ -8,6 +8,7 @@ import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.ls.ExtendedLinkSpecification;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.ILinkSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,7 +52,17 @@ public class PartialRecallExecutionEngine extends SimpleExecutionEngine {
 
     @Override
     public AMapping execute(LinkSpecification spec, IPlanner planner) {
+        // needed in case of dynamic planner
+        // its normalize function initiliazes important structures
+        return super.execute(refine(spec), planner);
+    }
+
+    @Override
+    public void execute(LinkSpecification spec, IPlanner planner, ILinkSink sink) {
+        super.execute(refine(spec), planner, sink);
+    }
 
+    private LinkSpecification refine(LinkSpecification spec) {
         // normalization is necessary cause liger's refinement operator is
         // not defined for XOR
         spec = new ExtendedLinkSpecification(spec.getFullExpression(), spec.getThreshold());
@@ -59,10 +70,7 @@ public class PartialRecallExecutionEngine extends SimpleExecutionEngine {
         PartialRecallRefinementOperator liger = new LigerRefinementOperator(source, target, expectedSelectivity,
                 optimizationTime, spec);
         liger.optimize();
-        LinkSpecification newSpec = liger.getBest().getLinkSpecification();
-        // needed in case of dynamic planner
-        // its normalize function initiliazes important structures
-        return super.execute(newSpec, planner);
+        return liger.getBest().getLinkSpecification();
     }
 
 }
@@ -26,7 +26,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Implements the Dynamic planner class. It receives a link specification as
- * input and generates a mutable NestedPlan.
+ * input and generates a mutable NestedPlan. The planner is synchronized, since
+ * the parallel execution engine executes independent sub-specifications
+ * concurrently.
  *
  * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
  * @version 1.0
@@ -66,7 +68,7 @@ public class DynamicPlanner extends Planner {
         lang = Language.EN;
     }
 
-    public Map<String, NestedPlan> getPlans() {
+    public synchronized Map<String, NestedPlan> getPlans() {
         return plans;
     }
 
@@ -76,7 +78,7 @@ public class DynamicPlanner extends Planner {
      * @param spec
      *            The input link specification
      */
-    public void init(LinkSpecification spec) {
+    public synchronized void init(LinkSpecification spec) {
         NestedPlan plan = new NestedPlan();
         if (!plans.containsKey(spec.toString())) {
             if (spec.isAtomic()) {
@@ -109,7 +111,7 @@ public class DynamicPlanner extends Planner {
      * @param spec
      *            The recently executed specification
      */
-    public void createDependencies(LinkSpecification spec) {
+    public synchronized void createDependencies(LinkSpecification spec) {
         for (Entry<String, LinkSpecification> entry : specifications.entrySet()) {
             String dependentString = entry.getKey();
             LinkSpecification dependent = entry.getValue();
@@ -133,7 +135,7 @@ public class DynamicPlanner extends Planner {
      *            The dependent specification
      * @return a string representation of specification that spec depends upon
      */
-    public String getDependency(LinkSpecification spec) {
+    public synchronized String getDependency(LinkSpecification spec) {
         String specString = spec.toString();
         if (dependencies.containsKey(specString)) {
             return dependencies.get(spec.toString()).toString();
@@ -186,7 +188,7 @@ public class DynamicPlanner extends Planner {
      *            The input link specification
      * @return true if the plan is executed, or false otherwise
      */
-    public boolean isExecuted(LinkSpecification spec) {
+    public synchronized boolean isExecuted(LinkSpecification spec) {
         return (plans.get(spec.toString()).getExecutionStatus());
     }
 
@@ -221,7 +223,7 @@ public class DynamicPlanner extends Planner {
      *            The link specification
      * @return the plan of the input specification
      */
-    public NestedPlan getPlan(LinkSpecification spec) {
+    public synchronized NestedPlan getPlan(LinkSpecification spec) {
         if (plans.containsKey(spec.toString()))
             return plans.get(spec.toString());
         return null;
@@ -234,7 +236,7 @@ public class DynamicPlanner extends Planner {
      *            The nested plan
      * @return the spec of the input plan
      */
-    public LinkSpecification getLinkSpec(NestedPlan plan) {
+    public synchronized LinkSpecification getLinkSpec(NestedPlan plan) {
         for (Map.Entry<String, NestedPlan> entry : plans.entrySet()) {
             String spec = entry.getKey();
             NestedPlan value = entry.getValue();
@@ -256,7 +258,7 @@ public class DynamicPlanner extends Planner {
      * @param msize
      *            The real mapping size returned when the plan is executed
      */
-    public void updatePlan(LinkSpecification spec, double rt, double selectivity, double msize) {
+    public synchronized void updatePlan(LinkSpecification spec, double rt, double selectivity, double msize) {
         if (!plans.containsKey(spec.toString())) {
             logger.error("Specification: " + spec.getFullExpression() + " was not initialised. Exiting..");
             throw new RuntimeException();
@@ -279,7 +281,7 @@ public class DynamicPlanner extends Planner {
      * @return a NestedPlan of the input link specification
      */
     @Override
-    public NestedPlan plan(LinkSpecification spec) {
+    public synchronized NestedPlan plan(LinkSpecification spec) {
         return plan(spec, source, target, MappingFactory.createDefaultMapping(), MappingFactory.createDefaultMapping());
 
     }
@@ -303,7 +305,7 @@ public class DynamicPlanner extends Planner {
      *            Size of target mapping
      * @return a NestedPlan for the input link specification
      */
-    public NestedPlan plan(LinkSpecification spec, ACache source, ACache target, AMapping sourceMapping,
+    public synchronized NestedPlan plan(LinkSpecification spec, ACache source, ACache target, AMapping sourceMapping,
             AMapping targetMapping) {
         NestedPlan plan = new NestedPlan();
 
@@ -458,7 +460,7 @@ public class DynamicPlanner extends Planner {
      * @return the resulting nested plan for the input spec, that is least
      *         costly
      */
-    public NestedPlan getBestDifferencePlan(LinkSpecification spec, NestedPlan left, NestedPlan right,
+    public synchronized NestedPlan getBestDifferencePlan(LinkSpecification spec, NestedPlan left, NestedPlan right,
             double selectivity) {
         double runtime1 = 0, runtime2 = 0;
         NestedPlan result = new NestedPlan();
@@ -584,7 +586,7 @@ public class DynamicPlanner extends Planner {
      * @return the resulting nested plan for the input spec, that is least
      *         costly
      */
-    public NestedPlan getBestConjunctivePlan(LinkSpecification spec, NestedPlan left, NestedPlan right,
+    public synchronized NestedPlan getBestConjunctivePlan(LinkSpecification spec, NestedPlan left, NestedPlan right,
             double selectivity) {
         double runtime1 = 0, runtime2 = 0, runtime3 = 0;
         NestedPlan result = new NestedPlan();
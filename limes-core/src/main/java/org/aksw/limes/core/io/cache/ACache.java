@@ -36,6 +36,27 @@ public abstract class ACache implements ICache {
     public abstract void replaceInstance(String uri, Instance a);
 
     public abstract Set<String> getAllProperties();
+
+    /**
+     * @return true iff the instances returned by this cache are copies, i.e.,
+     *         changes to them are only stored by handing them back through
+     *         {@link #replaceInstance(String, Instance)}
+     */
+    public boolean returnsDetachedInstances() {
+        return false;
+    }
+
+    /**
+     * @return a stamp that changes whenever the content of the cache changes,
+     *         used to detect results computed on an older content. By default
+     *         it is derived from the size and the hash code of the cache,
+     *         which covers instances changed in place but takes time linear
+     *         in the size of the cache. Caches should override it with a
+     *         counter of their writes.
+     */
+    public long getModificationStamp() {
+        return ((long) size() << 32) | (hashCode() & 0xffffffffL);
+    }
     
     @Override
     public abstract ACache clone();
@@ -0,0 +1,58 @@
+package org.aksw.limes.core.io.cache;
+
+/**
+ * Typed, read-only view on the values of one property of a
+ * {@link ColumnarCache}. The values of all instances are stored in one
+ * primitive array. The values of the instance with id <code>i</code> are found
+ * at the positions <code>getStart(i)</code> (inclusive) to
+ * <code>getEnd(i)</code> (exclusive) of that array, in the order of the
+ * string values.
+ */
+public abstract class AValueColumn {
+
+    protected final int[] offsets;
+
+    /**
+     * @param offsets
+     *         start position of the values of each instance, followed by the
+     *         total number of values
+     */
+    protected AValueColumn(int[] offsets) {
+        this.offsets = offsets;
+    }
+
+    /**
+     * @return the number of instances covered by the column
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param id
+     *         instance id
+     * @return position of the first value of the instance
+     */
+    public int getStart(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * @param id
+     *         instance id
+     * @return position after the last value of the instance
+     */
+    public int getEnd(int id) {
+        return offsets[id + 1];
+    }
+
+    /**
+     * @param id
+     *         instance id
+     * @return the number of values of the instance
+     */
+    public int getNumberOfValues(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+}
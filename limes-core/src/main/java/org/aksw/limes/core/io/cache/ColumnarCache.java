@@ -0,0 +1,567 @@
+package org.aksw.limes.core.io.cache;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.aksw.limes.core.io.preprocessing.Preprocessor;
+import org.aksw.limes.core.util.LimesWktReader;
+import org.aksw.limes.core.util.datetime.DateTimeFormat;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.RDF;
+import org.locationtech.jts.geom.Geometry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory cache that stores its data column-wise instead of as
+ * {@link Instance} objects. Every URI gets an int instance id and every
+ * property name is interned to an int property id. For each property, one
+ * array maps the instance ids to their values: a single value is stored
+ * inline as a String, several values as a sorted String array. This avoids
+ * the set and map entries an {@link Instance} needs for each property.
+ * <p>
+ * Numeric, temporal and WKT values can be read as typed columns, see
+ * {@link #getNumericColumn(String)}, {@link #getTemporalColumn(String)} and
+ * {@link #getGeometryColumn(String)}. A typed column is parsed once on first
+ * access and kept until the next write to the cache.
+ * <p>
+ * Instances returned by this cache are detached copies. Changes to them are
+ * only stored by handing them back through {@link #replaceInstance(String, Instance)},
+ * see {@link #returnsDetachedInstances()}.
+ */
+public class ColumnarCache extends ACache {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarCache.class);
+
+    private static final String[] NO_VALUES = new String[0];
+
+    private final ArrayList<String> uris = new ArrayList<>();
+    private final HashMap<String, Integer> uriIds = new HashMap<>();
+
+    private final ArrayList<String> propertyNames = new ArrayList<>();
+    private final HashMap<String, Integer> propertyIds = new HashMap<>();
+    // values.get(p)[id] is null, a String or a sorted String[]
+    private final ArrayList<Object[]> values = new ArrayList<>();
+
+    // typed columns by property id, dropped on every write
+    private final HashMap<Integer, NumericColumn> numericColumns = new HashMap<>();
+    private final HashMap<Integer, TemporalColumn> temporalColumns = new HashMap<>();
+    private final HashMap<Integer, GeometryColumn> geometryColumns = new HashMap<>();
+
+    // id of the instance returned by the next call of getNextInstance
+    private int cursor = 0;
+
+    // number of writes, see getModificationStamp
+    private long modifications = 0;
+
+    // ------------------------------------------------------------------
+    // writing
+    // ------------------------------------------------------------------
+
+    @Override
+    public synchronized void addTriple(String s, String p, String o) {
+        addValue(internProperty(p), getOrCreateId(s), o);
+        invalidateColumns();
+    }
+
+    /**
+     * Adds an instance to the cache. As for {@link MemoryCache}, the instance
+     * is ignored if the cache already contains its URI.
+     */
+    @Override
+    public synchronized void addInstance(Instance i) {
+        if (!uriIds.containsKey(i.getUri())) {
+            addValues(getOrCreateId(i.getUri()), i);
+            invalidateColumns();
+        }
+    }
+
+    @Override
+    public synchronized void replaceInstance(String uri, Instance a) {
+        int id = getOrCreateId(uri);
+        for (Object[] column : values) {
+            if (id < column.length) {
+                column[id] = null;
+            }
+        }
+        addValues(id, a);
+        invalidateColumns();
+    }
+
+    private void addValues(int id, Instance i) {
+        for (String property : i.getAllProperties()) {
+            int p = internProperty(property);
+            for (String value : i.getProperty(property)) {
+                addValue(p, id, value);
+            }
+        }
+    }
+
+    private int getOrCreateId(String uri) {
+        Integer id = uriIds.get(uri);
+        if (id == null) {
+            id = uris.size();
+            uris.add(uri);
+            uriIds.put(uri, id);
+        }
+        return id;
+    }
+
+    private int internProperty(String property) {
+        Integer p = propertyIds.get(property);
+        if (p == null) {
+            p = propertyNames.size();
+            propertyNames.add(property);
+            propertyIds.put(property, p);
+            values.add(new Object[Math.max(16, uris.size())]);
+        }
+        return p;
+    }
+
+    private void addValue(int p, int id, String value) {
+        Object[] column = values.get(p);
+        if (id >= column.length) {
+            column = Arrays.copyOf(column, Math.max(id + 1, column.length * 2));
+            values.set(p, column);
+        }
+        Object cell = column[id];
+        if (cell == null) {
+            column[id] = value;
+        } else if (cell instanceof String) {
+            int cmp = value.compareTo((String) cell);
+            if (cmp < 0) {
+                column[id] = new String[] { value, (String) cell };
+            } else if (cmp > 0) {
+                column[id] = new String[] { (String) cell, value };
+            }
+        } else {
+            String[] cellValues = (String[]) cell;
+            int pos = Arrays.binarySearch(cellValues, value);
+            if (pos < 0) {
+                pos = -pos - 1;
+                String[] extended = new String[cellValues.length + 1];
+                System.arraycopy(cellValues, 0, extended, 0, pos);
+                extended[pos] = value;
+                System.arraycopy(cellValues, pos, extended, pos + 1, cellValues.length - pos);
+                column[id] = extended;
+            }
+        }
+    }
+
+    private void invalidateColumns() {
+        modifications++;
+        numericColumns.clear();
+        temporalColumns.clear();
+        geometryColumns.clear();
+    }
+
+    // ------------------------------------------------------------------
+    // reading
+    // ------------------------------------------------------------------
+
+    /**
+     * @param property
+     *         property name
+     * @return the id the property name is interned to, -1 if the cache has
+     *         no such property
+     */
+    public int getPropertyId(String property) {
+        Integer p = propertyIds.get(property);
+        return p == null ? -1 : p;
+    }
+
+    /**
+     * @param p
+     *         property id
+     * @return the name of the property
+     */
+    public String getPropertyName(int p) {
+        return propertyNames.get(p);
+    }
+
+    /**
+     * @param uri
+     *         URI to look for
+     * @return the instance id of the URI, -1 if it is not in the cache
+     */
+    public int getId(String uri) {
+        Integer id = uriIds.get(uri);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id
+     *         instance id
+     * @return the URI of the instance
+     */
+    public String getUri(int id) {
+        return uris.get(id);
+    }
+
+    /**
+     * @param p
+     *         property id
+     * @param id
+     *         instance id
+     * @return the values of the property for the instance in ascending order
+     */
+    public String[] getValues(int p, int id) {
+        if (p < 0) {
+            return NO_VALUES;
+        }
+        Object[] column = values.get(p);
+        Object cell = id < column.length ? column[id] : null;
+        if (cell == null) {
+            return NO_VALUES;
+        }
+        if (cell instanceof String) {
+            return new String[] { (String) cell };
+        }
+        return ((String[]) cell).clone();
+    }
+
+    private int countValues(int p) {
+        int count = 0;
+        if (p >= 0) {
+            for (Object cell : values.get(p)) {
+                if (cell instanceof String) {
+                    count++;
+                } else if (cell != null) {
+                    count += ((String[]) cell).length;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param property
+     *         property name
+     * @return the values of the property parsed as double
+     */
+    public synchronized NumericColumn getNumericColumn(String property) {
+        int p = getPropertyId(property);
+        NumericColumn column = numericColumns.get(p);
+        if (column == null) {
+            int n = uris.size();
+            int[] offsets = new int[n + 1];
+            double[] parsed = new double[countValues(p)];
+            int k = 0;
+            for (int id = 0; id < n; id++) {
+                offsets[id] = k;
+                for (String value : getValues(p, id)) {
+                    try {
+                        parsed[k] = Double.parseDouble(value);
+                        k++;
+                    } catch (NumberFormatException e) {
+                        logger.debug(value + " is not a number, it is left out of the column of " + property);
+                    }
+                }
+            }
+            offsets[n] = k;
+            column = new NumericColumn(offsets, Arrays.copyOf(parsed, k));
+            numericColumns.put(p, column);
+        }
+        return column;
+    }
+
+    /**
+     * @param property
+     *         property name
+     * @return the values of the property parsed as time stamps
+     */
+    public synchronized TemporalColumn getTemporalColumn(String property) {
+        int p = getPropertyId(property);
+        TemporalColumn column = temporalColumns.get(p);
+        if (column == null) {
+            DateTimeFormat[] formats = DateTimeFormat.values();
+            SimpleDateFormat[] parsers = new SimpleDateFormat[formats.length];
+            for (int f = 0; f < formats.length; f++) {
+                parsers[f] = new SimpleDateFormat(formats[f].getPattern());
+            }
+            int n = uris.size();
+            int[] offsets = new int[n + 1];
+            long[] parsed = new long[countValues(p)];
+            byte[] parsedFormats = new byte[parsed.length];
+            int k = 0;
+            for (int id = 0; id < n; id++) {
+                offsets[id] = k;
+                for (String value : getValues(p, id)) {
+                    parsedFormats[k] = -1;
+                    for (int f = 0; f < parsers.length; f++) {
+                        try {
+                            parsed[k] = parsers[f].parse(value).getTime();
+                            parsedFormats[k] = (byte) f;
+                            break;
+                        } catch (ParseException e) {
+                        }
+                    }
+                    k++;
+                }
+            }
+            offsets[n] = k;
+            column = new TemporalColumn(offsets, parsed, parsedFormats);
+            temporalColumns.put(p, column);
+        }
+        return column;
+    }
+
+    /**
+     * @param property
+     *         property name
+     * @return the values of the property parsed as WKT geometries
+     */
+    public synchronized GeometryColumn getGeometryColumn(String property) {
+        int p = getPropertyId(property);
+        GeometryColumn column = geometryColumns.get(p);
+        if (column == null) {
+            LimesWktReader wktReader = new LimesWktReader();
+            int n = uris.size();
+            int[] offsets = new int[n + 1];
+            Geometry[] parsed = new Geometry[countValues(p)];
+            int k = 0;
+            for (int id = 0; id < n; id++) {
+                offsets[id] = k;
+                for (String value : getValues(p, id)) {
+                    try {
+                        parsed[k] = wktReader.read(value);
+                    } catch (org.locationtech.jts.io.ParseException | RuntimeException e) {
+                        logger.debug("Malformed geometry at " + uris.get(id) + ": " + value);
+                    }
+                    k++;
+                }
+            }
+            offsets[n] = k;
+            column = new GeometryColumn(offsets, parsed);
+            geometryColumns.put(p, column);
+        }
+        return column;
+    }
+
+    private Instance readInstance(int id) {
+        Instance instance = new Instance(uris.get(id));
+        for (int p = 0; p < propertyNames.size(); p++) {
+            Object[] column = values.get(p);
+            Object cell = id < column.length ? column[id] : null;
+            if (cell instanceof String) {
+                instance.addProperty(propertyNames.get(p), (String) cell);
+            } else if (cell != null) {
+                instance.addProperty(propertyNames.get(p), new TreeSet<String>(Arrays.asList((String[]) cell)));
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the next instance in insertion order.
+     *
+     * @return null if no next instance, else the next instance
+     */
+    @Override
+    public synchronized Instance getNextInstance() {
+        if (cursor < uris.size()) {
+            return readInstance(cursor++);
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void resetIterator() {
+        cursor = 0;
+    }
+
+    /**
+     * Materializes all instances. Use the typed columns or
+     * {@link #getNextInstance()} to avoid creating all of them at once.
+     *
+     * @return ArrayList containing all instances
+     */
+    @Override
+    public ArrayList<Instance> getAllInstances() {
+        ArrayList<Instance> instances = new ArrayList<>(uris.size());
+        for (int id = 0; id < uris.size(); id++) {
+            instances.add(readInstance(id));
+        }
+        return instances;
+    }
+
+    /**
+     * @return all URIs in insertion order, i.e., ordered by instance id
+     */
+    @Override
+    public ArrayList<String> getAllUris() {
+        return new ArrayList<>(uris);
+    }
+
+    @Override
+    public boolean containsInstance(Instance i) {
+        return containsUri(i.getUri());
+    }
+
+    @Override
+    public boolean containsUri(String uri) {
+        return uriIds.containsKey(uri);
+    }
+
+    /**
+     * @param uri
+     *         URI to look for
+     * @return A copy of the instance with the URI uri if it is in the cache, else null
+     */
+    @Override
+    public Instance getInstance(String uri) {
+        int id = getId(uri);
+        return id < 0 ? null : readInstance(id);
+    }
+
+    @Override
+    public int size() {
+        return uris.size();
+    }
+
+    /**
+     * @return true, changes to instances have to be written back through
+     *         {@link #replaceInstance(String, Instance)}
+     */
+    @Override
+    public boolean returnsDetachedInstances() {
+        return true;
+    }
+
+    /**
+     * Instances can only be changed through the cache, hence the writes are
+     * counted instead of hashing all instances
+     */
+    @Override
+    public synchronized long getModificationStamp() {
+        return modifications;
+    }
+
+    /**
+     * @return A random sample of the cache held in a {@link MemoryCache}
+     */
+    @Override
+    public ACache getSample(int sampleSize) {
+        ACache c = new MemoryCache();
+        Random random = new Random();
+        int target = Math.min(sampleSize, size());
+        while (c.size() < target) {
+            c.addInstance(readInstance(random.nextInt(size())));
+        }
+        return c;
+    }
+
+    @Override
+    public Set<String> getAllProperties() {
+        Set<String> properties = new HashSet<>();
+        for (int p = 0; p < propertyNames.size(); p++) {
+            if (countValues(p) > 0) {
+                properties.add(propertyNames.get(p));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Applies the preprocessing chain to a copy of every instance and stores
+     * the results in a new columnar cache. This cache is left as is.
+     */
+    @Override
+    public ACache addProperty(String sourcePropertyName, String targetPropertyName, String processingChain) {
+        ColumnarCache c = new ColumnarCache();
+        for (int id = 0, n = size(); id < n; id++) {
+            Instance i = readInstance(id);
+            Preprocessor.applyFunctionChain(i, sourcePropertyName, targetPropertyName, processingChain);
+            c.addInstance(i);
+        }
+        logger.debug("Cache is ready");
+        return c;
+    }
+
+    @Override
+    public Model parseCSVtoRDFModel(String baseURI, String IDbaseURI, String rdfType) {
+        if (baseURI.length() > 0 && !(baseURI.endsWith("#") || baseURI.endsWith("/"))) {
+            baseURI += "#";
+        }
+        Model model = ModelFactory.createDefaultModel();
+        Resource r_rdfType = model.createResource(baseURI + rdfType);
+        Map<String, Property> map = new HashMap<String, Property>();
+        for (String prop : getAllProperties()) {
+            map.put(prop, model.createProperty(baseURI + prop));
+        }
+        for (int id = 0; id < size(); id++) {
+            Instance i = readInstance(id);
+            Resource r = model.createResource(IDbaseURI + i.getUri());
+            model.add(model.createStatement(r, RDF.type, r_rdfType));
+            for (String prop : i.getAllProperties()) {
+                for (String value : i.getProperty(prop)) {
+                    Literal lit = model.createLiteral(value);
+                    Statement stmt = model.createStatement(r, map.get(prop), lit);
+                    model.add(stmt);
+                }
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Copies all instances into a new columnar cache. Ignores the iterator
+     * position.
+     */
+    @Override
+    public ColumnarCache clone() {
+        ColumnarCache clone = new ColumnarCache();
+        for (int id = 0, n = size(); id < n; id++) {
+            clone.addInstance(readInstance(id));
+        }
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarCache[size=" + size() + ", properties=" + propertyNames + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size(), getAllProperties());
+    }
+
+    /**
+     * Two columnar caches are equal if they contain equal instances,
+     * regardless of the order in which they were added
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ColumnarCache)) {
+            return false;
+        }
+        ColumnarCache other = (ColumnarCache) obj;
+        if (size() != other.size()) {
+            return false;
+        }
+        for (int id = 0; id < size(); id++) {
+            if (!readInstance(id).equals(other.getInstance(uris.get(id)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -1,13 +1,873 @@
 package org.aksw.limes.core.io.cache;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.aksw.limes.core.io.config.KBInfo;
+import org.aksw.limes.core.io.preprocessing.Preprocessor;
+import org.aksw.limes.core.io.query.IQueryModule;
+import org.aksw.limes.core.io.query.QueryModuleFactory;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.vocabulary.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
- * Not yet implemented. Will be an elaborate cache for very large data sets
- * that do not fit in memory.
- *
- * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
- * @author Mohamed Sherif (sherif@informatik.uni-leipzig.de)
- * @version Nov 23, 2015
+ * Cache for very large data sets that do not fit in memory. Instances are
+ * kept on the hard drive in memory-mapped segment files, so that the heap
+ * footprint is bounded by the size of the write buffer.
+ * <p>
+ * Writes (addTriple, addInstance, replaceInstance) go to an in-memory buffer
+ * of at most <code>bufferSize</code> instances. A full buffer is spilled to
+ * disk as a run sorted by URI. The first read after a write merges all runs
+ * and the current content of the cache into a new generation consisting of
+ * <ul>
+ * <li>an URI index, i.e., the URIs in ascending order, so that the position
+ * of an URI is its instance id and lookups are binary searches,</li>
+ * <li>one value column per property, mapping each instance id to the values
+ * of the property.</li>
+ * </ul>
+ * Bulk reads (getAllInstances, size, ...) merge all pending writes, which
+ * rewrites the cache. Point lookups (getInstance, containsUri) combine the
+ * buffered writes with the current generation in memory and only merge once
+ * writes have been spilled to disk. Hence, write in batches rather than
+ * interleaving bulk reads with single writes. An iteration started by
+ * {@link #resetIterator()} or {@link #getNextInstance()} walks through the
+ * instances as they were when it started, writes during the iteration are
+ * merged by the next read of another kind, which also restarts the
+ * iteration. Thus, all instances can be streamed, changed and written back
+ * with a bounded heap.
+ * <p>
+ * Instances returned by this cache are detached copies. Changes to them are
+ * only stored by handing them back through {@link #replaceInstance(String, Instance)},
+ * see {@link #returnsDetachedInstances()}.
+ * Call {@link #close()} to remove the files of the cache.
  */
-public class FileCache {
+public class FileCache extends ACache implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FileCache.class);
+
+    public static final int DEFAULT_BUFFER_SIZE = 100000;
+
+    // how a buffered instance is merged with the instance of the same URI in older data
+    private static final byte MERGE = 0;
+    private static final byte KEEP_EXISTING = 1;
+    private static final byte REPLACE = 2;
+
+    private final File folder;
+    private final boolean temporary;
+    private final int bufferSize;
+
+    // write buffer and sorted runs spilled from it
+    private TreeMap<String, PendingInstance> buffer = new TreeMap<>();
+    private final List<File> runs = new ArrayList<>();
+    private int runCounter = 0;
+
+    // current generation
+    private int generation = 0;
+    private int size = 0;
+    private MappedRecordFile uriRecords = null;
+    private MappedLongColumn uriIndex = null;
+    private List<String> properties = new ArrayList<>();
+    private List<MappedRecordFile> valueRecords = new ArrayList<>();
+    private List<MappedLongColumn> valueIndexes = new ArrayList<>();
+
+    // id of the instance returned by the next call of getNextInstance
+    private int cursor = 0;
+    // whether the iterator walks through the current generation, it is
+    // restarted after a merge
+    private boolean iterating = false;
+
+    // number of writes, see getModificationStamp
+    private long modifications = 0;
+
+    /**
+     * Creates a cache in a temporary folder, which is removed on {@link #close()}
+     */
+    public FileCache() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a cache in a temporary folder, which is removed on {@link #close()}
+     *
+     * @param bufferSize
+     *         maximal number of instances kept in memory before they are
+     *         spilled to disk
+     */
+    public FileCache(int bufferSize) {
+        this(createTemporaryFolder(), bufferSize, true);
+    }
+
+    /**
+     * Creates a cache storing its files in the given folder. Make sure the
+     * application has write permissions there.
+     *
+     * @param folder
+     *         folder holding the segment files of the cache
+     */
+    public FileCache(File folder) {
+        this(folder, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param folder
+     *         folder holding the segment files of the cache
+     * @param bufferSize
+     *         maximal number of instances kept in memory before they are
+     *         spilled to disk
+     */
+    public FileCache(File folder, int bufferSize) {
+        this(folder, bufferSize, false);
+    }
+
+    private FileCache(File folder, int bufferSize, boolean temporary) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive, got " + bufferSize);
+        }
+        this.folder = folder;
+        this.bufferSize = bufferSize;
+        this.temporary = temporary;
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new UncheckedIOException(new IOException("Cannot create cache folder " + folder.getAbsolutePath()));
+        }
+    }
+
+    private static File createTemporaryFolder() {
+        try {
+            File f = Files.createTempDirectory("limes-filecache").toFile();
+            f.deleteOnExit();
+            return f;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to get data of the specified endpoint into a file cache located
+     * in the "cache" folder of the folder specified.
+     *
+     * @param folder
+     *         Path to the parent folder of the "cache" folder.
+     * @param kb
+     *         Endpoint specification.
+     * @return FileCache of the data
+     */
+    public static FileCache getData(File folder, KBInfo kb) {
+        File cacheFolder = new File(folder.getAbsolutePath() + File.separatorChar + "cache" + File.separatorChar
+                + kb.hashCode() + ".filecache");
+        logger.info("Filling file cache " + cacheFolder.getAbsolutePath() + " for " + kb.getId());
+        FileCache cache = new FileCache(cacheFolder);
+        IQueryModule module = QueryModuleFactory.getQueryModule(kb.getType(), kb);
+        module.fillCache(cache);
+        logger.info("Size = " + cache.size());
+        return cache;
+    }
+
+    public static FileCache getData(KBInfo kb) {
+        return getData(new File(""), kb);
+    }
+
+    // ------------------------------------------------------------------
+    // writing
+    // ------------------------------------------------------------------
+
+    @Override
+    public synchronized void addTriple(String s, String p, String o) {
+        PendingInstance pending = buffer.get(s);
+        if (pending == null) {
+            pending = new PendingInstance(new Instance(s), MERGE);
+            buffer.put(s, pending);
+        }
+        if (pending.mode == KEEP_EXISTING) {
+            // the instance may be dropped in favour of older data, the triple may not
+            if (pending.additions == null) {
+                pending.additions = new Instance(s);
+            }
+            pending.additions.addProperty(p, o);
+        } else {
+            pending.instance.addProperty(p, o);
+        }
+        modifications++;
+        spillIfFull();
+    }
+
+    /**
+     * Adds an instance to the cache. As for {@link MemoryCache}, the instance
+     * is ignored if the cache already contains its URI. The instance is
+     * copied, later writes to the cache do not change the caller's object.
+     */
+    @Override
+    public synchronized void addInstance(Instance i) {
+        if (!buffer.containsKey(i.getUri())) {
+            buffer.put(i.getUri(), new PendingInstance(i.copy(), KEEP_EXISTING));
+            modifications++;
+            spillIfFull();
+        }
+    }
+
+    @Override
+    public synchronized void replaceInstance(String uri, Instance a) {
+        buffer.put(uri, new PendingInstance(a, REPLACE));
+        modifications++;
+        spillIfFull();
+    }
+
+    private void spillIfFull() {
+        if (buffer.size() >= bufferSize) {
+            try {
+                spill();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void spill() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        File run = new File(folder, "run-" + (runCounter++) + ".bin");
+        logger.debug("Spilling " + buffer.size() + " instances to " + run.getAbsolutePath());
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(run), 1 << 16))) {
+            for (Map.Entry<String, PendingInstance> e : buffer.entrySet()) {
+                PendingInstance pending = e.getValue();
+                writeRecord(out, e.getKey(), pending.mode, pending.instance);
+                // merged after the instance, it comes later in the same run
+                if (pending.additions != null) {
+                    writeRecord(out, e.getKey(), MERGE, pending.additions);
+                }
+            }
+        }
+        runs.add(run);
+        buffer = new TreeMap<>();
+    }
+
+    private static void writeRecord(DataOutputStream out, String uri, byte mode, Instance instance)
+            throws IOException {
+        out.writeByte(mode);
+        writeString(out, uri);
+        Set<String> props = instance.getAllProperties();
+        out.writeInt(props.size());
+        for (String p : props) {
+            writeString(out, p);
+            writeValues(out, instance.getProperty(p));
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // merging runs into a new generation
+    // ------------------------------------------------------------------
+
+    /**
+     * Merges pending writes into the on-disk index. Called before every read.
+     */
+    private synchronized void flush() {
+        if (buffer.isEmpty() && runs.isEmpty() && uriIndex != null) {
+            return;
+        }
+        try {
+            spill();
+            merge();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void merge() throws IOException {
+        PriorityQueue<RecordSource> queue = new PriorityQueue<>();
+        List<RecordSource> sources = new ArrayList<>();
+        // the current generation is the oldest source
+        if (uriIndex != null && size > 0) {
+            sources.add(new GenerationSource(0));
+        }
+        for (int i = 0; i < runs.size(); i++) {
+            sources.add(new RunSource(runs.get(i), i + 1));
+        }
+
+        int nextGeneration = generation + 1;
+        MappedRecordFile newUriRecords = new MappedRecordFile(new File(folder, "gen" + nextGeneration + "-uris"));
+        MappedLongColumn newUriIndex = new MappedLongColumn(new File(folder, "gen" + nextGeneration + "-uris.idx"));
+        List<String> newProperties = new ArrayList<>(properties);
+        Map<String, Integer> propertyIds = new HashMap<>();
+        List<MappedRecordFile> newValueRecords = new ArrayList<>();
+        List<MappedLongColumn> newValueIndexes = new ArrayList<>();
+        for (String p : newProperties) {
+            addColumn(nextGeneration, p, propertyIds, newValueRecords, newValueIndexes);
+        }
+
+        int id = 0;
+        try {
+            for (RecordSource source : sources) {
+                if (source.advance()) {
+                    queue.add(source);
+                }
+            }
+            while (!queue.isEmpty()) {
+                String uri = queue.peek().uri;
+                Instance merged = null;
+                // sources with equal URI are polled from oldest to newest
+                while (!queue.isEmpty() && queue.peek().uri.equals(uri)) {
+                    RecordSource source = queue.poll();
+                    if (merged == null || source.mode == REPLACE) {
+                        merged = source.instance;
+                    } else if (source.mode == MERGE) {
+                        for (String p : source.instance.getAllProperties()) {
+                            merged.addProperty(p, source.instance.getProperty(p));
+                        }
+                    }
+                    if (source.advance()) {
+                        queue.add(source);
+                    }
+                }
+                newUriIndex.set(id, newUriRecords.append(uri.getBytes(StandardCharsets.UTF_8)));
+                for (String p : merged.getAllProperties()) {
+                    Integer pid = propertyIds.get(p);
+                    if (pid == null) {
+                        newProperties.add(p);
+                        pid = addColumn(nextGeneration, p, propertyIds, newValueRecords, newValueIndexes);
+                    }
+                    newValueIndexes.get(pid).set(id, newValueRecords.get(pid).append(encodeValues(merged.getProperty(p))));
+                }
+                id++;
+            }
+        } finally {
+            for (RecordSource source : sources) {
+                source.close();
+            }
+        }
+
+        newUriRecords.seal();
+        newUriIndex.seal(id);
+        for (int pid = 0; pid < newProperties.size(); pid++) {
+            newValueRecords.get(pid).seal();
+            newValueIndexes.get(pid).seal(id);
+        }
+
+        deleteGeneration();
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+
+        generation = nextGeneration;
+        size = id;
+        uriRecords = newUriRecords;
+        uriIndex = newUriIndex;
+        properties = newProperties;
+        valueRecords = newValueRecords;
+        valueIndexes = newValueIndexes;
+        cursor = 0;
+        iterating = false;
+        logger.debug("Merged file cache generation " + generation + " with " + size + " instances");
+    }
+
+    private int addColumn(int gen, String property, Map<String, Integer> propertyIds,
+            List<MappedRecordFile> records, List<MappedLongColumn> indexes) {
+        int pid = records.size();
+        propertyIds.put(property, pid);
+        records.add(new MappedRecordFile(new File(folder, "gen" + gen + "-p" + pid)));
+        indexes.add(new MappedLongColumn(new File(folder, "gen" + gen + "-p" + pid + ".idx")));
+        return pid;
+    }
+
+    private void deleteGeneration() {
+        if (uriIndex != null) {
+            uriRecords.delete();
+            uriIndex.delete();
+            for (int pid = 0; pid < valueRecords.size(); pid++) {
+                valueRecords.get(pid).delete();
+                valueIndexes.get(pid).delete();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // reading
+    // ------------------------------------------------------------------
+
+    private String readUri(int id) {
+        return new String(uriRecords.read(uriIndex.get(id)), StandardCharsets.UTF_8);
+    }
+
+    private Instance readInstance(int id) {
+        Instance instance = new Instance(readUri(id));
+        for (int pid = 0; pid < properties.size(); pid++) {
+            long address = valueIndexes.get(pid).get(id);
+            if (address != MappedLongColumn.MISSING) {
+                instance.addProperty(properties.get(pid), decodeValues(valueRecords.get(pid).read(address)));
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Binary search over the URI index
+     *
+     * @return id of the URI or -1 if the URI is not contained in the cache
+     */
+    private int findId(String uri) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = readUri(mid).compareTo(uri);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the next instance in ascending URI order. Writes after the
+     * start of the iteration are not merged, hence they neither show up in
+     * nor restart the iteration.
+     *
+     * @return null if no next instance, else the next instance
+     */
+    @Override
+    public synchronized Instance getNextInstance() {
+        if (!iterating) {
+            flush();
+            iterating = true;
+        }
+        if (cursor < size) {
+            return readInstance(cursor++);
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void resetIterator() {
+        flush();
+        cursor = 0;
+        iterating = true;
+    }
+
+    /**
+     * Materializes all instances in memory. Use {@link #getNextInstance()}
+     * to stream over large caches.
+     *
+     * @return ArrayList containing all instances
+     */
+    @Override
+    public ArrayList<Instance> getAllInstances() {
+        flush();
+        ArrayList<Instance> instances = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            instances.add(readInstance(id));
+        }
+        return instances;
+    }
+
+    /**
+     * @return all URIs in ascending order, read sequentially from the URI index
+     */
+    @Override
+    public ArrayList<String> getAllUris() {
+        flush();
+        ArrayList<String> uris = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            uris.add(readUri(id));
+        }
+        return uris;
+    }
+
+    @Override
+    public boolean containsInstance(Instance i) {
+        return containsUri(i.getUri());
+    }
+
+    @Override
+    public boolean containsUri(String uri) {
+        return lookup(uri) != null;
+    }
+
+    /**
+     * @param uri
+     *         URI to look for
+     * @return A copy of the instance with the URI uri if it is in the cache, else null
+     */
+    @Override
+    public Instance getInstance(String uri) {
+        return lookup(uri);
+    }
+
+    /**
+     * Looks up an instance without merging the writes that are still
+     * buffered, they are applied to a copy of the stored instance the same way
+     * {@link #merge()} would apply them.
+     */
+    private synchronized Instance lookup(String uri) {
+        if (!runs.isEmpty()) {
+            flush();
+        }
+        int id = findId(uri);
+        Instance stored = id < 0 ? null : readInstance(id);
+        PendingInstance pending = buffer.get(uri);
+        if (pending == null) {
+            return stored;
+        }
+        Instance result = stored;
+        if (stored == null || pending.mode == REPLACE) {
+            result = pending.instance.copy();
+        } else if (pending.mode == MERGE) {
+            addProperties(result, pending.instance);
+        }
+        if (pending.additions != null) {
+            addProperties(result, pending.additions);
+        }
+        return result;
+    }
+
+    private static void addProperties(Instance target, Instance source) {
+        for (String p : source.getAllProperties()) {
+            target.addProperty(p, new TreeSet<>(source.getProperty(p)));
+        }
+    }
+
+    /**
+     * @return true, changes to instances have to be written back through
+     *         {@link #replaceInstance(String, Instance)}
+     */
+    @Override
+    public boolean returnsDetachedInstances() {
+        return true;
+    }
+
+    /**
+     * Instances can only be changed through the cache, hence the writes are
+     * counted instead of hashing all instances
+     */
+    @Override
+    public synchronized long getModificationStamp() {
+        return modifications;
+    }
+
+    @Override
+    public int size() {
+        flush();
+        return size;
+    }
+
+    /**
+     * @return A random sample of the cache held in a {@link MemoryCache}
+     */
+    @Override
+    public ACache getSample(int sampleSize) {
+        flush();
+        ACache c = new MemoryCache();
+        Random random = new Random();
+        int target = Math.min(sampleSize, size);
+        while (c.size() < target) {
+            c.addInstance(readInstance(random.nextInt(size)));
+        }
+        return c;
+    }
+
+    @Override
+    public Set<String> getAllProperties() {
+        flush();
+        return new HashSet<>(properties);
+    }
+
+    /**
+     * Streams all instances through the preprocessing chain into a new file
+     * cache. This cache is left as is.
+     */
+    @Override
+    public ACache addProperty(String sourcePropertyName, String targetPropertyName, String processingChain) {
+        FileCache c = emptyCopy();
+        for (int id = 0, n = size(); id < n; id++) {
+            Instance i = readInstance(id);
+            Preprocessor.applyFunctionChain(i, sourcePropertyName, targetPropertyName, processingChain);
+            c.addInstance(i);
+        }
+        logger.debug("Cache is ready");
+        return c;
+    }
+
+    @Override
+    public Model parseCSVtoRDFModel(String baseURI, String IDbaseURI, String rdfType) {
+        if (baseURI.length() > 0 && !(baseURI.endsWith("#") || baseURI.endsWith("/"))) {
+            baseURI += "#";
+        }
+        Model model = ModelFactory.createDefaultModel();
+        Resource r_rdfType = model.createResource(baseURI + rdfType);
+        Map<String, Property> map = new HashMap<String, Property>();
+        for (String prop : getAllProperties()) {
+            map.put(prop, model.createProperty(baseURI + prop));
+        }
+        for (int id = 0; id < size; id++) {
+            Instance i = readInstance(id);
+            Resource r = model.createResource(IDbaseURI + i.getUri());
+            model.add(model.createStatement(r, RDF.type, r_rdfType));
+            for (String prop : i.getAllProperties()) {
+                for (String value : i.getProperty(prop)) {
+                    Literal lit = model.createLiteral(value);
+                    Statement stmt = model.createStatement(r, map.get(prop), lit);
+                    model.add(stmt);
+                }
+            }
+        }
+        return model;
+    }
+
+    private FileCache emptyCopy() {
+        if (temporary) {
+            return new FileCache(bufferSize);
+        }
+        return new FileCache(new File(folder.getParentFile(), folder.getName() + "-" + System.nanoTime()), bufferSize);
+    }
+
+    /**
+     * Copies all instances into a new file cache. Ignores the iterator
+     * position.
+     */
+    @Override
+    public FileCache clone() {
+        FileCache clone = emptyCopy();
+        for (int id = 0, n = size(); id < n; id++) {
+            clone.addInstance(readInstance(id));
+        }
+        return clone;
+    }
+
+    /**
+     * Removes all files of the cache. The cache must not be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        deleteGeneration();
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+        buffer.clear();
+        uriIndex = null;
+        size = 0;
+        if (temporary) {
+            folder.delete();
+        }
+    }
+
+    public File getFolder() {
+        return folder;
+    }
+
+    @Override
+    public String toString() {
+        return "FileCache[" + folder.getAbsolutePath() + ", size=" + size() + "]";
+    }
+
+    /**
+     * Hashes the instances in URI order, the same data {@link #equals(Object)}
+     * compares. Like equals, this reads the whole cache.
+     */
+    @Override
+    public synchronized int hashCode() {
+        int result = 1;
+        for (int id = 0, n = size(); id < n; id++) {
+            result = 31 * result + readInstance(id).hashCode();
+        }
+        return result;
+    }
+
+    /**
+     * Compares the content of both caches by streaming over them in URI order
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FileCache)) {
+            return false;
+        }
+        FileCache other = (FileCache) obj;
+        if (size() != other.size()) {
+            return false;
+        }
+        for (int id = 0; id < size; id++) {
+            if (!readInstance(id).equals(other.readInstance(id))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------
+    // encoding
+    // ------------------------------------------------------------------
+
+    // DataOutput.writeUTF is limited to 64 KB, literals may be longer
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeValues(DataOutputStream out, Set<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String v : values) {
+            writeString(out, v);
+        }
+    }
+
+    private static TreeSet<String> readValues(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        TreeSet<String> values = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static byte[] encodeValues(Set<String> values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeValues(out, values);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static TreeSet<String> decodeValues(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            return readValues(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // helper classes
+    // ------------------------------------------------------------------
+
+    private static class PendingInstance {
+        final Instance instance;
+        final byte mode;
+        // triples added to a KEEP_EXISTING instance, merged even if older data wins
+        Instance additions = null;
+
+        PendingInstance(Instance instance, byte mode) {
+            this.instance = instance;
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * Sorted stream of instances taking part in a merge. Sources are ordered
+     * by their current URI and, for equal URIs, by age.
+     */
+    private abstract static class RecordSource implements Comparable<RecordSource>, Closeable {
+        final int age;
+        String uri;
+        Instance instance;
+        byte mode;
+
+        RecordSource(int age) {
+            this.age = age;
+        }
+
+        abstract boolean advance() throws IOException;
+
+        @Override
+        public int compareTo(RecordSource o) {
+            int cmp = uri.compareTo(o.uri);
+            return cmp != 0 ? cmp : Integer.compare(age, o.age);
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private class GenerationSource extends RecordSource {
+        private int id = 0;
+
+        GenerationSource(int age) {
+            super(age);
+            mode = MERGE;
+        }
+
+        @Override
+        boolean advance() {
+            if (id >= size) {
+                return false;
+            }
+            instance = readInstance(id++);
+            uri = instance.getUri();
+            return true;
+        }
+    }
+
+    private static class RunSource extends RecordSource {
+        private final DataInputStream in;
+
+        RunSource(File run, int age) throws IOException {
+            super(age);
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), 1 << 16));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            try {
+                mode = in.readByte();
+            } catch (EOFException e) {
+                return false;
+            }
+            uri = readString(in);
+            instance = new Instance(uri);
+            int props = in.readInt();
+            for (int i = 0; i < props; i++) {
+                String p = readString(in);
+                instance.addProperty(p, readValues(in));
+            }
+            return true;
+        }
 
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package org.aksw.limes.core.io.cache;
+
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Geometries of a WKT property of a {@link ColumnarCache}. Each value is
+ * parsed once with the {@link org.aksw.limes.core.util.LimesWktReader}.
+ * Malformed values are kept as null.
+ */
+public class GeometryColumn extends AValueColumn {
+
+    private final Geometry[] values;
+
+    GeometryColumn(int[] offsets, Geometry[] values) {
+        super(offsets);
+        this.values = values;
+    }
+
+    /**
+     * The returned geometry is shared by all callers and must not be
+     * modified.
+     *
+     * @param index
+     *         position of the value, see {@link #getStart(int)}
+     * @return the geometry at the position, null if the value is malformed
+     */
+    public Geometry getValue(int index) {
+        return values[index];
+    }
+
+}
@@ -228,6 +228,7 @@ public class HybridCache extends MemoryCache implements Serializable {
     public void addInstance(Instance i) {
         if (!instanceMap.containsKey(i.getUri())) {
             instanceMap.put(i.getUri(), i);
+            modifications++;
         }
     }
 
@@ -269,6 +270,7 @@ public class HybridCache extends MemoryCache implements Serializable {
             Instance m = new Instance(s);
             m.addProperty(p, o);
             instanceMap.put(s, m);
+            modifications++;
         }
     }
 
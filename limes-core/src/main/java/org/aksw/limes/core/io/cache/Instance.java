@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,11 @@ public class Instance implements Comparable<Object>, Serializable {
      *
      */
     private static final long serialVersionUID = -8613951110508439148L;
+
+    // number of changes of the properties of all instances, see
+    // getModificationCount
+    private static final LongAdder modifications = new LongAdder();
+
     public double distance;
     private String uri;
     private HashMap<String, TreeSet<String>> properties;
@@ -51,6 +57,7 @@ public class Instance implements Comparable<Object>, Serializable {
      *         value of the property for this instance
      */
     public void addProperty(String propUri, String value) {
+        modifications.increment();
         if (properties.containsKey(propUri)) {
             properties.get(propUri).add(value);
         } else {
@@ -61,6 +68,7 @@ public class Instance implements Comparable<Object>, Serializable {
     }
 
     public void addProperty(String propUri, TreeSet<String> values) {
+        modifications.increment();
         // propUri = propUri.toLowerCase();
         if (properties.containsKey(propUri)) {
             Iterator<String> iter = values.iterator();
@@ -148,6 +156,18 @@ public class Instance implements Comparable<Object>, Serializable {
         }
     }
 
+    /**
+     * Returns the number of changes of the properties of all instances so
+     * far. Caches that hand out their instances derive their modification
+     * stamp from it, as these instances can be changed without the cache
+     * noticing.
+     *
+     * @return the number of changes of all instances
+     */
+    static long getModificationCount() {
+        return modifications.sum();
+    }
+
     public Instance copy() {
         Instance instance = new Instance(uri);
         HashMap<String, TreeSet<String>> ps = new HashMap<String, TreeSet<String>>();
@@ -167,6 +187,7 @@ public class Instance implements Comparable<Object>, Serializable {
      * @param uri of the property to be removed
      */
     public void removePropery(String uri) {
+        modifications.increment();
         if (properties.containsKey(uri)) {
             properties.remove(uri);
         }
@@ -0,0 +1,134 @@
+package org.aksw.limes.core.io.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Column of longs indexed by instance id, written sequentially and read
+ * through read-only memory-mapped segment files after {@link #seal(long)}. Ids
+ * that are skipped while writing are filled with {@link #MISSING}.
+ */
+class MappedLongColumn {
+
+    /** Value of ids that have not been set */
+    static final long MISSING = -1L;
+
+    /** 2^27 longs, i.e., 1 GB per segment */
+    private static final int SEGMENT_SHIFT = 27;
+    private static final int SEGMENT_ENTRIES = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_ENTRIES - 1;
+
+    private final File base;
+    private final List<File> segmentFiles = new ArrayList<>();
+    private List<LongBuffer> segments = null;
+
+    private DataOutputStream out = null;
+    private long size = 0;
+
+    /**
+     * @param base
+     *         prefix of the segment files, segment i is stored in base.i
+     */
+    MappedLongColumn(File base) {
+        this.base = base;
+    }
+
+    /**
+     * Sets the value of id. Ids must be set in ascending order, skipped ids
+     * are set to {@link #MISSING}.
+     *
+     * @param id
+     *         id to set, must not be smaller than the size of the column
+     * @param value
+     *         value of id
+     * @throws IOException
+     *         if writing the segment fails
+     */
+    void set(long id, long value) throws IOException {
+        if (id < size) {
+            throw new IllegalArgumentException("Id " + id + " already written to " + base);
+        }
+        while (size < id) {
+            write(MISSING);
+        }
+        write(value);
+    }
+
+    private void write(long value) throws IOException {
+        if ((size & SEGMENT_MASK) == 0) {
+            if (out != null) {
+                out.close();
+            }
+            File f = new File(base.getPath() + "." + segmentFiles.size());
+            segmentFiles.add(f);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16));
+        }
+        out.writeLong(value);
+        size++;
+    }
+
+    /**
+     * Pads the column with {@link #MISSING} up to the given size, closes the
+     * writer and maps all segments into memory.
+     *
+     * @param finalSize
+     *         number of ids of the column
+     * @throws IOException
+     *         if a segment cannot be written or mapped
+     */
+    void seal(long finalSize) throws IOException {
+        while (size < finalSize) {
+            write(MISSING);
+        }
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        segments = new ArrayList<>(segmentFiles.size());
+        for (File f : segmentFiles) {
+            try (RandomAccessFile raf = new RandomAccessFile(f, "r"); FileChannel channel = raf.getChannel()) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asLongBuffer());
+            }
+        }
+    }
+
+    /**
+     * @param id
+     *         id to look up
+     * @return value of the id
+     */
+    long get(long id) {
+        return segments.get((int) (id >>> SEGMENT_SHIFT)).get((int) (id & SEGMENT_MASK));
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Releases the mappings and removes all segment files
+     */
+    void delete() {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        } catch (IOException e) {
+            // nothing to flush into a file that is deleted anyway
+        }
+        segments = null;
+        for (File f : segmentFiles) {
+            f.delete();
+        }
+        segmentFiles.clear();
+    }
+}
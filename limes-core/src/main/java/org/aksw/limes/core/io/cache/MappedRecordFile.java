@@ -0,0 +1,139 @@
+package org.aksw.limes.core.io.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only store of variable length byte records split into segment files
+ * of bounded size. While writing, records are streamed to the current
+ * segment; after {@link #seal()} every segment is memory-mapped read-only and
+ * records are accessed by the address returned from {@link #append(byte[])}.
+ * The upper 32 bits of an address hold the segment number, the lower 32 bits
+ * the offset inside the segment.
+ */
+class MappedRecordFile {
+
+    /** Default segment size: 1 GB, well below the 2 GB limit of a single mapping */
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private final File base;
+    private final int segmentSize;
+    private final List<File> segmentFiles = new ArrayList<>();
+    private List<MappedByteBuffer> segments = null;
+
+    private DataOutputStream out = null;
+    private int position = 0;
+
+    /**
+     * @param base
+     *         prefix of the segment files, segment i is stored in base.i
+     * @param segmentSize
+     *         maximal number of bytes per segment
+     */
+    MappedRecordFile(File base, int segmentSize) {
+        this.base = base;
+        this.segmentSize = segmentSize;
+    }
+
+    MappedRecordFile(File base) {
+        this(base, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Appends a record
+     *
+     * @param record
+     *         bytes of the record
+     * @return address of the record
+     * @throws IOException
+     *         if writing the segment fails
+     */
+    long append(byte[] record) throws IOException {
+        if (segments != null) {
+            throw new IllegalStateException("Record file " + base + " is already sealed");
+        }
+        long needed = 4L + record.length;
+        if (needed > segmentSize) {
+            throw new IOException("Record of " + record.length + " bytes exceeds segment size " + segmentSize);
+        }
+        if (out == null || position + needed > segmentSize) {
+            openNextSegment();
+        }
+        long address = ((long) (segmentFiles.size() - 1) << 32) | position;
+        out.writeInt(record.length);
+        out.write(record);
+        position += needed;
+        return address;
+    }
+
+    private void openNextSegment() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        File f = new File(base.getPath() + "." + segmentFiles.size());
+        segmentFiles.add(f);
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16));
+        position = 0;
+    }
+
+    /**
+     * Closes the writer and maps all segments into memory. No more records
+     * can be appended afterwards.
+     *
+     * @throws IOException
+     *         if a segment cannot be mapped
+     */
+    void seal() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        segments = new ArrayList<>(segmentFiles.size());
+        for (File f : segmentFiles) {
+            try (RandomAccessFile raf = new RandomAccessFile(f, "r"); FileChannel channel = raf.getChannel()) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+    }
+
+    /**
+     * @param address
+     *         address as returned by {@link #append(byte[])}
+     * @return the bytes of the record
+     */
+    byte[] read(long address) {
+        ByteBuffer segment = segments.get((int) (address >>> 32)).duplicate();
+        segment.position((int) address);
+        byte[] record = new byte[segment.getInt()];
+        segment.get(record);
+        return record;
+    }
+
+    /**
+     * Releases the mappings and removes all segment files
+     */
+    void delete() {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        } catch (IOException e) {
+            // nothing to flush into a file that is deleted anyway
+        }
+        segments = null;
+        for (File f : segmentFiles) {
+            f.delete();
+        }
+        segmentFiles.clear();
+    }
+}
@@ -39,6 +39,9 @@ public class MemoryCache extends ACache {
     // Iterator for getting next instance
     protected Iterator<Instance> instanceIterator;
 
+    // number of writes, see getModificationStamp
+    protected long modifications = 0;
+
     public MemoryCache() {
         instanceMap = new HashMap<String, Instance>();
     }
@@ -74,6 +77,7 @@ public class MemoryCache extends ACache {
             // Instance m = instanceMap.get(i.getUri());
         } else {
             instanceMap.put(i.getUri(), i);
+            modifications++;
         }
     }
 
@@ -118,6 +122,7 @@ public class MemoryCache extends ACache {
             Instance m = new Instance(s);
             m.addProperty(p, o);
             instanceMap.put(s, m);
+            modifications++;
         }
     }
 
@@ -199,6 +204,17 @@ public class MemoryCache extends ACache {
             instanceMap.remove(uri);
         }
         instanceMap.put(uri, a);
+        modifications++;
+    }
+
+    /**
+     * The instances of this cache are handed out as they are and can be
+     * changed in place, hence the stamp also changes whenever any instance
+     * changes. Computing it takes constant time.
+     */
+    @Override
+    public long getModificationStamp() {
+        return modifications + Instance.getModificationCount();
     }
 
     public Model parseCSVtoRDFModel(String baseURI, String IDbaseURI, String rdfType) {
@@ -0,0 +1,36 @@
+package org.aksw.limes.core.io.cache;
+
+/**
+ * Numeric values of a property of a {@link ColumnarCache}. Values that cannot
+ * be parsed as double are left out.
+ */
+public class NumericColumn extends AValueColumn {
+
+    private final double[] values;
+
+    NumericColumn(int[] offsets, double[] values) {
+        super(offsets);
+        this.values = values;
+    }
+
+    /**
+     * @param index
+     *         position of the value, see {@link #getStart(int)}
+     * @return the value at the position
+     */
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param id
+     *         instance id
+     * @return a copy of the values of the instance
+     */
+    public double[] getValues(int id) {
+        double[] result = new double[getNumberOfValues(id)];
+        System.arraycopy(values, getStart(id), result, 0, result.length);
+        return result;
+    }
+
+}
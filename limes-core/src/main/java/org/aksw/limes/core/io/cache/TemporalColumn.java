@@ -0,0 +1,47 @@
+package org.aksw.limes.core.io.cache;
+
+import org.aksw.limes.core.util.datetime.DateTimeFormat;
+
+/**
+ * Time stamps of a property of a {@link ColumnarCache} as epoch milliseconds.
+ * Each value is parsed with the first {@link DateTimeFormat} that accepts it,
+ * as done by {@link DateTimeFormat#getDate(String)}. The format is kept along
+ * with the value, so that callers that only accept some of the formats can
+ * skip the other values. Values that no format accepts are kept with a null
+ * format.
+ */
+public class TemporalColumn extends AValueColumn {
+
+    private static final DateTimeFormat[] FORMATS = DateTimeFormat.values();
+
+    private final long[] values;
+    // ordinal of the format of each value, -1 if the value could not be parsed
+    private final byte[] formats;
+
+    TemporalColumn(int[] offsets, long[] values, byte[] formats) {
+        super(offsets);
+        this.values = values;
+        this.formats = formats;
+    }
+
+    /**
+     * @param index
+     *         position of the value, see {@link #getStart(int)}
+     * @return the value at the position in milliseconds since the epoch, 0 if
+     *         the value could not be parsed
+     */
+    public long getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param index
+     *         position of the value, see {@link #getStart(int)}
+     * @return the format the value was parsed with, null if it could not be
+     *         parsed
+     */
+    public DateTimeFormat getFormat(int index) {
+        return formats[index] < 0 ? null : FORMATS[formats[index]];
+    }
+
+}
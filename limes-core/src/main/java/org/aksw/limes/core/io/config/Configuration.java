@@ -48,6 +48,8 @@ public class Configuration implements IConfiguration {
     protected String executionEngine = DEFAULT;
     protected long optimizationTime = 0l;
     protected double expectedSelectivity = 1.0d;
+    protected int parallelism = 0;
+    protected String mappingType = DEFAULT;
 
     protected int granularity = 2;
 
@@ -119,7 +121,8 @@ public class Configuration implements IConfiguration {
         return new HashSet<String>(Arrays.asList("sourceInfo", "targetInfo", "metricExpression", "acceptanceRelation",
                 "verificationRelation", "acceptanceThreshold", "acceptanceFile", "verificationThreshold",
                 "verificationFile", "exemplars", "prefixes", "outputFormat", "executionPlan", "granularity",
-                "recallRegulator", "recallThreshold", "optimizationTime", "expectedSelectivity"));
+                "recallRegulator", "recallThreshold", "optimizationTime", "expectedSelectivity", "parallelism",
+                "mappingType"));
     }
 
     public int getGranularity() {
@@ -306,6 +309,31 @@ public class Configuration implements IConfiguration {
         return this.expectedSelectivity;
     }
 
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return the number of threads that execute the link specification, 0
+     *         stands for the number of available processors
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public void setMappingType(String mappingType) {
+        this.mappingType = mappingType;
+    }
+
+    /**
+     * @return the name of the mapping type that holds the links of a link
+     *         specification run, see
+     *         {@link org.aksw.limes.core.io.mapping.MappingFactory#getMappingType(String)}
+     */
+    public String getMappingType() {
+        return this.mappingType;
+    }
+
     public String getMlTrainingDataFile() {
         return mlTrainingDataFile;
     }
@@ -319,7 +347,8 @@ public class Configuration implements IConfiguration {
                 + verificationFile + ", prefixes=" + prefixes + ", outputFormat=" + outputFormat
                 + ", executionRewriter=" + executionRewriter + ", executionPlanner=" + executionPlanner
                 + ", executionEngine=" + executionEngine + ", optimization time=" + optimizationTime
-                + ", expected selectivity=" + expectedSelectivity + ", granularity=" + granularity
+                + ", expected selectivity=" + expectedSelectivity + ", parallelism=" + parallelism
+                + ", mappingType=" + mappingType + ", granularity=" + granularity
                 + ", mlAlgorithmName=" + mlAlgorithmName + ", mlParameters=" + mlAlgorithmParameters
                 + ", mlImplementationType=" + mlImplementationType + ", mlTrainingDataFile=" + mlTrainingDataFile
                 + ", mlPseudoFMeasure=" + mlPseudoFMeasure + "]";
@@ -356,6 +385,8 @@ public class Configuration implements IConfiguration {
         result = prime * result + (int) (temp ^ (temp >>> 32));
         temp = Double.doubleToLongBits(this.expectedSelectivity);
         result = prime * result + (int) (temp ^ (temp >>> 32));
+        result = prime * result + parallelism;
+        result = prime * result + ((mappingType == null) ? 0 : mappingType.hashCode());
         return result;
     }
 
@@ -457,6 +488,13 @@ public class Configuration implements IConfiguration {
             return false;
         if (Double.doubleToLongBits(expectedSelectivity) != Double.doubleToLongBits(other.expectedSelectivity))
             return false;
+        if (parallelism != other.parallelism)
+            return false;
+        if (mappingType == null) {
+            if (other.mappingType != null)
+                return false;
+        } else if (!mappingType.equals(other.mappingType))
+            return false;
         return true;
     }
 
@@ -38,6 +38,8 @@ public class LIMES {
     public static final Property executionEngine = property("executionEngine");
     public static final Property optimizationTime = property("optimizationTime");
     public static final Property expectedSelectivity = property("expectedSelectivity");
+    public static final Property parallelism = property("parallelism");
+    public static final Property mappingType = property("mappingType");
     public static final Property granularity = property("granularity");
     public static final Property outputFormat = property("outputFormat");
     public static final Property mlParameterName = property("mlParameterName");
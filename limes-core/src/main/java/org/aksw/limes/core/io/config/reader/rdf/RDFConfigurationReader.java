@@ -200,6 +200,24 @@ public class RDFConfigurationReader extends AConfigurationReader {
                         + "Use default expected selectivity: 1.0" + "\n--End of message--");
                 configuration.setExpectedSelectivity(1.0d);
             }
+            RDFNode parallelism = getObject(exeParamResource, LIMES.parallelism, false);
+            if (parallelism != null) {
+                if (Integer.parseInt(parallelism.toString()) < 0) {
+                    logger.info("\nParallelism cannot be negative. Your input value is " + parallelism
+                            + ".\nSetting it to the default value: 0, i.e. the number of available processors."
+                            + "\n--End of message--");
+                    configuration.setParallelism(0);
+                } else
+                    configuration.setParallelism(Integer.parseInt(parallelism.toString()));
+            } else {
+                configuration.setParallelism(0);
+            }
+            RDFNode mappingType = getObject(exeParamResource, LIMES.mappingType, false);
+            if (mappingType != null) {
+                configuration.setMappingType(mappingType.toString());
+            } else {
+                logger.info("Use default mapping type.");
+            }
 
         } else {
             logger.info("Use default execution parameters.");
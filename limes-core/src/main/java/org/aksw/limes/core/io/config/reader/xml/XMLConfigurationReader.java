@@ -78,6 +78,8 @@ public class XMLConfigurationReader extends AConfigurationReader {
     protected static final String FUNCTION = "FUNCTION";
     protected static final String OPTIMIZATION_TIME = "OPTIMIZATION_TIME";
     protected static final String EXPECTED_SELECTIVITY = "EXPECTED_SELECTIVITY";
+    protected static final String PARALLELISM = "PARALLELISM";
+    protected static final String MAPPING_TYPE = "MAPPING_TYPE";
 
     /**
      * Constructor
@@ -473,6 +475,17 @@ public class XMLConfigurationReader extends AConfigurationReader {
                                 } else
                                     configuration.setExpectedSelectivity(k);
 
+                            } else if (child.getNodeName().equals(PARALLELISM)) {
+                                int parallelism = Integer.parseInt(getText(child));
+                                if (parallelism < 0) {
+                                    logger.info("\nParallelism cannot be negative. Your input value is "
+                                            + parallelism + ".\nSetting it to the default value: 0, i.e. "
+                                            + "the number of available processors.\n--End of message--");
+                                    configuration.setParallelism(0);
+                                } else
+                                    configuration.setParallelism(parallelism);
+                            } else if (child.getNodeName().equals(MAPPING_TYPE)) {
+                                configuration.setMappingType(getText(child));
                             }
                         }
                     }
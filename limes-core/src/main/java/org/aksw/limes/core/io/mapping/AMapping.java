@@ -1,6 +1,8 @@
 package org.aksw.limes.core.io.mapping;
 
 import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.TreeSet;
 
 import org.apache.jena.vocabulary.OWL;
@@ -55,6 +57,22 @@ public abstract class AMapping implements IMapping {
 
     public abstract AMapping getSubMap(double threshold);
 
+    /**
+     * Pushes all links of the mapping into a sink. Mappings that do not hold
+     * their links as nested maps override this to push the links without
+     * materializing them.
+     *
+     * @param sink
+     *            Sink of the links
+     */
+    public void stream(ILinkSink sink) {
+        for (Entry<String, HashMap<String, Double>> s : getMap().entrySet()) {
+            for (Entry<String, Double> t : s.getValue().entrySet()) {
+                sink.add(s.getKey(), t.getKey(), t.getValue());
+            }
+        }
+    }
+
     /**
      * Returns the best one to one mapping with a bias towards the source Should
      * actually be solved with Hospital residents
@@ -106,17 +124,25 @@ public abstract class AMapping implements IMapping {
         this.predicate = mappingPredicate;
     }
 
+    /**
+     * The hash code only depends on the predicate and the links, so that
+     * mappings of different types that hold the same links have the same hash
+     * code.
+     */
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((map == null) ? 0 : map.hashCode());
-        result = prime * result
-                + ((predicate == null) ? 0 : predicate.hashCode());
-        result = prime * result
-                + ((reversedMap == null) ? 0 : reversedMap.hashCode());
-        result = prime * result + size;
-        return result;
+        int[] hash = { 0 };
+        stream((s, t, sim) -> hash[0] += linkHashCode(s, t, sim));
+        return 31 * hash[0] + Objects.hashCode(predicate);
+    }
+
+    /**
+     * @return the contribution of a link to {@link #hashCode()}. The hash code
+     *         of a mapping is the sum over its links, hence it is independent
+     *         of the order in which a mapping holds its links.
+     */
+    protected static int linkHashCode(String source, String target, double similarity) {
+        return 31 * (31 * source.hashCode() + target.hashCode()) + Double.hashCode(similarity);
     }
 
     @Override
@@ -125,8 +151,10 @@ public abstract class AMapping implements IMapping {
             return true;
         if (obj == null)
             return false;
-        if (getClass() != obj.getClass())
+        if (!(obj instanceof AMapping))
             return false;
+        if (getClass() != obj.getClass())
+            return hasSameLinks((AMapping) obj);
         AMapping other = (AMapping) obj;
         if (map == null) {
             if (other.map != null)
@@ -148,5 +176,22 @@ public abstract class AMapping implements IMapping {
         return true;
     }
 
+    /**
+     * Compares mappings of different types by their content
+     *
+     * @param other
+     *            mapping to compare with
+     * @return true iff both mappings have the same predicate and the same
+     *         links with the same similarities
+     */
+    protected boolean hasSameLinks(AMapping other) {
+        if (!Objects.equals(predicate, other.getPredicate()) || size() != other.size())
+            return false;
+        boolean[] same = { true };
+        stream((s, t, sim) -> same[0] &= other.contains(s, t)
+                && Double.compare(sim, other.getConfidence(s, t)) == 0);
+        return same[0];
+    }
+
 
 }
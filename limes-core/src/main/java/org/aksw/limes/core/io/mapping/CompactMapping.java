@@ -0,0 +1,663 @@
+package org.aksw.limes.core.io.mapping;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+/**
+ * Mapping that keeps its links in primitive arrays. Source and target URIs are
+ * encoded to ints by dictionaries and each link is stored as a long key made
+ * of the source and the target id plus a double similarity, i.e., a link uses
+ * 16 bytes on top of the URIs instead of the nested hash maps and boxed
+ * similarities of a {@link MemoryMapping}. Adding a link (s, t, sim2) for an
+ * existing link (s, t, sim1) keeps (s, t, max(sim1, sim2)).
+ * <p>
+ * Links are appended to the arrays. As long as they are added in ascending
+ * key order the arrays stay sorted and are searched binary, otherwise an
+ * open-addressing hash index over the arrays is built on demand. Mappings
+ * derived from this mapping (sub maps, set operations) share its
+ * dictionaries, so that threshold filtering, union, intersection and
+ * difference run as linear merges over the sorted keys.
+ * <p>
+ * {@link #getMap()} has to materialize the nested maps. The materialized map
+ * is kept until the next change of the mapping and is read-only, i.e., its
+ * mutators throw an {@link UnsupportedOperationException}. Use
+ * {@link #add(String, String, double)} to change the mapping and
+ * {@link #stream(ILinkSink)} to visit its links without materializing them.
+ */
+public class CompactMapping extends AMapping {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 6304926633219361447L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final UriDictionary sources;
+    private final UriDictionary targets;
+
+    private long[] keys;
+    private double[] similarities;
+    private int count;
+    /**
+     * True iff the keys are in ascending order
+     */
+    private boolean sorted = true;
+    /**
+     * Open-addressing index of the keys, holds the position of a key + 1 and
+     * 0 for empty slots. Only built for unsorted keys.
+     */
+    private transient int[] table;
+    private transient ReadOnlyMap<String, HashMap<String, Double>> materialized;
+
+    public CompactMapping() {
+        this(new UriDictionary(), new UriDictionary(), INITIAL_CAPACITY);
+    }
+
+    private CompactMapping(UriDictionary sources, UriDictionary targets, int capacity) {
+        super();
+        this.sources = sources;
+        this.targets = targets;
+        this.keys = new long[Math.max(capacity, INITIAL_CAPACITY)];
+        this.similarities = new double[keys.length];
+    }
+
+    /**
+     * @param mapping
+     *         mapping to copy
+     * @return a compact copy of the links of the mapping
+     */
+    public static CompactMapping copyOf(AMapping mapping) {
+        CompactMapping result = new CompactMapping();
+        result.predicate = mapping.getPredicate();
+        result.addAll(mapping, true);
+        return result;
+    }
+
+    private CompactMapping emptyCopy(int capacity) {
+        CompactMapping result = new CompactMapping(sources, targets, capacity);
+        result.predicate = predicate;
+        return result;
+    }
+
+    private static long toKey(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    private static int sourceOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int targetOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Add one entry to the mapping
+     *
+     * @param source
+     *         Uri in the source knowledge bases
+     * @param target
+     *         Mapping uri in the target knowledge base
+     * @param similarity
+     *         Similarity of uri and mappingUri
+     */
+    @Override
+    public synchronized void add(String source, String target, double similarity) {
+        put(toKey(sources.getOrAdd(source), targets.getOrAdd(target)), similarity);
+    }
+
+    @Override
+    public synchronized void add(String source, HashMap<String, Double> instances) {
+        int sourceId = sources.getOrAdd(source);
+        for (Entry<String, Double> e : instances.entrySet()) {
+            put(toKey(sourceId, targets.getOrAdd(e.getKey())), e.getValue());
+        }
+    }
+
+    /**
+     * Adds the links of a mapping. Links with URIs that are not in the
+     * dictionaries of this mapping are only added if addUnknown is set.
+     */
+    private void addAll(AMapping mapping, boolean addUnknown) {
+        if (mapping instanceof CompactMapping) {
+            CompactMapping other = (CompactMapping) mapping;
+            other.sort();
+            for (int i = 0; i < other.count; i++) {
+                long key = other.keys[i];
+                addEncoded(other.sources.getUri(sourceOf(key)), other.targets.getUri(targetOf(key)),
+                        other.similarities[i], addUnknown);
+            }
+            return;
+        }
+        for (Entry<String, HashMap<String, Double>> s : mapping.getMap().entrySet()) {
+            for (Entry<String, Double> t : s.getValue().entrySet()) {
+                addEncoded(s.getKey(), t.getKey(), t.getValue(), addUnknown);
+            }
+        }
+    }
+
+    private void addEncoded(String source, String target, double similarity, boolean addUnknown) {
+        if (addUnknown) {
+            add(source, target, similarity);
+            return;
+        }
+        int sourceId = sources.getId(source);
+        int targetId = targets.getId(target);
+        if (sourceId >= 0 && targetId >= 0) {
+            put(toKey(sourceId, targetId), similarity);
+        }
+    }
+
+    private void put(long key, double similarity) {
+        materialized = null;
+        if (count > 0 && (!sorted || key <= keys[count - 1])) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (similarity > similarities[i]) {
+                    similarities[i] = similarity;
+                }
+                return;
+            }
+            sorted = false;
+        }
+        append(key, similarity);
+    }
+
+    /**
+     * Appends a link whose key is known to be new
+     */
+    private void append(long key, double similarity) {
+        if (count == keys.length) {
+            int capacity = keys.length + (keys.length >> 1) + 1;
+            keys = Arrays.copyOf(keys, capacity);
+            similarities = Arrays.copyOf(similarities, capacity);
+        }
+        keys[count] = key;
+        similarities[count] = similarity;
+        count++;
+        if (table != null) {
+            if (count * 2 > table.length) {
+                table = null;
+            } else {
+                insert(table, count - 1);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        if (sorted) {
+            int i = Arrays.binarySearch(keys, 0, count, key);
+            return i < 0 ? -1 : i;
+        }
+        if (table == null) {
+            buildTable();
+        }
+        int mask = table.length - 1;
+        for (int slot = hash(key) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[table[slot] - 1] == key) {
+                return table[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void buildTable() {
+        int capacity = Integer.highestOneBit(Math.max(count, 8) * 4 - 1);
+        table = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            insert(table, i);
+        }
+    }
+
+    private void insert(int[] table, int index) {
+        int mask = table.length - 1;
+        int slot = hash(keys[index]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Sorts the links by their keys. The keys are unique, hence the
+     * similarities can be looked up in the index of the unsorted keys.
+     */
+    private synchronized void sort() {
+        if (sorted) {
+            return;
+        }
+        if (table == null) {
+            buildTable();
+        }
+        long[] sortedKeys = Arrays.copyOf(keys, Math.max(count, INITIAL_CAPACITY));
+        Arrays.sort(sortedKeys, 0, count);
+        double[] sortedSimilarities = new double[sortedKeys.length];
+        for (int i = 0; i < count; i++) {
+            sortedSimilarities[i] = similarities[indexOf(sortedKeys[i])];
+        }
+        keys = sortedKeys;
+        similarities = sortedSimilarities;
+        sorted = true;
+        table = null;
+    }
+
+    /**
+     * Checks whether the map contains a certain pair. If yes, its similarity is
+     * returned. Else 0 is returned
+     *
+     * @param source
+     *         Instance from the source knowledge base
+     * @param target
+     *         Instance from the target knowledge base
+     * @return Similarity of the two instances according to the mapping
+     */
+    @Override
+    public synchronized double getConfidence(String source, String target) {
+        int i = find(source, target);
+        return i < 0 ? 0 : similarities[i];
+    }
+
+    @Override
+    public synchronized boolean contains(String source, String target) {
+        return find(source, target) >= 0;
+    }
+
+    private int find(String source, String target) {
+        int sourceId = sources.getId(source);
+        int targetId = targets.getId(target);
+        if (sourceId < 0 || targetId < 0) {
+            return -1;
+        }
+        return indexOf(toKey(sourceId, targetId));
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return count;
+    }
+
+    @Override
+    public synchronized int getNumberofMappings() {
+        return count;
+    }
+
+    @Override
+    public synchronized int getNumberofPositiveMappings() {
+        int positive = 0;
+        for (int i = 0; i < count; i++) {
+            if (similarities[i] > 0) {
+                positive++;
+            }
+        }
+        return positive;
+    }
+
+    /**
+     * Passes every link to the visitor, with its source and target URI
+     * encoded as ids. The ids are dense, i.e., they are smaller than the
+     * number of URIs ever added to this mapping or the mappings it was
+     * derived from.
+     *
+     * @param visitor
+     *         visitor of the links
+     */
+    public synchronized void forEachLink(LinkVisitor visitor) {
+        for (int i = 0; i < count; i++) {
+            visitor.visit(sourceOf(keys[i]), targetOf(keys[i]), similarities[i]);
+        }
+    }
+
+    /**
+     * Visitor of the int-encoded links of a compact mapping
+     */
+    public interface LinkVisitor {
+
+        /**
+         * @param source
+         *         id of the source URI
+         * @param target
+         *         id of the target URI
+         * @param similarity
+         *         similarity of the link
+         */
+        void visit(int source, int target, double similarity);
+    }
+
+    @Override
+    public synchronized void stream(ILinkSink sink) {
+        for (int i = 0; i < count; i++) {
+            sink.add(sources.getUri(sourceOf(keys[i])), targets.getUri(targetOf(keys[i])), similarities[i]);
+        }
+    }
+
+    /**
+     * @return a read-only copy of the links as nested maps, kept until the
+     *         next change of the mapping
+     */
+    @Override
+    public synchronized HashMap<String, HashMap<String, Double>> getMap() {
+        if (materialized == null) {
+            ReadOnlyMap<String, HashMap<String, Double>> result = new ReadOnlyMap<>();
+            for (int i = 0; i < count; i++) {
+                String source = sources.getUri(sourceOf(keys[i]));
+                HashMap<String, Double> targetMap = result.get(source);
+                if (targetMap == null) {
+                    targetMap = new ReadOnlyMap<>();
+                    result.putInternal(source, targetMap);
+                }
+                ((ReadOnlyMap<String, Double>) targetMap).putInternal(targets.getUri(targetOf(keys[i])),
+                        similarities[i]);
+            }
+            materialized = result;
+        }
+        return materialized;
+    }
+
+    @Override
+    public synchronized void setMap(HashMap<String, HashMap<String, Double>> map) {
+        count = 0;
+        sorted = true;
+        table = null;
+        materialized = null;
+        for (Entry<String, HashMap<String, Double>> e : map.entrySet()) {
+            add(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Returns a mapping that contains all links of the current mapping that
+     * have a similarity of at least the threshold. The links are filtered in
+     * one pass over the arrays and keep their order.
+     *
+     * @param threshold
+     *         Similarity threshold for filtering
+     * @return Mapping that contains all links (s,t) with sim(s,t) {@literal >}= threshold
+     */
+    @Override
+    public synchronized CompactMapping getSubMap(double threshold) {
+        return filter(threshold, false);
+    }
+
+    @Override
+    public synchronized CompactMapping getOnlyPositiveExamples() {
+        return filter(0, true);
+    }
+
+    private CompactMapping filter(double threshold, boolean strict) {
+        CompactMapping result = emptyCopy(INITIAL_CAPACITY);
+        for (int i = 0; i < count; i++) {
+            double sim = similarities[i];
+            if (strict ? sim > threshold : sim >= threshold) {
+                result.append(keys[i], sim);
+            }
+        }
+        result.sorted = sorted;
+        return result;
+    }
+
+    /**
+     * Reverses source and target. The result swaps the dictionaries of this
+     * mapping.
+     *
+     * @return Reversed map
+     */
+    @Override
+    public synchronized CompactMapping reverseSourceTarget() {
+        CompactMapping result = new CompactMapping(targets, sources, count);
+        result.predicate = predicate;
+        for (int i = 0; i < count; i++) {
+            result.keys[i] = toKey(targetOf(keys[i]), sourceOf(keys[i]));
+        }
+        System.arraycopy(similarities, 0, result.similarities, 0, count);
+        result.count = count;
+        result.sorted = count < 2;
+        return result;
+    }
+
+    /**
+     * Computes the best one to n mapping for the current mapping, i.e., for
+     * each element of the source, it gets the best t from target. As the links
+     * are sorted by source, this is done in one pass.
+     *
+     * @return Best one to n mapping
+     */
+    @Override
+    public synchronized CompactMapping getBestOneToNMapping() {
+        sort();
+        CompactMapping result = emptyCopy(INITIAL_CAPACITY);
+        int start = 0;
+        while (start < count) {
+            int source = sourceOf(keys[start]);
+            int end = start;
+            double maxSim = 0;
+            while (end < count && sourceOf(keys[end]) == source) {
+                maxSim = Math.max(maxSim, similarities[end]);
+                end++;
+            }
+            for (int i = start; i < end; i++) {
+                if (similarities[i] == maxSim) {
+                    result.append(keys[i], maxSim);
+                }
+            }
+            start = end;
+        }
+        return result;
+    }
+
+    /**
+     * Union of two mappings: returns all links of both mappings. In case a
+     * link exists in both mappings the maximal similarity is taken.
+     *
+     * @param map1
+     *         First mapping
+     * @param map2
+     *         Second mapping
+     * @return Union of map1 and map2
+     */
+    public static CompactMapping union(AMapping map1, AMapping map2) {
+        if (!(map1 instanceof CompactMapping)) {
+            return union(map2, map1);
+        }
+        CompactMapping m1 = (CompactMapping) map1;
+        CompactMapping m2 = m1.encode(map2, true);
+        m1.sort();
+        m2.sort();
+        CompactMapping result = m1.emptyCopy(m1.count + m2.count);
+        int i = 0, j = 0;
+        while (i < m1.count && j < m2.count) {
+            long k1 = m1.keys[i], k2 = m2.keys[j];
+            if (k1 < k2) {
+                result.append(k1, m1.similarities[i++]);
+            } else if (k2 < k1) {
+                result.append(k2, m2.similarities[j++]);
+            } else {
+                result.append(k1, Math.max(m1.similarities[i++], m2.similarities[j++]));
+            }
+        }
+        while (i < m1.count) {
+            result.append(m1.keys[i], m1.similarities[i++]);
+        }
+        while (j < m2.count) {
+            result.append(m2.keys[j], m2.similarities[j++]);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the intersection of two mappings. In case a link exists in both
+     * mappings the minimal similarity is taken.
+     *
+     * @param map1
+     *         First mapping
+     * @param map2
+     *         Second mapping
+     * @return Intersection of map1 and map2
+     */
+    public static CompactMapping intersection(AMapping map1, AMapping map2) {
+        if (!(map1 instanceof CompactMapping)) {
+            return intersection(map2, map1);
+        }
+        CompactMapping m1 = (CompactMapping) map1;
+        CompactMapping m2 = m1.encode(map2, false);
+        m1.sort();
+        m2.sort();
+        CompactMapping result = m1.emptyCopy(Math.min(m1.count, m2.count));
+        int i = 0, j = 0;
+        while (i < m1.count && j < m2.count) {
+            long k1 = m1.keys[i], k2 = m2.keys[j];
+            if (k1 < k2) {
+                i++;
+            } else if (k2 < k1) {
+                j++;
+            } else {
+                result.append(k1, Math.min(m1.similarities[i++], m2.similarities[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the difference of two mappings. The links of the first mapping
+     * keep their similarity.
+     *
+     * @param map1
+     *         First mapping
+     * @param map2
+     *         Second mapping
+     * @return map1 \ map2
+     */
+    public static CompactMapping difference(AMapping map1, AMapping map2) {
+        CompactMapping m1, m2;
+        if (map1 instanceof CompactMapping) {
+            m1 = (CompactMapping) map1;
+            m2 = m1.encode(map2, false);
+        } else {
+            m2 = (CompactMapping) map2;
+            m1 = m2.encode(map1, true);
+        }
+        m1.sort();
+        m2.sort();
+        CompactMapping result = m1.emptyCopy(m1.count);
+        int i = 0, j = 0;
+        while (i < m1.count) {
+            long k1 = m1.keys[i];
+            while (j < m2.count && m2.keys[j] < k1) {
+                j++;
+            }
+            if (j == m2.count || m2.keys[j] != k1) {
+                result.append(k1, m1.similarities[i]);
+            }
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * @return the mapping itself if it shares the dictionaries of this
+     *         mapping, else a copy of its links that does
+     */
+    private CompactMapping encode(AMapping mapping, boolean addUnknown) {
+        if (mapping instanceof CompactMapping) {
+            CompactMapping other = (CompactMapping) mapping;
+            if (other.sources == sources && other.targets == targets) {
+                return other;
+            }
+        }
+        CompactMapping result = emptyCopy(mapping.size());
+        result.addAll(mapping, addUnknown);
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            s.append("[").append(sources.getUri(sourceOf(keys[i]))).append(" -> (")
+                    .append(targets.getUri(targetOf(keys[i]))).append("|").append(similarities[i]).append(")]\n");
+        }
+        return s.toString();
+    }
+
+    @Override
+    public synchronized int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Compact mappings are compared link by link, mappings of other types by
+     * their content as well
+     */
+    @Override
+    public synchronized boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AMapping)) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return hasSameLinks((AMapping) obj);
+        }
+        CompactMapping other = (CompactMapping) obj;
+        if (count != other.count || !Objects.equals(predicate, other.predicate)) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            String source = sources.getUri(sourceOf(keys[i]));
+            String target = targets.getUri(targetOf(keys[i]));
+            if (!other.contains(source, target)
+                    || Double.compare(similarities[i], other.getConfidence(source, target)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Append-only dictionary of URIs, shared by the mappings derived from
+     * one another
+     */
+    private static final class UriDictionary implements Serializable {
+
+        private static final long serialVersionUID = -1880463436612935125L;
+
+        private final ArrayList<String> uris = new ArrayList<>();
+        private final HashMap<String, Integer> ids = new HashMap<>();
+
+        synchronized int getOrAdd(String uri) {
+            Integer id = ids.get(uri);
+            if (id == null) {
+                id = uris.size();
+                uris.add(uri);
+                ids.put(uri, id);
+            }
+            return id;
+        }
+
+        synchronized int getId(String uri) {
+            Integer id = ids.get(uri);
+            return id == null ? -1 : id;
+        }
+
+        synchronized String getUri(int id) {
+            return uris.get(id);
+        }
+    }
+
+}
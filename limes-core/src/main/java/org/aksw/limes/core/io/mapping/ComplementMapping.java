@@ -0,0 +1,513 @@
+package org.aksw.limes.core.io.mapping;
+
+import java.lang.ref.SoftReference;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Mapping that links every source URI to every target URI, except for a set
+ * of excluded links, all with the same similarity. Only the URIs and the
+ * excluded links are stored, e.g., the intersecting pairs of geometries for
+ * the disjoint relation, so that the mapping takes memory linear in the
+ * number of URIs and excluded links instead of quadratic in the number of
+ * URIs. {@link #contains(String, String)} and the number of links are
+ * computed arithmetically, the links are pushed one by one by
+ * {@link #stream(ILinkSink)}.
+ * <p>
+ * Since the number of links can exceed the range of an int, {@link #size()}
+ * and the other int counts are capped at {@link Integer#MAX_VALUE}, see
+ * {@link #getNumberOfLinks()} for the exact count. {@link #getMap()} has to
+ * materialize all links. The materialized map is softly cached and
+ * read-only, i.e., its mutators throw an
+ * {@link UnsupportedOperationException}. The first call of
+ * {@link #add(String, String, double)}, {@link #add(String, HashMap)} or
+ * {@link #setMap(HashMap)} materializes all links in a
+ * {@link MemoryMapping}, which holds the links of the mapping from then on.
+ * Mappings derived from this mapping never share the materialized links.
+ */
+public class ComplementMapping extends AMapping {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = -3571893210743982471L;
+
+    private final String[] sources;
+    private final String[] targets;
+    private final Set<String> sourceSet;
+    private final Set<String> targetSet;
+    /**
+     * Excluded targets by source, only links between the source and target
+     * URIs of this mapping
+     */
+    private final HashMap<String, HashSet<String>> excluded;
+    private long excludedCount;
+    private final double similarity;
+    private transient SoftReference<ReadOnlyMap<String, HashMap<String, Double>>> materialized;
+    /** All links once the mapping was changed, else null */
+    private AMapping links;
+
+    /**
+     * @param sources
+     *         source URIs
+     * @param targets
+     *         target URIs
+     * @param excluded
+     *         links that are not part of the mapping, their similarities are
+     *         ignored
+     * @param similarity
+     *         similarity of all links
+     */
+    public ComplementMapping(Collection<String> sources, Collection<String> targets, AMapping excluded,
+            double similarity) {
+        this(new LinkedHashSet<>(sources), new LinkedHashSet<>(targets), similarity);
+        excluded.stream((s, t, sim) -> exclude(s, t));
+    }
+
+    private ComplementMapping(Set<String> sourceSet, Set<String> targetSet, double similarity) {
+        super();
+        this.sourceSet = sourceSet;
+        this.targetSet = targetSet;
+        this.sources = sourceSet.toArray(new String[0]);
+        this.targets = targetSet.toArray(new String[0]);
+        this.excluded = new HashMap<>();
+        this.similarity = similarity;
+        this.excludedCount = 0;
+    }
+
+    private ComplementMapping(ComplementMapping other, String[] sources, String[] targets, Set<String> sourceSet,
+            Set<String> targetSet, HashMap<String, HashSet<String>> excluded, long excludedCount,
+            double similarity) {
+        super();
+        this.predicate = other.predicate;
+        this.sources = sources;
+        this.targets = targets;
+        this.sourceSet = sourceSet;
+        this.targetSet = targetSet;
+        this.excluded = excluded;
+        this.excludedCount = excludedCount;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Excludes a link while the mapping is constructed.
+     */
+    private void exclude(String source, String target) {
+        if (sourceSet.contains(source) && targetSet.contains(target)
+                && excluded.computeIfAbsent(source, s -> new HashSet<>()).add(target)) {
+            excludedCount++;
+        }
+    }
+
+    /**
+     * @param links
+     *         further links to exclude
+     * @return a copy of this mapping without the given links
+     */
+    private ComplementMapping withExcluded(AMapping links) {
+        HashMap<String, HashSet<String>> copy = new HashMap<>();
+        for (String source : excluded.keySet()) {
+            copy.put(source, new HashSet<>(excluded.get(source)));
+        }
+        ComplementMapping result = new ComplementMapping(this, sources, targets, sourceSet, targetSet, copy,
+                excludedCount, similarity);
+        links.stream((s, t, sim) -> result.exclude(s, t));
+        return result;
+    }
+
+    /**
+     * @return a copy of this mapping, which shares the URIs and the excluded
+     *         links since they are never changed
+     */
+    private ComplementMapping copy() {
+        return new ComplementMapping(this, sources, targets, sourceSet, targetSet, excluded, excludedCount,
+                similarity);
+    }
+
+    /**
+     * @return true iff the mapping was not changed since its construction, so
+     *         that its links are given by the URIs and the excluded links
+     */
+    public boolean isComplement() {
+        return links == null;
+    }
+
+    /**
+     * @return the links of the mapping, which are materialized on the first
+     *         call
+     */
+    private synchronized AMapping materialize() {
+        if (links == null) {
+            AMapping result = MappingFactory.createDefaultMapping();
+            result.setPredicate(predicate);
+            stream(result::add);
+            links = result;
+            materialized = null;
+        }
+        return links;
+    }
+
+    /**
+     * @return the exact number of links
+     */
+    public long getNumberOfLinks() {
+        if (links != null) {
+            return links.size();
+        }
+        return (long) sources.length * targets.length - excludedCount;
+    }
+
+    /**
+     * @return the similarity of all links
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    @Override
+    public double getConfidence(String source, String target) {
+        if (links != null) {
+            return links.getConfidence(source, target);
+        }
+        return contains(source, target) ? similarity : 0;
+    }
+
+    @Override
+    public boolean contains(String source, String target) {
+        if (links != null) {
+            return links.contains(source, target);
+        }
+        if (!sourceSet.contains(source) || !targetSet.contains(target)) {
+            return false;
+        }
+        HashSet<String> excludedTargets = excluded.get(source);
+        return excludedTargets == null || !excludedTargets.contains(target);
+    }
+
+    /**
+     * Adds a link, materializing all links first.
+     */
+    @Override
+    public void add(String source, String target, double similarity) {
+        materialize().add(source, target, similarity);
+    }
+
+    /**
+     * Adds links, materializing all links first.
+     */
+    @Override
+    public void add(String source, HashMap<String, Double> instances) {
+        materialize().add(source, instances);
+    }
+
+    /**
+     * Replaces all links, which are held by a {@link MemoryMapping} from then
+     * on.
+     */
+    @Override
+    public synchronized void setMap(HashMap<String, HashMap<String, Double>> map) {
+        AMapping result = MappingFactory.createDefaultMapping();
+        result.setPredicate(predicate);
+        for (String source : map.keySet()) {
+            result.add(source, map.get(source));
+        }
+        links = result;
+        materialized = null;
+    }
+
+    @Override
+    public void setPredicate(String mappingPredicate) {
+        super.setPredicate(mappingPredicate);
+        if (links != null) {
+            links.setPredicate(mappingPredicate);
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, getNumberOfLinks());
+    }
+
+    @Override
+    public int getSize() {
+        return size();
+    }
+
+    @Override
+    public int getNumberofMappings() {
+        return size();
+    }
+
+    @Override
+    public int getNumberofPositiveMappings() {
+        if (links != null) {
+            return links.getNumberofPositiveMappings();
+        }
+        return similarity > 0 ? size() : 0;
+    }
+
+    /**
+     * Pushes the links into a sink, grouped by source URI, without
+     * materializing them.
+     *
+     * @param sink
+     *         Sink of the links
+     */
+    @Override
+    public void stream(ILinkSink sink) {
+        if (links != null) {
+            links.stream(sink);
+            return;
+        }
+        for (String source : sources) {
+            HashSet<String> excludedTargets = excluded.get(source);
+            for (String target : targets) {
+                if (excludedTargets == null || !excludedTargets.contains(target)) {
+                    sink.add(source, target, similarity);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a (softly cached) read-only copy of the links as nested maps,
+     *         which holds all links in memory, or the map of the materialized
+     *         links once the mapping was changed
+     */
+    @Override
+    public synchronized HashMap<String, HashMap<String, Double>> getMap() {
+        if (links != null) {
+            return links.getMap();
+        }
+        ReadOnlyMap<String, HashMap<String, Double>> result = materialized == null ? null : materialized.get();
+        if (result == null) {
+            ReadOnlyMap<String, HashMap<String, Double>> links = new ReadOnlyMap<>();
+            stream((s, t, sim) -> {
+                HashMap<String, Double> targetMap = links.get(s);
+                if (targetMap == null) {
+                    targetMap = new ReadOnlyMap<>();
+                    links.putInternal(s, targetMap);
+                }
+                ((ReadOnlyMap<String, Double>) targetMap).putInternal(t, sim);
+            });
+            materialized = new SoftReference<>(links);
+            result = links;
+        }
+        return result;
+    }
+
+    /**
+     * @param threshold
+     *         Similarity threshold for filtering
+     * @return a copy of this mapping if its similarity reaches the threshold,
+     *         else an empty mapping
+     */
+    @Override
+    public AMapping getSubMap(double threshold) {
+        if (links != null) {
+            return links.getSubMap(threshold);
+        }
+        return similarity >= threshold ? copy() : emptyMapping();
+    }
+
+    @Override
+    public AMapping getOnlyPositiveExamples() {
+        if (links != null) {
+            return links.getOnlyPositiveExamples();
+        }
+        return similarity > 0 ? copy() : emptyMapping();
+    }
+
+    private AMapping emptyMapping() {
+        AMapping result = MappingFactory.createDefaultMapping();
+        result.setPredicate(predicate);
+        return result;
+    }
+
+    /**
+     * All links of a source have the same similarity, hence the best one to n
+     * mapping holds all links.
+     *
+     * @return a copy of this mapping
+     */
+    @Override
+    public AMapping getBestOneToNMapping() {
+        if (links != null) {
+            return links.getBestOneToNMapping();
+        }
+        return copy();
+    }
+
+    /**
+     * Reverses source and target, without materializing the links.
+     *
+     * @return Reversed map
+     */
+    @Override
+    public AMapping reverseSourceTarget() {
+        if (links != null) {
+            return links.reverseSourceTarget();
+        }
+        HashMap<String, HashSet<String>> reversed = new HashMap<>();
+        for (String source : excluded.keySet()) {
+            for (String target : excluded.get(source)) {
+                reversed.computeIfAbsent(target, t -> new HashSet<>()).add(source);
+            }
+        }
+        return new ComplementMapping(this, targets, sources, targetSet, sourceSet, reversed, excludedCount,
+                similarity);
+    }
+
+    /**
+     * Union of two mappings, one of which is a complement mapping. In case a
+     * link exists in both mappings the maximal similarity is taken. The
+     * result holds all links in memory.
+     *
+     * @param map1
+     *         First mapping
+     * @param map2
+     *         Second mapping
+     * @return Union of map1 and map2
+     */
+    public static AMapping union(AMapping map1, AMapping map2) {
+        AMapping result = MappingFactory.createDefaultMapping();
+        map1.stream(result::add);
+        map2.stream(result::add);
+        return result;
+    }
+
+    /**
+     * Computes the intersection of two mappings, one of which is a complement
+     * mapping. In case a link exists in both mappings the minimal similarity
+     * is taken. The intersection of two complement mappings is a complement
+     * mapping again, else the links of the other mapping are checked one by
+     * one.
+     *
+     * @param map1
+     *         First mapping
+     * @param map2
+     *         Second mapping
+     * @return Intersection of map1 and map2
+     */
+    public static AMapping intersection(AMapping map1, AMapping map2) {
+        if (isComplement(map1) && isComplement(map2)) {
+            ComplementMapping m1 = (ComplementMapping) map1;
+            ComplementMapping m2 = (ComplementMapping) map2;
+            Set<String> sourceSet = new LinkedHashSet<>(m1.sourceSet);
+            sourceSet.retainAll(m2.sourceSet);
+            Set<String> targetSet = new LinkedHashSet<>(m1.targetSet);
+            targetSet.retainAll(m2.targetSet);
+            ComplementMapping result = new ComplementMapping(sourceSet, targetSet,
+                    Math.min(m1.similarity, m2.similarity));
+            result.predicate = m1.predicate;
+            for (ComplementMapping m : new ComplementMapping[] { m1, m2 }) {
+                for (String source : m.excluded.keySet()) {
+                    for (String target : m.excluded.get(source)) {
+                        result.exclude(source, target);
+                    }
+                }
+            }
+            return result;
+        }
+        if (!isComplement(map1) && isComplement(map2)) {
+            return intersection(map2, map1);
+        }
+        AMapping result = MappingFactory.createDefaultMapping();
+        map2.stream((s, t, sim) -> {
+            if (map1.contains(s, t)) {
+                result.add(s, t, Math.min(sim, map1.getConfidence(s, t)));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Computes the difference of two mappings, one of which is a complement
+     * mapping. The links of the first mapping keep their similarity. If only
+     * the first mapping is a complement mapping, the links of the second one
+     * are excluded from it and the result is a complement mapping again, else
+     * the links of the first mapping are checked one by one.
+     *
+     * @param map1
+     *         First mapping
+     * @param map2
+     *         Second mapping
+     * @return map1 \ map2
+     */
+    public static AMapping difference(AMapping map1, AMapping map2) {
+        if (isComplement(map1) && !isComplement(map2)) {
+            return ((ComplementMapping) map1).withExcluded(map2);
+        }
+        AMapping result = MappingFactory.createDefaultMapping();
+        map1.stream((s, t, sim) -> {
+            if (!map2.contains(s, t)) {
+                result.add(s, t, sim);
+            }
+        });
+        return result;
+    }
+
+    private static boolean isComplement(AMapping mapping) {
+        return mapping instanceof ComplementMapping && ((ComplementMapping) mapping).isComplement();
+    }
+
+    @Override
+    public String toString() {
+        if (links != null) {
+            return links.toString();
+        }
+        return "ComplementMapping [" + sources.length + " x " + targets.length + " links without "
+                + excludedCount + ", similarity " + similarity
+                + "]";
+    }
+
+    /**
+     * Computes the hash code of {@link AMapping#hashCode()} in closed form,
+     * without iterating over S x T.
+     */
+    @Override
+    public int hashCode() {
+        if (links != null) {
+            return super.hashCode();
+        }
+        int sourceHash = 0;
+        for (String source : sources) {
+            sourceHash += source.hashCode();
+        }
+        int targetHash = 0;
+        for (String target : targets) {
+            targetHash += target.hashCode();
+        }
+        // sum of linkHashCode over S x T, int arithmetic wraps around like
+        // the sum of the single links
+        int hash = 31 * 31 * targets.length * sourceHash + 31 * sources.length * targetHash
+                + sources.length * targets.length * Double.hashCode(similarity);
+        for (String source : excluded.keySet()) {
+            for (String target : excluded.get(source)) {
+                hash -= linkHashCode(source, target, similarity);
+            }
+        }
+        return 31 * hash + Objects.hashCode(predicate);
+    }
+
+    /**
+     * A complement mapping is equal to any mapping with the same predicate and
+     * the same links, as any other mapping is equal to it.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof AMapping))
+            return false;
+        AMapping other = (AMapping) obj;
+        if (other instanceof ComplementMapping
+                && ((ComplementMapping) other).getNumberOfLinks() != getNumberOfLinks())
+            return false;
+        return hasSameLinks(other);
+    }
+}
@@ -1,83 +1,1102 @@
 package org.aksw.limes.core.io.mapping;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
+ * Mapping for link sets that do not fit in memory. Links are added to an
+ * in-memory buffer of at most <code>bufferSize</code> links. A full buffer is
+ * spilled to disk as a run sorted by source and target URI. The first read
+ * after a spill merges all runs into one data file, which keeps every link
+ * once with its highest similarity (as {@link MemoryMapping} does) and a
+ * sparse index for lookups.
+ * <p>
+ * Links are read in ascending (source, target) order through
+ * {@link #iterator()}. {@link #getSubMap(double)} and the set operations
+ * {@link #union(AMapping, AMapping)}, {@link #intersection(AMapping, AMapping)}
+ * and {@link #difference(AMapping, AMapping)} stream over the sorted links
+ * and merge them, so that the links never have to be held in memory.
+ * <p>
+ * {@link #getMap()} has to materialize all links in memory. The materialized
+ * map is kept until the next change of the mapping and is read-only, i.e.,
+ * its mutators throw an {@link UnsupportedOperationException}. Use
+ * {@link #add(String, String, double)} to change the mapping. Call
+ * {@link #close()} to remove the files of the mapping.
+ *
  * @author Mohamed Sherif {@literal <}sherif {@literal @} informatik.uni-leipzig.de{@literal >}
  * @version Nov 12, 2015
  */
-public class FileMapping extends AMapping {
+public class FileMapping extends AMapping implements Closeable, Iterable<FileMapping.Link> {
+    private static final Logger logger = LoggerFactory.getLogger(FileMapping.class);
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = -6896787320093743557L;
+
+    public static final int DEFAULT_BUFFER_SIZE = 100000;
+
+    // number of links between two entries of the sparse index
+    private static final int INDEX_INTERVAL = 512;
+
+    private static final Comparator<Link> LINK_ORDER = new Comparator<Link>() {
+        @Override
+        public int compare(Link a, Link b) {
+            return compareKeys(a.source, a.target, b.source, b.target);
+        }
+    };
+
+    private File folder;
+    private final boolean temporary;
+    protected final int bufferSize;
+
+    // links that have not been written to disk
+    private HashMap<String, HashMap<String, Double>> buffer = new HashMap<>();
+    private int buffered = 0;
+
+    // read-only copy of all links returned by getMap(), dropped on every change
+    private transient ReadOnlyMap<String, HashMap<String, Double>> materialized = null;
+
+    // sorted runs spilled from the buffer
+    private final List<File> runs = new ArrayList<>();
+    private int fileCounter = 0;
+
+    // merged links, sorted and without duplicates, and their sparse index
+    private File data = null;
+    private int dataSize = 0;
+    private long dataLength = 0;
+    private String[] indexSources;
+    private String[] indexTargets;
+    private long[] indexOffsets;
+    private int indexSize = 0;
+    private transient RandomAccessFile dataAccess = null;
+
+    /**
+     * Creates a mapping in a temporary folder, which is removed on {@link #close()}
+     */
+    public FileMapping() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a mapping in a temporary folder, which is removed on {@link #close()}
+     *
+     * @param bufferSize
+     *         maximal number of links kept in memory before they are spilled
+     *         to disk
+     */
+    public FileMapping(int bufferSize) {
+        this(null, bufferSize, true);
+    }
+
+    /**
+     * Creates a mapping storing its files in the given folder. Make sure the
+     * application has write permissions there.
+     *
+     * @param folder
+     *         folder holding the files of the mapping
+     * @param bufferSize
+     *         maximal number of links kept in memory before they are spilled
+     *         to disk
+     */
+    public FileMapping(File folder, int bufferSize) {
+        this(folder, bufferSize, false);
+    }
+
+    /**
+     * @param folder
+     *         folder holding the files of the mapping, created on the first
+     *         spill. If null, a temporary folder is used.
+     * @param bufferSize
+     *         maximal number of links kept in memory before they are spilled
+     *         to disk
+     * @param temporary
+     *         whether the folder is removed on {@link #close()}
+     */
+    protected FileMapping(File folder, int bufferSize, boolean temporary) {
+        super();
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive, got " + bufferSize);
+        }
+        this.folder = folder;
+        this.bufferSize = bufferSize;
+        this.temporary = temporary;
+    }
+
+    /**
+     * @return an empty mapping with the same configuration as this one
+     */
+    protected FileMapping emptyCopy() {
+        File copyFolder = getCopyFolder();
+        return copyFolder == null ? new FileMapping(bufferSize) : new FileMapping(copyFolder, bufferSize);
+    }
+
+    /**
+     * @return a new folder next to the folder of this mapping, null if this
+     *         mapping is temporary
+     */
+    protected File getCopyFolder() {
+        if (temporary || folder == null) {
+            return null;
+        }
+        return new File(folder.getParentFile(), folder.getName() + "-" + System.nanoTime());
+    }
+
+    // ------------------------------------------------------------------
+    // writing
+    // ------------------------------------------------------------------
+
+    /**
+     * Add one entry to the mapping. If the entry is already contained, the
+     * higher similarity is kept.
+     */
+    @Override
+    public synchronized void add(String source, String target, double similarity) {
+        materialized = null;
+        if (addToBuffer(source, target, similarity) && buffered >= bufferSize) {
+            spill();
+        }
+    }
+
+    /**
+     * @return true if the pair was not in the buffer yet
+     */
+    private boolean addToBuffer(String source, String target, double similarity) {
+        HashMap<String, Double> targets = buffer.get(source);
+        if (targets == null) {
+            targets = new HashMap<>();
+            buffer.put(source, targets);
+        }
+        Double old = targets.get(target);
+        if (old == null) {
+            targets.put(target, similarity);
+            buffered++;
+            return true;
+        }
+        if (similarity > old) {
+            targets.put(target, similarity);
+        }
+        return false;
+    }
+
+    @Override
+    public void add(String source, HashMap<String, Double> targets) {
+        for (Map.Entry<String, Double> e : targets.entrySet()) {
+            add(source, e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Replaces the content of the mapping by the links of the map
+     */
+    @Override
+    public synchronized void setMap(HashMap<String, HashMap<String, Double>> map) {
+        clear();
+        for (Map.Entry<String, HashMap<String, Double>> e : map.entrySet()) {
+            add(e.getKey(), e.getValue());
+        }
+    }
+
+    private List<Link> sortedBuffer() {
+        List<Link> links = new ArrayList<>(buffered);
+        for (Map.Entry<String, HashMap<String, Double>> e : buffer.entrySet()) {
+            for (Map.Entry<String, Double> t : e.getValue().entrySet()) {
+                links.add(new Link(e.getKey(), t.getKey(), t.getValue()));
+            }
+        }
+        Collections.sort(links, LINK_ORDER);
+        return links;
+    }
+
+    private void clearBuffer() {
+        buffer = new HashMap<>();
+        buffered = 0;
+    }
+
+    private void spill() {
+        File run = newFile("run");
+        try (LinkWriter writer = new LinkWriter(run, false)) {
+            for (Link link : sortedBuffer()) {
+                writer.write(link.source, link.target, link.similarity);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        runs.add(run);
+        clearBuffer();
+        logger.debug("Spilled run " + run.getName());
+    }
+
+    /**
+     * Merges the runs, the buffer and the data file into a new data file,
+     * unless the links are either all in the buffer or all in the data file.
+     */
+    private void consolidate() {
+        if (runs.isEmpty() && (data == null || buffered == 0)) {
+            return;
+        }
+        List<LinkStream> inputs = new ArrayList<>();
+        if (buffered > 0) {
+            inputs.add(new ListLinkStream(sortedBuffer()));
+        }
+        for (File run : runs) {
+            inputs.add(new FileLinkStream(run));
+        }
+        if (data != null) {
+            inputs.add(new FileLinkStream(data));
+        }
+        File merged = newFile("data");
+        LinkWriter writer = new LinkWriter(merged, true);
+        try (LinkStream in = new MergingLinkStream(inputs)) {
+            while (in.advance()) {
+                writer.write(in.source, in.target, in.similarity);
+            }
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        deleteData();
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+        clearBuffer();
+        setData(merged, writer);
+    }
+
+    /**
+     * Fills an empty mapping from a stream of links in ascending order
+     * without duplicates. The links are written to the data file directly
+     * once the buffer is full.
+     */
+    private void writeSorted(LinkStream in) throws IOException {
+        File file = null;
+        LinkWriter writer = null;
+        while (in.advance()) {
+            if (writer == null && buffered < bufferSize) {
+                addToBuffer(in.source, in.target, in.similarity);
+                continue;
+            }
+            if (writer == null) {
+                file = newFile("data");
+                writer = new LinkWriter(file, true);
+                for (Link link : sortedBuffer()) {
+                    writer.write(link.source, link.target, link.similarity);
+                }
+                clearBuffer();
+            }
+            writer.write(in.source, in.target, in.similarity);
+        }
+        if (writer != null) {
+            writer.close();
+            setData(file, writer);
+        }
+    }
+
+    private void setData(File file, LinkWriter writer) {
+        data = file;
+        dataSize = writer.count;
+        dataLength = writer.offset;
+        indexSources = writer.indexSources;
+        indexTargets = writer.indexTargets;
+        indexOffsets = writer.indexOffsets;
+        indexSize = writer.indexSize;
+    }
+
+    private void deleteData() {
+        if (dataAccess != null) {
+            try {
+                dataAccess.close();
+            } catch (IOException e) {
+                logger.warn("Cannot close " + data, e);
+            }
+            dataAccess = null;
+        }
+        if (data != null) {
+            data.delete();
+            data = null;
+        }
+        dataSize = 0;
+        dataLength = 0;
+        indexSize = 0;
+        indexSources = null;
+        indexTargets = null;
+        indexOffsets = null;
+    }
+
+    private File newFile(String prefix) {
+        try {
+            if (folder == null) {
+                folder = Files.createTempDirectory("limes-filemapping").toFile();
+                folder.deleteOnExit();
+            } else if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("Cannot create mapping folder " + folder.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        File f = new File(folder, prefix + "-" + (fileCounter++) + ".links");
+        if (temporary) {
+            f.deleteOnExit();
+        }
+        return f;
+    }
+
+    // ------------------------------------------------------------------
+    // reading
+    // ------------------------------------------------------------------
+
+    /**
+     * @return the similarity of the pair, 0 if it is not contained
+     */
+    @Override
+    public synchronized double getConfidence(String source, String target) {
+        Double sim = find(source, target);
+        return sim == null ? 0 : sim;
+    }
+
+    @Override
+    public synchronized boolean contains(String source, String target) {
+        return find(source, target) != null;
+    }
+
+    private Double find(String source, String target) {
+        if (!runs.isEmpty()) {
+            consolidate();
+        }
+        HashMap<String, Double> targets = buffer.get(source);
+        Double inBuffer = targets == null ? null : targets.get(target);
+        Double onDisk = data == null ? null : lookup(source, target);
+        if (inBuffer == null) {
+            return onDisk;
+        }
+        return onDisk == null ? inBuffer : Math.max(inBuffer, onDisk);
+    }
+
+    /**
+     * Looks up a pair in the data file. The sparse index gives the block of
+     * the file that has to contain the pair, which is then scanned.
+     */
+    private Double lookup(String source, String target) {
+        int low = 0, high = indexSize - 1, block = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compareKeys(indexSources[mid], indexTargets[mid], source, target) <= 0) {
+                block = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (block < 0) {
+            return null;
+        }
+        long start = indexOffsets[block];
+        long end = block + 1 < indexSize ? indexOffsets[block + 1] : dataLength;
+        try {
+            if (dataAccess == null) {
+                dataAccess = new RandomAccessFile(data, "r");
+            }
+            byte[] bytes = new byte[(int) (end - start)];
+            dataAccess.seek(start);
+            dataAccess.readFully(bytes);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            while (in.available() > 0) {
+                String s = readString(in);
+                String t = readString(in);
+                double sim = in.readDouble();
+                int cmp = compareKeys(s, t, source, target);
+                if (cmp == 0) {
+                    return sim;
+                } else if (cmp > 0) {
+                    return null;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-	/**
-	 * 
-	 */
-	private static final long serialVersionUID = -6896787320093743557L;
-	public HashMap<String, HashMap<String, Double>> map;
+    /**
+     * Opens a stream over all links in ascending order. Writing to the
+     * mapping while the stream is open is not supported.
+     */
+    private synchronized LinkStream openStream() {
+        consolidate();
+        if (data != null) {
+            return new FileLinkStream(data);
+        }
+        return new ListLinkStream(sortedBuffer());
+    }
 
+    /**
+     * Iterates over all links in ascending order of source and target URI.
+     * The links are read from disk while iterating. Writing to the mapping
+     * while iterating is not supported.
+     */
+    @Override
+    public Iterator<Link> iterator() {
+        return new LinkIterator(openStream());
+    }
+
+    @Override
+    public synchronized int size() {
+        consolidate();
+        if (data != null) {
+            return dataSize;
+        }
+        return buffered;
+    }
+
+    @Override
+    public int getSize() {
+        return size();
+    }
+
+    @Override
     public int getNumberofMappings() {
-        // TODO Auto-generated method stub
-        return 0;
+        return size();
+    }
+
+    @Override
+    public int getNumberofPositiveMappings() {
+        int count = 0;
+        for (Link link : this) {
+            if (link.similarity > 0) {
+                count++;
+            }
+        }
+        return count;
     }
 
+    /**
+     * @return a read-only copy of all links held in memory, see the class
+     *         documentation
+     */
+    @Override
+    public synchronized HashMap<String, HashMap<String, Double>> getMap() {
+        if (materialized == null) {
+            ReadOnlyMap<String, HashMap<String, Double>> result = new ReadOnlyMap<>();
+            for (Link link : this) {
+                HashMap<String, Double> targets = result.get(link.source);
+                if (targets == null) {
+                    targets = new ReadOnlyMap<>();
+                    result.putInternal(link.source, targets);
+                }
+                ((ReadOnlyMap<String, Double>) targets).putInternal(link.target, link.similarity);
+            }
+            materialized = result;
+        }
+        return materialized;
+    }
+
+    /**
+     * Returns a mapping that contains all links of the current mapping that
+     * have a similarity of at least the threshold. The links are filtered
+     * while streaming over them.
+     *
+     * @param threshold
+     *         Similarity threshold for filtering
+     * @return Mapping that contains all links (s,t) with sim(s,t) {@literal >}= threshold
+     */
+    @Override
+    public AMapping getSubMap(double threshold) {
+        return filter(threshold, false);
+    }
+
+    @Override
+    public AMapping getOnlyPositiveExamples() {
+        return filter(0, true);
+    }
+
+    private FileMapping filter(double threshold, boolean strict) {
+        FileMapping result = emptyCopy();
+        try (LinkStream in = new ThresholdLinkStream(openStream(), threshold, strict)) {
+            result.writeSorted(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    @Override
     public FileMapping reverseSourceTarget() {
-        // TODO Auto-generated method stub
-        return null;
+        FileMapping result = emptyCopy();
+        for (Link link : this) {
+            result.add(link.target, link.source, link.similarity);
+        }
+        return result;
     }
 
-    public int size() {
-        // TODO Auto-generated method stub
-        return 0;
+    /**
+     * Computes the best one to n mapping for the current mapping, i.e., for
+     * each source, the targets with the highest similarity. As the links are
+     * sorted by source, one pass over them suffices.
+     *
+     * @return Best one to n mapping
+     */
+    @Override
+    public AMapping getBestOneToNMapping() {
+        FileMapping result = emptyCopy();
+        String source = null;
+        double maxSim = 0;
+        List<String> targets = new ArrayList<>();
+        for (Link link : this) {
+            if (!link.source.equals(source)) {
+                for (String t : targets) {
+                    result.add(source, t, maxSim);
+                }
+                source = link.source;
+                maxSim = 0;
+                targets.clear();
+            }
+            if (link.similarity > maxSim) {
+                maxSim = link.similarity;
+                targets.clear();
+            }
+            if (link.similarity == maxSim) {
+                targets.add(link.target);
+            }
+        }
+        for (String t : targets) {
+            result.add(source, t, maxSim);
+        }
+        return result;
     }
 
-    public void add(String key, String value, Double double1) {
-        // TODO Auto-generated method stub
+    // ------------------------------------------------------------------
+    // set operations by external merge
+    // ------------------------------------------------------------------
+
+    /**
+     * Computes the union of two mappings by merging their sorted links. In
+     * case an entry exists in both mappings the maximal similarity is taken.
+     *
+     * @param map1
+     *            First mapping
+     * @param map2
+     *            Second mapping
+     * @return Union of map1 and map2
+     */
+    public static FileMapping union(AMapping map1, AMapping map2) {
+        FileMapping result = emptyCopy(map1, map2);
+        try (LinkStream in = new MergingLinkStream(Arrays.asList(openStream(map1), openStream(map2)))) {
+            result.writeSorted(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the intersection of two mappings by merging their sorted
+     * links. In case an entry exists in both mappings the minimal similarity
+     * is taken.
+     *
+     * @param map1
+     *            First mapping
+     * @param map2
+     *            Second mapping
+     * @return Intersection of map1 and map2
+     */
+    public static FileMapping intersection(AMapping map1, AMapping map2) {
+        FileMapping result = emptyCopy(map1, map2);
+        try (LinkStream in = new JoinLinkStream(openStream(map1), openStream(map2), true)) {
+            result.writeSorted(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
 
+    /**
+     * Computes the difference of two mappings by merging their sorted links.
+     *
+     * @param map1
+     *            First mapping
+     * @param map2
+     *            Second mapping
+     * @return map1 \ map2
+     */
+    public static FileMapping difference(AMapping map1, AMapping map2) {
+        FileMapping result = emptyCopy(map1, map2);
+        try (LinkStream in = new JoinLinkStream(openStream(map1), openStream(map2), false)) {
+            result.writeSorted(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
     }
 
-    public void add(String key, HashMap<String, Double> hashMap) {
-        // TODO Auto-generated method stub
+    private static FileMapping emptyCopy(AMapping map1, AMapping map2) {
+        if (map1 instanceof FileMapping) {
+            return ((FileMapping) map1).emptyCopy();
+        }
+        if (map2 instanceof FileMapping) {
+            return ((FileMapping) map2).emptyCopy();
+        }
+        return new FileMapping();
+    }
 
+    private static LinkStream openStream(AMapping m) {
+        if (m instanceof FileMapping) {
+            return ((FileMapping) m).openStream();
+        }
+        List<Link> links = new ArrayList<>();
+        for (Map.Entry<String, HashMap<String, Double>> e : m.getMap().entrySet()) {
+            for (Map.Entry<String, Double> t : e.getValue().entrySet()) {
+                links.add(new Link(e.getKey(), t.getKey(), t.getValue()));
+            }
+        }
+        Collections.sort(links, LINK_ORDER);
+        return new ListLinkStream(links);
     }
 
-    public double getConfidence(String key, String value) {
-        // TODO Auto-generated method stub
-        return 0.0d;
+    // ------------------------------------------------------------------
+
+    private synchronized void clear() {
+        materialized = null;
+        deleteData();
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+        clearBuffer();
     }
 
+    /**
+     * Removes all files of the mapping. The mapping must not be used
+     * afterwards.
+     */
     @Override
-    public void add(String key, String value, double sim) {
-        // TODO Auto-generated method stub
+    public synchronized void close() {
+        clear();
+        if (temporary && folder != null) {
+            folder.delete();
+        }
+    }
 
+    /**
+     * @return the folder of the files of the mapping, null if the mapping is
+     *         temporary and has not been spilled yet
+     */
+    public File getFolder() {
+        return folder;
     }
 
     @Override
-    public boolean contains(String key, String value) {
-        // TODO Auto-generated method stub
-        return false;
+    public String toString() {
+        return getClass().getSimpleName() + "[" + (folder == null ? "memory" : folder.getAbsolutePath()) + ", size="
+                + size() + "]";
     }
 
+    /**
+     * Pushes the links in ascending order of source and target URI, reading
+     * them from disk
+     */
     @Override
-    public AMapping getBestOneToNMapping() {
-        // TODO Auto-generated method stub
-        return null;
+    public void stream(ILinkSink sink) {
+        for (Link link : this) {
+            sink.add(link.source, link.target, link.similarity);
+        }
     }
 
+    /**
+     * Compares the links of both mappings by streaming over them in order,
+     * mappings of other types are compared by their content
+     */
     @Override
-    public AMapping getSubMap(double threshold) {
-        // TODO Auto-generated method stub
-        return null;
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AMapping)) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return hasSameLinks((AMapping) obj);
+        }
+        FileMapping other = (FileMapping) obj;
+        if (size() != other.size() || !Objects.equals(predicate, other.predicate)) {
+            return false;
+        }
+        Iterator<Link> it = other.iterator();
+        for (Link link : this) {
+            Link o = it.next();
+            if (LINK_ORDER.compare(link, o) != 0 || Double.compare(link.similarity, o.similarity) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compareKeys(String s1, String t1, String s2, String t2) {
+        int c = s1.compareTo(s2);
+        return c != 0 ? c : t1.compareTo(t2);
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    private static int writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A link of the mapping, i.e., a source URI, a target URI and their
+     * similarity.
+     */
+    public static class Link {
+        private final String source;
+        private final String target;
+        private final double similarity;
+
+        public Link(String source, String target, double similarity) {
+            this.source = source;
+            this.target = target;
+            this.similarity = similarity;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + source + " -> (" + target + "|" + similarity + ")]";
+        }
     }
 
-	@Override
-	public int getNumberofPositiveMappings() {
-		// TODO Auto-generated method stub
-		return 0;
-	}
+    /**
+     * Writes links to a file and, if requested, builds the sparse index.
+     */
+    private static class LinkWriter implements Closeable {
+        private final DataOutputStream out;
+        private final boolean indexed;
+        private long offset = 0;
+        private int count = 0;
+        private String[] indexSources = new String[16];
+        private String[] indexTargets = new String[16];
+        private long[] indexOffsets = new long[16];
+        private int indexSize = 0;
 
-	@Override
-	public AMapping getOnlyPositiveExamples() {
-		// TODO Auto-generated method stub
-		return null;
-	}
+        LinkWriter(File file, boolean indexed) {
+            try {
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.indexed = indexed;
+        }
+
+        void write(String source, String target, double similarity) throws IOException {
+            if (indexed && count % INDEX_INTERVAL == 0) {
+                if (indexSize == indexOffsets.length) {
+                    indexSources = Arrays.copyOf(indexSources, indexSize * 2);
+                    indexTargets = Arrays.copyOf(indexTargets, indexSize * 2);
+                    indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+                }
+                indexSources[indexSize] = source;
+                indexTargets[indexSize] = target;
+                indexOffsets[indexSize] = offset;
+                indexSize++;
+            }
+            offset += writeString(out, source) + writeString(out, target) + 8;
+            out.writeDouble(similarity);
+            count++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Cursor over links in ascending order of source and target.
+     */
+    private abstract static class LinkStream implements Closeable {
+        String source;
+        String target;
+        double similarity;
+
+        /**
+         * Moves to the next link.
+         *
+         * @return false if there is no next link
+         */
+        abstract boolean advance() throws IOException;
+
+        int compareTo(LinkStream o) {
+            return compareKeys(source, target, o.source, o.target);
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class FileLinkStream extends LinkStream {
+        private final DataInputStream in;
+
+        FileLinkStream(File file) {
+            try {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            try {
+                source = readString(in);
+            } catch (EOFException e) {
+                return false;
+            }
+            target = readString(in);
+            similarity = in.readDouble();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class ListLinkStream extends LinkStream {
+        private final Iterator<Link> links;
+
+        ListLinkStream(List<Link> links) {
+            this.links = links.iterator();
+        }
+
+        @Override
+        boolean advance() {
+            if (!links.hasNext()) {
+                return false;
+            }
+            Link link = links.next();
+            source = link.source;
+            target = link.target;
+            similarity = link.similarity;
+            return true;
+        }
+    }
+
+    /**
+     * K-way merge of sorted streams. Links contained in several streams are
+     * returned once with their highest similarity.
+     */
+    private static class MergingLinkStream extends LinkStream {
+        private final List<LinkStream> inputs;
+        private final PriorityQueue<LinkStream> queue = new PriorityQueue<>(11, LinkStream::compareTo);
+        private boolean started = false;
+
+        MergingLinkStream(List<LinkStream> inputs) {
+            this.inputs = inputs;
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (!started) {
+                started = true;
+                for (LinkStream in : inputs) {
+                    if (in.advance()) {
+                        queue.add(in);
+                    }
+                }
+            }
+            LinkStream head = queue.poll();
+            if (head == null) {
+                return false;
+            }
+            source = head.source;
+            target = head.target;
+            similarity = head.similarity;
+            if (head.advance()) {
+                queue.add(head);
+            }
+            while (!queue.isEmpty() && queue.peek().compareTo(this) == 0) {
+                LinkStream next = queue.poll();
+                similarity = Math.max(similarity, next.similarity);
+                if (next.advance()) {
+                    queue.add(next);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (LinkStream in : inputs) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Merge join of two sorted streams. Returns the links of the first
+     * stream that are (intersection) or are not (difference) contained in the
+     * second one. For the intersection, the minimal similarity is taken.
+     */
+    private static class JoinLinkStream extends LinkStream {
+        private final LinkStream first;
+        private final LinkStream second;
+        private final boolean intersection;
+        private boolean secondValid;
+        private boolean started = false;
+
+        JoinLinkStream(LinkStream first, LinkStream second, boolean intersection) {
+            this.first = first;
+            this.second = second;
+            this.intersection = intersection;
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (!started) {
+                started = true;
+                secondValid = second.advance();
+            }
+            while (first.advance()) {
+                while (secondValid && second.compareTo(first) < 0) {
+                    secondValid = second.advance();
+                }
+                boolean found = secondValid && second.compareTo(first) == 0;
+                if (found == intersection) {
+                    source = first.source;
+                    target = first.target;
+                    similarity = found ? Math.min(first.similarity, second.similarity) : first.similarity;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            first.close();
+            second.close();
+        }
+    }
+
+    private static class ThresholdLinkStream extends LinkStream {
+        private final LinkStream in;
+        private final double threshold;
+        private final boolean strict;
+
+        ThresholdLinkStream(LinkStream in, double threshold, boolean strict) {
+            this.in = in;
+            this.threshold = threshold;
+            this.strict = strict;
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            while (in.advance()) {
+                if (in.similarity > threshold || (!strict && in.similarity == threshold)) {
+                    source = in.source;
+                    target = in.target;
+                    similarity = in.similarity;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Adapts a link stream to an iterator. The stream is closed once it is
+     * exhausted.
+     */
+    private static class LinkIterator implements Iterator<Link> {
+        private final LinkStream in;
+        private Link next;
+
+        LinkIterator(LinkStream in) {
+            this.in = in;
+            fetch();
+        }
+
+        private void fetch() {
+            try {
+                if (in.advance()) {
+                    next = new Link(in.source, in.target, in.similarity);
+                } else {
+                    next = null;
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Link next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Link current = next;
+            fetch();
+            return current;
+        }
+    }
 
 }
@@ -1,84 +1,75 @@
 package org.aksw.limes.core.io.mapping;
 
-import java.util.HashMap;
+import java.io.File;
 
 /**
+ * Mapping that is kept in memory as long as it fits into a heap budget and is
+ * spilled to disk once the budget is exceeded. The budget is converted into a
+ * number of links using a rough estimate of the heap usage of a link, see
+ * {@link FileMapping} for the handling of the spilled links.
+ *
  * @author Mohamed Sherif {@literal <}sherif {@literal @} informatik.uni-leipzig.de{@literal >}
  * @version Nov 12, 2015
  */
-public class HybridMapping extends AMapping {
-
-
-	/**
-	 * 
-	 */
-	private static final long serialVersionUID = -4230353331396453801L;
-
-	public HybridMapping reverseSourceTarget() {
-        // TODO Auto-generated method stub
-        return null;
-    }
-
-    public int size() {
-        // TODO Auto-generated method stub
-        return 0;
-    }
-
-    public void add(String key, String value, Double double1) {
-        // TODO Auto-generated method stub
-
-    }
-
-    public void add(String key, HashMap<String, Double> hashMap) {
-        // TODO Auto-generated method stub
-
+public class HybridMapping extends FileMapping {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = -4230353331396453801L;
+
+    /**
+     * Estimated heap usage of a buffered link in bytes: two URIs, the entries
+     * of the nested hash maps and the boxed similarity
+     */
+    public static final long BYTES_PER_LINK = 256;
+
+    private final long heapBudget;
+
+    /**
+     * Creates a mapping with a budget of a quarter of the maximal heap size
+     */
+    public HybridMapping() {
+        this(Runtime.getRuntime().maxMemory() / 4);
     }
 
-    public double getConfidence(String key, String value) {
-        // TODO Auto-generated method stub
-        return 0.0d;
+    /**
+     * Creates a mapping that spills to a temporary folder
+     *
+     * @param heapBudget
+     *         heap in bytes the links may use before they are spilled to disk
+     */
+    public HybridMapping(long heapBudget) {
+        this(null, heapBudget, true);
     }
 
-    @Override
-    public void add(String key, String value, double sim) {
-        // TODO Auto-generated method stub
-
+    /**
+     * @param folder
+     *         folder holding the spilled links of the mapping
+     * @param heapBudget
+     *         heap in bytes the links may use before they are spilled to disk
+     */
+    public HybridMapping(File folder, long heapBudget) {
+        this(folder, heapBudget, false);
     }
 
-    @Override
-    public int getNumberofMappings() {
-        // TODO Auto-generated method stub
-        return 0;
+    private HybridMapping(File folder, long heapBudget, boolean temporary) {
+        super(folder, toBufferSize(heapBudget), temporary);
+        this.heapBudget = heapBudget;
     }
 
-    @Override
-    public boolean contains(String key, String value) {
-        // TODO Auto-generated method stub
-        return false;
+    private static int toBufferSize(long heapBudget) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, heapBudget / BYTES_PER_LINK));
     }
 
-    @Override
-    public AMapping getBestOneToNMapping() {
-        // TODO Auto-generated method stub
-        return null;
+    public long getHeapBudget() {
+        return heapBudget;
     }
 
     @Override
-    public AMapping getSubMap(double threshold) {
-        // TODO Auto-generated method stub
-        return null;
+    protected FileMapping emptyCopy() {
+        File copyFolder = getCopyFolder();
+        return copyFolder == null ? new HybridMapping(heapBudget) : new HybridMapping(copyFolder, heapBudget);
     }
 
-	@Override
-	public int getNumberofPositiveMappings() {
-		// TODO Auto-generated method stub
-		return 0;
-	}
-
-	@Override
-	public AMapping getOnlyPositiveExamples() {
-		// TODO Auto-generated method stub
-		return null;
-	}
-
 }
@@ -0,0 +1,22 @@
+package org.aksw.limes.core.io.mapping;
+
+/**
+ * Consumer of links that are pushed one by one, e.g., by the root of an
+ * execution plan. In contrast to {@link AMapping#add(String, String, double)}
+ * a sink does not merge links, each link is pushed exactly once.
+ */
+public interface ILinkSink {
+
+    /**
+     * Consumes a link
+     *
+     * @param source
+     *         Uri in the source knowledge bases
+     * @param target
+     *         Uri in the target knowledge base
+     * @param similarity
+     *         Similarity of source and target
+     */
+    public void add(String source, String target, double similarity);
+
+}
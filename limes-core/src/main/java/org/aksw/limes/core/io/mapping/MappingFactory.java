@@ -12,6 +12,33 @@ import org.slf4j.LoggerFactory;
 public class MappingFactory {
     private static final Logger logger = LoggerFactory.getLogger(MappingFactory.class.getName());
 
+    public static final String DEFAULT = "default";
+    public static final String MEMORY = "memory";
+    public static final String HYBRID = "hybrid";
+    public static final String FILE = "file";
+    public static final String COMPACT = "compact";
+
+    /**
+     * @param name of the mapping type, case insensitive
+     * @return the mapping type with the given name, {@link MappingType#DEFAULT}
+     *         for unknown names
+     */
+    public static MappingType getMappingType(String name) {
+        if (name.equalsIgnoreCase(DEFAULT))
+            return MappingType.DEFAULT;
+        if (name.equalsIgnoreCase(MEMORY))
+            return MappingType.MEMORY_MAPPING;
+        if (name.equalsIgnoreCase(HYBRID))
+            return MappingType.HYBIRD_MAPPING;
+        if (name.equalsIgnoreCase(FILE))
+            return MappingType.FILE_MAPPING;
+        if (name.equalsIgnoreCase(COMPACT))
+            return MappingType.COMPACT_MAPPING;
+        logger.warn("Sorry, " + name + " is not yet implemented. Using the " + MappingType.DEFAULT
+                + " mapping type ...");
+        return MappingType.DEFAULT;
+    }
+
     /**
      * @return the default Mapping implementation
      */
@@ -33,6 +60,8 @@ public class MappingFactory {
             return new HybridMapping();
         if (type == MappingType.FILE_MAPPING)
             return new FileMapping();
+        if (type == MappingType.COMPACT_MAPPING)
+            return new CompactMapping();
         logger.warn("Sorry, " + type + " is not yet implemented. Generating " + MappingType.DEFAULT + " map ...");
         return createDefaultMapping();
     }
@@ -40,8 +69,44 @@ public class MappingFactory {
     public enum MappingType {
         DEFAULT, // currently memory mapping
         MEMORY_MAPPING,
-        HYBIRD_MAPPING,
-        FILE_MAPPING
+        HYBIRD_MAPPING, // in memory until a quarter of the heap is used, then spilled to disk
+        FILE_MAPPING, // spilled to disk every 100000 links
+        COMPACT_MAPPING // dictionary-encoded URIs and primitive arrays
+    }
+
+    /**
+     * @param mapping to convert
+     * @param type of mapping
+     * @return the mapping itself if it already is of the given type, or if it
+     *         is a {@link ComplementMapping} and the {@link MappingType#DEFAULT}
+     *         type is requested, else a copy of its links in a mapping of the
+     *         given type
+     */
+    public static AMapping convert(AMapping mapping, MappingType type) {
+        if (mapping instanceof ComplementMapping && type == MappingType.DEFAULT) {
+            // keeps S x T minus the excluded links unmaterialized
+            return mapping;
+        }
+        Class<? extends AMapping> mappingClass;
+        switch (type) {
+        case COMPACT_MAPPING:
+            return mapping instanceof CompactMapping ? mapping : CompactMapping.copyOf(mapping);
+        case FILE_MAPPING:
+            mappingClass = FileMapping.class;
+            break;
+        case HYBIRD_MAPPING:
+            mappingClass = HybridMapping.class;
+            break;
+        default:
+            mappingClass = MemoryMapping.class;
+        }
+        if (mapping.getClass() == mappingClass) {
+            return mapping;
+        }
+        AMapping result = createMapping(type);
+        result.setPredicate(mapping.getPredicate());
+        mapping.stream(result::add);
+        return result;
     }
 
 
@@ -0,0 +1,91 @@
+package org.aksw.limes.core.io.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Hash map whose mutators throw an {@link UnsupportedOperationException}. It
+ * is filled through {@link #putInternal(Object, Object)} and returned by
+ * {@link AMapping#getMap()} of mappings that do not keep their links in nested
+ * hash maps, such as {@link CompactMapping} and {@link FileMapping}.
+ */
+final class ReadOnlyMap<K, V> extends HashMap<K, V> {
+
+    private static final long serialVersionUID = 2413279826127612542L;
+
+    void putInternal(K key, V value) {
+        super.put(key, value);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException(
+                "The map of this mapping is read-only, add links to the mapping instead");
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        throw readOnly();
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        throw readOnly();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        throw readOnly();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        throw readOnly();
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        throw readOnly();
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        throw readOnly();
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        throw readOnly();
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        throw readOnly();
+    }
+}
@@ -7,7 +7,6 @@ import org.aksw.limes.core.io.mapping.AMapping;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Property;
-import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.ResourceFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,13 +59,8 @@ public class RDFMappingWriter implements IMappingWriter {
     @Override
     public void write(AMapping mapping, String outputFile, String format) throws IOException {
         Property p = ResourceFactory.createProperty(mapping.getPredicate());
-        for (String source : mapping.getMap().keySet()) {
-            for (String target : mapping.getMap().get(source).keySet()) {
-                Resource s = ResourceFactory.createResource(source);
-                Resource o = ResourceFactory.createResource(target);
-                mappingModel.add(s, p, o);
-            }
-        }
+        mapping.stream((source, target, similarity) -> mappingModel.add(ResourceFactory.createResource(source), p,
+                ResourceFactory.createResource(target)));
         writeModel(mappingModel, format, outputFile);
     }
 
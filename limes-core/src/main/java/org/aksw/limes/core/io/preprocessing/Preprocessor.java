@@ -40,32 +40,59 @@ public class Preprocessor {
 		}else{
 			cacheClone = cache;
 		}
+		if (functions.isEmpty()) {
+			return cacheClone;
+		}
+		if (cacheClone.returnsDetachedInstances()) {
+			// the cache returns copies, which may be written back while
+			// streaming, so that not all instances are held in memory
+			cacheClone.resetIterator();
+			for (Instance inst = cacheClone.getNextInstance(); inst != null; inst = cacheClone.getNextInstance()) {
+				applyFunctions(inst, functions);
+				cacheClone.replaceInstance(inst.getUri(), inst);
+			}
+		} else {
+			for (Instance inst : cacheClone.getAllInstances()) {
+				applyFunctions(inst, functions);
+			}
+		}
+		return cacheClone;
+	}
+
+	private static void applyFunctions(Instance inst, Map<String, Map<String, String>> functions) {
 		functions.forEach((property, innerMap) -> {
 			innerMap.forEach((propertyDub, functionChain) -> {
-				for(Instance inst : cacheClone.getAllInstances()){
-                    logger.debug("Function chain = " + functionChain);
-                    applyRenameIfNecessary(inst, property, propertyDub);
-                    if (functionChain != null) {
-                        if (!functionChain.equals("")) {
-                            String split[] = functionChain.split("->");
-                            for (int i = 0; i < split.length; i++) {
-                                String functionId = getFunctionId(split[i]);
-                                PreprocessingFunctionType type = PreprocessingFunctionFactory
-                                        .getPreprocessingType(functionId);
-                                APreprocessingFunction func = PreprocessingFunctionFactory.getPreprocessingFunction(type);
-                                String[] arguments = func.retrieveArguments(split[i]);
-                                if (arguments.length > 0) {
-                                    func.applyFunction(inst, propertyDub, arguments);
-                                } else {
-                                    func.applyFunction(inst, propertyDub);
-                                }
-                            }
-                        }
-                    }
-				}
+				applyFunctionChain(inst, property, propertyDub, functionChain);
 			});
 		});
-		return cacheClone;
+	}
+
+	/**
+	 * Applies a preprocessing function chain to a single instance, renaming
+	 * <code>property</code> to <code>propertyDub</code> first if needed.
+	 * 
+	 * @param inst instance to be processed in place
+	 * @param property name of the property to process
+	 * @param propertyDub name of the property the processed values are stored in
+	 * @param functionChain preprocessing expression, e.g. <code>lowercase-&gt;nolang</code>
+	 */
+	public static void applyFunctionChain(Instance inst, String property, String propertyDub, String functionChain) {
+		logger.debug("Function chain = " + functionChain);
+		applyRenameIfNecessary(inst, property, propertyDub);
+		if (functionChain != null && !functionChain.equals("")) {
+			String split[] = functionChain.split("->");
+			for (int i = 0; i < split.length; i++) {
+				String functionId = getFunctionId(split[i]);
+				PreprocessingFunctionType type = PreprocessingFunctionFactory.getPreprocessingType(functionId);
+				APreprocessingFunction func = PreprocessingFunctionFactory.getPreprocessingFunction(type);
+				String[] arguments = func.retrieveArguments(split[i]);
+				if (arguments.length > 0) {
+					func.applyFunction(inst, propertyDub, arguments);
+				} else {
+					func.applyFunction(inst, propertyDub);
+				}
+			}
+		}
 	}
 
 	public static void applyRenameIfNecessary(Instance inst, String property, String propertyDub) {
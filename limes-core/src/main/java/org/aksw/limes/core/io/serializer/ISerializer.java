@@ -45,6 +45,27 @@ public interface ISerializer {
      */
     public void printStatement(String subject, String predicate, String object, double confidence);
 
+    /**
+     * Prints everything that precedes the links of a mapping, e.g., the
+     * prefixes. Requires the method open to have been carried out
+     */
+    public void printHeader();
+
+    /**
+     * Prints a link of a mapping in the same format as
+     * {@link #writeToFile(AMapping, String, String)}. Requires the method open
+     * and printHeader to have been carried out
+     *
+     * @param source
+     *         Uri in the source knowledge bases
+     * @param predicate
+     *         of the mapping
+     * @param target
+     *         Uri in the target knowledge base
+     * @param confidence value
+     */
+    public void printLink(String source, String predicate, String target, double confidence);
+
     /**
      * Adds a triple to the buffer of the serializer. Requires the method open
      * to have been carried out
@@ -0,0 +1,92 @@
+package org.aksw.limes.core.io.serializer;
+
+import java.io.Closeable;
+
+import org.aksw.limes.core.io.mapping.ILinkSink;
+
+/**
+ * Sink that writes the links pushed into it straight into an acceptance and a
+ * verification file. Links with a similarity of at least the acceptance
+ * threshold are written to the acceptance file, all other links to the
+ * verification file. The files have the same content as the acceptance and
+ * verification mappings written with
+ * {@link ISerializer#writeToFile(org.aksw.limes.core.io.mapping.AMapping, String, String)},
+ * but no mapping is held in memory.
+ */
+public class LinkStreamWriter implements ILinkSink, Closeable {
+
+    private final ISerializer acceptanceOutput;
+    private final ISerializer verificationOutput;
+    private final String acceptanceRelation;
+    private final String verificationRelation;
+    private final double acceptanceThreshold;
+    private int acceptanceSize = 0;
+    private int verificationSize = 0;
+
+    /**
+     * Opens both files. The serializers must not be shared.
+     *
+     * @param acceptanceOutput
+     *         serializer of the accepted links
+     * @param acceptanceRelation
+     *         predicate of the accepted links
+     * @param acceptanceFile
+     *         file of the accepted links
+     * @param verificationOutput
+     *         serializer of the links that need verification
+     * @param verificationRelation
+     *         predicate of the links that need verification
+     * @param verificationFile
+     *         file of the links that need verification
+     * @param acceptanceThreshold
+     *         minimal similarity of accepted links
+     */
+    public LinkStreamWriter(ISerializer acceptanceOutput, String acceptanceRelation, String acceptanceFile,
+            ISerializer verificationOutput, String verificationRelation, String verificationFile,
+            double acceptanceThreshold) {
+        this.acceptanceOutput = acceptanceOutput;
+        this.verificationOutput = verificationOutput;
+        this.acceptanceRelation = acceptanceRelation;
+        this.verificationRelation = verificationRelation;
+        this.acceptanceThreshold = acceptanceThreshold;
+        verificationOutput.open(verificationFile);
+        verificationOutput.printHeader();
+        acceptanceOutput.open(acceptanceFile);
+        acceptanceOutput.printHeader();
+    }
+
+    @Override
+    public synchronized void add(String source, String target, double similarity) {
+        if (similarity >= acceptanceThreshold) {
+            acceptanceOutput.printLink(source, acceptanceRelation, target, similarity);
+            acceptanceSize++;
+        } else {
+            verificationOutput.printLink(source, verificationRelation, target, similarity);
+            verificationSize++;
+        }
+    }
+
+    /**
+     * @return number of links written to the acceptance file
+     */
+    public int getAcceptanceSize() {
+        return acceptanceSize;
+    }
+
+    /**
+     * @return number of links written to the verification file
+     */
+    public int getVerificationSize() {
+        return verificationSize;
+    }
+
+    /**
+     * Closes both files
+     */
+    @Override
+    public void close() {
+        verificationOutput.close();
+        acceptanceOutput.close();
+    }
+
+}
@@ -28,6 +28,10 @@ public class NtSerializer implements ISerializer {
     protected Set<String> statements;
     protected Map<String, String> prefixMap;
     protected File folder = new File("");
+    /**
+     * Last predicate printed by printLink and its expansion
+     */
+    private String printedPredicate, expandedPredicate;
 
     public NtSerializer() {
         prefixMap = new HashMap<String, String>();
@@ -81,20 +85,24 @@ public class NtSerializer implements ISerializer {
      */
     public void writeToFile(AMapping mapping, String predicate, String file) {
         open(file);
-        String predicatePrefix = getPrefix(predicate);
-
+        printHeader();
         if (mapping.size() > 0) {
-            for (String s : mapping.getMap().keySet()) {
-                for (String t : mapping.getMap().get(s).keySet()) {
-                    writer.println("<" + s + "> "
-                            + "<" + expand(predicate, predicatePrefix) + "> "
-                            + "<" + t + "> .");
-                }
-            }
+            mapping.stream((source, target, similarity) -> printLink(source, predicate, target, similarity));
         }
         close();
     }
 
+    public void printHeader() {
+    }
+
+    public void printLink(String source, String predicate, String target, double confidence) {
+        if (!predicate.equals(printedPredicate)) {
+            printedPredicate = predicate;
+            expandedPredicate = expand(predicate, getPrefix(predicate));
+        }
+        writer.println("<" + source + "> <" + expandedPredicate + "> <" + target + "> .");
+    }
+
     /**
      * Writes in the file statement by statement. Rather slow, not to be used
      *
@@ -177,6 +185,7 @@ public class NtSerializer implements ISerializer {
 
     public void setPrefixes(Map<String, String> prefixes) {
         prefixMap = prefixes;
+        printedPredicate = null;
     }
 
     /**
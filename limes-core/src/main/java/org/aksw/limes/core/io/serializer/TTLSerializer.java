@@ -75,14 +75,24 @@ public class TTLSerializer implements ISerializer {
      */
     public void writeToFile(AMapping mapping, String predicate, String file) {
         open(file);
+        printHeader();
+        mapping.stream((source, target, similarity) -> printLink(source, predicate, target, similarity));
+        close();
+    }
+
+    /* (non-Javadoc)
+     * @see org.aksw.limes.core.io.serializer.ISerializer#printHeader()
+     */
+    public void printHeader() {
         printPrefixes();
         statements = new TreeSet<String>();
-        for (String s : mapping.getMap().keySet()) {
-            for (String t : mapping.getMap().get(s).keySet()) {
-                writer.println("<" + s + "> <" + predicate + "> <" + t + "> .");
-            }
-        }
-        close();
+    }
+
+    /* (non-Javadoc)
+     * @see org.aksw.limes.core.io.serializer.ISerializer#printLink(java.lang.String, java.lang.String, java.lang.String, double)
+     */
+    public void printLink(String source, String predicate, String target, double confidence) {
+        writer.println("<" + source + "> <" + predicate + "> <" + target + "> .");
     }
 
     /**
@@ -1,9 +1,18 @@
 package org.aksw.limes.core.measures.mapper;
 
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.CompactMapping;
+import org.aksw.limes.core.io.mapping.ComplementMapping;
+import org.aksw.limes.core.io.mapping.FileMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 /**
- * Implements the mapping operations abstract class.
+ * Implements the mapping operations abstract class. If one of the input
+ * mappings is a {@link ComplementMapping}, the operations are computed by
+ * {@link ComplementMapping} without materializing its links. If one of the
+ * input mappings is a {@link FileMapping}, the operations are computed by merging
+ * the sorted links of both mappings and return a {@link FileMapping}.
+ * Otherwise, if one of them is a {@link CompactMapping}, the operations are
+ * linear merges of the encoded links and return a {@link CompactMapping}.
  *
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  * @version 1.0
@@ -20,6 +29,15 @@ public class MappingOperations {
      * @return map1 \ map2
      */
     public static AMapping difference(AMapping map1, AMapping map2) {
+        if (map1 instanceof ComplementMapping || map2 instanceof ComplementMapping) {
+            return ComplementMapping.difference(map1, map2);
+        }
+        if (map1 instanceof FileMapping || map2 instanceof FileMapping) {
+            return FileMapping.difference(map1, map2);
+        }
+        if (map1 instanceof CompactMapping || map2 instanceof CompactMapping) {
+            return CompactMapping.difference(map1, map2);
+        }
         AMapping map = MappingFactory.createDefaultMapping();
         
         // go through all the keys in map1
@@ -52,6 +70,15 @@ public class MappingOperations {
      * @return Intersection of map1 and map2
      */
     public static AMapping intersection(AMapping map1, AMapping map2) {
+        if (map1 instanceof ComplementMapping || map2 instanceof ComplementMapping) {
+            return ComplementMapping.intersection(map1, map2);
+        }
+        if (map1 instanceof FileMapping || map2 instanceof FileMapping) {
+            return FileMapping.intersection(map1, map2);
+        }
+        if (map1 instanceof CompactMapping || map2 instanceof CompactMapping) {
+            return CompactMapping.intersection(map1, map2);
+        }
         AMapping map = MappingFactory.createDefaultMapping();
         // takes care of not running the filter if some set is empty
         if (map1.size() == 0 || map2.size() == 0) {
@@ -89,6 +116,15 @@ public class MappingOperations {
      * @return Union of map1 and map2
      */
     public static AMapping union(AMapping map1, AMapping map2) {
+        if (map1 instanceof ComplementMapping || map2 instanceof ComplementMapping) {
+            return ComplementMapping.union(map1, map2);
+        }
+        if (map1 instanceof FileMapping || map2 instanceof FileMapping) {
+            return FileMapping.union(map1, map2);
+        }
+        if (map1 instanceof CompactMapping || map2 instanceof CompactMapping) {
+            return CompactMapping.union(map1, map2);
+        }
         AMapping map = MappingFactory.createDefaultMapping();
         // go through all the keys in map1
         for (String key : map1.getMap().keySet()) {
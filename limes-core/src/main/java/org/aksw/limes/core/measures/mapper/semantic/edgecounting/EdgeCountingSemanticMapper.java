@@ -1,8 +1,17 @@
 package org.aksw.limes.core.measures.mapper.semantic.edgecounting;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
@@ -11,17 +20,37 @@ import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
 import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.AEdgeCountingSemanticMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.factory.SemanticFactory;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.factory.SemanticType;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
-import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.memory.MemoryIndex;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.file.FileIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MarkerFactory;
 
+import edu.mit.jwi.item.IIndexWord;
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.ISynsetID;
+import edu.mit.jwi.item.IWordID;
+import weka.core.Stopwords;
+
 public class EdgeCountingSemanticMapper extends AMapper {
     static Logger logger = LoggerFactory.getLogger(EdgeCountingSemanticMapper.class);
 
+    // maximal number of token pairs whose similarities are kept in a matrix
+    private static final long MAX_TOKEN_PAIRS = 1L << 24;
+    // tolerance of the token similarities against rounding errors of the
+    // averaged instance similarities
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * Minimal number of tokens or instances per partition. The semantic
+     * similarities are expensive, so the tokens and instances are distributed
+     * over several tasks already if each task gets at least this many of them.
+     */
+    public static final int MIN_PARTITION_SIZE = 100;
+
     AEdgeCountingSemanticMeasure measure = null;
     AIndex Indexer = null;
 
@@ -63,39 +92,452 @@ public class EdgeCountingSemanticMapper extends AMapper {
                     "Expression " + expression + " was given to a mapper to process");
         }
 
-        AMapping m = MappingFactory.createDefaultMapping();
-        // create index before anything
-        Indexer = new MemoryIndex();
-        Indexer.preIndex();
+        // the index and the dictionary are loaded once and shared
+        Indexer = FileIndex.getSharedIndex();
         // create semantic similarity, pass indexer as parameter
         SemanticType type = SemanticFactory.getMeasureType(expression);
-        measure = SemanticFactory.createMeasure(type, Indexer);
-
-        for (Instance sourceInstance : source.getAllInstances()) {
-            // System.out.println("Source URI "+sourceInstance.getUri());
-            for (Instance targetInstance : target.getAllInstances()) {
-                // System.out.println("-->Target URI "+targetInstance.getUri());
-                double similarity = measure.getSimilarity(sourceInstance, targetInstance, properties.get(0),
-                        properties.get(1));
-                if (similarity >= threshold) {
-                    m.add(sourceInstance.getUri(), targetInstance.getUri(), similarity);
-                }
+        measure = SemanticFactory.createMeasure(type, Indexer, SemanticDictionary.getSharedDictionary());
 
-            }
-        }
+        AMapping m = getMapping(source, target, properties.get(0), properties.get(1), threshold);
 
-        // in case of a db, you close the connection
+        // the shared index and dictionary stay open for the next mappings
         Indexer.close();
-        // dictionary gets open once, during the creation of the semantic
-        // similarity.
-        // then, it stays open until all comparisons between instances are
-        // carried out. once the comparisons are over, the dictionary must be
-        // closed.
         measure.close();
 
         return m;
     }
 
+    /**
+     * Computes the links between the source and the target instances whose
+     * similarity reaches the threshold, using the measure of the mapper.
+     * First, the token pairs that cannot reach the threshold are pruned by the
+     * hypernym paths of the tokens, then the instance pairs without a token
+     * pair that reaches the threshold. The remaining candidates are verified
+     * in parallel.
+     *
+     * @param source,
+     *            the source cache
+     * @param target,
+     *            the target cache
+     * @param sourceProperty,
+     *            the source property
+     * @param targetProperty,
+     *            the target property
+     * @param threshold,
+     *            the similarity threshold
+     * @return the mapping
+     */
+    AMapping getMapping(ACache source, ACache target, String sourceProperty, String targetProperty,
+            double threshold) {
+        // tokenize every property value once and encode the tokens that are
+        // no stop words by their id in the vocabulary of the source or target
+        List<Instance> sourceInstances = source.getAllInstances();
+        List<Instance> targetInstances = target.getAllInstances();
+        Map<String, Integer> sourceVocabulary = new HashMap<String, Integer>();
+        Map<String, Integer> targetVocabulary = new HashMap<String, Integer>();
+        int[][][] sourceValues = new int[sourceInstances.size()][][];
+        for (int i = 0; i < sourceValues.length; i++) {
+            sourceValues[i] = encode(sourceInstances.get(i).getProperty(sourceProperty), sourceVocabulary);
+        }
+        int[][][] targetValues = new int[targetInstances.size()][][];
+        for (int i = 0; i < targetValues.length; i++) {
+            targetValues[i] = encode(targetInstances.get(i).getProperty(targetProperty), targetVocabulary);
+        }
+
+        String[] sourceTokens = toArray(sourceVocabulary);
+        String[] targetTokens = toArray(targetVocabulary);
+        // the scored token pairs are kept in a matrix, unscored pairs are NaN
+        double[][] similarities = (long) sourceTokens.length * targetTokens.length <= MAX_TOKEN_PAIRS
+                ? new double[sourceTokens.length][] : null;
+
+        // token blocking: score only the target tokens that share a concept
+        // at the minimal subsumer depth with the source token and keep the
+        // partners whose similarity reaches the threshold
+        Map<Long, List<Integer>> signatures = getSignatures(targetTokens);
+        int[][] partners = new int[sourceTokens.length][];
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (int[] partition : getPartitions(sourceTokens.length)) {
+            tasks.add(() -> {
+                for (int i = partition[0]; i < partition[1]; i++) {
+                    if (similarities != null) {
+                        similarities[i] = new double[targetTokens.length];
+                        Arrays.fill(similarities[i], Double.NaN);
+                    }
+                    partners[i] = getPartners(sourceTokens[i], targetTokens, targetVocabulary, signatures,
+                            similarities == null ? null : similarities[i], threshold);
+                }
+            });
+        }
+        ExecutionContext.runAll(tasks);
+
+        // instance blocking: the similarity of two instances is an average of
+        // token similarities, so it reaches the threshold only if a token of
+        // the source instance has a partner in the target instance
+        int[][] targetTokenInstances = getTokenInstances(targetValues, targetTokens.length);
+        int[][] candidates = new int[sourceValues.length][];
+        tasks.clear();
+        for (int[] partition : getPartitions(sourceValues.length)) {
+            tasks.add(() -> {
+                for (int i = partition[0]; i < partition[1]; i++) {
+                    candidates[i] = getCandidates(sourceValues[i], partners, targetTokenInstances,
+                            targetValues.length);
+                }
+            });
+        }
+        ExecutionContext.runAll(tasks);
+
+        // score the remaining token pairs of the candidates, each task owns
+        // the rows of its source tokens
+        if (similarities != null) {
+            int[][] sourceTokenInstances = getTokenInstances(sourceValues, sourceTokens.length);
+            tasks.clear();
+            for (int[] partition : getPartitions(sourceTokens.length)) {
+                tasks.add(() -> {
+                    for (int i = partition[0]; i < partition[1]; i++) {
+                        double[] row = similarities[i];
+                        for (int sourceInstance : sourceTokenInstances[i]) {
+                            for (int targetInstance : candidates[sourceInstance]) {
+                                for (int[] targetValue : targetValues[targetInstance]) {
+                                    for (int j : targetValue) {
+                                        if (Double.isNaN(row[j])) {
+                                            row[j] = measure.getTokenSimilarity(sourceTokens[i], targetTokens[j]);
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                });
+            }
+            ExecutionContext.runAll(tasks);
+        }
+
+        // verify the candidates
+        List<Callable<AMapping>> verifiers = new ArrayList<Callable<AMapping>>();
+        for (int[] partition : getPartitions(sourceValues.length)) {
+            verifiers.add(() -> {
+                AMapping partial = MappingFactory.createDefaultMapping();
+                for (int i = partition[0]; i < partition[1]; i++) {
+                    for (int j : candidates[i]) {
+                        double similarity = getSimilarity(sourceValues[i], targetValues[j], similarities, sourceTokens,
+                                targetTokens);
+                        if (similarity >= threshold) {
+                            partial.add(sourceInstances.get(i).getUri(), targetInstances.get(j).getUri(),
+                                    similarity);
+                        }
+                    }
+                }
+                return partial;
+            });
+        }
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (AMapping partial : ExecutionContext.invokeAll(verifiers)) {
+            for (Entry<String, HashMap<String, Double>> s : partial.getMap().entrySet()) {
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    m.add(s.getKey(), t.getKey(), t.getValue());
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Tokenizes the values of a property and encodes the tokens that are no
+     * stop words by their id in the vocabulary.
+     *
+     * @param values,
+     *            the property values
+     * @param vocabulary,
+     *            the vocabulary, new tokens are added to it
+     * @return the token ids of each non-empty value
+     */
+    private int[][] encode(Set<String> values, Map<String, Integer> vocabulary) {
+        List<int[]> encoded = new ArrayList<int[]>(values.size());
+        for (String value : values) {
+            if (value.equals(""))
+                continue;
+            String[] tokens = measure.tokenize(new String[] { value });
+            int[] ids = new int[tokens == null ? 0 : tokens.length];
+            int count = 0;
+            for (int k = 0; k < ids.length; k++) {
+                if (!Stopwords.isStopword(tokens[k])) {
+                    Integer id = vocabulary.get(tokens[k]);
+                    if (id == null) {
+                        id = vocabulary.size();
+                        vocabulary.put(tokens[k], id);
+                    }
+                    ids[count++] = id;
+                }
+            }
+            encoded.add(Arrays.copyOf(ids, count));
+        }
+        return encoded.toArray(new int[encoded.size()][]);
+    }
+
+    /**
+     * Splits a range of indices into the partitions that are processed by
+     * parallel tasks.
+     *
+     * @param size,
+     *            the number of indices
+     * @return the first and the last (exclusive) index of each partition
+     */
+    private static List<int[]> getPartitions(int size) {
+        int partitions = Math.max(1, Math.min(4 * ExecutionContext.getParallelism(), size / MIN_PARTITION_SIZE));
+        List<int[]> bounds = new ArrayList<int[]>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            bounds.add(new int[] { (int) ((long) i * size / partitions), (int) ((long) (i + 1) * size / partitions) });
+        }
+        return bounds;
+    }
+
+    /**
+     * Retrieves the concepts of a token, which are the synsets of its index
+     * word, as {@link AEdgeCountingSemanticMeasure#getSimilarity(IIndexWord, IIndexWord)}
+     * does.
+     *
+     * @param token,
+     *            the input token
+     * @return the concepts of the token
+     */
+    private List<ISynset> getSynsets(String token) {
+        List<ISynset> synsets = new ArrayList<ISynset>();
+        IIndexWord word = measure.getIIndexWord(token);
+        if (word == null || measure.getWordIDs(word) == null)
+            return synsets;
+        for (IWordID wordID : measure.getWordIDs(word)) {
+            ISynset synset = measure.getSynset(measure.getIWord(wordID));
+            if (synset != null)
+                synsets.add(synset);
+        }
+        return synsets;
+    }
+
+    /**
+     * Encodes a concept at a position of a hypernym path, counted from the
+     * root.
+     */
+    private static long getSignature(int posNumber, int position, int offset) {
+        return ((long) posNumber << 40) | ((long) position << 32) | (offset & 0xffffffffL);
+    }
+
+    /**
+     * Indexes the target tokens by the concepts on the hypernym paths of their
+     * concepts and the positions of these concepts on the paths.
+     *
+     * @param targetTokens,
+     *            the target vocabulary
+     * @return the ids of the target tokens per signature
+     */
+    private Map<Long, List<Integer>> getSignatures(String[] targetTokens) {
+        Map<Long, List<Integer>> signatures = new HashMap<Long, List<Integer>>();
+        for (int j = 0; j < targetTokens.length; j++) {
+            for (ISynset synset : getSynsets(targetTokens[j])) {
+                int posNumber = synset.getPOS().getNumber();
+                ArrayList<ArrayList<ISynsetID>> paths = measure.getPaths(synset);
+                if (paths == null)
+                    continue;
+                for (ArrayList<ISynsetID> path : paths) {
+                    for (int k = 0; k < path.size(); k++) {
+                        long signature = getSignature(posNumber, k, path.get(k).getOffset());
+                        List<Integer> tokens = signatures.get(signature);
+                        if (tokens == null) {
+                            tokens = new ArrayList<Integer>();
+                            signatures.put(signature, tokens);
+                        }
+                        if (tokens.isEmpty() || tokens.get(tokens.size() - 1) != j) {
+                            tokens.add(j);
+                        }
+                    }
+                }
+            }
+        }
+        return signatures;
+    }
+
+    /**
+     * Finds the target tokens whose similarity to a source token reaches the
+     * threshold. Only the target tokens that are equal to the source token or
+     * share a concept at the minimal subsumer depth of one of its hypernym
+     * paths are scored, the others cannot reach the threshold.
+     *
+     * @param sourceToken,
+     *            the source token
+     * @param targetTokens,
+     *            the target vocabulary
+     * @param targetVocabulary,
+     *            the ids of the target tokens
+     * @param signatures,
+     *            the index of the target tokens
+     * @param row,
+     *            the similarities of the source token to the target tokens or
+     *            null
+     * @param threshold,
+     *            the similarity threshold
+     * @return the ids of the partners of the source token
+     */
+    private int[] getPartners(String sourceToken, String[] targetTokens, Map<String, Integer> targetVocabulary,
+            Map<Long, List<Integer>> signatures, double[] row, double threshold) {
+        BitSet candidates = new BitSet(targetTokens.length);
+        Integer equal = targetVocabulary.get(sourceToken);
+        if (equal != null) {
+            candidates.set(equal);
+        }
+        search: for (ISynset synset : getSynsets(sourceToken)) {
+            int posNumber = synset.getPOS().getNumber();
+            ArrayList<ArrayList<ISynsetID>> paths = measure.getPaths(synset);
+            if (paths == null)
+                continue;
+            for (ArrayList<ISynsetID> path : paths) {
+                int depth = measure.getMinSubsumerDepth(path.size(), posNumber, threshold);
+                if (depth <= 0) {
+                    // no bound, every target token is a candidate
+                    candidates.set(0, targetTokens.length);
+                    break search;
+                }
+                if (depth <= path.size()) {
+                    List<Integer> tokens = signatures
+                            .get(getSignature(posNumber, depth - 1, path.get(depth - 1).getOffset()));
+                    if (tokens != null) {
+                        for (int j : tokens) {
+                            candidates.set(j);
+                        }
+                    }
+                }
+            }
+        }
+        int[] partners = new int[candidates.cardinality()];
+        int count = 0;
+        for (int j = candidates.nextSetBit(0); j >= 0; j = candidates.nextSetBit(j + 1)) {
+            double similarity = measure.getTokenSimilarity(sourceToken, targetTokens[j]);
+            if (row != null) {
+                row[j] = similarity;
+            }
+            if (similarity >= threshold - TOLERANCE) {
+                partners[count++] = j;
+            }
+        }
+        return Arrays.copyOf(partners, count);
+    }
+
+    /**
+     * Retrieves the instances whose values contain a token, per token.
+     *
+     * @param values,
+     *            the token ids of the values of each instance
+     * @param tokens,
+     *            the size of the vocabulary
+     * @return the ascending instance ids per token id
+     */
+    private static int[][] getTokenInstances(int[][][] values, int tokens) {
+        List<List<Integer>> instances = new ArrayList<List<Integer>>(tokens);
+        for (int k = 0; k < tokens; k++) {
+            instances.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < values.length; i++) {
+            for (int[] value : values[i]) {
+                for (int token : value) {
+                    List<Integer> tokenInstances = instances.get(token);
+                    if (tokenInstances.isEmpty() || tokenInstances.get(tokenInstances.size() - 1) != i) {
+                        tokenInstances.add(i);
+                    }
+                }
+            }
+        }
+        int[][] result = new int[tokens][];
+        for (int k = 0; k < tokens; k++) {
+            result[k] = instances.get(k).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    /**
+     * Finds the target instances that contain a partner of a token of the
+     * source instance.
+     *
+     * @param sourceValues,
+     *            the token ids of the values of the source instance
+     * @param partners,
+     *            the partners of each source token
+     * @param targetTokenInstances,
+     *            the target instances of each target token
+     * @param targetSize,
+     *            the number of target instances
+     * @return the ascending ids of the candidate target instances
+     */
+    private static int[] getCandidates(int[][] sourceValues, int[][] partners, int[][] targetTokenInstances,
+            int targetSize) {
+        BitSet candidates = new BitSet(targetSize);
+        for (int[] sourceValue : sourceValues) {
+            for (int sourceToken : sourceValue) {
+                for (int targetToken : partners[sourceToken]) {
+                    for (int j : targetTokenInstances[targetToken]) {
+                        candidates.set(j);
+                    }
+                }
+            }
+        }
+        return candidates.stream().toArray();
+    }
+
+    private static String[] toArray(Map<String, Integer> vocabulary) {
+        String[] tokens = new String[vocabulary.size()];
+        for (Entry<String, Integer> e : vocabulary.entrySet()) {
+            tokens[e.getValue()] = e.getKey();
+        }
+        return tokens;
+    }
+
+    /**
+     * Computes the similarity of two instances as
+     * {@link AEdgeCountingSemanticMeasure#getSimilarity(Instance, Instance, String, String)}
+     * does: the maximum over all pairs of values of the average over the
+     * source tokens of their maximal similarity to a target token.
+     *
+     * @param sourceValues,
+     *            the token ids of the source values
+     * @param targetValues,
+     *            the token ids of the target values
+     * @param similarities,
+     *            the similarities of all token pairs or null
+     * @param sourceTokens,
+     *            the source vocabulary
+     * @param targetTokens,
+     *            the target vocabulary
+     * @return the similarity of the instances
+     */
+    private double getSimilarity(int[][] sourceValues, int[][] targetValues, double[][] similarities,
+            String[] sourceTokens, String[] targetTokens) {
+        double maxSim = 0;
+        for (int[] sourceValue : sourceValues) {
+            for (int[] targetValue : targetValues) {
+                double sourceTokensSum = 0;
+                for (int sourceToken : sourceValue) {
+                    double maxTargetTokenSim = 0;
+                    for (int targetToken : targetValue) {
+                        double targetTokenSim = similarities != null ? similarities[sourceToken][targetToken]
+                                : measure.getTokenSimilarity(sourceTokens[sourceToken], targetTokens[targetToken]);
+                        if (targetTokenSim > maxTargetTokenSim) {
+                            maxTargetTokenSim = targetTokenSim;
+                        }
+                        if (maxTargetTokenSim == 1.0d) {
+                            break;
+                        }
+                    }
+                    sourceTokensSum += maxTargetTokenSim;
+                }
+                double sim = sourceValue.length > 0 ? sourceTokensSum / sourceValue.length : 0;
+                if (sim > maxSim) {
+                    maxSim = sim;
+                }
+                if (maxSim == 1.0d) {
+                    return maxSim;
+                }
+            }
+        }
+        return maxSim;
+    }
+
     @Override
     public double getRuntimeApproximation(int sourceSize, int targetSize, double theta, Language language) {
         return 1000d;
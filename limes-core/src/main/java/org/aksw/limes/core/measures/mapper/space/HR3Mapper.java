@@ -5,17 +5,27 @@
 package org.aksw.limes.core.measures.mapper.space;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 // * Previously call ToralOrderBlockingMapper
 
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.ColumnarCache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.NumericColumn;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
 import org.aksw.limes.core.measures.mapper.space.blocking.BlockingFactory;
+import org.aksw.limes.core.measures.mapper.space.blocking.HR3Blocker;
 import org.aksw.limes.core.measures.mapper.space.blocking.IBlockingModule;
+import org.aksw.limes.core.measures.measure.space.EuclideanMeasure;
 import org.aksw.limes.core.measures.measure.space.ISpaceMeasure;
 import org.aksw.limes.core.measures.measure.space.SpaceMeasureFactory;
 
@@ -28,6 +38,16 @@ public class HR3Mapper extends AMapper {
 
     public int granularity = 4;
 
+    /**
+     * Number of threads the source instances are distributed over, defaults
+     * to the parallelism of the {@link ExecutionContext}. Sources are only
+     * partitioned if each thread gets at least {@link #MIN_PARTITION_SIZE} of
+     * them.
+     */
+    public int numberOfThreads = ExecutionContext.getParallelism();
+
+    public static final int MIN_PARTITION_SIZE = 1000;
+
     // this might only work for substraction. Need to create something that
     // transforms
     // the threshold on real numbers into a threshold in the function space.
@@ -108,6 +128,22 @@ public class HR3Mapper extends AMapper {
         // initialize the measure for similarity computation
         ISpaceMeasure measure = SpaceMeasureFactory.getMeasure(p.getOperator(), dimensions);
 
+        if (source instanceof ColumnarCache && target instanceof ColumnarCache && generator instanceof HR3Blocker
+                && measure instanceof EuclideanMeasure) {
+            return getMapping((ColumnarCache) source, (ColumnarCache) target, property1, property2,
+                    (HR3Blocker) generator, (EuclideanMeasure) measure, threshold);
+        }
+
+        if (numberOfThreads > 1 && source.size() >= 2 * MIN_PARTITION_SIZE) {
+            TargetIndex index = TargetIndex.create(target, property2, dimensions, generator,
+                    measure instanceof EuclideanMeasure);
+            // null if the block ids do not fit into longs
+            if (index != null) {
+                return getParallelMapping(source, target, property1, property2, generator, measure, threshold,
+                        index);
+            }
+        }
+
         // compute blockid for each of the elements of the target
         // implement our simple yet efficient blocking approach
         ArrayList<ArrayList<Integer>> blockIds;
@@ -163,6 +199,364 @@ public class HR3Mapper extends AMapper {
         return mapping;
     }
 
+    /**
+     * Computes the mapping on the pre-parsed numeric columns of two columnar
+     * caches, so that no value is parsed more than once. Values that are not
+     * numbers are left out of the columns and hence ignored.
+     */
+    private AMapping getMapping(ColumnarCache source, ColumnarCache target, String property1, String property2,
+            HR3Blocker generator, EuclideanMeasure measure, double threshold) {
+        AMapping mapping = MappingFactory.createDefaultMapping();
+        double[][][] targetValues = getValues(target, property2);
+        double[][][] sourceValues = getValues(source, property1);
+
+        HashMap<ArrayList<Integer>, ArrayList<Integer>> targetBlocks = new HashMap<ArrayList<Integer>, ArrayList<Integer>>();
+        for (int id = 0; id < targetValues.length; id++) {
+            for (ArrayList<Integer> blockId : generator.getAllBlockIds(targetValues[id])) {
+                ArrayList<Integer> ids = targetBlocks.get(blockId);
+                if (ids == null) {
+                    ids = new ArrayList<Integer>();
+                    targetBlocks.put(blockId, ids);
+                }
+                ids.add(id);
+            }
+        }
+
+        for (int id = 0; id < sourceValues.length; id++) {
+            for (ArrayList<Integer> blockId : generator.getAllBlockIds(sourceValues[id])) {
+                for (ArrayList<Integer> blockToCompare : generator.getBlocksToCompare(blockId)) {
+                    ArrayList<Integer> ids = targetBlocks.get(blockToCompare);
+                    if (ids != null) {
+                        for (int targetId : ids) {
+                            double sim = measure.getSimilarity(sourceValues[id], targetValues[targetId]);
+                            if (sim >= threshold) {
+                                mapping.add(source.getUri(id), target.getUri(targetId), sim);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * Computes the mapping by distributing the source instances over
+     * {@link #numberOfThreads} tasks of the shared pool. Each partition is linked into its own
+     * mapping, the partial mappings are merged at the end. As the partitions
+     * do not share source instances, the result equals the one of the
+     * sequential scan.
+     */
+    private AMapping getParallelMapping(ACache source, ACache target, String property1, String property2,
+            IBlockingModule generator, ISpaceMeasure measure, double threshold, TargetIndex index) {
+        ArrayList<String> uris = source.getAllUris();
+        int partitions = Math.min(4 * numberOfThreads, uris.size() / MIN_PARTITION_SIZE);
+        List<Callable<AMapping>> tasks = new ArrayList<Callable<AMapping>>();
+        for (int i = 0; i < partitions; i++) {
+            int from = (int) ((long) i * uris.size() / partitions);
+            int to = (int) ((long) (i + 1) * uris.size() / partitions);
+            List<String> partition = uris.subList(from, to);
+            tasks.add(() -> getPartitionMapping(partition, source, property1, property2, generator, measure,
+                    threshold, index));
+        }
+        AMapping mapping = MappingFactory.createDefaultMapping();
+        for (AMapping partial : ExecutionContext.invokeAll(tasks)) {
+            for (Entry<String, HashMap<String, Double>> s : partial.getMap().entrySet()) {
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    mapping.add(s.getKey(), t.getKey(), t.getValue());
+                }
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * Links one partition of the source instances. The blocks to compare are
+     * cached per source block, as neighbouring sources mostly share them.
+     */
+    private AMapping getPartitionMapping(List<String> sourceUris, ACache source, String property1, String property2,
+            IBlockingModule generator, ISpaceMeasure measure, double threshold, TargetIndex index) {
+        AMapping mapping = MappingFactory.createDefaultMapping();
+        HashMap<Long, long[]> blocksToCompare = new HashMap<Long, long[]>();
+        EuclideanMeasure euclidean = measure instanceof EuclideanMeasure ? (EuclideanMeasure) measure : null;
+        int dim = index.dimensions;
+        for (String sourceUri : sourceUris) {
+            Instance s = source.getInstance(sourceUri);
+            double[][] sourceValues = euclidean == null ? null : getValues(s, property1);
+            double[] point = TargetIndex.getPoint(sourceValues);
+            for (ArrayList<Integer> blockId : generator.getAllSourceIds(s, property1)) {
+                long key = index.fits(blockId) ? index.pack(blockId) : Long.MIN_VALUE;
+                long[] keys = key == Long.MIN_VALUE ? null : blocksToCompare.get(key);
+                if (keys == null) {
+                    keys = index.packAll(generator.getBlocksToCompare(blockId));
+                    if (key != Long.MIN_VALUE) {
+                        blocksToCompare.put(key, keys);
+                    }
+                }
+                for (long k : keys) {
+                    Block block = index.get(k);
+                    if (block == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < block.size; i++) {
+                        int id = block.ids[i];
+                        double sim;
+                        if (point != null && index.points[id] != null) {
+                            // same arithmetic as EuclideanMeasure on single values
+                            double distance = 0;
+                            for (int d = 0; d < dim; d++) {
+                                double diff = point[d] - block.coordinates[i * dim + d];
+                                distance = distance + diff * diff;
+                            }
+                            sim = 1.0 / (1.0 + Math.sqrt(distance));
+                        } else if (sourceValues != null && index.values[id] != null) {
+                            sim = euclidean.getSimilarity(sourceValues, index.values[id]);
+                        } else {
+                            sim = measure.getSimilarity(s, index.instances[id], property1, property2);
+                        }
+                        if (sim >= threshold) {
+                            mapping.add(sourceUri, index.uris[id], sim);
+                        }
+                    }
+                }
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * @return the numeric values of the properties of the instance, one array
+     *         per property, or null if a property is missing or has a value
+     *         that is not a number
+     */
+    private static double[][] getValues(Instance instance, String properties) {
+        String[] split = properties.split("\\|");
+        double[][] values = new double[split.length][];
+        for (int i = 0; i < split.length; i++) {
+            TreeSet<String> property = instance.getProperty(split[i]);
+            if (property.isEmpty()) {
+                return null;
+            }
+            values[i] = new double[property.size()];
+            int j = 0;
+            for (String value : property) {
+                try {
+                    values[i][j++] = Double.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Target instances of one block. The coordinates of the entries are
+     * stored consecutively, dimensions values per entry.
+     */
+    private static final class Block {
+        int size;
+        int[] ids = new int[4];
+        double[] coordinates;
+
+        Block(int dimensions) {
+            coordinates = new double[4 * dimensions];
+        }
+
+        void add(int id, double[] point, int dimensions) {
+            // an instance with several values can fall into the same block
+            // more than once
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * size);
+                coordinates = Arrays.copyOf(coordinates, 2 * size * dimensions);
+            }
+            ids[size] = id;
+            if (point != null) {
+                System.arraycopy(point, 0, coordinates, size * dimensions, dimensions);
+            }
+            size++;
+        }
+    }
+
+    /**
+     * Block index over the target instances. Block ids are packed into longs
+     * with 64 / dimensions bits per dimension and looked up in an
+     * open-addressing table. The index is not changed after its creation and
+     * can hence be read by several threads.
+     */
+    private static final class TargetIndex {
+        final int dimensions;
+        final int bits;
+        final String[] uris;
+        final Instance[] instances;
+        // the parsed values of each target, null if they are not numbers
+        final double[][][] values;
+        // the coordinates of targets with exactly one value per dimension
+        final double[][] points;
+        long[] keys;
+        Block[] blocks;
+        int size;
+
+        private TargetIndex(int dimensions, int size) {
+            this.dimensions = dimensions;
+            bits = 64 / dimensions;
+            uris = new String[size];
+            instances = new Instance[size];
+            values = new double[size][][];
+            points = new double[size][];
+            int capacity = Integer.highestOneBit(Math.max(size, 8)) << 2;
+            keys = new long[capacity];
+            blocks = new Block[capacity];
+        }
+
+        /**
+         * @return the index or null if a block id of the target does not fit
+         *         into a long
+         */
+        static TargetIndex create(ACache target, String properties, int dimensions, IBlockingModule generator,
+                boolean parseValues) {
+            ArrayList<String> uris = target.getAllUris();
+            TargetIndex index = new TargetIndex(dimensions, uris.size());
+            for (int id = 0; id < uris.size(); id++) {
+                Instance t = target.getInstance(uris.get(id));
+                index.uris[id] = uris.get(id);
+                index.instances[id] = t;
+                if (parseValues) {
+                    index.values[id] = getValues(t, properties);
+                    index.points[id] = getPoint(index.values[id]);
+                }
+                for (ArrayList<Integer> blockId : generator.getAllBlockIds(t)) {
+                    if (!index.fits(blockId)) {
+                        return null;
+                    }
+                    index.getOrAdd(index.pack(blockId)).add(id, index.points[id], dimensions);
+                }
+            }
+            return index;
+        }
+
+        /**
+         * @return the coordinates if each dimension has exactly one value,
+         *         null otherwise
+         */
+        static double[] getPoint(double[][] values) {
+            if (values == null) {
+                return null;
+            }
+            double[] point = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i].length != 1) {
+                    return null;
+                }
+                point[i] = values[i][0];
+            }
+            return point;
+        }
+
+        boolean fits(ArrayList<Integer> blockId) {
+            if (blockId.size() != dimensions) {
+                return false;
+            }
+            if (bits >= 32) {
+                return true;
+            }
+            for (int id : blockId) {
+                if (id < -(1 << (bits - 1)) || id >= 1 << (bits - 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long pack(ArrayList<Integer> blockId) {
+            long mask = bits == 64 ? -1L : (1L << bits) - 1;
+            long key = 0;
+            for (int id : blockId) {
+                key = (key << bits) | (id & mask);
+            }
+            return key;
+        }
+
+        /**
+         * @return the packed ids of the given blocks, blocks that do not fit
+         *         can not contain targets and are left out
+         */
+        long[] packAll(ArrayList<ArrayList<Integer>> blockIds) {
+            long[] packed = new long[blockIds.size()];
+            int n = 0;
+            for (ArrayList<Integer> blockId : blockIds) {
+                if (fits(blockId)) {
+                    packed[n++] = pack(blockId);
+                }
+            }
+            return n == packed.length ? packed : Arrays.copyOf(packed, n);
+        }
+
+        private int slot(long key) {
+            int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            int mask = keys.length - 1;
+            int i = (h ^ (h >>> 16)) & mask;
+            while (blocks[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        Block get(long key) {
+            return blocks[slot(key)];
+        }
+
+        Block getOrAdd(long key) {
+            int i = slot(key);
+            if (blocks[i] == null) {
+                if (2 * (size + 1) > keys.length) {
+                    rehash();
+                    i = slot(key);
+                }
+                keys[i] = key;
+                blocks[i] = new Block(dimensions);
+                size++;
+            }
+            return blocks[i];
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            Block[] oldBlocks = blocks;
+            keys = new long[2 * oldKeys.length];
+            blocks = new Block[2 * oldBlocks.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldBlocks[i] != null) {
+                    int j = slot(oldKeys[i]);
+                    keys[j] = oldKeys[i];
+                    blocks[j] = oldBlocks[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the values of the properties for each instance of the cache,
+     *         one array per property
+     */
+    private double[][][] getValues(ColumnarCache cache, String properties) {
+        String[] split = properties.split("\\|");
+        NumericColumn[] columns = new NumericColumn[split.length];
+        for (int i = 0; i < split.length; i++) {
+            columns[i] = cache.getNumericColumn(split[i]);
+        }
+        double[][][] values = new double[cache.size()][split.length][];
+        for (int id = 0; id < values.length; id++) {
+            for (int i = 0; i < split.length; i++) {
+                values[id][i] = columns[i].getValues(id);
+            }
+        }
+        return values;
+    }
+
     // need to change this
     public double getRuntimeApproximation(int sourceSize, int targetSize, double threshold, Language language) {
         if (language.equals(Language.DE)) {
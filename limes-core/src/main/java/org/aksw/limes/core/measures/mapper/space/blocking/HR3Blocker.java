@@ -232,6 +232,30 @@ public class HR3Blocker implements IBlockingModule {
         return blockIds;
     }
 
+    /**
+     * Computes the block ids of all combinations of the given numeric values,
+     * as done by {@link #getAllBlockIds(Instance)} on the string values.
+     *
+     * @param values values of the instance, one array per dimension
+     * @return the block ids of the instance
+     */
+    public ArrayList<ArrayList<Integer>> getAllBlockIds(double[][] values) {
+        ArrayList<ArrayList<Integer>> blockIds = new ArrayList<ArrayList<Integer>>();
+        blockIds.add(new ArrayList<Integer>());
+        for (int i = 0; i < dim; i++) {
+            ArrayList<ArrayList<Integer>> extended = new ArrayList<ArrayList<Integer>>();
+            for (ArrayList<Integer> block : blockIds) {
+                for (double value : values[i]) {
+                    ArrayList<Integer> copy = new ArrayList<Integer>(block);
+                    copy.add((int) java.lang.Math.floor((granularity * value) / thresholds.get(i)));
+                    extended.add(copy);
+                }
+            }
+            blockIds = extended;
+        }
+        return blockIds;
+    }
+
     /**
      * Computes all the block ids for a given instance. If it is known that
      * the coordinates of an instance are unique, then use getBlockId. If not, use
@@ -6,9 +6,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
@@ -25,15 +27,26 @@ import algorithms.edjoin.QGram;
 import algorithms.edjoin.Record;
 
 /**
+ * Implements the EdJoin algorithm for the Levenshtein distance. The prefix
+ * q-grams of the target values are indexed once, the source values are then
+ * probed against this index in partitions that run in the shared pool of the
+ * {@link ExecutionContext}. The mapper keeps no state between calls, so
+ * several mappings can be computed at the same time.
+ *
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  */
 public class EDJoinMapper extends AMapper {
 
     static Logger logger = LoggerFactory.getLogger(EDJoinMapper.class);
-    private static int Q = -1;
-    private static AMapping mapping = null;
-    private static HashMap<Integer, String> sourceMap;
-    private static HashMap<Integer, String> targetMap;
+    private static final int Q = 3;
+
+    /**
+     * Minimal number of source values per partition. The source values are
+     * only distributed over several tasks if each task gets at least this
+     * many of them.
+     */
+    public static final int MIN_PARTITION_SIZE = 1000;
+
     @SuppressWarnings("unused")
     private int comparisons = 0;
     
@@ -66,56 +79,10 @@ public class EDJoinMapper extends AMapper {
         for (int i = 0; i < records.length; i++) {
             Arrays.sort(records[i].qGrams);
         }
-        Arrays.sort(records);
         s.Stoppen();
         return records;
     }
 
-    private static int verification(Record currentRec, HashMap<Integer, Record> candidates, ArrayList<String> objects,
-            int q, int threshold) {
-        int count = 0;
-        String id1, id2;
-        Iterator<Record> iter = candidates.values().iterator();
-        while (iter.hasNext()) {
-            Record y = iter.next();
-            compareQGramsResult compResult = compareQGrams(currentRec, y, threshold);
-
-            /*
-             * count fnoiltering
-             */
-            if (compResult.e1 <= q * threshold) {
-                int e2 = minEditErrors(compResult.Q, q);
-                /*
-                 * location-based mismatch filtering
-                 */
-                if (e2 <= threshold) {
-                    int e3 = contentFilter(objects.get(currentRec.id), objects.get(y.id), compResult.Q, threshold, q);
-                    if (e3 <= 2 * threshold) {
-                        int ed = editDistance(objects.get(currentRec.id), objects.get(y.id));
-                        if (ed <= threshold) {
-                            if ((sourceMap.containsKey(currentRec.id) && targetMap.containsKey(y.id))) {
-                                id1 = sourceMap.get(currentRec.id);
-                                id2 = targetMap.get(y.id);
-                                // CORRECT
-                                mapping.add(id1, id2, 1.0 / (1 + (double) ed));
-                            } else if (targetMap.containsKey(currentRec.id) && sourceMap.containsKey(y.id)) {
-                                // get uris for ids
-                                {
-                                    id1 = sourceMap.get(y.id);
-                                    id2 = targetMap.get(currentRec.id);
-                                    // CORRECT
-                                    mapping.add(id1, id2, 1.0 / (1 + (double) ed));
-                                }
-                                count++;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return count;
-    }
-
     private static int calcPrefixLen(Record x, int tau, int q) {
         if (x.qGrams.length <= tau + 1) {
             return x.qGrams.length;
@@ -210,69 +177,6 @@ public class EDJoinMapper extends AMapper {
         return cnt;
     }
 
-    private static int contentFilter(String x, String y, MismatchingQGram[] Q, int tau, int q) {
-        if (Q.length == 0) {
-            return 0;
-        }
-        // Build a condensed suffix sum list for Q;
-        LinkedList<SuffixSumListEntry> condensedSuffixSumList = new LinkedList<SuffixSumListEntry>();
-        int cnt = 1;
-        int loc = Q[Q.length - 1].loc + 1;
-        for (int i = Q.length - 1; i >= 0; i--) {
-            if (Q[i].loc <= loc) {
-                condensedSuffixSumList.addFirst(new SuffixSumListEntry(Q[i].loc, cnt++));
-                loc = Q[i].loc - q;
-            }
-        }
-
-        Iterator<SuffixSumListEntry> iter = condensedSuffixSumList.iterator();
-        int j = 0;
-        int i = 1;
-        int epsilon;
-        while (i < Q.length) {
-            if (Q[i].loc - Q[i - 1].loc > 1) {
-                epsilon = L1Distance(x, y, Q[j].loc, Q[i - 1].loc + q - 1) + sumRightErrs(Q[i - 1].loc + q, iter);
-                if (epsilon > 2 * tau) {
-                    return 2 * tau + 1;
-                }
-                j = i;
-            }
-            i++;
-        }
-        return L1Distance(x, y, Q[j].loc, Q[i - 1].loc + q - 1) + sumRightErrs(Q[i - 1].loc + q, iter);
-    }
-
-    private static int L1Distance(String x, String y, int lo, int hi) {
-        HashMap<Character, Frequency> frequencyTable = new HashMap<Character, Frequency>();
-        char c;
-        Frequency f;
-        int i;
-        for (i = lo; i <= hi; i++) {
-            c = x.charAt(i);
-            if ((f = frequencyTable.get(c)) != null) {
-                f.value++;
-            } else {
-                frequencyTable.put(c, new Frequency(1));
-            }
-        }
-
-        for (i = lo; i < y.length() && i <= hi; i++) {
-            c = y.charAt(i);
-            if ((f = frequencyTable.get(c)) != null) {
-                f.value--;
-            } else {
-                frequencyTable.put(c, new Frequency(-1));
-            }
-        }
-
-        Iterator<Frequency> iter = frequencyTable.values().iterator();
-        int L1 = 0;
-        while (iter.hasNext()) {
-            L1 += Math.abs(iter.next().value);
-        }
-        return L1;
-    }
-
     private static int sumRightErrs(int loc, Iterator<SuffixSumListEntry> iter) {
         SuffixSumListEntry entry;
         while (iter.hasNext()) {
@@ -369,14 +273,11 @@ public class EDJoinMapper extends AMapper {
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
 
-        if (Q <= 1) {
-            Q = 3;
-        }
         // convert similarity in distance threshold
         threshold = (1 - threshold) / threshold;
 
         this.comparisons = 0;
-        mapping = MappingFactory.createDefaultMapping();
+        AMapping mapping = MappingFactory.createDefaultMapping();
         if (threshold < 0) {
             logger.info("Wrong threshold setting. Returning empty mapping.");
             return mapping;
@@ -401,137 +302,301 @@ public class EDJoinMapper extends AMapper {
                     "Expression " + expression + " was given to a mapper to process");
         }
 
-        // 3.1 fill objects from source in entry. This is for indexing and
-        // sorting
-        // later on
-        // logger.info("Filling objects from source knowledge base.");
-        sourceMap = new HashMap<Integer, String>();
-        ArrayList<String> uris = source.getAllUris();
+        // 3.1 fill objects from source in entries. The source values get the
+        // ids 0 to sourceUris.size() - 1
+        ArrayList<String> sourceUris = new ArrayList<String>();
         ArrayList<String> entries = new ArrayList<String>();
-        Instance instance;
-        int counter = 0;
-        for (int i = 0; i < uris.size(); i++) {
-            instance = source.getInstance(uris.get(i));
-            for (String s : instance.getProperty(properties.get(0))) {
-                sourceMap.put(counter, uris.get(i));
+        for (String uri : source.getAllUris()) {
+            for (String s : source.getInstance(uri).getProperty(properties.get(0))) {
+                sourceUris.add(uri);
                 entries.add(s);
-                counter++;
             }
         }
 
         // 3.2 fill objects from target in entries
-        // logger.info("Filling objects from target knowledge base.");
-        targetMap = new HashMap<Integer, String>();
-        uris = target.getAllUris();
-        for (int i = 0; i < uris.size(); i++) {
-            instance = target.getInstance(uris.get(i));
-            for (String s : instance.getProperty(properties.get(1))) {
-                targetMap.put(counter, uris.get(i));
+        ArrayList<String> targetUris = new ArrayList<String>();
+        for (String uri : target.getAllUris()) {
+            for (String s : target.getInstance(uri).getProperty(properties.get(1))) {
+                targetUris.add(uri);
                 entries.add(s);
-                counter++;
             }
         }
 
-        // transform entries into array so that tokenizer will work
-        // we will use entries later on as they do not lead to RAM errors
-        String[] entryArray = new String[entries.size()];
-        for (int i = 0; i < entries.size(); i++) {
-            entryArray[i] = entries.get(i);
+        // Begin EdJoin. First run the tokenization, source and target values
+        // share the token ids and their global order
+        Record[] records = qTokenizer(entries.toArray(new String[entries.size()]), Q);
+        List<Record> sourceRecords = new ArrayList<Record>(sourceUris.size());
+        List<Record> targetRecords = new ArrayList<Record>(targetUris.size());
+        for (Record record : records) {
+            // empty values are never linked
+            if (record.s.length() > 0) {
+                if (record.id < sourceUris.size()) {
+                    sourceRecords.add(record);
+                } else {
+                    targetRecords.add(record);
+                }
+            }
         }
 
-        // Begin EdJoin. First run the tokenization
-        Record[] records = qTokenizer(entryArray, Q);
-        HashMap<Integer, LinkedList<EdPosition>> index = new HashMap<Integer, LinkedList<EdPosition>>(); // I
-        int count = 0;
-        // run the core of EdJoin
-        String id1, id2;
-        for (int i = 0; i < records.length; i++) {
-            /*
-             * if the length of a record is smaller than q, then we cannot use
-             * the q-gram approach and have to go for comparison without q-gram
-             * filtering
-             */
-            if (records[i].qGrams.length == 0 && records[i].s.length() > 0) {
-                String x = records[i].s;
-                for (int j = i + 1; j < records.length; j++) {
-                    if ((sourceMap.containsKey(records[i].id) && targetMap.containsKey(records[j].id))
-                            || (targetMap.containsKey(records[i].id) && sourceMap.containsKey(records[j].id))) {
-                        String y = records[j].s;
-
-                        // length filtering
-                        if (Math.abs(x.length() - y.length()) <= threshold) {
-                            int ed = editDistance(x, y);
-                            if (ed <= threshold) {
-                                if ((sourceMap.containsKey(records[i].id) && targetMap.containsKey(records[j].id))) {
-                                    id1 = sourceMap.get(records[i].id);
-                                    id2 = targetMap.get(records[j].id);
-                                    // CORRECT
-                                    // if ((1.0 / (1 + (double) ed)) >=
-                                    // threshold)
-                                    mapping.add(id1, id2, 1.0 / (1 + (double) ed));
-                                } else // should not be necessary
-                                {
-                                    // get uris for ids
-                                    {
-                                        id1 = sourceMap.get(records[j].id);
-                                        id2 = targetMap.get(records[i].id);
-
-                                        // CORRECT
-                                        // if ((1.0 / (1 + (double) ed)) >=
-                                        // threshold)
-                                        mapping.add(id1, id2, 1.0 / (1 + (double) ed));
-                                        // mapping.add(id2, id1, similarity);
-                                    }
-                                }
-                                count++;
-                            }
-                        } else {
-                            break;
-                        }
+        // index the prefixes of the target values once, then probe the index
+        // with partitions of the source values in parallel
+        double distance = threshold;
+        PrefixIndex index = new PrefixIndex(targetRecords, (int) distance);
+        int partitions = Math.max(1, Math.min(4 * ExecutionContext.getParallelism(),
+                sourceRecords.size() / MIN_PARTITION_SIZE));
+        List<Callable<AMapping>> tasks = new ArrayList<Callable<AMapping>>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            List<Record> partition = sourceRecords.subList((int) ((long) i * sourceRecords.size() / partitions),
+                    (int) ((long) (i + 1) * sourceRecords.size() / partitions));
+            tasks.add(() -> new Verifier(sourceUris, targetUris, distance).probe(partition, index));
+        }
+        List<AMapping> partialMappings = ExecutionContext.invokeAll(tasks);
+        if (partialMappings.size() == 1) {
+            return partialMappings.get(0);
+        }
+        for (AMapping partial : partialMappings) {
+            for (Entry<String, HashMap<String, Double>> s : partial.getMap().entrySet()) {
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    mapping.add(s.getKey(), t.getKey(), t.getValue());
+                }
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * Index of the prefix q-grams of the target values. It is built once per
+     * mapping and only read while the source values are probed.
+     */
+    private static class PrefixIndex {
+
+        private final HashMap<Integer, List<EdPosition>> positions = new HashMap<Integer, List<EdPosition>>();
+        // target values sorted by length, for the values shorter than q
+        private final Record[] byLength;
+
+        PrefixIndex(List<Record> targetRecords, int tau) {
+            for (Record y : targetRecords) {
+                int prefixLength = calcPrefixLen(y, tau, Q);
+                for (int j = 0; j < prefixLength; j++) {
+                    List<EdPosition> l = positions.get(y.qGrams[j].token.id);
+                    if (l == null) {
+                        l = new ArrayList<EdPosition>();
+                        positions.put(y.qGrams[j].token.id, l);
                     }
+                    l.add(new EdPosition(y, y.qGrams[j].loc));
                 }
-            } else {
-                HashMap<Integer, Record> candidates = new HashMap<Integer, Record>(); // A
-                Record currentRec = records[i]; // record x
-                int prefixLength = calcPrefixLen(currentRec, (int) threshold, Q);
+            }
+            byLength = targetRecords.toArray(new Record[targetRecords.size()]);
+            Arrays.sort(byLength, (a, b) -> Integer.compare(a.s.length(), b.s.length()));
+        }
+
+        /**
+         * @return the position of the first target value in byLength that is
+         *         at least length characters long
+         */
+        int lowerBound(int length) {
+            int left = 0;
+            int right = byLength.length;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (byLength[mid].s.length() < length) {
+                    left = mid + 1;
+                } else {
+                    right = mid;
+                }
+            }
+            return left;
+        }
+    }
+
+    /**
+     * Probes the prefix index with a partition of the source values and
+     * verifies the candidates. Each task uses its own verifier, i.e., its own
+     * mapping and buffers for the content filter and the edit distance.
+     */
+    private static class Verifier {
+
+        private final List<String> sourceUris;
+        private final List<String> targetUris;
+        private final double threshold;
+        private final int tau;
+        private final AMapping mapping = MappingFactory.createDefaultMapping();
+        private final int[] frequencies = new int[Character.MAX_VALUE + 1];
+        private int[] previousRow = new int[32];
+        private int[] currentRow = new int[32];
+
+        Verifier(List<String> sourceUris, List<String> targetUris, double threshold) {
+            this.sourceUris = sourceUris;
+            this.targetUris = targetUris;
+            this.threshold = threshold;
+            this.tau = (int) threshold;
+        }
+
+        AMapping probe(List<Record> sourceRecords, PrefixIndex index) {
+            HashMap<Integer, Record> candidates = new HashMap<Integer, Record>(); // A
+            for (Record x : sourceRecords) {
+                /*
+                 * values shorter than q have no q-grams and are compared with
+                 * all target values of similar length, longer values with the
+                 * target values that are shorter than q
+                 */
+                int length = x.s.length();
+                for (int j = index.lowerBound((int) Math.ceil(length - threshold)); j < index.byLength.length; j++) {
+                    Record y = index.byLength[j];
+                    if (y.s.length() - length > threshold || (x.qGrams.length > 0 && y.qGrams.length > 0)) {
+                        break;
+                    }
+                    int ed = editDistance(x.s, y.s);
+                    if (ed <= threshold) {
+                        add(x, y, ed);
+                    }
+                }
+                if (x.qGrams.length == 0) {
+                    continue;
+                }
+                candidates.clear();
+                int prefixLength = calcPrefixLen(x, tau, Q);
                 for (int j = 0; j < prefixLength; j++) {
-                    Integer tokenID = currentRec.qGrams[j].token.id; // w
-                    Integer loc = currentRec.qGrams[j].loc; // locx
-                    LinkedList<EdPosition> l = index.get(tokenID);
+                    int loc = x.qGrams[j].loc; // locx
+                    List<EdPosition> l = index.positions.get(x.qGrams[j].token.id);
                     if (l != null) {
-                        Iterator<EdPosition> iter = l.iterator();
-                        while (iter.hasNext()) {
-                            EdPosition pos = iter.next();
-                            if (pos.record.qGrams.length >= currentRec.qGrams.length - threshold
-                                    && candidates.get(pos.record.id) == null) {
-                                if (Math.abs(loc - pos.EdPosition) <= threshold) {
-                                    candidates.put(pos.record.id, pos.record);
-                                }
+                        for (EdPosition pos : l) {
+                            if (Math.abs(pos.record.qGrams.length - x.qGrams.length) <= threshold
+                                    && Math.abs(loc - pos.EdPosition) <= threshold
+                                    && !candidates.containsKey(pos.record.id)) {
+                                candidates.put(pos.record.id, pos.record);
                             }
                         }
-                        l.add(new EdPosition(currentRec, loc)); // index the
-                        // current
-                        // prefix
-                    } else {
-                        l = new LinkedList<EdPosition>();
-                        l.add(new EdPosition(currentRec, loc));
-                        index.put(tokenID, l);
                     }
                 }
-                if (candidates.size() > 0) {
-                    count = count + verification(currentRec, candidates, entries, Q, (int) threshold);
+                for (Record y : candidates.values()) {
+                    verify(x, y);
                 }
             }
+            return mapping;
         }
-        /*
-         * AMapping tempMapping = MappingFactory.createDefaultMapping(); for
-         * (String key : mapping.getMap().keySet()) { for (String value :
-         * mapping.getMap().get(key).keySet()) { double confidence =
-         * mapping.getConfidence(key, value); if (confidence < threshold) {
-         * tempMapping.add(key, value, confidence); } } } mapping = tempMapping;
-         */
 
-        return mapping;
+        private void verify(Record x, Record y) {
+            // the filters run on the mismatching q-grams of the longer value
+            Record a = x;
+            Record b = y;
+            if (y.qGrams.length > x.qGrams.length) {
+                a = y;
+                b = x;
+            }
+            compareQGramsResult compResult = compareQGrams(a, b, tau);
+            /*
+             * count filtering
+             */
+            if (compResult.e1 <= Q * tau) {
+                int e2 = minEditErrors(compResult.Q, Q);
+                /*
+                 * location-based mismatch filtering
+                 */
+                if (e2 <= tau) {
+                    int e3 = contentFilter(a.s, b.s, compResult.Q, tau, Q);
+                    if (e3 <= 2 * tau) {
+                        int ed = editDistance(x.s, y.s);
+                        if (ed <= tau) {
+                            add(x, y, ed);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void add(Record x, Record y, int ed) {
+            mapping.add(sourceUris.get(x.id), targetUris.get(y.id - sourceUris.size()), 1.0 / (1 + (double) ed));
+        }
+
+        private int contentFilter(String x, String y, MismatchingQGram[] Q, int tau, int q) {
+            if (Q.length == 0) {
+                return 0;
+            }
+            // Build a condensed suffix sum list for Q;
+            LinkedList<SuffixSumListEntry> condensedSuffixSumList = new LinkedList<SuffixSumListEntry>();
+            int cnt = 1;
+            int loc = Q[Q.length - 1].loc + 1;
+            for (int i = Q.length - 1; i >= 0; i--) {
+                if (Q[i].loc <= loc) {
+                    condensedSuffixSumList.addFirst(new SuffixSumListEntry(Q[i].loc, cnt++));
+                    loc = Q[i].loc - q;
+                }
+            }
+
+            Iterator<SuffixSumListEntry> iter = condensedSuffixSumList.iterator();
+            int j = 0;
+            int i = 1;
+            int epsilon;
+            while (i < Q.length) {
+                if (Q[i].loc - Q[i - 1].loc > 1) {
+                    epsilon = L1Distance(x, y, Q[j].loc, Q[i - 1].loc + q - 1)
+                            + sumRightErrs(Q[i - 1].loc + q, iter);
+                    if (epsilon > 2 * tau) {
+                        return 2 * tau + 1;
+                    }
+                    j = i;
+                }
+                i++;
+            }
+            return L1Distance(x, y, Q[j].loc, Q[i - 1].loc + q - 1) + sumRightErrs(Q[i - 1].loc + q, iter);
+        }
+
+        private int L1Distance(String x, String y, int lo, int hi) {
+            int i;
+            for (i = lo; i <= hi; i++) {
+                frequencies[x.charAt(i)]++;
+            }
+            for (i = lo; i < y.length() && i <= hi; i++) {
+                frequencies[y.charAt(i)]--;
+            }
+            // sum up and reset the frequencies of all characters of the
+            // windows
+            int L1 = 0;
+            for (i = lo; i <= hi; i++) {
+                L1 += Math.abs(frequencies[x.charAt(i)]);
+                frequencies[x.charAt(i)] = 0;
+            }
+            for (i = lo; i < y.length() && i <= hi; i++) {
+                L1 += Math.abs(frequencies[y.charAt(i)]);
+                frequencies[y.charAt(i)] = 0;
+            }
+            return L1;
+        }
+
+        /**
+         * Same as {@link EDJoinMapper#editDistance(String, String)}, but keeps
+         * only two rows of the matrix and reuses them.
+         */
+        private int editDistance(String x, String y) {
+            int n = x.length();
+            int m = y.length();
+            if (n == 0) {
+                return m;
+            }
+            if (m == 0) {
+                return n;
+            }
+            if (previousRow.length <= m) {
+                previousRow = new int[m + 1];
+                currentRow = new int[m + 1];
+            }
+            for (int j = 0; j <= m; j++) {
+                previousRow[j] = j;
+            }
+            for (int i = 1; i <= n; i++) {
+                currentRow[0] = i;
+                char c = x.charAt(i - 1);
+                for (int j = 1; j <= m; j++) {
+                    int cost = c == y.charAt(j - 1) ? 0 : 1;
+                    currentRow[j] = min(previousRow[j] + 1, currentRow[j - 1] + 1, previousRow[j - 1] + cost);
+                }
+                int[] swap = previousRow;
+                previousRow = currentRow;
+                currentRow = swap;
+            }
+            return previousRow[m];
+        }
     }
 
     @Override
@@ -6,10 +6,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.measures.mapper.AMapper;
@@ -113,21 +112,13 @@ public class JaroWinklerMapper extends AMapper {
         // setting up parallel execution of matching
 
         ConcurrentHashMap<String, Map<String, Double>> similarityBook = new ConcurrentHashMap<>(listA.size(), 1.0f);
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        // instantiate and queue up workers
+        List<Runnable> workers = new ArrayList<>(partitions.size());
+        // instantiate workers
         for (Pair<List<String>, List<String>> tempPair : partitions) {
-            Runnable worker = new TrieFilter(tempPair, similarityBook, metric.clone(), threshold);
-            executor.execute(worker);
-        }
-        // wait for threads in pool
-        executor.shutdown();
-        while (!executor.isTerminated()) {
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            workers.add(new TrieFilter(tempPair, similarityBook, metric.clone(), threshold));
         }
+        // run them in the shared pool and wait for them
+        ExecutionContext.runAll(workers);
         // return result
 
         AMapping mapping = getUriToUriMapping(similarityBook, sourceMap, targetMap, swapped);
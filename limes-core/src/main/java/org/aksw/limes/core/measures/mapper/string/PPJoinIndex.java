@@ -0,0 +1,238 @@
+package org.aksw.limes.core.measures.mapper.string;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import org.aksw.limes.core.io.cache.ACache;
+
+/**
+ * Token dictionary and inverted index of the values of one property pair as
+ * used by {@link PPJoinPlusPlus}. Each value is split into tokens, a token
+ * that occurs several times in a value is counted as several distinct tokens.
+ * The tokens of all source and target values are numbered by ascending
+ * document frequency, so every value becomes a sorted int array whose
+ * prefix holds its rarest tokens. For each token, the index lists the target
+ * values that contain it together with the position of the token in the
+ * value, ordered by position.
+ * <p>
+ * Neither the dictionary nor the index depends on the measure or the
+ * threshold. The prefix length is applied when the index is probed, hence
+ * one index serves all cosine, jaccard and overlap measures and all
+ * thresholds on the same property pair. The last indexes are kept and
+ * returned by {@link #get(ACache, ACache, String, String)} as long as the
+ * caches are neither garbage collected nor changed, as told by their
+ * {@link ACache#getModificationStamp() modification stamps}. An index is
+ * immutable and can be probed by several threads at the same time.
+ */
+public class PPJoinIndex {
+
+    /** Delimiters between the tokens of a value */
+    public static final String DELIMITERS = " .,?!\t";
+
+    private static final int CACHE_SIZE = 4;
+
+    private static final Map<Key, PPJoinIndex> indexes = new LinkedHashMap<Key, PPJoinIndex>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, PPJoinIndex> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** URI of each source value */
+    final String[] sourceUris;
+    /** Token ranks of each source value in ascending order */
+    final int[][] sourceTokens;
+    /** URI of each target value */
+    final String[] targetUris;
+    /** Token ranks of each target value in ascending order */
+    final int[][] targetTokens;
+    /**
+     * The postings of token w are stored from postingStart[w] to
+     * postingStart[w + 1] - 1 in postingValue (the target value) and
+     * postingPosition (the position of w in this value)
+     */
+    final int[] postingStart;
+    final int[] postingValue;
+    final int[] postingPosition;
+    /** Maximal number of tokens of a source or target value */
+    final int maxLength;
+
+    /**
+     * Returns the index of the values of property1 in source and property2 in
+     * target, either a previously built one or a new one.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param property1
+     *            Source property
+     * @param property2
+     *            Target property
+     * @return the index
+     */
+    public static PPJoinIndex get(ACache source, ACache target, String property1, String property2) {
+        Key key = new Key(source, target, property1, property2);
+        synchronized (indexes) {
+            PPJoinIndex index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+        }
+        PPJoinIndex index = new PPJoinIndex(source, target, property1, property2);
+        synchronized (indexes) {
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    private PPJoinIndex(ACache source, ACache target, String property1, String property2) {
+        List<String> sourceValueUris = new ArrayList<String>();
+        List<String> targetValueUris = new ArrayList<String>();
+        List<String> values = new ArrayList<String>();
+        for (String uri : source.getAllUris()) {
+            for (String s : source.getInstance(uri).getProperty(property1)) {
+                sourceValueUris.add(uri);
+                values.add(s);
+            }
+        }
+        for (String uri : target.getAllUris()) {
+            for (String s : target.getInstance(uri).getProperty(property2)) {
+                targetValueUris.add(uri);
+                values.add(s);
+            }
+        }
+        sourceUris = sourceValueUris.toArray(new String[sourceValueUris.size()]);
+        targetUris = targetValueUris.toArray(new String[targetValueUris.size()]);
+
+        // 1. tokenize, numbering the tokens in the order of their first
+        // occurrence
+        HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        int[] frequencies = new int[16];
+        int[][] tokens = new int[values.size()][];
+        int max = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            StringTokenizer st = new StringTokenizer(values.get(i), DELIMITERS);
+            HashMap<String, Integer> occurrences = new HashMap<String, Integer>();
+            tokens[i] = new int[st.countTokens()];
+            for (int j = 0; j < tokens[i].length; j++) {
+                String token = st.nextToken();
+                Integer occurrence = occurrences.get(token);
+                occurrences.put(token, occurrence == null ? 1 : occurrence + 1);
+                // character '.' is not allowed in tokens
+                String key = occurrence == null ? token : token + "." + (occurrence + 1);
+                Integer id = ids.get(key);
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(key, id);
+                    if (id == frequencies.length) {
+                        frequencies = Arrays.copyOf(frequencies, 2 * id);
+                    }
+                }
+                frequencies[id]++;
+                tokens[i][j] = id;
+            }
+            max = Math.max(max, tokens[i].length);
+        }
+        maxLength = max;
+
+        // 2. rank the tokens by ascending frequency
+        int tokenCount = ids.size();
+        long[] order = new long[tokenCount];
+        for (int id = 0; id < tokenCount; id++) {
+            order[id] = ((long) frequencies[id] << 32) | id;
+        }
+        Arrays.sort(order);
+        int[] rank = new int[tokenCount];
+        for (int r = 0; r < tokenCount; r++) {
+            rank[(int) order[r]] = r;
+        }
+        for (int[] value : tokens) {
+            for (int j = 0; j < value.length; j++) {
+                value[j] = rank[value[j]];
+            }
+            Arrays.sort(value);
+        }
+        sourceTokens = Arrays.copyOfRange(tokens, 0, sourceUris.length);
+        targetTokens = Arrays.copyOfRange(tokens, sourceUris.length, tokens.length);
+
+        // 3. index the target values
+        postingStart = new int[tokenCount + 1];
+        for (int[] value : targetTokens) {
+            for (int w : value) {
+                postingStart[w + 1]++;
+            }
+        }
+        for (int w = 0; w < tokenCount; w++) {
+            postingStart[w + 1] += postingStart[w];
+        }
+        long[] postings = new long[postingStart[tokenCount]];
+        int[] next = Arrays.copyOf(postingStart, tokenCount);
+        for (int y = 0; y < targetTokens.length; y++) {
+            for (int j = 0; j < targetTokens[y].length; j++) {
+                postings[next[targetTokens[y][j]]++] = ((long) j << 32) | y;
+            }
+        }
+        postingValue = new int[postings.length];
+        postingPosition = new int[postings.length];
+        for (int w = 0; w < tokenCount; w++) {
+            Arrays.sort(postings, postingStart[w], postingStart[w + 1]);
+            for (int k = postingStart[w]; k < postingStart[w + 1]; k++) {
+                postingValue[k] = (int) postings[k];
+                postingPosition[k] = (int) (postings[k] >>> 32);
+            }
+        }
+    }
+
+    /**
+     * Identifies an index by the identity and modification stamp of the caches
+     * and the property pair. The caches are only weakly referenced.
+     */
+    private static class Key {
+
+        private final WeakReference<ACache> source;
+        private final WeakReference<ACache> target;
+        private final long sourceStamp;
+        private final long targetStamp;
+        private final String property1;
+        private final String property2;
+        private final int hash;
+
+        Key(ACache source, ACache target, String property1, String property2) {
+            this.source = new WeakReference<ACache>(source);
+            this.target = new WeakReference<ACache>(target);
+            this.sourceStamp = source.getModificationStamp();
+            this.targetStamp = target.getModificationStamp();
+            this.property1 = property1;
+            this.property2 = property2;
+            this.hash = 31 * (31 * (31 * System.identityHashCode(source) + System.identityHashCode(target))
+                    + property1.hashCode()) + property2.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            ACache s = source.get();
+            ACache t = target.get();
+            return s != null && t != null && s == other.source.get() && t == other.target.get()
+                    && sourceStamp == other.sourceStamp && targetStamp == other.targetStamp
+                    && property1.equals(other.property1) && property2.equals(other.property2);
+        }
+    }
+}
@@ -5,16 +5,14 @@
 package org.aksw.limes.core.measures.mapper.string;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.StringTokenizer;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
@@ -26,36 +24,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MarkerFactory;
 
-import algorithms.StoppUhr;
-import algorithms.Token;
-import algorithms.ppjoinplus.Record;
-
-/**
- * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
- */
-
-class Position {
-
-    Record record = null;
-    int position = -1;
-
-    public Position(Record record, int position) {
-        this.record = record;
-        this.position = position;
-    }
-}
-
-class CandidateInfo {
-
-    int currentOverlap = -1;
-    int alpha = -1;
-
-    public CandidateInfo(int currentOverlap, int alpha) {
-        this.currentOverlap = currentOverlap;
-        this.alpha = alpha;
-    }
-}
-
 class PartitionResult {
 
     int l = -1;
@@ -99,6 +67,12 @@ class PartitionResult {
  * Siehe
  * <a href="http://www.cse.unsw.edu.au/~weiw/files/WWW08-PPJoin-Final.pdf">
  * detaillierte Beschreibung von PPJoin+</a>.
+ * <p>
+ * The tokens and the prefix index of the target values are taken from a
+ * {@link PPJoinIndex}, which is shared by all measures and thresholds on the
+ * same property pair. The source values are probed against the index in
+ * partitions that run in the shared pool of the {@link ExecutionContext}.
+ * Each partition keeps the overlaps of its candidates in a primitive array.
  *
  * @author Dawid Kotlarz
  * @version 1.0
@@ -107,36 +81,43 @@ public class PPJoinPlusPlus extends AMapper {
 
     static Logger logger = LoggerFactory.getLogger(PPJoinPlusPlus.class);
     private static final int MAX_DEPTH = 2;
+    private static final int PRUNED = -1;
+
+    /**
+     * Minimal number of source values per partition. The source values are
+     * only distributed over several tasks if each task gets at least this
+     * many of them.
+     */
+    public static final int MIN_PARTITION_SIZE = 1000;
 
     /**
      * Berechnet die Überlappung zwischen zwei Datensätzen mithilfe ihrer Tokens
      *
      * @param x
-     *            erster Datensatz
-     * @param beginnX
-     *            Position des Anfangstokens vom ersten Datensatz
+     *            aufsteigend sortierte Tokens des ersten Datensatzes
      * @param y
-     *            zweiter Datensatz
-     * @param beginnY
-     *            Position des Anfangstokens vom zweiten Datensatz
+     *            aufsteigend sortierte Tokens des zweiten Datensatzes
      * @return Überlappung von x und y
      */
-    public static int overlap(Record x, int beginnX, Record y, int beginnY) {
+    public static int overlap(int[] x, int[] y) {
         int overlap = 0;
-        for (int i = beginnX; i < x.tokens.length; i++) {
-
-            for (int j = beginnY; j < y.tokens.length; j++) {
-                if (x.tokens[i].id == y.tokens[j].id) {
-                    overlap++;
-                    beginnY = j + 1;
-                    break;
-                }
+        int i = 0;
+        int j = 0;
+        while (i < x.length && j < y.length) {
+            if (x[i] == y[j]) {
+                overlap++;
+                i++;
+                j++;
+            } else if (x[i] < y[j]) {
+                i++;
+            } else {
+                j++;
             }
         }
         return overlap;
     }
 
-    private static int suffixFilter(Record x, int xBeginn, int xEnd, Record y, int yBeginn, int yEnd, int H_max,
+    private static int suffixFilter(int[] x, int xBeginn, int xEnd, int[] y, int yBeginn, int yEnd, int H_max,
             int depth) {
         int xSize = xEnd - xBeginn + 1;
         int ySize = yEnd - yBeginn + 1;
@@ -148,25 +129,10 @@ public class PPJoinPlusPlus extends AMapper {
         }
         int mid = yBeginn + (int) Math.ceil(1.0 * ySize / 2) - 1; // index from
         // 0 -> -1
-        // int mid = (yBeginn + yEnd) / 2;
-        Token w = y.tokens[mid];
-
-        /*
-         * ---funktioniert nicht immer korrekt
-         * (java.lang.ArrayIndexOutOfBoundsException bei partition)---
-         *
-         * int o = (H_max - Math.abs( xSize - ySize)) / 2; //always divisible
-         * int ol, or; if( xSize < ySize){ ol = 1; or = 0; }else{ ol = 0; or =
-         * 1; } PartitionResult pr = partition( x, w, mid - o - Math.abs( xSize
-         * - ySize) * ol, mid + o + Math.abs( xSize - ySize) * or);
-         * /*-------------------------------
-         */
+        int w = y[mid];
+
         PartitionResult pr = partition(x, w, xBeginn, xEnd);
 
-        /*
-         * ---nicht nötig--- if( pr.f == 0){ return H_max + 1; }
-         * -------------------
-         */
         int xlSize = pr.l - xBeginn + 1;
         int xrSize = xEnd - pr.r + 1;
         int ylSize = mid - yBeginn;
@@ -187,24 +153,18 @@ public class PPJoinPlusPlus extends AMapper {
         }
     }
 
-    private static PartitionResult partition(Record s, Token w, int l, int r) {
-        /*
-         * ---funktioniert nicht immer korrekt--- if( s.tokens[l].compareTo(w) >
-         * 0 || s.tokens[r].compareTo(w) < 0){ return new PartitionResult( -1,
-         * -1, 0, 1); } /*------------------------------
-         */
-
-        if (s.tokens[l].compareTo(w) > 0) {
+    private static PartitionResult partition(int[] s, int w, int l, int r) {
+        if (s[l] > w) {
             return new PartitionResult(l - 1, l, 1, 1);
         }
 
-        if (s.tokens[r].compareTo(w) < 0) {
+        if (s[r] < w) {
             return new PartitionResult(r, r + 1, 1, 1);
         }
 
         int p = binarySearch(s, l, r, w);
 
-        if (s.tokens[p].compareTo(w) == 0) {
+        if (s[p] == w) {
             return new PartitionResult(p - 1, p + 1, 1, 0); // skip the token w
         } else {
             return new PartitionResult(p - 1, p, 1, 1);
@@ -213,10 +173,10 @@ public class PPJoinPlusPlus extends AMapper {
 
     /**
      * Binary search for the position of the first token in x that is no smaller
-     * than w in the global ordering within x.tokens[l..r].
+     * than w in the global ordering within x[l..r].
      *
      * @param x
-     *            a record
+     *            the tokens of a record
      * @param l
      *            the left bound of searching range
      * @param r
@@ -225,93 +185,16 @@ public class PPJoinPlusPlus extends AMapper {
      *            a token
      * @return the position of the first token in x that is no smaller than w
      */
-    private static int binarySearch(Record x, int l, int r, Token w) {
-        int p = (l + r) / 2;
-        int c = x.tokens[p].compareTo(w);
-        if (c == 0) {
-            return (p);
-        }
-
-        if (l == r) {
-            if (c < 0) {
-                return (p + 1);
+    private static int binarySearch(int[] x, int l, int r, int w) {
+        while (l < r) {
+            int p = (l + r) >>> 1;
+            if (x[p] < w) {
+                l = p + 1;
             } else {
-                return p;
-            }
-        }
-        if (c < 0) {
-            if (p < r) {
-                return (binarySearch(x, p + 1, r, w));
-            } else {
-                return p + 1;
-            }
-        } else {
-            if (p > l) {
-                return (binarySearch(x, l, p - 1, w));
-            } else {
-                return p;
-            }
-        }
-    }
-
-    private static Record[] tokenizer(String[] objects) {
-        StoppUhr s = new StoppUhr();
-        s.Starten();
-        HashMap<String, Token> allTokens = new HashMap<String, Token>();
-        Record[] records = new Record[objects.length];
-
-        for (int i = 0; i < objects.length; i++) {
-
-            StringTokenizer st = new StringTokenizer(objects[i], " .,?!\t");
-            int tokensNumber = st.countTokens();
-            Record record = new Record(i, tokensNumber);
-            // HasTable of tokens in the record <Sting> and their record
-            // frequency <Integer>
-            HashMap<String, Integer> recordTokens = new HashMap<String, Integer>();
-
-            for (int j = 0; j < tokensNumber; j++) {
-                String token = st.nextToken();
-                if (recordTokens.containsKey(token)) {
-                    Integer token_freq = recordTokens.get(token).intValue() + 1;
-                    recordTokens.put(token, token_freq);
-                    if (allTokens.containsKey(token + "." + token_freq)) { // character
-                        // '.'
-                        // is
-                        // not
-                        // allowed
-                        // in
-                        // tokens
-                        Token t = allTokens.get(token + "." + token_freq);
-                        t.df++;
-                        record.tokens[j] = t;
-                    } else {
-                        Token t = new Token(allTokens.size(), 1);
-                        allTokens.put(token + "." + token_freq, t);
-                        record.tokens[j] = t;
-                    }
-                } else {
-                    if (allTokens.containsKey(token)) {
-                        Token t = allTokens.get(token);
-                        t.df++;
-                        recordTokens.put(token, new Integer(1));
-                        record.tokens[j] = t;
-                    } else {
-                        Token t = new Token(allTokens.size(), 1);
-                        allTokens.put(token, t);
-                        recordTokens.put(token, new Integer(1));
-                        record.tokens[j] = t;
-                    }
-                }
+                r = p;
             }
-            records[i] = record;
         }
-        for (int i = 0; i < records.length; i++) {
-            Arrays.sort(records[i].tokens);
-        }
-        Arrays.sort(records);
-        s.Stoppen();
-        // logger.info("Tokenizing carried out in " + s.Laufzeit() + "ms.");
-        return records;
+        return x[l] < w ? l + 1 : l;
     }
 
     public String getName() {
@@ -339,15 +222,10 @@ public class PPJoinPlusPlus extends AMapper {
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
 
-        AMapping mapping;
-        HashMap<Integer, String> sourceMap;
-        HashMap<Integer, String> targetMap;
-        IStringMeasure measure = null;
         if (threshold <= 0) {
             throw new InvalidThresholdException(threshold);
         }
-        mapping = MappingFactory.createDefaultMapping();
-        // logger.info("Starting PPJoinPlus");
+        AMapping mapping = MappingFactory.createDefaultMapping();
 
         String property1 = null, property2 = null;
         // get property labels
@@ -411,217 +289,166 @@ public class PPJoinPlusPlus extends AMapper {
             logger.error(MarkerFactory.getMarker("FATAL"),
                     "Expression " + expression + " was given to a mapper to process");
         }
-
-        // 3.1 fill objects from source in entry
-        // logger.info("Filling objects from source knowledge base.");
-        sourceMap = new HashMap<>();
-        ArrayList<String> uris = source.getAllUris();
-        ArrayList<String> entries = new ArrayList<>();
-        Instance instance;
-        int counter = 0;
-        for (int i = 0; i < uris.size(); i++) {
-            instance = source.getInstance(uris.get(i));
-            for (String s : instance.getProperty(property1)) {
-                sourceMap.put(counter, uris.get(i));
-                entries.add(s);
-                counter++;
-            }
+        MeasureType type = MeasureFactory.getMeasureType(p.getOperator());
+        IStringMeasure measure = (IStringMeasure) MeasureFactory.createMeasure(type);
+        if (measure == null) {
+            logger.error(MarkerFactory.getMarker("FATAL"), "Metric is null. Exiting.");
+            throw new RuntimeException();
         }
 
-        // 3.2 fill objects from target in entries
-        // logger.info("Filling objects from target knowledge base.");
-        targetMap = new HashMap<Integer, String>();
-        uris = target.getAllUris();
-        for (int i = 0; i < uris.size(); i++) {
-            instance = target.getInstance(uris.get(i));
-            for (String s : instance.getProperty(property2)) {
-                targetMap.put(counter, uris.get(i));
-                entries.add(s);
-                counter++;
+        PPJoinIndex index = PPJoinIndex.get(source, target, property1, property2);
+        Filters filters = new Filters(measure, threshold, index.maxLength);
+        int sourceSize = index.sourceTokens.length;
+        int partitions = Math.max(1, Math.min(4 * ExecutionContext.getParallelism(), sourceSize / MIN_PARTITION_SIZE));
+        List<Callable<AMapping>> tasks = new ArrayList<Callable<AMapping>>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            int from = (int) ((long) i * sourceSize / partitions);
+            int to = (int) ((long) (i + 1) * sourceSize / partitions);
+            tasks.add(() -> new Prober(index, filters).probe(from, to));
+        }
+        List<AMapping> partialMappings = ExecutionContext.invokeAll(tasks);
+        if (partialMappings.size() == 1) {
+            return partialMappings.get(0);
+        }
+        for (AMapping partial : partialMappings) {
+            for (Entry<String, HashMap<String, Double>> s : partial.getMap().entrySet()) {
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    mapping.add(s.getKey(), t.getKey(), t.getValue());
+                }
             }
         }
+        return mapping;
+    }
 
-        String[] entryArray = new String[entries.size()];
-        for (int i = 0; i < entries.size(); i++) {
-            entryArray[i] = entries.get(i);
+    /**
+     * Prefix lengths and size filtering thresholds of the measure for all
+     * record sizes up to the maximal size of the index.
+     */
+    private static class Filters {
+
+        final IStringMeasure measure;
+        final double threshold;
+        final int[] prefixLength;
+        final int[] midPrefix;
+        final double[] sizeFilteringThreshold;
+        // no posting at a larger position can be in the prefix of its record
+        final int maxPosition;
+
+        Filters(IStringMeasure measure, double threshold, int maxLength) {
+            this.measure = measure;
+            this.threshold = threshold;
+            prefixLength = new int[maxLength + 1];
+            midPrefix = new int[maxLength + 1];
+            sizeFilteringThreshold = new double[maxLength + 1];
+            int max = 0;
+            for (int l = 1; l <= maxLength; l++) {
+                prefixLength[l] = Math.max(0, Math.min(l, measure.getPrefixLength(l, threshold)));
+                midPrefix[l] = Math.max(0, Math.min(l, measure.getMidLength(l, threshold)));
+                sizeFilteringThreshold[l] = measure.getSizeFilteringThreshold(l, threshold);
+                max = Math.max(max, Math.max(prefixLength[l], midPrefix[l]));
+            }
+            maxPosition = max;
         }
+    }
 
-        Record[] records = tokenizer(entryArray);
-        HashMap<Integer, LinkedList<Position>> index = new HashMap<Integer, LinkedList<Position>>(); // I
-
-        if (threshold == 0) {
-        } else {
+    /**
+     * Probes the index with a range of source values. Each task uses its own
+     * prober, i.e., its own mapping and candidate overlaps.
+     */
+    private static class Prober {
+
+        private final PPJoinIndex index;
+        private final Filters filters;
+        private final AMapping mapping = MappingFactory.createDefaultMapping();
+        // overlap of the prefixes per target value, 0 for no candidate
+        private final int[] overlaps;
+        private final int[] candidates;
+        private int candidateCount = 0;
+
+        Prober(PPJoinIndex index, Filters filters) {
+            this.index = index;
+            this.filters = filters;
+            this.overlaps = new int[index.targetTokens.length];
+            this.candidates = new int[index.targetTokens.length];
         }
 
-        MeasureType type = MeasureFactory.getMeasureType(p.getOperator());
-        measure = (IStringMeasure) MeasureFactory.createMeasure(type);
-        // logger.info("Beginninng comparison per se");
-        if (measure != null) {
-            // logger.info("Using measure " + measure.getName());
-        } else {
-            logger.error(MarkerFactory.getMarker("FATAL"), "Metric is null. Exiting.");
-            throw new RuntimeException();
-        }
-        for (int i = 0; i < records.length; i++) {
-            HashMap<Record, CandidateInfo> candidates = new HashMap<Record, CandidateInfo>(); // A
-            Record currentRec = records[i]; // record x
-            int tokensNumber = currentRec.tokens.length; // |x|
-
-            currentRec.prefixLength = measure.getPrefixLength(tokensNumber, threshold);
-            currentRec.midPrefix = measure.getMidLength(tokensNumber, threshold);
-
-            for (int j = 0; j < currentRec.tokens.length && j < currentRec.prefixLength; j++) {
-                Integer tokenID = currentRec.tokens[j].id;
-                LinkedList<Position> l = index.get(tokenID);
-                if (l != null) {
-                    Iterator<Position> iter = l.iterator();
-                    while (iter.hasNext()) {
-                        Position pos = iter.next();
-                        double sizeFilteringThreshold = measure.getSizeFilteringThreshold(tokensNumber, threshold);
-
-                        int tokensNumber2 = pos.record.tokens.length; // |y|
-                        if (tokensNumber2 >= sizeFilteringThreshold) { // size
-                            // filtering
-                            // on |y|
-                            int alpha = measure.getAlpha(tokensNumber, tokensNumber2, threshold);
-                            int ubound = 1 + Math.min(tokensNumber - j - 1, tokensNumber2 - pos.position - 1);
-
-                            CandidateInfo cf = candidates.get(pos.record);
-                            if (cf == null) {
-                                if (ubound >= alpha) {
-                                    // differs from paper because count starts
-                                    // at 0 not 1
-                                    int H_max = tokensNumber + tokensNumber2 - 2 * alpha - j - pos.position;
-                                    int H = suffixFilter(currentRec, j + 1, currentRec.tokens.length - 1, pos.record,
-                                            pos.position + 1, pos.record.tokens.length - 1, H_max, 1);
-                                    if (H <= H_max) {
-                                        candidates.put(pos.record, new CandidateInfo(1, alpha));
-                                    } else {
-                                        candidates.put(pos.record, new CandidateInfo(Integer.MIN_VALUE, alpha));
-                                    }
-                                }
-                            } else {
-                                if (cf.currentOverlap + ubound >= alpha) {
-                                    if (cf.currentOverlap == 0) {
-                                        int H_max = tokensNumber + tokensNumber2 - 2 * alpha - j - pos.position;
-                                        int H = suffixFilter(currentRec, j + 1, currentRec.tokens.length - 1,
-                                                pos.record, pos.position + 1, pos.record.tokens.length - 1, H_max, 1);
-                                        if (H <= H_max) {
-                                            cf.currentOverlap++; // a++;
-                                        } else {
-                                            cf.currentOverlap = Integer.MIN_VALUE;
-                                        }
-                                    } else {
-                                        cf.currentOverlap++; // a++;
-                                    }
-                                } else {
-                                    cf.currentOverlap = 0; // prune candidate
-                                }
-                            }
-                        } else {
-                            iter.remove();
+        AMapping probe(int from, int to) {
+            for (int x = from; x < to; x++) {
+                int[] xTokens = index.sourceTokens[x];
+                int xSize = xTokens.length; // |x|
+                if (xSize == 0) {
+                    continue;
+                }
+                int prefixLength = filters.prefixLength[xSize];
+                int midPrefix = filters.midPrefix[xSize];
+                for (int i = 0; i < prefixLength; i++) {
+                    int w = xTokens[i];
+                    for (int k = index.postingStart[w]; k < index.postingStart[w + 1]; k++) {
+                        int j = index.postingPosition[k];
+                        if (j >= filters.maxPosition) {
+                            break;
                         }
-                    }
-
-                    if (j < currentRec.midPrefix) {
-                        l.add(new Position(currentRec, j)); // index the current
+                        int y = index.postingValue[k];
+                        int ySize = index.targetTokens[y].length; // |y|
+                        // size filtering, the shorter record is indexed with
+                        // its mid prefix and the longer one probes with its
                         // prefix
-                    }
-                } else {
-                    if (j < currentRec.midPrefix) {
-                        LinkedList<Position> temp = new LinkedList<Position>();
-                        temp.add(new Position(currentRec, j));
-                        index.put(tokenID, temp);
+                        if (ySize < filters.sizeFilteringThreshold[xSize]
+                                || xSize < filters.sizeFilteringThreshold[ySize]
+                                || (ySize <= xSize ? j >= filters.midPrefix[ySize]
+                                        : i >= midPrefix || j >= filters.prefixLength[ySize])) {
+                            continue;
+                        }
+                        addCandidate(xTokens, i, y, j);
                     }
                 }
+                verification(x);
             }
-            verification(currentRec, candidates, mapping, sourceMap, targetMap, measure);
+            return mapping;
         }
-        // logger.info("Mapping carried out using " + comparisons + "
-        // comparisons.");
-        AMapping tempMapping = MappingFactory.createDefaultMapping();
-        for (String key : mapping.getMap().keySet()) {
-            for (String value : mapping.getMap().get(key).keySet()) {
-                double confidence = mapping.getConfidence(key, value);
-                if (confidence >= threshold) {
-                    tempMapping.add(key, value, confidence);
+
+        private void addCandidate(int[] xTokens, int i, int y, int j) {
+            int overlap = overlaps[y];
+            if (overlap == PRUNED) {
+                return;
+            }
+            int[] yTokens = index.targetTokens[y];
+            int alpha = filters.measure.getAlpha(xTokens.length, yTokens.length, filters.threshold);
+            int ubound = 1 + Math.min(xTokens.length - i - 1, yTokens.length - j - 1);
+            if (overlap == 0) {
+                if (ubound >= alpha) {
+                    // differs from paper because count starts at 0 not 1
+                    int H_max = xTokens.length + yTokens.length - 2 * alpha - i - j;
+                    int H = suffixFilter(xTokens, i + 1, xTokens.length - 1, yTokens, j + 1, yTokens.length - 1, H_max,
+                            1);
+                    overlaps[y] = H <= H_max ? 1 : PRUNED;
+                    candidates[candidateCount++] = y;
                 }
+            } else {
+                overlaps[y] = overlap + ubound >= alpha ? overlap + 1 : PRUNED;
             }
         }
-        mapping = tempMapping;
-        return mapping;
-    }
 
-    private int verification(Record currentRec, HashMap<Record, CandidateInfo> candidates, AMapping mapping,
-            HashMap<Integer, String> sourceMap, HashMap<Integer, String> targetMap, IStringMeasure measure) {
-        int count = 0;
-        String id1, id2;
-
-        for (@SuppressWarnings("rawtypes")
-        Map.Entry e : candidates.entrySet()) {
-            CandidateInfo value = (CandidateInfo) e.getValue();
-            if (value.currentOverlap > 0) {
-                Record key = (Record) e.getKey();
-                int overlap = value.currentOverlap;
-                Token wx = currentRec.tokens[currentRec.prefixLength - 1];
-                // Token wy = key.tokens[key.prefixLength - 1];
-                Token wy = key.tokens[key.midPrefix - 1];
-                int compRes = wx.compareTo(wy);
-                if (compRes < 0) {
-                    int ubound = value.currentOverlap + currentRec.tokens.length - currentRec.prefixLength;
-                    if (ubound >= value.alpha) {
-                        overlap += overlap(currentRec, currentRec.prefixLength, key, value.currentOverlap);
-                    }
-                } else if (compRes > 0) {
-                    int ubound = value.currentOverlap + key.tokens.length
-                            - /*
-                               * key.prefixLength
-                               */ key.midPrefix;
-                    if (ubound >= value.alpha) {
-                        overlap += overlap(currentRec, value.currentOverlap, key,
-                                /*
-                                 * key.prefixLength
-                                 */ key.midPrefix);
-                    }
-                } else { // Fehler in Pseudocode; dieser Fall falsch behandelt
-                    // --> Duplikate fehlen!
-                    int ubound = value.currentOverlap + Math.min(currentRec.tokens.length - currentRec.prefixLength,
-                            key.tokens.length - /*
-                                                 * key.prefixLength
-                                                 */ key.midPrefix);
-                    if (ubound >= value.alpha) {
-                        overlap += overlap(currentRec, currentRec.prefixLength, key,
-                                /*
-                                 * key.prefixLength
-                                 */ key.midPrefix);
-                    }
-                }
-                if (overlap >= value.alpha) {
-                    double similarity = measure.getSimilarity(overlap, currentRec.tokens.length, key.tokens.length);
-                    // use border here instead. faster!
-                    if ((sourceMap.containsKey(currentRec.id) && targetMap.containsKey(key.id))) {
-                        id1 = sourceMap.get(currentRec.id);
-                        id2 = targetMap.get(key.id);
-                        // CORRECT
-                        mapping.add(id1, id2, similarity);
-                        // mapping.add(id2, id1, similarity);
-                    } else if (targetMap.containsKey(currentRec.id) && sourceMap.containsKey(key.id)) {
-                        // get uris for ids
-                        {
-                            id1 = sourceMap.get(key.id);
-                            id2 = targetMap.get(currentRec.id);
-
-                            // CORRECT
-                            mapping.add(id1, id2, similarity);
-                            // mapping.add(id2, id1, similarity);
+        private void verification(int x) {
+            int[] xTokens = index.sourceTokens[x];
+            for (int c = 0; c < candidateCount; c++) {
+                int y = candidates[c];
+                if (overlaps[y] > 0) {
+                    int[] yTokens = index.targetTokens[y];
+                    int overlap = overlap(xTokens, yTokens);
+                    if (overlap >= filters.measure.getAlpha(xTokens.length, yTokens.length, filters.threshold)) {
+                        // the longer record is passed first
+                        double similarity = filters.measure.getSimilarity(overlap,
+                                Math.max(xTokens.length, yTokens.length), Math.min(xTokens.length, yTokens.length));
+                        if (similarity >= filters.threshold) {
+                            mapping.add(index.sourceUris[x], index.targetUris[y], similarity);
                         }
-                        count++;
                     }
                 }
-                // count++;
+                overlaps[y] = 0;
             }
+            candidateCount = 0;
         }
-        return count;
     }
 
     public double getRuntimeApproximation(int sourceSize, int targetSize, double threshold, Language language) {
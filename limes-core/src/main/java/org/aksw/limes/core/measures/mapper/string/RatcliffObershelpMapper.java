@@ -6,10 +6,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
@@ -109,27 +108,16 @@ public class RatcliffObershelpMapper extends AMapper {
             tempPairs.add(m);
         }
 
-        int poolSize = Runtime.getRuntime().availableProcessors();
         if (tempPairs.size() == 0) {
             return MappingFactory.createDefaultMapping();
         }
-        poolSize = poolSize > tempPairs.size() ? tempPairs.size() : poolSize;
 
-        // create thread pool, one thread per partition
-        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
-        // executor = Executors.newFixedThreadPool(1);
+        // one task per partition, run in the shared pool
+        List<Runnable> workers = new ArrayList<>(tempPairs.size());
         for (Pair<List<String>, List<String>> tempPair : tempPairs) {
-            Runnable worker = new TrieFilter(tempPair, similarityBook, new RatcliffObershelpMeasure(), threshold);
-            executor.execute(worker);
-        }
-        executor.shutdown();
-        while (!executor.isTerminated()) {
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            workers.add(new TrieFilter(tempPair, similarityBook, new RatcliffObershelpMeasure(), threshold));
         }
+        ExecutionContext.runAll(workers);
 
         return getUriToUriMapping(similarityBook, sourceMap, targetMap, swapped);
     }
@@ -6,24 +6,38 @@
 package org.aksw.limes.core.measures.mapper.string.fastngram;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
-import org.aksw.limes.core.measures.measure.string.QGramSimilarityMeasure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MarkerFactory;
 
 /**
+ * Maps strings whose sets of n-grams have a Jaccard similarity of at least the
+ * threshold. The target strings are indexed once in an {@link Index}, the
+ * source strings are then probed against this index in partitions that run in
+ * the shared pool of the {@link ExecutionContext}. A probe counts the overlap
+ * of the source string with the targets of admissible size in a primitive
+ * array. A task hands its array on to the next task when it is done, so there
+ * are never more arrays than tasks running at the same time.
+ *
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  */
 public class FastNGramMapper extends AMapper {
@@ -31,66 +45,134 @@ public class FastNGramMapper extends AMapper {
     static Logger logger = LoggerFactory.getLogger(FastNGramMapper.class);
     static int q = 3;
 
+    /**
+     * Minimal number of source strings per partition. The source strings are
+     * only distributed over several tasks if each task gets at least this
+     * many of them.
+     */
+    public static final int MIN_PARTITION_SIZE = 1000;
+
     public static AMapping compute(Set<String> source, Set<String> target, int q, double threshold) {
-        Index index = new Index(q);
-        double kappa = (1 + threshold) / threshold;
-        QGramSimilarityMeasure sim = new QGramSimilarityMeasure(q);
-        ITokenizer tokenizer = new NGramTokenizer();
-        Map<String, Set<String>> targetTokens = new HashMap<String, Set<String>>();
+        Index index = new Index(target, q);
+        String[] sources = source.toArray(new String[source.size()]);
+        // probers of finished tasks are reused by the following tasks
+        Queue<Prober> probers = new ConcurrentLinkedQueue<Prober>();
+        int partitions = Math.max(1,
+                Math.min(4 * ExecutionContext.getParallelism(), sources.length / MIN_PARTITION_SIZE));
+        List<Callable<AMapping>> tasks = new ArrayList<Callable<AMapping>>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            int from = (int) ((long) i * sources.length / partitions);
+            int to = (int) ((long) (i + 1) * sources.length / partitions);
+            tasks.add(() -> {
+                Prober prober = probers.poll();
+                if (prober == null) {
+                    prober = new Prober(index, threshold);
+                }
+                AMapping result = MappingFactory.createDefaultMapping();
+                for (int s = from; s < to; s++) {
+                    prober.probe(sources[s], result);
+                }
+                probers.add(prober);
+                return result;
+            });
+        }
+        List<AMapping> partialMappings = ExecutionContext.invokeAll(tasks);
+        if (partialMappings.size() == 1) {
+            return partialMappings.get(0);
+        }
         AMapping result = MappingFactory.createDefaultMapping();
-        // index target
-        for (String t : target) {
-            targetTokens.put(t, index.addString(t));
+        for (AMapping partial : partialMappings) {
+            for (Entry<String, HashMap<String, Double>> s : partial.getMap().entrySet()) {
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    result.add(s.getKey(), t.getKey(), t.getValue());
+                }
+            }
         }
-        // run similarity computation
+        return result;
+    }
 
-        for (String s : source) {
-            Set<Integer> allSizes = index.getAllSizes();
-            Set<String> sourceTokens = tokenizer.tokenize(s, q);
-            double sourceSize = (double) sourceTokens.size();
-            for (int size = (int) Math.ceil(sourceSize * threshold); size <= (int) Math
-                    .floor(sourceSize / threshold); size++) {
-                if (allSizes.contains(size)) {
-                    // maps tokens to strings
-                    Map<String, Set<String>> stringsOfSize = index.getStrings(size);
-                    Map<String, Integer> countMap = new HashMap<String, Integer>();
-                    for (String token : sourceTokens) {
-                        if (stringsOfSize.containsKey(token)) {
-                            // take each string and add it to the count map
-                            Set<String> candidates = stringsOfSize.get(token);
-                            for (String candidate : candidates) {
-                                if (!countMap.containsKey(candidate)) {
-                                    countMap.put(candidate, 0);
-                                }
-                                countMap.put(candidate, countMap.get(candidate) + 1);
-                            }
+    /**
+     * Probes source strings against an index. A prober must only be used by
+     * one thread at a time.
+     */
+    private static class Prober {
+
+        private final Index index;
+        private final double threshold;
+        private final double kappa;
+        /** Overlap of the current source string with each target string */
+        private final int[] counts;
+        /** Target strings with a non-zero overlap */
+        private int[] candidates = new int[1024];
+
+        Prober(Index index, double threshold) {
+            this.index = index;
+            this.threshold = threshold;
+            this.kappa = (1 + threshold) / threshold;
+            this.counts = new int[index.size()];
+        }
+
+        /**
+         * Adds the target strings similar to s to the result.
+         *
+         * @param s
+         *            Source string
+         * @param result
+         *            Mapping of source strings to target strings
+         */
+        void probe(String s, AMapping result) {
+            long[] tokens = index.tokenize(s);
+            double sourceSize = (double) tokens.length;
+            int minSize = (int) Math.ceil(sourceSize * threshold);
+            int maxSize = Math.min((int) Math.floor(sourceSize / threshold), index.sizeStart.length - 2);
+            if (tokens.length == 0 || minSize > maxSize) {
+                return;
+            }
+            int begin = index.sizeStart[minSize];
+            int end = index.sizeStart[maxSize + 1];
+            int candidateCount = 0;
+            for (long token : tokens) {
+                int w = index.getId(token);
+                if (w < 0) {
+                    continue;
+                }
+                int k = lowerBound(index.postingValue, index.postingStart[w], index.postingStart[w + 1], begin);
+                for (; k < index.postingStart[w + 1] && index.postingValue[k] < end; k++) {
+                    int y = index.postingValue[k];
+                    if (counts[y]++ == 0) {
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, 2 * candidateCount);
                         }
+                        candidates[candidateCount++] = y;
                     }
-                    // now apply filtering |X \cap Y| \geq \kappa(|X| + |Y|)
-                    for (String candidate : countMap.keySet()) {
-                        double count = (double) countMap.get(candidate);
-                        if (kappa * count >= (sourceSize + size)) {
-                            double similarity = sim.getSimilarity(targetTokens.get(candidate), sourceTokens);
-                            if (similarity >= threshold) {
-                                result.add(s, candidate, similarity);
-                            }
-                        }
+                }
+            }
+            for (int c = 0; c < candidateCount; c++) {
+                int y = candidates[c];
+                double count = (double) counts[y];
+                double size = (double) index.sizes[y];
+                counts[y] = 0;
+                // now apply filtering |X \cap Y| \geq \kappa(|X| + |Y|)
+                if (kappa * count >= (sourceSize + size)) {
+                    double similarity = count / (size + sourceSize - count);
+                    if (similarity >= threshold) {
+                        result.add(s, index.strings[y], similarity);
                     }
                 }
             }
-
         }
-        AMapping tempMapping = MappingFactory.createDefaultMapping();
-        for (String key : result.getMap().keySet()) {
-            for (String value : result.getMap().get(key).keySet()) {
-                double confidence = result.getConfidence(key, value);
-                if (confidence >= threshold) {
-                    tempMapping.add(key, value, confidence);
+
+        private static int lowerBound(int[] a, int from, int to, int key) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (a[mid] < key) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
                 }
             }
+            return from;
         }
-        result = tempMapping;
-        return result;
     }
 
     public String getName() {
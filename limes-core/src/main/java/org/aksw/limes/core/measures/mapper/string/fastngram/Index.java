@@ -4,98 +4,209 @@
  */
 package org.aksw.limes.core.measures.mapper.string.fastngram;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.Collection;
 
 /**
+ * Inverted n-gram index of the target strings as used by
+ * {@link FastNGramMapper}. Each string is padded with q - 1 blanks on both
+ * sides and split into its distinct n-grams. Every n-gram is encoded as a
+ * number and these numbers are numbered consecutively in a dictionary, so a
+ * string becomes a set of token ids.
+ * <p>
+ * The strings are numbered by ascending number of tokens, hence the strings
+ * with k tokens are the ids from {@link #sizeStart}[k] to
+ * {@link #sizeStart}[k + 1] - 1. The posting list of a token holds the ids of
+ * all strings that contain it in ascending order, so the strings of a given
+ * size range are a contiguous section of each posting list. An index is
+ * immutable and can be probed by several threads at the same time.
+ *
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  */
 public class Index {
 
-    private Map<Integer, Map<String, Set<String>>> sizeTokenIndex;
-    private ITokenizer tokenizer;
-    private int q = 3;
-
-    public Index() {
-        sizeTokenIndex = new HashMap<Integer, Map<String, Set<String>>>();
-        tokenizer = new NGramTokenizer();
-    }
+    private final int q;
+    /** Indexed strings ordered by number of tokens */
+    final String[] strings;
+    /** Number of tokens of each string */
+    final int[] sizes;
+    /** First id of the strings with k tokens, for k up to the maximal size + 1 */
+    final int[] sizeStart;
+    /**
+     * The posting list of token w is stored from postingStart[w] to
+     * postingStart[w + 1] - 1 in postingValue
+     */
+    final int[] postingStart;
+    final int[] postingValue;
+    /** Token ids of the n-gram codes */
+    private final Dictionary dictionary = new Dictionary();
 
     /**
-     * Constructor for similarities others than trigrams
+     * Indexes the n-grams of the given strings.
      *
-     * @param _q
+     * @param targets
+     *            Strings to index
+     * @param q
      *            value of n for n-grams
      */
-    public Index(int _q) {
-        sizeTokenIndex = new HashMap<Integer, Map<String, Set<String>>>();
-        tokenizer = new NGramTokenizer();
-        q = _q;
+    public Index(Collection<String> targets, int q) {
+        this.q = q;
+        int n = targets.size();
+        // 1. number the n-grams in the order of their first occurrence
+        int[][] tokenIds = new int[n][];
+        int maxSize = 0;
+        int i = 0;
+        for (String t : targets) {
+            long[] tokens = tokenize(t);
+            tokenIds[i] = new int[tokens.length];
+            for (int j = 0; j < tokens.length; j++) {
+                tokenIds[i][j] = dictionary.add(tokens[j]);
+            }
+            maxSize = Math.max(maxSize, tokens.length);
+            i++;
+        }
+        int dictionarySize = dictionary.size;
+
+        // 2. order the strings by size
+        sizeStart = new int[maxSize + 2];
+        for (int[] t : tokenIds) {
+            sizeStart[t.length + 1]++;
+        }
+        for (int k = 0; k <= maxSize; k++) {
+            sizeStart[k + 1] += sizeStart[k];
+        }
+        int[] next = Arrays.copyOf(sizeStart, maxSize + 1);
+        int[] order = new int[n];
+        strings = new String[n];
+        sizes = new int[n];
+        i = 0;
+        for (String t : targets) {
+            int id = next[tokenIds[i].length]++;
+            order[id] = i;
+            strings[id] = t;
+            sizes[id] = tokenIds[i].length;
+            i++;
+        }
+
+        // 3. index the strings in ascending order of their ids
+        postingStart = new int[dictionarySize + 1];
+        for (int[] t : tokenIds) {
+            for (int w : t) {
+                postingStart[w + 1]++;
+            }
+        }
+        for (int w = 0; w < dictionarySize; w++) {
+            postingStart[w + 1] += postingStart[w];
+        }
+        postingValue = new int[postingStart[dictionarySize]];
+        next = Arrays.copyOf(postingStart, dictionarySize);
+        for (int id = 0; id < n; id++) {
+            for (int w : tokenIds[order[id]]) {
+                postingValue[next[w]++] = id;
+            }
+        }
     }
 
     /**
-     * Tokenizes a string and adds it to the index
+     * Splits a string into its distinct n-grams. An n-gram of up to four
+     * characters is encoded without loss, longer ones are hashed to 64 bits.
      *
      * @param s
-     *            String to index
-     * @return The number of tokens generated for s
+     *            Input string
+     * @return The codes of the distinct n-grams of s in ascending order
      */
-    public Set<String> addString(String s) {
-        // update token index
-        Set<String> tokens = tokenizer.tokenize(s, q);
-        int size = tokens.size();
-        if (!sizeTokenIndex.containsKey(size)) {
-            sizeTokenIndex.put(size, new HashMap<String, Set<String>>());
+    long[] tokenize(String s) {
+        if (s == null) {
+            s = "";
+        }
+        int length = s.length() + 2 * (q - 1);
+        int count = Math.max(0, length - q + 1);
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            long code = 0;
+            for (int j = i; j < i + q; j++) {
+                int k = j - (q - 1);
+                char c = k < 0 || k >= s.length() ? ' ' : s.charAt(k);
+                code = q <= 4 ? code << 16 | c : (code ^ c) * 0x100000001b3L;
+            }
+            result[i] = code;
         }
-        Map<String, Set<String>> tokenIndex = sizeTokenIndex.get(size);
-        for (String token : tokens) {
-            if (!tokenIndex.containsKey(token)) {
-                tokenIndex.put(token, new HashSet<String>());
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[distinct++] = result[i];
             }
-            tokenIndex.get(token).add(s);
         }
-        return tokens;
+        return distinct == count ? result : Arrays.copyOf(result, distinct);
     }
 
     /**
-     * Returns all strings to a given token
-     *
-     * @param size,
-     *            Size of token
-     * @param token
-     *            Input token
-     * @return All strings that contain this token
+     * @param code
+     *            Code of an n-gram
+     * @return The token id of the n-gram or -1 if no indexed string contains
+     *         it
      */
-    public Set<String> getStrings(int size, String token) {
-        if (sizeTokenIndex.containsKey(size)) {
-            if (sizeTokenIndex.get(size).containsKey(token)) {
-                return sizeTokenIndex.get(size).get(token);
-            } else {
-                return new HashSet<String>();
-            }
-        } else {
-            return new HashSet<String>();
-        }
+    int getId(long code) {
+        return dictionary.get(code);
     }
 
     /**
-     * Returns all strings of size size
-     *
-     * @param size
-     *            Size requirement
-     * @return All strings which consist of "size" different tokens
+     * @return The number of indexed strings
      */
-    public Map<String, Set<String>> getStrings(int size) {
-        if (sizeTokenIndex.containsKey(size)) {
-            return sizeTokenIndex.get(size);
-        } else {
-            return new HashMap<String, Set<String>>();
-        }
+    public int size() {
+        return strings.length;
     }
 
-    public Set<Integer> getAllSizes() {
-        return sizeTokenIndex.keySet();
+    /**
+     * Open addressing hash table from n-gram codes to consecutive ids
+     */
+    private static class Dictionary {
+
+        private long[] codes = new long[1024];
+        private int[] ids = filled(1024);
+        private int size = 0;
+
+        private static int[] filled(int capacity) {
+            int[] a = new int[capacity];
+            Arrays.fill(a, -1);
+            return a;
+        }
+
+        private int slot(long code) {
+            int mask = codes.length - 1;
+            int slot = (int) ((code * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (ids[slot] >= 0 && codes[slot] != code) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        int get(long code) {
+            return ids[slot(code)];
+        }
+
+        int add(long code) {
+            int slot = slot(code);
+            if (ids[slot] >= 0) {
+                return ids[slot];
+            }
+            codes[slot] = code;
+            ids[slot] = size++;
+            if (2 * size > codes.length) {
+                long[] oldCodes = codes;
+                int[] oldIds = ids;
+                codes = new long[2 * oldCodes.length];
+                ids = filled(codes.length);
+                for (int k = 0; k < oldCodes.length; k++) {
+                    if (oldIds[k] >= 0) {
+                        int s = slot(oldCodes[k]);
+                        codes[s] = oldCodes[k];
+                        ids[s] = oldIds[k];
+                    }
+                }
+            }
+            return size - 1;
+        }
     }
 }
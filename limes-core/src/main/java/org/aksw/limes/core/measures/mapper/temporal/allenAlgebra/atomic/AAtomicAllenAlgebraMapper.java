@@ -1,18 +1,29 @@
 package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.ColumnarCache;
 import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.TemporalColumn;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.EventIndex.Endpoints;
 import org.aksw.limes.core.util.datetime.DateTimeFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +44,12 @@ import org.slf4j.LoggerFactory;
 public abstract class AAtomicAllenAlgebraMapper {
     protected static final Logger logger = LoggerFactory.getLogger(AAtomicAllenAlgebraMapper.class);
 
+    /**
+     * Minimal number of source events per parallel task of
+     * {@link #getMapping(ACache, ACache, String, Set, Set)}.
+     */
+    public static final int MIN_PARTITION_SIZE = 1000;
+
     /**
      * Constructor of AtomicAllenAlgebraMapper class.
      */
@@ -91,12 +108,7 @@ public abstract class AAtomicAllenAlgebraMapper {
      * @return the epoch value of the corresponding time stamp
      */
     protected static long getEpoch(String timeStamp) {
-
-        Date date = DateTimeFormat.getDate(timeStamp);
-        long epoch = date.getTime();
-
-        return epoch;
-
+        return DateTimeFormat.getEpoch(timeStamp);
     }
 
     /**
@@ -124,14 +136,16 @@ public abstract class AAtomicAllenAlgebraMapper {
             property = getBeginProperty(p.getLeftTerm());
         else
             property = getBeginProperty(p.getRightTerm());
+        if (cache instanceof ColumnarCache) {
+            return orderByDate((ColumnarCache) cache, property, false);
+        }
 
         for (Instance instance : cache.getAllInstances()) {
             TreeSet<String> time = instance.getProperty(property);
 
             for (String value : time) {
                 // 2015-04-22T11:29:51+02:00
-                Date date = DateTimeFormat.getDate(value);
-                long epoch = date.getTime();
+                long epoch = DateTimeFormat.getEpoch(value);
                 if (!blocks.containsKey(epoch)) {
                     Set<String> l = new HashSet<String>();
                     l.add(instance.getUri());
@@ -172,6 +186,9 @@ public abstract class AAtomicAllenAlgebraMapper {
             property = getEndProperty(p.getLeftTerm());
         else
             property = getEndProperty(p.getRightTerm());
+        if (cache instanceof ColumnarCache) {
+            return orderByDate((ColumnarCache) cache, property, true);
+        }
 
         for (Instance instance : cache.getAllInstances()) {
             TreeSet<String> time = instance.getProperty(property);
@@ -179,9 +196,7 @@ public abstract class AAtomicAllenAlgebraMapper {
             for (String value : time) {
                 try {
                     // 2015-04-22T11:29:51+02:00
-                    SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
-                    Date date = df.parse(value);
-                    long epoch = date.getTime();
+                    long epoch = DateTimeFormat.FORMAT3.parseEpoch(value);
                     if (!blocks.containsKey(epoch)) {
                         Set<String> l = new HashSet<String>();
                         l.add(instance.getUri());
@@ -198,6 +213,45 @@ public abstract class AAtomicAllenAlgebraMapper {
         return blocks;
     }
 
+    /**
+     * Orders the instances of a columnar cache based on the pre-parsed time
+     * stamps of a property, without parsing the values again.
+     *
+     * @param cache,
+     *            The columnar cache of instances
+     * @param property,
+     *            The date property
+     * @param strict,
+     *            if true, only time stamps of the form yyyy-MM-dd'T'HH:mm:ssXXX
+     *            are used and all other values are skipped. Else, all
+     *            formats of {@link DateTimeFormat} are accepted.
+     * @return blocks, a map of sets with unique dates as keys and set of
+     *         instances (string representation) as values
+     */
+    private static TreeMap<Long, Set<String>> orderByDate(ColumnarCache cache, String property, boolean strict) {
+        TreeMap<Long, Set<String>> blocks = new TreeMap<Long, Set<String>>();
+        TemporalColumn column = cache.getTemporalColumn(property);
+        for (int id = 0; id < column.size(); id++) {
+            for (int index = column.getStart(id); index < column.getEnd(id); index++) {
+                DateTimeFormat format = column.getFormat(index);
+                if (format == null && !strict) {
+                    throw new RuntimeException("Couldn't parse date of " + cache.getUri(id));
+                }
+                if (format == null || (strict && format != DateTimeFormat.FORMAT3)) {
+                    logger.warn("Skipping unparseable date of " + cache.getUri(id));
+                    continue;
+                }
+                Set<String> l = blocks.get(column.getValue(index));
+                if (l == null) {
+                    l = new HashSet<String>();
+                    blocks.put(column.getValue(index), l);
+                }
+                l.add(cache.getUri(id));
+            }
+        }
+        return blocks;
+    }
+
     /**
      * Maps each source event to its set of concurrent target events.
      *
@@ -241,35 +295,239 @@ public abstract class AAtomicAllenAlgebraMapper {
             TreeMap<Long, Set<String>> targets) {
         TreeMap<String, Set<String>> concurrentEvents = new TreeMap<String, Set<String>>();
 
+        // the target instances ordered by their latest time stamp, the
+        // predecessors of a time stamp are a suffix of this order
+        HashMap<String, Long> maxima = new HashMap<String, Long>();
+        for (Map.Entry<Long, Set<String>> targetEntry : targets.entrySet()) {
+            for (String targetInstance : targetEntry.getValue()) {
+                maxima.put(targetInstance, targetEntry.getKey());
+            }
+        }
+        List<String> targetInstances = new ArrayList<String>(maxima.keySet());
+        targetInstances.sort((a, b) -> Long.compare(maxima.get(a), maxima.get(b)));
+        long[] sortedMaxima = new long[targetInstances.size()];
+        for (int i = 0; i < sortedMaxima.length; i++) {
+            sortedMaxima[i] = maxima.get(targetInstances.get(i));
+        }
+
         for (Map.Entry<Long, Set<String>> sourceEntry : sources.entrySet()) {
 
-            Long sourceTimeStamp = sourceEntry.getKey();
+            long sourceTimeStamp = sourceEntry.getKey();
             Set<String> sourceInstances = sourceEntry.getValue();
 
-            SortedMap<Long, Set<String>> tempTargets = targets.tailMap(sourceTimeStamp);
+            // first target whose latest time stamp is after the source time
+            // stamp
+            int low = 0;
+            int high = sortedMaxima.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedMaxima[mid] <= sourceTimeStamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (low < sortedMaxima.length) {
+                Set<String> subTargets = new PredecessorSet(targetInstances.subList(low, sortedMaxima.length), maxima,
+                        sourceTimeStamp);
+                for (String sourceInstance : sourceInstances) {
+                    concurrentEvents.put(sourceInstance, subTargets);
+                }
+            }
+        }
 
-            if (tempTargets != null) {
+        return concurrentEvents;
 
-                Set<String> subTargets = new TreeSet<String>();
-                for (Map.Entry<Long, Set<String>> targetEntry : tempTargets.entrySet()) {
-                    Long targetTimeStamp = targetEntry.getKey();
+    }
 
-                    if (!targetTimeStamp.equals(sourceTimeStamp)) {
-                        subTargets.addAll(targetEntry.getValue());
-                    }
-                }
-                if (!subTargets.isEmpty()) {
-                    for (String sourceInstance : sourceInstances) {
-                        concurrentEvents.put(sourceInstance, subTargets);
+    /**
+     * Unmodifiable set of the target instances with a time stamp after a
+     * source time stamp, which shares the ordered target instances with the
+     * sets of the other source time stamps.
+     */
+    private static class PredecessorSet extends AbstractSet<String> {
+        private final List<String> targetInstances;
+        private final Map<String, Long> maxima;
+        private final long sourceTimeStamp;
+
+        PredecessorSet(List<String> targetInstances, Map<String, Long> maxima, long sourceTimeStamp) {
+            this.targetInstances = targetInstances;
+            this.maxima = maxima;
+            this.sourceTimeStamp = sourceTimeStamp;
+        }
 
-                    }
-                }
+        @Override
+        public boolean contains(Object o) {
+            Long maximum = maxima.get(o);
+            return maximum != null && maximum > sourceTimeStamp;
+        }
 
-            }
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableList(targetInstances).iterator();
         }
 
-        return concurrentEvents;
+        @Override
+        public int size() {
+            return targetInstances.size();
+        }
+    }
+
+    /**
+     * Computes a complex Allen's relation, given as the atomic relations that
+     * must hold and the atomic relations that must not hold between a source
+     * and a target event, see {@link AtomicRelation}.
+     * <p>
+     * Instead of building the concurrent and predecessor events of each
+     * atomic relation, the time stamps of both caches are parsed and sorted
+     * once per property by an {@link EventIndex}. For each source event, the
+     * target events of the required atomic relation with the fewest events are
+     * found by binary search and all other atomic relations are checked per
+     * target event. The result is the same as the result of the set operations
+     * on {@link #getConcurrentEvents(ACache, ACache, String)} and
+     * {@link #getPredecessorEvents(ACache, ACache, String)}, including their
+     * treatment of events with several time stamps. Without required atomic
+     * relations, all pairs of source and target events are considered.
+     *
+     * @param source,
+     *            The source cache
+     * @param target,
+     *            The target cache
+     * @param expression,
+     *            The metric expression
+     * @param required,
+     *            The atomic relations that must hold
+     * @param excluded,
+     *            The atomic relations that must not hold
+     * @return a mapping, the resulting mapping
+     */
+    public static AMapping getMapping(ACache source, ACache target, String expression,
+            Set<AtomicRelation> required, Set<AtomicRelation> excluded) {
+        Parser p = new Parser(expression, 1.0d);
+        EventIndex sources = new EventIndex(source, p.getLeftTerm());
+        EventIndex targets = new EventIndex(target, p.getRightTerm());
+        List<AtomicRelation> allRelations = new ArrayList<AtomicRelation>(required);
+        allRelations.addAll(excluded);
+        AtomicRelation[] relations = allRelations.toArray(new AtomicRelation[allRelations.size()]);
+        int requiredCount = required.size();
+        // parse the time stamps before the parallel tasks start
+        Endpoints[] sourceEndpoints = new Endpoints[relations.length];
+        Endpoints[] targetEndpoints = new Endpoints[relations.length];
+        for (int i = 0; i < relations.length; i++) {
+            sourceEndpoints[i] = relations[i].isSourceBegin() ? sources.getBegins() : sources.getEnds();
+            targetEndpoints[i] = relations[i].isTargetBegin() ? targets.getBegins() : targets.getEnds();
+        }
+
+        List<Callable<AMapping>> tasks = new ArrayList<Callable<AMapping>>();
+        int partitions = Math.max(1, Math.min(4 * ExecutionContext.getParallelism(), sources.size() / MIN_PARTITION_SIZE));
+        for (int i = 0; i < partitions; i++) {
+            int first = (int) ((long) i * sources.size() / partitions);
+            int last = (int) ((long) (i + 1) * sources.size() / partitions);
+            tasks.add(() -> {
+                AMapping partial = MappingFactory.createDefaultMapping();
+                long[] timeStamps = new long[relations.length];
+                boolean[] defined = new boolean[relations.length];
+                for (int s = first; s < last; s++) {
+                    addLinks(s, sources, targets, relations, requiredCount, sourceEndpoints, targetEndpoints,
+                            timeStamps, defined, partial);
+                }
+                return partial;
+            });
+        }
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (AMapping partial : ExecutionContext.invokeAll(tasks)) {
+            for (Entry<String, HashMap<String, Double>> s : partial.getMap().entrySet()) {
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    m.add(s.getKey(), t.getKey(), t.getValue());
+                }
+            }
+        }
+        return m;
+    }
 
+    /**
+     * Adds the links of a source event to the target events that satisfy the
+     * atomic relations.
+     *
+     * @param s,
+     *            The id of the source event
+     * @param sources,
+     *            The source events
+     * @param targets,
+     *            The target events
+     * @param relations,
+     *            The required atomic relations followed by the excluded ones
+     * @param requiredCount,
+     *            The number of required atomic relations
+     * @param sourceEndpoints,
+     *            The source time stamps of each atomic relation
+     * @param targetEndpoints,
+     *            The target time stamps of each atomic relation
+     * @param timeStamps,
+     *            Buffer of the source time stamp of each atomic relation
+     * @param defined,
+     *            Buffer of whether the atomic relation holds for any target
+     * @param m,
+     *            The mapping to add the links to
+     */
+    private static void addLinks(int s, EventIndex sources, EventIndex targets, AtomicRelation[] relations,
+            int requiredCount, Endpoints[] sourceEndpoints, Endpoints[] targetEndpoints, long[] timeStamps,
+            boolean[] defined, AMapping m) {
+        for (int i = 0; i < relations.length; i++) {
+            Endpoints x = sourceEndpoints[i];
+            Endpoints y = targetEndpoints[i];
+            defined[i] = false;
+            // as in mapConcurrent and mapPredecessor, the latest time stamp
+            // of the source event with any target event determines its
+            // target events
+            for (int index = x.getEnd(s) - 1; index >= x.getStart(s); index--) {
+                long timeStamp = x.getValue(index);
+                if (relations[i].isConcurrent() ? y.upperBound(timeStamp) > y.lowerBound(timeStamp)
+                        : y.count() > 0 && timeStamp < y.getMaximum()) {
+                    timeStamps[i] = timeStamp;
+                    defined[i] = true;
+                    break;
+                }
+            }
+            if (i < requiredCount && !defined[i]) {
+                return;
+            }
+        }
+        // generate the target events of the most selective required relation
+        int generator = -1;
+        int first = 0;
+        int last = targets.size();
+        for (int i = 0; i < requiredCount; i++) {
+            Endpoints y = targetEndpoints[i];
+            int start = relations[i].isConcurrent() ? y.lowerBound(timeStamps[i])
+                    : y.upperBoundOfMaxima(timeStamps[i]);
+            int end = relations[i].isConcurrent() ? y.upperBound(timeStamps[i]) : y.countMaxima();
+            if (generator < 0 || end - start < last - first) {
+                generator = i;
+                first = start;
+                last = end;
+            }
+        }
+        String sourceUri = sources.getUri(s);
+        for (int index = first; index < last; index++) {
+            int t = index;
+            if (generator >= 0) {
+                t = relations[generator].isConcurrent() ? targetEndpoints[generator].getSortedId(index)
+                        : targetEndpoints[generator].getMaximumId(index);
+            }
+            boolean link = true;
+            for (int i = 0; i < relations.length && link; i++) {
+                if (i != generator) {
+                    Endpoints y = targetEndpoints[i];
+                    boolean holds = defined[i] && (relations[i].isConcurrent() ? y.contains(t, timeStamps[i])
+                            : y.endsAfter(t, timeStamps[i]));
+                    link = holds == (i < requiredCount);
+                }
+            }
+            if (link) {
+                m.add(sourceUri, targets.getUri(t), 1d);
+            }
+        }
     }
 
     /**
@@ -0,0 +1,38 @@
+package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic;
+
+/**
+ * Atomic relations between the begin and end points of a source event s =
+ * (b(s), e(s)) and a target event t = (b(t), e(t)). The first letter is the
+ * point of the source event, the second one the point of the target event.
+ * Relations ending with 0 require equal points, relations ending with 1
+ * require the source point to be before the target point, e.g. BE0 stands for
+ * b(s)=e(t) and BE1 for b(s)&lt;e(t). The ordinals are the numbers of the
+ * atomic relations in {@link org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.AllenAlgebraMapper#getRequiredAtomicRelations()}.
+ */
+public enum AtomicRelation {
+    BB0, BB1, BE0, BE1, EB0, EB1, EE0, EE1;
+
+    /**
+     * @return true if the relation compares the begin of the source event,
+     *         false if it compares its end
+     */
+    public boolean isSourceBegin() {
+        return this == BB0 || this == BB1 || this == BE0 || this == BE1;
+    }
+
+    /**
+     * @return true if the relation compares the begin of the target event,
+     *         false if it compares its end
+     */
+    public boolean isTargetBegin() {
+        return this == BB0 || this == BB1 || this == EB0 || this == EB1;
+    }
+
+    /**
+     * @return true if the relation requires equal points, false if it
+     *         requires the source point to be before the target point
+     */
+    public boolean isConcurrent() {
+        return this == BB0 || this == BE0 || this == EB0 || this == EE0;
+    }
+}
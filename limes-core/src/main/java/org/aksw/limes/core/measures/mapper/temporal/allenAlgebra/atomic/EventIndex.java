@@ -0,0 +1,392 @@
+package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.ColumnarCache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.TemporalColumn;
+import org.aksw.limes.core.util.datetime.DateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the events of a cache for the atomic Allen's relations. The
+ * instances of the cache are numbered once and the time stamps of their begin
+ * and end date properties are parsed into primitive arrays, when they are
+ * first needed. The time stamps of each property are sorted once, by value
+ * and by the latest time stamp of each instance, so that the events that
+ * share a time stamp with a given time stamp or end after it are found by
+ * binary search.
+ * <p>
+ * As in {@link AAtomicAllenAlgebraMapper#orderByBeginDate(ACache, String, String)},
+ * begin dates are parsed with the first {@link DateTimeFormat} that accepts
+ * them. As in
+ * {@link AAtomicAllenAlgebraMapper#orderByEndDate(ACache, String, String)},
+ * end dates are only parsed with {@link DateTimeFormat#FORMAT3} and skipped
+ * otherwise.
+ */
+class EventIndex {
+    private static final Logger logger = LoggerFactory.getLogger(EventIndex.class);
+
+    private final ACache cache;
+    // the instances of the cache, null for a columnar cache
+    private final List<Instance> instances;
+    private final String[] uris;
+    private final String beginProperty;
+    private final String endProperty;
+    private Endpoints begins = null;
+    private Endpoints ends = null;
+
+    /**
+     * @param cache,
+     *            The cache of instances
+     * @param term,
+     *            The source or target term of the metric expression, of the
+     *            form x.beginDate|endDate
+     */
+    EventIndex(ACache cache, String term) {
+        this.cache = cache;
+        if (cache instanceof ColumnarCache) {
+            instances = null;
+            uris = cache.getAllUris().toArray(new String[0]);
+        } else {
+            instances = cache.getAllInstances();
+            uris = new String[instances.size()];
+            for (int id = 0; id < uris.length; id++) {
+                uris[id] = instances.get(id).getUri();
+            }
+        }
+        this.beginProperty = AAtomicAllenAlgebraMapper.getBeginProperty(term);
+        this.endProperty = term;
+    }
+
+    /**
+     * @return the number of instances
+     */
+    int size() {
+        return uris.length;
+    }
+
+    /**
+     * @param id,
+     *            The id of an instance
+     * @return the uri of the instance
+     */
+    String getUri(int id) {
+        return uris[id];
+    }
+
+    /**
+     * @return the begin dates of the instances
+     */
+    Endpoints getBegins() {
+        if (begins == null) {
+            begins = parse(beginProperty, false);
+        }
+        return begins;
+    }
+
+    /**
+     * @return the end dates of the instances
+     * @throws IllegalArgumentException
+     *             if the end date property is not declared
+     */
+    Endpoints getEnds() {
+        if (ends == null) {
+            ends = parse(AAtomicAllenAlgebraMapper.getEndProperty(endProperty), true);
+        }
+        return ends;
+    }
+
+    /**
+     * Parses the time stamps of a property of all instances.
+     *
+     * @param property,
+     *            The date property
+     * @param strict,
+     *            if true, only time stamps of the form yyyy-MM-dd'T'HH:mm:ssXXX
+     *            are used and all other values are skipped. Else, all formats
+     *            of {@link DateTimeFormat} are accepted.
+     * @return the time stamps of the instances
+     */
+    private Endpoints parse(String property, boolean strict) {
+        int[] offsets = new int[uris.length + 1];
+        long[] values;
+        int k = 0;
+        if (instances == null) {
+            TemporalColumn column = ((ColumnarCache) cache).getTemporalColumn(property);
+            values = new long[column.getStart(column.size())];
+            for (int id = 0; id < uris.length; id++) {
+                offsets[id] = k;
+                for (int index = column.getStart(id); index < column.getEnd(id); index++) {
+                    DateTimeFormat format = column.getFormat(index);
+                    if (format == null && !strict) {
+                        throw new RuntimeException("Couldn't parse date of " + uris[id]);
+                    }
+                    if (format == null || (strict && format != DateTimeFormat.FORMAT3)) {
+                        logger.warn("Skipping unparseable date of " + uris[id]);
+                        continue;
+                    }
+                    values[k++] = column.getValue(index);
+                }
+            }
+        } else {
+            int count = 0;
+            for (Instance instance : instances) {
+                count += instance.getProperty(property).size();
+            }
+            values = new long[count];
+            for (int id = 0; id < uris.length; id++) {
+                offsets[id] = k;
+                for (String value : instances.get(id).getProperty(property)) {
+                    if (strict) {
+                        try {
+                            values[k++] = DateTimeFormat.FORMAT3.parseEpoch(value);
+                        } catch (ParseException e) {
+                            k--;
+                            logger.warn("Skipping unparseable date of " + uris[id]);
+                        }
+                    } else {
+                        values[k++] = DateTimeFormat.getEpoch(value);
+                    }
+                }
+            }
+        }
+        offsets[uris.length] = k;
+        return new Endpoints(offsets, values);
+    }
+
+    /**
+     * Sorted time stamps of one date property of the instances.
+     */
+    static class Endpoints {
+        // the distinct time stamps of instance i in ascending order are
+        // values[offsets[i]] to values[offsets[i + 1] - 1]
+        private final int[] offsets;
+        private final long[] values;
+        // all time stamps in ascending order and their instances
+        private final long[] sortedValues;
+        private final int[] sortedIds;
+        // the instances with time stamps, ordered by their latest time stamp
+        private final long[] sortedMaxima;
+        private final int[] maximumIds;
+
+        private Endpoints(int[] rawOffsets, long[] rawValues) {
+            int size = rawOffsets.length - 1;
+            offsets = new int[size + 1];
+            int k = 0;
+            int instancesWithValues = 0;
+            for (int id = 0; id < size; id++) {
+                offsets[id] = k;
+                int start = rawOffsets[id];
+                int end = rawOffsets[id + 1];
+                Arrays.sort(rawValues, start, end);
+                for (int index = start; index < end; index++) {
+                    if (index == start || rawValues[index] != rawValues[index - 1]) {
+                        rawValues[k++] = rawValues[index];
+                    }
+                }
+                if (k > offsets[id]) {
+                    instancesWithValues++;
+                }
+            }
+            offsets[size] = k;
+            values = Arrays.copyOf(rawValues, k);
+
+            // sort (rank of the time stamp, instance) pairs packed into longs
+            long[] distinct = values.clone();
+            Arrays.sort(distinct);
+            int distinctCount = 0;
+            for (int index = 0; index < distinct.length; index++) {
+                if (index == 0 || distinct[index] != distinct[index - 1]) {
+                    distinct[distinctCount++] = distinct[index];
+                }
+            }
+            long[] pairs = new long[k];
+            long[] maximumPairs = new long[instancesWithValues];
+            int m = 0;
+            for (int id = 0; id < size; id++) {
+                for (int index = offsets[id]; index < offsets[id + 1]; index++) {
+                    pairs[index] = pack(Arrays.binarySearch(distinct, 0, distinctCount, values[index]), id);
+                }
+                if (offsets[id + 1] > offsets[id]) {
+                    maximumPairs[m++] = pairs[offsets[id + 1] - 1];
+                }
+            }
+            Arrays.sort(pairs);
+            Arrays.sort(maximumPairs);
+            sortedValues = new long[k];
+            sortedIds = new int[k];
+            for (int index = 0; index < k; index++) {
+                sortedValues[index] = distinct[(int) (pairs[index] >>> 32)];
+                sortedIds[index] = (int) pairs[index];
+            }
+            sortedMaxima = new long[m];
+            maximumIds = new int[m];
+            for (int index = 0; index < m; index++) {
+                sortedMaxima[index] = distinct[(int) (maximumPairs[index] >>> 32)];
+                maximumIds[index] = (int) maximumPairs[index];
+            }
+        }
+
+        private static long pack(int rank, int id) {
+            return ((long) rank << 32) | id;
+        }
+
+        /**
+         * @param id,
+         *            The id of an instance
+         * @return the position of the first time stamp of the instance
+         */
+        int getStart(int id) {
+            return offsets[id];
+        }
+
+        /**
+         * @param id,
+         *            The id of an instance
+         * @return the position after the last time stamp of the instance
+         */
+        int getEnd(int id) {
+            return offsets[id + 1];
+        }
+
+        /**
+         * @param index,
+         *            The position of a time stamp, see {@link #getStart(int)}
+         * @return the time stamp
+         */
+        long getValue(int index) {
+            return values[index];
+        }
+
+        /**
+         * @param id,
+         *            The id of an instance
+         * @param value,
+         *            A time stamp
+         * @return true if the time stamp is one of the time stamps of the
+         *         instance
+         */
+        boolean contains(int id, long value) {
+            return Arrays.binarySearch(values, offsets[id], offsets[id + 1], value) >= 0;
+        }
+
+        /**
+         * @param id,
+         *            The id of an instance
+         * @param value,
+         *            A time stamp
+         * @return true if the latest time stamp of the instance is after the
+         *         time stamp
+         */
+        boolean endsAfter(int id, long value) {
+            return offsets[id + 1] > offsets[id] && values[offsets[id + 1] - 1] > value;
+        }
+
+        /**
+         * @return the number of time stamps of all instances
+         */
+        int count() {
+            return sortedValues.length;
+        }
+
+        /**
+         * @return the latest time stamp of all instances, only defined if
+         *         there is a time stamp
+         */
+        long getMaximum() {
+            return sortedValues[sortedValues.length - 1];
+        }
+
+        /**
+         * @param value,
+         *            A time stamp
+         * @return the position of the first time stamp in ascending order that
+         *         is not before the time stamp
+         */
+        int lowerBound(long value) {
+            int low = 0;
+            int high = sortedValues.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedValues[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @param value,
+         *            A time stamp
+         * @return the position of the first time stamp in ascending order that
+         *         is after the time stamp
+         */
+        int upperBound(long value) {
+            int low = 0;
+            int high = sortedValues.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedValues[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @param index,
+         *            The position of a time stamp in ascending order
+         * @return the instance of the time stamp
+         */
+        int getSortedId(int index) {
+            return sortedIds[index];
+        }
+
+        /**
+         * @return the number of instances with time stamps
+         */
+        int countMaxima() {
+            return sortedMaxima.length;
+        }
+
+        /**
+         * @param value,
+         *            A time stamp
+         * @return the position of the first instance in the order of the
+         *         latest time stamps whose latest time stamp is after the time
+         *         stamp
+         */
+        int upperBoundOfMaxima(long value) {
+            int low = 0;
+            int high = sortedMaxima.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedMaxima[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @param index,
+         *            The position of an instance in the order of the latest
+         *            time stamps
+         * @return the instance
+         */
+        int getMaximumId(int index) {
+            return maximumIds[index];
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.complex;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeMap;
@@ -10,7 +11,8 @@ import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.AllenAlgebraMapper;
-import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.BeginEnd;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.AAtomicAllenAlgebraMapper;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.AtomicRelation;
 
 /**
  * Class for Allen's temporal relation "After".
@@ -97,18 +99,12 @@ public class AfterMapper extends AllenAlgebraMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        
         this.source = source;
         this.target = target;
-        ArrayList<TreeMap<String, Set<String>>> maps = new ArrayList<TreeMap<String, Set<String>>>();
-
-        BeginEnd be = new BeginEnd();
         // SxT \ (BE0 U BE1)
-        maps.add(be.getConcurrentEvents(source, target, expression));
-        maps.add(be.getPredecessorEvents(source, target, expression));
-
-        AMapping m = getMapping(maps);
-        return m;
+        return AAtomicAllenAlgebraMapper.getMapping(source, target, expression,
+                EnumSet.noneOf(AtomicRelation.class),
+                EnumSet.of(AtomicRelation.BE0, AtomicRelation.BE1));
     }
 
     /**
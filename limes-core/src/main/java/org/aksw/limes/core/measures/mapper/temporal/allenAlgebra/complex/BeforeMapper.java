@@ -1,6 +1,7 @@
 package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.complex;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -9,7 +10,8 @@ import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.AllenAlgebraMapper;
-import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.EndBegin;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.AAtomicAllenAlgebraMapper;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.AtomicRelation;
 
 /**
  * Class for Allen's temporal relation "Before". 
@@ -72,15 +74,10 @@ public class BeforeMapper extends AllenAlgebraMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        
-        ArrayList<TreeMap<String, Set<String>>> maps = new ArrayList<TreeMap<String, Set<String>>>();
-        
-        EndBegin eb = new EndBegin();
         // EB1
-        maps.add(eb.getPredecessorEvents(source, target, expression));
-
-        AMapping m = getMapping(maps);
-        return m;
+        return AAtomicAllenAlgebraMapper.getMapping(source, target, expression,
+                EnumSet.of(AtomicRelation.EB1),
+                EnumSet.noneOf(AtomicRelation.class));
     }
 
     /**
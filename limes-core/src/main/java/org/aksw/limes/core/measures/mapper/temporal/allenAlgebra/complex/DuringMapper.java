@@ -1,6 +1,7 @@
 package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.complex;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -10,8 +11,8 @@ import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.AllenAlgebraMapper;
-import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.BeginBegin;
-import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.EndEnd;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.AAtomicAllenAlgebraMapper;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic.AtomicRelation;
 
 /**
  * Class for Allen's temporal relation "During". Given two events X and Y, it
@@ -94,17 +95,10 @@ public class DuringMapper extends AllenAlgebraMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        ArrayList<TreeMap<String, Set<String>>> maps = new ArrayList<TreeMap<String, Set<String>>>();
-        EndEnd ee = new EndEnd();
-        BeginBegin bb = new BeginBegin();
         // EE1 \ (BB0 U BB1)
-        maps.add(ee.getPredecessorEvents(source, target, expression));
-
-        maps.add(bb.getConcurrentEvents(source, target, expression));
-        maps.add(bb.getPredecessorEvents(source, target, expression));
-
-        AMapping m = getMapping(maps);
-        return m;
+        return AAtomicAllenAlgebraMapper.getMapping(source, target, expression,
+                EnumSet.of(AtomicRelation.EE1),
+                EnumSet.of(AtomicRelation.BB0, AtomicRelation.BB1));
     }
 
     /**
@@ -1,14 +1,7 @@
 package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
-
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
-import org.aksw.limes.core.io.mapping.MappingFactory;
-import org.aksw.limes.core.io.parser.Parser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,32 +26,18 @@ public class ConcurrentMapper extends SimpleTemporalMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        AMapping m = MappingFactory.createDefaultMapping();
-        Parser p = new Parser(expression, threshold);
-
-        TreeMap<String, Set<Instance>> sources = this.orderByBeginDate(source, expression, "source");
-        TreeMap<String, Set<Instance>> targets = this.orderByBeginDate(target, expression, "target");
-        String machineIDSource = this.getSecondProperty(p.getLeftTerm());
-        String machineIDTarget = this.getSecondProperty(p.getRightTerm());
-
-        
-        
-        for (Map.Entry<String, Set<Instance>> sourceEntry : sources.entrySet()) {
-            String epochSource = sourceEntry.getKey();
-
-            Set<Instance> targetInstances = targets.get(epochSource);
-            if (targetInstances != null) {
-                Set<Instance> sourceInstances = sourceEntry.getValue();
-                for (Instance i : sourceInstances) {
-                    for (Instance j : targetInstances) {
-                        if (i.getProperty(machineIDSource).equals(j.getProperty(machineIDTarget)))
-                            m.add(i.getUri(), j.getUri(), 1);
-                    }
-                }
-            }
-        }
+        return getMapping(source, target, expression, true);
+    }
 
-        return m;
+    /**
+     * The concurrent target events of a source event are the target events
+     * with the same begin date and the same group.
+     */
+    @Override
+    protected boolean getRange(Events targets, long timeStamp, int group, int[] range) {
+        range[0] = targets.lowerBound(timeStamp, group);
+        range[1] = targets.upperBound(timeStamp, group);
+        return range[0] < range[1];
     }
 
     /**
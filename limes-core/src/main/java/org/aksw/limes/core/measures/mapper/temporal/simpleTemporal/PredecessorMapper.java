@@ -1,13 +1,7 @@
 package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
-
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
-import org.aksw.limes.core.io.mapping.MappingFactory;
 
 /**
  * Implements the predecessor mapper class.
@@ -28,28 +22,21 @@ public class PredecessorMapper extends SimpleTemporalMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        AMapping m = MappingFactory.createDefaultMapping();
-
-        TreeMap<String, Set<Instance>> sources = this.orderByBeginDate(source, expression, "source");
-        TreeMap<String, Set<Instance>> targets = this.orderByBeginDate(target, expression, "target");
-
-        for (Map.Entry<String, Set<Instance>> sourceEntry : sources.entrySet()) {
-            String epochSource = sourceEntry.getKey();
+        return getMapping(source, target, expression, false);
+    }
 
-            String lowerEpoch = targets.lowerKey(epochSource);
-            if (lowerEpoch != null) {
-                Set<Instance> sourceInstances = sourceEntry.getValue();
-                Set<Instance> targetInstances = targets.get(lowerEpoch);
-                for (Instance i : sourceInstances) {
-                    for (Instance j : targetInstances) {
-                        m.add(i.getUri(), j.getUri(), 1);
-                    }
-                }
-            }
+    /**
+     * The predecessor target events of a source event are the target events
+     * with the latest begin date before the begin date of the source event.
+     */
+    @Override
+    protected boolean getRange(Events targets, long timeStamp, int group, int[] range) {
+        range[1] = targets.lowerBound(timeStamp, Integer.MIN_VALUE);
+        if (range[1] == 0) {
+            return false;
         }
-
-        return m;
-
+        range[0] = targets.lowerBound(targets.getTimeStamp(range[1] - 1), Integer.MIN_VALUE);
+        return true;
     }
 
     /**
@@ -2,16 +2,31 @@ package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.ColumnarCache;
 import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.TemporalColumn;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.util.datetime.DateTimeFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Abstract class of simple temporal relations mapper.
@@ -20,6 +35,13 @@ import org.aksw.limes.core.measures.mapper.AMapper;
  * @version 1.0
  */
 public abstract class SimpleTemporalMapper extends AMapper implements ISimpleTemporalMapper {
+    private static final Logger logger = LoggerFactory.getLogger(SimpleTemporalMapper.class);
+
+    /**
+     * Minimal number of source events per parallel task of
+     * {@link #getMapping(ACache, ACache, String, boolean)}.
+     */
+    public static final int MIN_PARTITION_SIZE = 1000;
 
     /**
      * Extracts first property (beginDate) from metric expression.
@@ -80,6 +102,9 @@ public abstract class SimpleTemporalMapper extends AMapper implements ISimpleTem
             property = getFirstProperty(p.getLeftTerm());
         else
             property = getFirstProperty(p.getRightTerm());
+        if (cache instanceof ColumnarCache) {
+            return orderByBeginDate((ColumnarCache) cache, property);
+        }
         for (Instance instance : cache.getAllInstances()) {
             TreeSet<String> time = instance.getProperty(property);
             for (String value : time) {
@@ -105,4 +130,329 @@ public abstract class SimpleTemporalMapper extends AMapper implements ISimpleTem
 
     }
 
+    /**
+     * Orders the instances of a columnar cache based on the pre-parsed time
+     * stamps of their begin date property. As for other caches, only time
+     * stamps of the form yyyy-MM-dd'T'HH:mm:ssXXX are used.
+     *
+     * @param cache,
+     *            the columnar cache of instances
+     * @param property,
+     *            the begin date property
+     * @return blocks, a map of sets with unique begin dates as keys and set of
+     *         instances as values
+     */
+    private TreeMap<String, Set<Instance>> orderByBeginDate(ColumnarCache cache, String property) {
+        TreeMap<String, Set<Instance>> blocks = new TreeMap<String, Set<Instance>>();
+        TemporalColumn column = cache.getTemporalColumn(property);
+        for (int id = 0; id < column.size(); id++) {
+            Instance instance = null;
+            for (int index = column.getStart(id); index < column.getEnd(id); index++) {
+                if (column.getFormat(index) != DateTimeFormat.FORMAT3) {
+                    continue;
+                }
+                if (instance == null) {
+                    instance = cache.getInstance(cache.getUri(id));
+                }
+                String epoch = String.valueOf(column.getValue(index));
+                Set<Instance> l = blocks.get(epoch);
+                if (l == null) {
+                    l = new HashSet<Instance>();
+                    blocks.put(epoch, l);
+                }
+                l.add(instance);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Computes the links of the source events to their target events. The
+     * begin dates of both caches are parsed once and sorted together with the
+     * groups of the events, see {@link Events}. The source events are split
+     * across the tasks of the {@link ExecutionContext} and each task finds the
+     * target events of a source event as a range of the sorted target events,
+     * see {@link #getRange(Events, long, int, int[])}.
+     *
+     * @param source,
+     *            the source cache
+     * @param target,
+     *            the target cache
+     * @param expression,
+     *            the metric expression
+     * @param grouped,
+     *            if true, the events are grouped by the values of the second
+     *            property (machineID) of the expression
+     * @return a mapping, the resulting mapping
+     */
+    protected AMapping getMapping(ACache source, ACache target, String expression, boolean grouped) {
+        Parser p = new Parser(expression, 0.0d);
+        HashMap<List<String>, Integer> groups = grouped ? new HashMap<List<String>, Integer>() : null;
+        Events sources = new Events(source, getFirstProperty(p.getLeftTerm()),
+                grouped ? getSecondProperty(p.getLeftTerm()) : null, groups);
+        Events targets = new Events(target, getFirstProperty(p.getRightTerm()),
+                grouped ? getSecondProperty(p.getRightTerm()) : null, groups);
+
+        List<Callable<AMapping>> tasks = new ArrayList<Callable<AMapping>>();
+        int size = sources.size();
+        int partitions = Math.max(1, Math.min(4 * ExecutionContext.getParallelism(), size / MIN_PARTITION_SIZE));
+        for (int i = 0; i < partitions; i++) {
+            int first = (int) ((long) i * size / partitions);
+            int last = (int) ((long) (i + 1) * size / partitions);
+            tasks.add(() -> {
+                AMapping partial = MappingFactory.createDefaultMapping();
+                int[] range = new int[2];
+                for (int event = first; event < last; event++) {
+                    if (getRange(targets, sources.getTimeStamp(event), sources.getGroup(event), range)) {
+                        String uri = sources.getUri(event);
+                        for (int targetEvent = range[0]; targetEvent < range[1]; targetEvent++) {
+                            partial.add(uri, targets.getUri(targetEvent), 1);
+                        }
+                    }
+                }
+                return partial;
+            });
+        }
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (AMapping partial : ExecutionContext.invokeAll(tasks)) {
+            for (Entry<String, HashMap<String, Double>> s : partial.getMap().entrySet()) {
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    m.add(s.getKey(), t.getKey(), t.getValue());
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Finds the target events of a source event.
+     *
+     * @param targets,
+     *            the sorted target events
+     * @param timeStamp,
+     *            the begin date of the source event
+     * @param group,
+     *            the group of the source event
+     * @param range,
+     *            the first and the last (exclusive) position of the target
+     *            events, set by this method
+     * @return true if the source event has target events
+     */
+    protected abstract boolean getRange(Events targets, long timeStamp, int group, int[] range);
+
+    /**
+     * Events of a cache, i.e. the begin dates of its instances in ascending
+     * order. As in {@link SimpleTemporalMapper#orderByBeginDate(ACache, String, String)},
+     * only time stamps of the form yyyy-MM-dd'T'HH:mm:ssXXX are used. An
+     * instance with several begin dates has one event per begin date. If the
+     * events are grouped, events with the same begin date are ordered by their
+     * group, which identifies the set of values of a second property of their
+     * instance.
+     */
+    protected static class Events {
+        private final String[] uris;
+        private final long[] timeStamps;
+        private final int[] groups;
+
+        /**
+         * @param cache,
+         *            the cache of instances
+         * @param property,
+         *            the begin date property
+         * @param groupProperty,
+         *            the property whose values group the events, or null
+         * @param groupIds,
+         *            the ids of the groups, shared by the source and target
+         *            events and extended by this constructor
+         */
+        Events(ACache cache, String property, String groupProperty, Map<List<String>, Integer> groupIds) {
+            // parse the time stamps and the groups of all instances
+            List<String> instanceUris = new ArrayList<String>();
+            int[] instanceGroups = new int[cache.size()];
+            int[] offsets = new int[cache.size() + 1];
+            long[] values;
+            int k = 0;
+            if (cache instanceof ColumnarCache) {
+                ColumnarCache columnar = (ColumnarCache) cache;
+                TemporalColumn column = columnar.getTemporalColumn(property);
+                int groupPropertyId = groupProperty == null ? -1 : columnar.getPropertyId(groupProperty);
+                values = new long[column.getStart(column.size())];
+                for (int id = 0; id < column.size(); id++) {
+                    instanceUris.add(columnar.getUri(id));
+                    offsets[id] = k;
+                    for (int index = column.getStart(id); index < column.getEnd(id); index++) {
+                        if (column.getFormat(index) == DateTimeFormat.FORMAT3) {
+                            values[k++] = column.getValue(index);
+                        }
+                    }
+                    if (groupProperty != null && k > offsets[id]) {
+                        instanceGroups[id] = getGroup(Arrays.asList(columnar.getValues(groupPropertyId, id)),
+                                groupIds);
+                    }
+                }
+            } else {
+                List<Instance> instances = cache.getAllInstances();
+                int count = 0;
+                for (Instance instance : instances) {
+                    count += instance.getProperty(property).size();
+                }
+                values = new long[count];
+                for (int id = 0; id < instances.size(); id++) {
+                    Instance instance = instances.get(id);
+                    instanceUris.add(instance.getUri());
+                    offsets[id] = k;
+                    for (String value : instance.getProperty(property)) {
+                        try {
+                            values[k] = DateTimeFormat.FORMAT3.parseEpoch(value);
+                            k++;
+                        } catch (ParseException e) {
+                            logger.warn("Skipping unparseable date " + value + " of " + instance.getUri());
+                        }
+                    }
+                    if (groupProperty != null && k > offsets[id]) {
+                        instanceGroups[id] = getGroup(new ArrayList<String>(instance.getProperty(groupProperty)),
+                                groupIds);
+                    }
+                }
+            }
+            int instanceCount = instanceUris.size();
+            offsets[instanceCount] = k;
+
+            // sort the (rank of time stamp and group, event) pairs packed into
+            // longs
+            long[] distinct = Arrays.copyOf(values, k);
+            Arrays.sort(distinct);
+            int distinctCount = 0;
+            for (int index = 0; index < k; index++) {
+                if (index == 0 || distinct[index] != distinct[index - 1]) {
+                    distinct[distinctCount++] = distinct[index];
+                }
+            }
+            long[] keys = new long[k];
+            for (int id = 0; id < instanceCount; id++) {
+                for (int index = offsets[id]; index < offsets[id + 1]; index++) {
+                    keys[index] = ((long) Arrays.binarySearch(distinct, 0, distinctCount, values[index]) << 31)
+                            | instanceGroups[id];
+                }
+            }
+            long[] distinctKeys = keys.clone();
+            Arrays.sort(distinctKeys);
+            int distinctKeyCount = 0;
+            for (int index = 0; index < k; index++) {
+                if (index == 0 || distinctKeys[index] != distinctKeys[index - 1]) {
+                    distinctKeys[distinctKeyCount++] = distinctKeys[index];
+                }
+            }
+            long[] pairs = new long[k];
+            for (int index = 0; index < k; index++) {
+                pairs[index] = ((long) Arrays.binarySearch(distinctKeys, 0, distinctKeyCount, keys[index]) << 32)
+                        | index;
+            }
+            Arrays.sort(pairs);
+
+            // the instance of each event
+            int[] instanceOfValue = new int[k];
+            for (int id = 0; id < instanceCount; id++) {
+                Arrays.fill(instanceOfValue, offsets[id], offsets[id + 1], id);
+            }
+            uris = new String[k];
+            timeStamps = new long[k];
+            groups = new int[k];
+            for (int event = 0; event < k; event++) {
+                int index = (int) pairs[event];
+                int id = instanceOfValue[index];
+                uris[event] = instanceUris.get(id);
+                timeStamps[event] = values[index];
+                groups[event] = instanceGroups[id];
+            }
+        }
+
+        private static int getGroup(List<String> values, Map<List<String>, Integer> groupIds) {
+            Integer group = groupIds.get(values);
+            if (group == null) {
+                group = groupIds.size();
+                groupIds.put(values, group);
+            }
+            return group;
+        }
+
+        /**
+         * @return the number of events
+         */
+        public int size() {
+            return timeStamps.length;
+        }
+
+        /**
+         * @param event,
+         *            the position of the event
+         * @return the uri of the instance of the event
+         */
+        public String getUri(int event) {
+            return uris[event];
+        }
+
+        /**
+         * @param event,
+         *            the position of the event
+         * @return the begin date of the event in milliseconds since the epoch
+         */
+        public long getTimeStamp(int event) {
+            return timeStamps[event];
+        }
+
+        /**
+         * @param event,
+         *            the position of the event
+         * @return the group of the event, 0 if the events are not grouped
+         */
+        public int getGroup(int event) {
+            return groups[event];
+        }
+
+        /**
+         * @param timeStamp,
+         *            a begin date
+         * @param group,
+         *            a group
+         * @return the position of the first event that has a later begin date
+         *         or the same begin date and a group that is not lower
+         */
+        public int lowerBound(long timeStamp, int group) {
+            int low = 0;
+            int high = timeStamps.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timeStamps[mid] < timeStamp || (timeStamps[mid] == timeStamp && groups[mid] < group)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @param timeStamp,
+         *            a begin date
+         * @param group,
+         *            a group
+         * @return the position of the first event that has a later begin date
+         *         or the same begin date and a higher group
+         */
+        public int upperBound(long timeStamp, int group) {
+            int low = 0;
+            int high = timeStamps.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timeStamps[mid] < timeStamp || (timeStamps[mid] == timeStamp && groups[mid] <= group)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
 }
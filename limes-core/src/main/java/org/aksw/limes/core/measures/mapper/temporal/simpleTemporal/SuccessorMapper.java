@@ -1,13 +1,7 @@
 package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
-
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
-import org.aksw.limes.core.io.mapping.MappingFactory;
 
 /**
  * Implements the successor mapper class.
@@ -28,27 +22,21 @@ public class SuccessorMapper extends SimpleTemporalMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        AMapping m = MappingFactory.createDefaultMapping();
-
-        TreeMap<String, Set<Instance>> sources = this.orderByBeginDate(source, expression, "source");
-        TreeMap<String, Set<Instance>> targets = this.orderByBeginDate(target, expression, "target");
-
-        for (Map.Entry<String, Set<Instance>> sourceEntry : sources.entrySet()) {
-            String epochSource = sourceEntry.getKey();
+        return getMapping(source, target, expression, false);
+    }
 
-            String higherEpoch = targets.higherKey(epochSource);
-            if (higherEpoch != null) {
-                Set<Instance> sourceInstances = sourceEntry.getValue();
-                Set<Instance> targetInstances = targets.get(higherEpoch);
-                for (Instance i : sourceInstances) {
-                    for (Instance j : targetInstances) {
-                        m.add(i.getUri(), j.getUri(), 1);
-                    }
-                }
-            }
+    /**
+     * The successor target events of a source event are the target events
+     * with the earliest begin date after the begin date of the source event.
+     */
+    @Override
+    protected boolean getRange(Events targets, long timeStamp, int group, int[] range) {
+        range[0] = targets.upperBound(timeStamp, Integer.MAX_VALUE);
+        if (range[0] == targets.size()) {
+            return false;
         }
-
-        return m;
+        range[1] = targets.upperBound(targets.getTimeStamp(range[0]), Integer.MAX_VALUE);
+        return true;
     }
 
     /**
@@ -4,28 +4,35 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Callable;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.ColumnarCache;
+import org.aksw.limes.core.io.cache.GeometryColumn;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.ComplementMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.pointsets.Polygon;
 import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
+import org.aksw.limes.core.measures.measure.MeasureType;
 import org.aksw.limes.core.util.LimesWktReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.IntersectionMatrix;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 import org.locationtech.jts.io.ParseException;
 
 /**
@@ -40,30 +47,46 @@ public class RADON {
         public final static String MIN = "min";
         public final static String MAX = "max";
         public final static String MED = "median";
-        public static boolean swap = false;
 
         public static double[] decideForTheta(GridSizeHeuristics s, GridSizeHeuristics t, String measure) {
-            double[] stats;
+            double[] stats = getStats(s, t, measure);
+            return new double[] { (2.0d) / (stats[0] + stats[2]), (2.0d) / (stats[1] + stats[3]) };
+        }
+
+        /**
+         * Decides whether the target geometries cover a smaller area than the
+         * source geometries, estimated by the width and height statistics of
+         * the given measure.
+         *
+         * @param s
+         *            statistics of the source geometries
+         * @param t
+         *            statistics of the target geometries
+         * @param measure
+         *            one of {@link #MIN}, {@link #MAX}, {@link #AVG} and
+         *            {@link #MED}
+         * @return true if the estimated area of the source geometries is
+         *         larger
+         */
+        public static boolean decideForSwap(GridSizeHeuristics s, GridSizeHeuristics t, String measure) {
+            double[] stats = getStats(s, t, measure);
+            double estAreaS = stats[0] * stats[1] * s.size;
+            double estAreaT = stats[2] * stats[3] * t.size;
+            return estAreaS > estAreaT;
+        }
+
+        private static double[] getStats(GridSizeHeuristics s, GridSizeHeuristics t, String measure) {
             switch (measure) {
             case MAX:
-                stats = new double[] { s.maxX, s.maxY, t.maxX, t.maxY };
-                break;
+                return new double[] { s.maxX, s.maxY, t.maxX, t.maxY };
             case AVG:
-                stats = new double[] { s.avgX, s.avgY, t.avgX, t.avgY };
-                break;
+                return new double[] { s.avgX, s.avgY, t.avgX, t.avgY };
             case MED:
-                stats = new double[] { s.medX, s.medY, t.medX, t.medY };
-                break;
+                return new double[] { s.medX, s.medY, t.medX, t.medY };
             case MIN:
             default:
-                stats = new double[] { s.minX, s.minY, t.minX, t.minY };
+                return new double[] { s.minX, s.minY, t.minX, t.minY };
             }
-            double estAreaS = stats[0] * stats[1] * s.size;
-            double estAreaT = stats[2] * stats[3] * t.size;
-            // we want to swap towards the smallest area coverage to optimizethe
-            // number of comparisons
-            swap = estAreaS > estAreaT;
-            return new double[] { (2.0d) / (stats[0] + stats[2]), (2.0d) / (stats[1] + stats[3]) };
         }
 
         private double size;
@@ -144,186 +167,189 @@ public class RADON {
 
     }
 
-    public static class MBBIndex {
-
-        public int lat1, lat2, lon1, lon2;
-        public Geometry polygon;
-        private String uri;
-        private String origin_uri;
-
-        public MBBIndex(int lat1, int lon1, int lat2, int lon2, Geometry polygon, String uri) {
-            this.lat1 = lat1;
-            this.lat2 = lat2;
-            this.lon1 = lon1;
-            this.lon2 = lon2;
-            this.polygon = polygon;
-            this.uri = uri;
-            this.origin_uri = uri;
-        }
-
-        public MBBIndex(int lat1, int lon1, int lat2, int lon2, Geometry polygon, String uri, String origin_uri) {
-            this.lat1 = lat1;
-            this.lat2 = lat2;
-            this.lon1 = lon1;
-            this.lon2 = lon2;
-            this.polygon = polygon;
-            this.uri = uri;
-            this.origin_uri = origin_uri;
-        }
-
-        public boolean contains(MBBIndex i) {
-            return this.lat1 <= i.lat1 && this.lon1 <= i.lon1 && this.lon2 >= i.lon2 && this.lat2 >= i.lat2;
-        }
-
-        public boolean covers(MBBIndex i) {
-            return this.lat1 <= i.lat1 && this.lon1 <= i.lon1 && this.lon2 >= i.lon2 && this.lat2 >= i.lat2;
-        }
-
-        public boolean intersects(MBBIndex i) {
-            return !this.disjoint(i);
-        }
-
-        public boolean disjoint(MBBIndex i) {
-            return this.lat2 < i.lat1 || this.lat1 > i.lat2 || this.lon2 < i.lon1 || this.lon1 > i.lon2;
-        }
-
-        public boolean equals(Object o) {
-            if (!(o instanceof MBBIndex)) {
-                return false;
+    /**
+     * Packed STR-tree over the envelopes of geometries. The entries are
+     * sorted once into vertical slices by the x coordinate of their centers
+     * and within each slice by the y coordinate, and consecutive runs of
+     * {@link #NODE_CAPACITY} entries or nodes are grouped into the nodes of
+     * the next level. The bounds of all levels are stored in primitive
+     * arrays, so the tree is not changed by queries and can be queried by
+     * several threads at once.
+     */
+    static class EnvelopeTree {
+
+        static final int NODE_CAPACITY = 16;
+
+        /** Item of each entry in the order of the leaves */
+        private final int[] items;
+        /** Per level: minX, minY, maxX, maxY of each entry or node */
+        private final double[][] bounds;
+        /** Per level: number of entries or nodes */
+        private final int[] counts;
+
+        /**
+         * @param minX
+         *            minimal x coordinate of each entry
+         * @param minY
+         *            minimal y coordinate of each entry
+         * @param maxX
+         *            maximal x coordinate of each entry
+         * @param maxY
+         *            maximal y coordinate of each entry
+         * @param entryItems
+         *            item of each entry, several entries may have the same
+         *            item
+         */
+        EnvelopeTree(double[] minX, double[] minY, double[] maxX, double[] maxY, int[] entryItems) {
+            int n = entryItems.length;
+            int[] order = sortTiles(minX, minY, maxX, maxY, n);
+            List<double[]> levels = new ArrayList<>();
+            List<Integer> levelCounts = new ArrayList<>();
+            items = new int[n];
+            double[] leaves = new double[4 * n];
+            for (int i = 0; i < n; i++) {
+                int entry = order[i];
+                items[i] = entryItems[entry];
+                leaves[4 * i] = minX[entry];
+                leaves[4 * i + 1] = minY[entry];
+                leaves[4 * i + 2] = maxX[entry];
+                leaves[4 * i + 3] = maxY[entry];
             }
-            MBBIndex i = ((MBBIndex) o);
-            return lat1 == i.lat1 && lat2 == i.lat2 && lon1 == i.lon1 && lon2 == i.lon2;
-        }
-
-    }
-
-    public static class SquareIndex {
-
-        public HashMap<Integer, HashMap<Integer, List<MBBIndex>>> map = new HashMap<>();
-
-        public SquareIndex() {
-
-        }
-
-        public SquareIndex(int capacity) {
-            this.map = new HashMap<>(capacity);
-        }
-
-        public void add(int i, int j, MBBIndex m) {
-            if (!map.containsKey(i)) {
-                map.put(i, new HashMap<>());
+            levels.add(leaves);
+            levelCounts.add(n);
+            int count = n;
+            while (count > 1 || levels.size() == 1) {
+                double[] children = levels.get(levels.size() - 1);
+                int nodes = Math.max(1, (count + NODE_CAPACITY - 1) / NODE_CAPACITY);
+                double[] parents = new double[4 * nodes];
+                for (int node = 0; node < nodes; node++) {
+                    parents[4 * node] = Double.POSITIVE_INFINITY;
+                    parents[4 * node + 1] = Double.POSITIVE_INFINITY;
+                    parents[4 * node + 2] = Double.NEGATIVE_INFINITY;
+                    parents[4 * node + 3] = Double.NEGATIVE_INFINITY;
+                    for (int child = node * NODE_CAPACITY; child < Math.min(count, (node + 1) * NODE_CAPACITY); child++) {
+                        parents[4 * node] = Math.min(parents[4 * node], children[4 * child]);
+                        parents[4 * node + 1] = Math.min(parents[4 * node + 1], children[4 * child + 1]);
+                        parents[4 * node + 2] = Math.max(parents[4 * node + 2], children[4 * child + 2]);
+                        parents[4 * node + 3] = Math.max(parents[4 * node + 3], children[4 * child + 3]);
+                    }
+                }
+                levels.add(parents);
+                levelCounts.add(nodes);
+                count = nodes;
             }
-            if (!map.get(i).containsKey(j)) {
-                map.get(i).put(j, new ArrayList<>());
+            bounds = levels.toArray(new double[levels.size()][]);
+            counts = new int[levelCounts.size()];
+            for (int level = 0; level < counts.length; level++) {
+                counts[level] = levelCounts.get(level);
             }
-            map.get(i).get(j).add(m);
         }
 
-        public List<MBBIndex> getSquare(int i, int j) {
-            if (!map.containsKey(i) || !map.get(i).containsKey(j))
-                return null;
-            else
-                return map.get(i).get(j);
-        }
-    }
-
-    public static class Matcher implements Runnable {
-
-        public static int maxSize = 1000;
-        private String relation;
-        private final List<Map<String, Set<String>>> result;
-        private List<MBBIndex> scheduled;
-
-        public Matcher(String relation, List<Map<String, Set<String>>> result) {
-            this.relation = relation;
-            this.result = result;
-            this.scheduled = new ArrayList<>();
+        /**
+         * Sort-tile-recursive order of the entries. The centers are sorted as
+         * floats, which is precise enough for grouping the entries.
+         */
+        private static int[] sortTiles(double[] minX, double[] minY, double[] maxX, double[] maxY, int n) {
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = sortKey((minX[i] + maxX[i]) / 2) | i;
+            }
+            Arrays.sort(keys);
+            int leaves = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            int slices = (int) Math.ceil(Math.sqrt(leaves));
+            int sliceSize = slices == 0 ? n : ((leaves + slices - 1) / slices) * NODE_CAPACITY;
+            int[] order = new int[n];
+            for (int start = 0; start < n; start += sliceSize) {
+                int end = Math.min(n, start + sliceSize);
+                for (int i = start; i < end; i++) {
+                    int entry = (int) keys[i];
+                    keys[i] = sortKey((minY[entry] + maxY[entry]) / 2) | entry;
+                }
+                Arrays.sort(keys, start, end);
+                for (int i = start; i < end; i++) {
+                    order[i] = (int) keys[i];
+                }
+            }
+            return order;
+        }
+
+        private static long sortKey(double value) {
+            int bits = Float.floatToIntBits((float) value);
+            // order negative floats below positive ones as unsigned ints
+            bits = bits < 0 ? ~bits : bits | Integer.MIN_VALUE;
+            return (bits & 0xffffffffL) << 32;
+        }
+
+        /**
+         * Retrieves the items of all entries whose envelope intersects the
+         * given envelope. An item is added once per matching entry.
+         *
+         * @param envelope
+         *            the query envelope
+         * @param result
+         *            list the items are added to
+         */
+        void query(Envelope envelope, IntList result) {
+            if (items.length > 0) {
+                query(bounds.length - 1, 0, envelope, result);
+            }
         }
 
-        @Override
-        public void run() {
-            Map<String, Set<String>> temp = new HashMap<>();
-            for (int i = 0; i < scheduled.size(); i += 2) {
-                MBBIndex s = scheduled.get(i);
-                MBBIndex t = scheduled.get(i + 1);
-                if (relate(s.polygon, t.polygon, relation)) {
-                    if (!temp.containsKey(s.origin_uri)) {
-                        temp.put(s.origin_uri, new HashSet<>());
+        private void query(int level, int node, Envelope envelope, IntList result) {
+            double[] children = bounds[level - 1];
+            int end = Math.min(counts[level - 1], (node + 1) * NODE_CAPACITY);
+            for (int child = node * NODE_CAPACITY; child < end; child++) {
+                if (children[4 * child] <= envelope.getMaxX() && children[4 * child + 2] >= envelope.getMinX()
+                        && children[4 * child + 1] <= envelope.getMaxY()
+                        && children[4 * child + 3] >= envelope.getMinY()) {
+                    if (level == 1) {
+                        result.add(items[child]);
+                    } else {
+                        query(level - 1, child, envelope, result);
                     }
-                    temp.get(s.origin_uri).add(t.origin_uri);
                 }
             }
-            synchronized (result) {
-                result.add(temp);
-            }
         }
+    }
 
-        public void schedule(MBBIndex s, MBBIndex t) {
-            scheduled.add(s);
-            scheduled.add(t);
-        }
-
-        public int size() {
-            return scheduled.size();
-        }
-
-        private static Boolean relate(Geometry geometry1, Geometry geometry2, String relation) {
-            switch (relation) {
-            case EQUALS:
-                return geometry1.equals(geometry2);
-            case DISJOINT:
-                return geometry1.disjoint(geometry2);
-            case INTERSECTS:
-                return geometry1.intersects(geometry2);
-            case TOUCHES:
-                return geometry1.touches(geometry2);
-            case CROSSES:
-                return geometry1.crosses(geometry2);
-            case WITHIN:
-                return geometry1.within(geometry2);
-            case CONTAINS:
-                return geometry1.contains(geometry2);
-            case COVERS:
-                return geometry1.covers(geometry2);
-            case COVEREDBY:
-                return geometry1.coveredBy(geometry2);
-            case OVERLAPS:
-                return geometry1.overlaps(geometry2);
-            default:
-                return geometry1.relate(geometry2, relation);
+    /**
+     * Growable list of ints.
+     */
+    static class IntList {
+        private int[] values = new int[16];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
             }
+            values[size++] = value;
         }
-    }
 
-    public static class Merger implements Runnable {
+        int get(int index) {
+            return values[index];
+        }
 
-        private AMapping m;
-        private List<Map<String, Set<String>>> localResults = new ArrayList<>();
+        int size() {
+            return size;
+        }
 
-        public Merger(List<Map<String, Set<String>>> results, AMapping m) {
-            this.m = m;
-            // copy over entries to local list
-            synchronized (results) {
-                for (Iterator<Map<String, Set<String>>> iterator = results.listIterator(); iterator.hasNext();) {
-                    localResults.add(iterator.next());
-                    iterator.remove();
-                }
-            }
+        void clear() {
+            size = 0;
         }
 
-        @Override
-        public void run() {
-            // merge back to m
-            for (Map<String, Set<String>> result : localResults) {
-                for (String s : result.keySet()) {
-                    for (String t : result.get(s)) {
-                        if (GridSizeHeuristics.swap)
-                            m.add(t, s, 1.0d);
-                        else
-                            m.add(s, t, 1.0d);
-                    }
+        /**
+         * Sorts the values and removes duplicates.
+         */
+        void distinct() {
+            Arrays.sort(values, 0, size);
+            int k = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || values[i] != values[i - 1]) {
+                    values[k++] = values[i];
                 }
             }
+            size = k;
         }
     }
 
@@ -343,6 +369,9 @@ public class RADON {
     private static final Logger logger = LoggerFactory.getLogger(RADON.class);
 
     public static Map<String, Geometry> getGeometryMapFromCache(ACache c, String property) {
+        if (c instanceof ColumnarCache) {
+            return getGeometryMapFromColumn((ColumnarCache) c, property);
+        }
         LimesWktReader wktReader = new LimesWktReader();
         Map<String, Geometry> gMap = new HashMap<>();
         for (String uri : c.getAllUris()) {
@@ -359,15 +388,93 @@ public class RADON {
         return gMap;
     }
 
+    /**
+     * Reads the first geometry of each instance from the pre-parsed geometry
+     * column of the cache instead of parsing the WKT values again.
+     */
+    private static Map<String, Geometry> getGeometryMapFromColumn(ColumnarCache c, String property) {
+        GeometryColumn column = c.getGeometryColumn(property);
+        Map<String, Geometry> gMap = new HashMap<>();
+        for (int id = 0; id < column.size(); id++) {
+            if (column.getNumberOfValues(id) > 0) {
+                Geometry geometry = column.getValue(column.getStart(id));
+                if (geometry != null) {
+                    gMap.put(c.getUri(id), geometry);
+                } else {
+                    logger.warn("Skipping malformed geometry at " + c.getUri(id) + "...");
+                }
+            }
+        }
+        return gMap;
+    }
+
     public static AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar,
             String expression, double threshold, String relation) {
+        return getMappings(source, target, sourceVar, targetVar, expression, threshold, relation).get(relation);
+    }
+
+    /**
+     * Computes the mappings of several relations between the geometries of
+     * the same properties at once, see {@link #getMappings(Map, Map)}.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     * @param expression
+     *            Atomic measure expression, its properties are used for all
+     *            relations
+     * @param threshold
+     *            Similarity threshold
+     * @param relations
+     *            the topological relations
+     * @return the mapping of each relation
+     */
+    public static Map<String, AMapping> getMappings(ACache source, ACache target, String sourceVar,
+            String targetVar, String expression, double threshold, String... relations) {
         if (threshold <= 0) {
             throw new InvalidThresholdException(threshold);
         }
         List<String> properties = PropertyFetcher.getProperties(expression, threshold);
         Map<String, Geometry> sourceMap = getGeometryMapFromCache(source, properties.get(0));
         Map<String, Geometry> targetMap = getGeometryMapFromCache(target, properties.get(1));
-        return getMapping(sourceMap, targetMap, relation);
+        return new RADON(relations).getMappings(sourceMap, targetMap);
+    }
+
+    /**
+     * @param type
+     *            a measure type
+     * @return the relation of a topological measure, null for other measures
+     */
+    public static String getRelation(MeasureType type) {
+        switch (type) {
+        case TOP_EQUALS:
+            return EQUALS;
+        case TOP_DISJOINT:
+            return DISJOINT;
+        case TOP_INTERSECTS:
+            return INTERSECTS;
+        case TOP_TOUCHES:
+            return TOUCHES;
+        case TOP_CROSSES:
+            return CROSSES;
+        case TOP_WITHIN:
+            return WITHIN;
+        case TOP_CONTAINS:
+            return CONTAINS;
+        case TOP_OVERLAPS:
+            return OVERLAPS;
+        case TOP_COVERS:
+            return COVERS;
+        case TOP_COVERED_BY:
+            return COVEREDBY;
+        default:
+            return null;
+        }
     }
 
     public static AMapping getMapping(Set<Polygon> sourceData, Set<Polygon> targetData, String relation) {
@@ -393,199 +500,350 @@ public class RADON {
 
     public static AMapping getMapping(Map<String, Geometry> sourceData, Map<String, Geometry> targetData,
             String relation) {
-        double thetaX, thetaY;
-        int numThreads = new Double(Math.ceil((double) Runtime.getRuntime().availableProcessors() / 2.0d)).intValue();
-        // Relation thats actually used for computation.
-        // Might differ from input relation when swapping occurs or the input
-        // relation is 'disjoint'.
-        String rel = relation;
+        return new RADON(relation).getMapping(sourceData, targetData);
+    }
+
+    /**
+     * Minimal number of probe geometries per parallel task.
+     */
+    public static final int MIN_PARTITION_SIZE = 100;
+
+    private final String[] relations;
+
+    /**
+     * @param relations
+     *            the topological relations, each one of the relation
+     *            constants or a DE-9IM pattern
+     */
+    public RADON(String... relations) {
+        this.relations = relations;
+    }
+
+    /**
+     * Links each source geometry to the target geometries it is in the first
+     * relation with, see {@link #getMappings(Map, Map)}.
+     *
+     * @param sourceData
+     *            the source geometries by uri
+     * @param targetData
+     *            the target geometries by uri
+     * @return the mapping
+     */
+    public AMapping getMapping(Map<String, Geometry> sourceData, Map<String, Geometry> targetData) {
+        return getMappings(sourceData, targetData).get(relations[0]);
+    }
 
+    /**
+     * Links each source geometry to the target geometries it is in each of
+     * the relations with. The geometries of the side with the larger
+     * estimated area, e.g. the regions when regions are linked with points,
+     * are prepared and indexed in an {@link EnvelopeTree}. The geometries of
+     * the other side are split across the tasks of the
+     * {@link ExecutionContext} and each one probes the tree for the indexed
+     * geometries whose envelope intersects its own. A single relation is
+     * checked with the prepared geometries. For several relations, the DE-9IM
+     * matrix of each candidate pair is computed once and all relations are
+     * derived from it. All state is local to the call, so several mappings
+     * can be computed at the same time.
+     *
+     * @param sourceData
+     *            the source geometries by uri
+     * @param targetData
+     *            the target geometries by uri
+     * @return the mapping of each relation
+     */
+    public Map<String, AMapping> getMappings(Map<String, Geometry> sourceData, Map<String, Geometry> targetData) {
         // When relation for AMapping M is 'disjoint' we compute AMapping M'
-        // relation 'intersects'
-        // and return M = (S x T) \ M'
-        boolean disjointStrategy = rel.equals(DISJOINT);
-        if (disjointStrategy)
-            rel = INTERSECTS;
+        // relation 'intersects' and return M = (S x T) \ M' as a
+        // ComplementMapping, which does not materialize S x T
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String relation : relations) {
+            distinct.add(relation.equals(DISJOINT) ? INTERSECTS : relation);
+        }
+        List<String> rels = new ArrayList<>(distinct);
+        AMapping[] results = new AMapping[rels.size()];
+        for (int r = 0; r < results.length; r++) {
+            results[r] = MappingFactory.createDefaultMapping();
+        }
+        if (!sourceData.isEmpty() && !targetData.isEmpty()) {
+            link(sourceData, targetData, rels.toArray(new String[0]), results);
+        }
+        Map<String, AMapping> mappings = new LinkedHashMap<>();
+        for (String relation : relations) {
+            if (relation.equals(DISJOINT)) {
+                mappings.put(relation, new ComplementMapping(sourceData.keySet(), targetData.keySet(),
+                        results[rels.indexOf(INTERSECTS)], 1.0d));
+            } else {
+                mappings.put(relation, results[rels.indexOf(relation)]);
+            }
+        }
+        return mappings;
+    }
 
+    /**
+     * Adds the links of each relation to its mapping, see
+     * {@link #getMappings(Map, Map)}.
+     */
+    private static void link(Map<String, Geometry> sourceData, Map<String, Geometry> targetData, String[] rels,
+            AMapping[] results) {
+        // prepare and index the side with the larger area coverage
         GridSizeHeuristics heuristicsS = new GridSizeHeuristics(sourceData.values());
         GridSizeHeuristics heuristicsT = new GridSizeHeuristics(targetData.values());
-        double[] theta = GridSizeHeuristics.decideForTheta(heuristicsS, heuristicsT, heuristicStatMeasure);
-        thetaX = theta[0];
-        thetaY = theta[1];
-        // swap smaller dataset to source
-        // if swap is necessary is decided in Stats.decideForTheta([...])!
-        Map<String, Geometry> swap;
-        boolean swapped = GridSizeHeuristics.swap;
-        if (swapped) {
-            swap = sourceData;
-            sourceData = targetData;
-            targetData = swap;
-            switch (rel) {
-            case WITHIN:
-                rel = CONTAINS;
-                break;
-            case CONTAINS:
-                rel = WITHIN;
-                break;
-            case COVERS:
-                rel = COVEREDBY;
-                break;
-            case COVEREDBY:
-                rel = COVERS;
-                break;
+        boolean indexSource = GridSizeHeuristics.decideForSwap(heuristicsS, heuristicsT, heuristicStatMeasure);
+        Map<String, Geometry> indexedData = indexSource ? sourceData : targetData;
+        Map<String, Geometry> probeData = indexSource ? targetData : sourceData;
+
+        String[] indexedUris = indexedData.keySet().toArray(new String[0]);
+        PreparedGeometry[] prepared = new PreparedGeometry[indexedUris.length];
+        boolean[] split = new boolean[indexedUris.length];
+        int entries = 0;
+        for (int i = 0; i < indexedUris.length; i++) {
+            prepared[i] = PreparedGeometryFactory.prepare(indexedData.get(indexedUris[i]));
+            split[i] = isSplit(prepared[i].getGeometry().getEnvelopeInternal());
+            entries += split[i] ? 2 : 1;
+        }
+        double[] minX = new double[entries];
+        double[] minY = new double[entries];
+        double[] maxX = new double[entries];
+        double[] maxY = new double[entries];
+        int[] entryItems = new int[entries];
+        boolean anySplit = false;
+        int entry = 0;
+        for (int i = 0; i < indexedUris.length; i++) {
+            for (Envelope part : getParts(prepared[i].getGeometry().getEnvelopeInternal(), split[i])) {
+                minX[entry] = part.getMinX();
+                minY[entry] = part.getMinY();
+                maxX[entry] = part.getMaxX();
+                maxY[entry] = part.getMaxY();
+                entryItems[entry++] = i;
             }
-        }
-
-        // set up indexes
-        SquareIndex sourceIndex = index(sourceData, null, thetaX, thetaY);
-        SquareIndex targetIndex = index(targetData, sourceIndex, thetaX, thetaY);
-
-        // execute matching
-        ExecutorService matchExec = Executors.newFixedThreadPool(numThreads);
-        ExecutorService mergerExec = Executors.newFixedThreadPool(1);
-        AMapping m = MappingFactory.createDefaultMapping();
-        List<Map<String, Set<String>>> results = Collections.synchronizedList(new ArrayList<>());
-        Map<String, Set<String>> computed = new HashMap<>();
-        Matcher matcher = new Matcher(rel, results);
-
-        for (Integer lat : sourceIndex.map.keySet()) {
-            for (Integer lon : sourceIndex.map.get(lat).keySet()) {
-                List<MBBIndex> source = sourceIndex.getSquare(lat, lon);
-                List<MBBIndex> target = targetIndex.getSquare(lat, lon);
-                if (target != null && target.size() > 0) {
-                    for (MBBIndex a : source) {
-                        if (!computed.containsKey(a.uri))
-                            computed.put(a.uri, new HashSet<>());
-                        for (MBBIndex b : target) {
-                            if (!computed.get(a.uri).contains(b.uri)) {
-                                computed.get(a.uri).add(b.uri);
-                                boolean compute = (rel.equals(COVERS) && a.covers(b))
-                                        || (rel.equals(COVEREDBY) && b.covers(a))
-                                        || (rel.equals(CONTAINS) && a.contains(b))
-                                        || (rel.equals(WITHIN) && b.contains(a)) || (rel.equals(EQUALS) && a.equals(b))
-                                        || rel.equals(INTERSECTS) || rel.equals(CROSSES) || rel.equals(TOUCHES)
-                                        || rel.equals(OVERLAPS);
-                                if (compute) {
-                                    if (numThreads == 1) {
-                                        if (Matcher.relate(a.polygon, b.polygon, rel)) {
-                                            if (swapped)
-                                                m.add(b.origin_uri, a.origin_uri, 1.0);
-                                            else
-                                                m.add(a.origin_uri, b.origin_uri, 1.0);
-                                        }
-                                    } else {
-                                        matcher.schedule(a, b);
-                                        if (matcher.size() == Matcher.maxSize) {
-                                            matchExec.execute(matcher);
-                                            matcher = new Matcher(rel, results);
-                                            if (results.size() > 0) {
-                                                mergerExec.execute(new Merger(results, m));
-                                            }
-                                        }
-                                    }
-                                }
+            anySplit |= split[i];
+        }
+        EnvelopeTree tree = new EnvelopeTree(minX, minY, maxX, maxY, entryItems);
+
+        // probe the tree in parallel
+        String[] probeUris = probeData.keySet().toArray(new String[0]);
+        boolean indexedSplit = anySplit;
+        boolean patterns = Arrays.stream(rels).anyMatch(rel -> !isNamed(rel));
+        List<Callable<AMapping[]>> tasks = new ArrayList<>();
+        int partitions = Math.max(1,
+                Math.min(4 * ExecutionContext.getParallelism(), probeUris.length / MIN_PARTITION_SIZE));
+        for (int i = 0; i < partitions; i++) {
+            int first = (int) ((long) i * probeUris.length / partitions);
+            int last = (int) ((long) (i + 1) * probeUris.length / partitions);
+            tasks.add(() -> {
+                AMapping[] partial = new AMapping[rels.length];
+                for (int r = 0; r < rels.length; r++) {
+                    partial[r] = MappingFactory.createDefaultMapping();
+                }
+                IntList candidates = new IntList();
+                boolean[] mbbCheck = new boolean[rels.length];
+                boolean[] holds = new boolean[rels.length];
+                for (int p = first; p < last; p++) {
+                    Geometry probe = probeData.get(probeUris[p]);
+                    Envelope envelope = probe.getEnvelopeInternal();
+                    boolean probeSplit = isSplit(envelope);
+                    candidates.clear();
+                    for (Envelope part : getParts(envelope, probeSplit)) {
+                        tree.query(part, candidates);
+                    }
+                    if (probeSplit || indexedSplit) {
+                        candidates.distinct();
+                    }
+                    for (int c = 0; c < candidates.size(); c++) {
+                        int item = candidates.get(c);
+                        boolean anyCheck = false;
+                        for (int r = 0; r < rels.length; r++) {
+                            mbbCheck[r] = probeSplit || split[item] || mayRelate(
+                                    prepared[item].getGeometry().getEnvelopeInternal(), envelope, indexSource, rels[r]);
+                            anyCheck |= mbbCheck[r];
+                        }
+                        if (!anyCheck) {
+                            continue;
+                        }
+                        relate(prepared[item], probe, indexSource, rels, mbbCheck, patterns, holds);
+                        for (int r = 0; r < rels.length; r++) {
+                            if (mbbCheck[r] && holds[r]) {
+                                if (indexSource)
+                                    partial[r].add(indexedUris[item], probeUris[p], 1.0d);
+                                else
+                                    partial[r].add(probeUris[p], indexedUris[item], 1.0d);
                             }
                         }
                     }
                 }
-            }
-        }
-        if (numThreads > 1) {
-            if (matcher.size() > 0) {
-                matchExec.execute(matcher);
-            }
-            matchExec.shutdown();
-            while (!matchExec.isTerminated()) {
-                try {
-                    if (results.size() > 0) {
-                        mergerExec.execute(new Merger(results, m));
+                return partial;
+            });
+        }
+        for (AMapping[] partial : ExecutionContext.invokeAll(tasks)) {
+            for (int r = 0; r < rels.length; r++) {
+                for (Entry<String, HashMap<String, Double>> s : partial[r].getMap().entrySet()) {
+                    for (Entry<String, Double> t : s.getValue().entrySet()) {
+                        results[r].add(s.getKey(), t.getKey(), t.getValue());
                     }
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-            if (results.size() > 0) {
-                mergerExec.execute(new Merger(results, m));
-            }
-            mergerExec.shutdown();
-            while (!mergerExec.isTerminated()) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
                 }
             }
         }
+    }
 
-        // Compute M = (S x T) \ M' for disjoint relation
-        if (disjointStrategy) {
-            AMapping disjoint = MappingFactory.createDefaultMapping();
-            for (String s : sourceData.keySet()) {
-                for (String t : targetData.keySet()) {
-                    if (swapped) {
-                        if (!m.contains(t, s)) {
-                            disjoint.add(t, s, 1.0d);
-                        }
-                    } else {
-                        if (!m.contains(s, t)) {
-                            disjoint.add(s, t, 1.0d);
-                        }
-                    }
-                }
-            }
-            m = disjoint;
+    /**
+     * Checks for passing over 180th meridian. In case its shorter to pass
+     * over it, we assume that is what is meant by the user and we split the
+     * geometry into one part east and one part west of 180th meridian.
+     */
+    private static boolean isSplit(Envelope envelope) {
+        return envelope.getMinX() < -90d && envelope.getMaxX() > 90d;
+    }
+
+    private static Envelope[] getParts(Envelope envelope, boolean split) {
+        if (!split) {
+            return new Envelope[] { envelope };
         }
-        return m;
+        return new Envelope[] {
+                new Envelope(-180d, envelope.getMinX(), envelope.getMinY(), envelope.getMaxY()),
+                new Envelope(envelope.getMaxX(), 180d, envelope.getMinY(), envelope.getMaxY()) };
     }
 
-    public static SquareIndex index(Map<String, Geometry> input, SquareIndex extIndex, double thetaX, double thetaY) {
-        SquareIndex result = new SquareIndex();
-
-        for (String p : input.keySet()) {
-            Geometry g = input.get(p);
-            Envelope envelope = g.getEnvelopeInternal();
-
-            int minLatIndex = (int) Math.floor(envelope.getMinY() * thetaY);
-            int maxLatIndex = (int) Math.ceil(envelope.getMaxY() * thetaY);
-            int minLongIndex = (int) Math.floor(envelope.getMinX() * thetaX);
-            int maxLongIndex = (int) Math.ceil(envelope.getMaxX() * thetaX);
-
-            // Check for passing over 180th meridian. In case its shorter to
-            // pass over it, we assume that is what is
-            // meant by the user and we split the geometry into one part east
-            // and one part west of 180th meridian.
-
-            if (minLongIndex < (int) Math.floor(-90d * thetaX) && maxLongIndex > (int) Math.ceil(90d * thetaX)) {
-                MBBIndex westernPart = new MBBIndex(minLatIndex, (int) Math.floor(-180d * thetaX), maxLatIndex,
-                        minLongIndex, g, p + "<}W", p);
-                addToIndex(westernPart, result, extIndex);
-                MBBIndex easternPart = new MBBIndex(minLatIndex, maxLongIndex, maxLatIndex,
-                        (int) Math.ceil(180 * thetaX), g, p + "<}E", p);
-                addToIndex(easternPart, result, extIndex);
-            } else {
-                MBBIndex mbbIndex = new MBBIndex(minLatIndex, minLongIndex, maxLatIndex, maxLongIndex, g, p);
-                addToIndex(mbbIndex, result, extIndex);
-            }
+    /**
+     * Checks the envelopes of two geometries whose envelopes intersect for
+     * the relations that constrain them further.
+     */
+    private static boolean mayRelate(Envelope indexed, Envelope probe, boolean indexSource, String relation) {
+        Envelope source = indexSource ? indexed : probe;
+        Envelope target = indexSource ? probe : indexed;
+        switch (relation) {
+        case COVERS:
+        case CONTAINS:
+            return source.covers(target);
+        case COVEREDBY:
+        case WITHIN:
+            return target.covers(source);
+        case EQUALS:
+            return source.equals(target);
+        default:
+            return true;
+        }
+    }
 
+    /**
+     * Checks whether a source geometry is in the relation with a target
+     * geometry, one of which is the prepared indexed geometry.
+     */
+    private static boolean relate(PreparedGeometry indexed, Geometry probe, boolean indexSource, String relation) {
+        switch (relation) {
+        case EQUALS:
+            return indexed.getGeometry().equals(probe);
+        case DISJOINT:
+            return indexed.disjoint(probe);
+        case INTERSECTS:
+            return indexed.intersects(probe);
+        case TOUCHES:
+            return indexed.touches(probe);
+        case CROSSES:
+            return indexed.crosses(probe);
+        case OVERLAPS:
+            return indexed.overlaps(probe);
+        case WITHIN:
+            return indexSource ? indexed.within(probe) : indexed.contains(probe);
+        case CONTAINS:
+            return indexSource ? indexed.contains(probe) : indexed.within(probe);
+        case COVERS:
+            return indexSource ? indexed.covers(probe) : indexed.coveredBy(probe);
+        case COVEREDBY:
+            return indexSource ? indexed.coveredBy(probe) : indexed.covers(probe);
+        default:
+            return indexSource ? indexed.getGeometry().relate(probe, relation)
+                    : probe.relate(indexed.getGeometry(), relation);
         }
-        return result;
     }
 
-    private static void addToIndex(MBBIndex mbbIndex, SquareIndex result, SquareIndex extIndex) {
-        if (extIndex == null) {
-            for (int latIndex = mbbIndex.lat1; latIndex <= mbbIndex.lat2; latIndex++) {
-                for (int longIndex = mbbIndex.lon1; longIndex <= mbbIndex.lon2; longIndex++) {
-                    result.add(latIndex, longIndex, mbbIndex);
-                }
+    /**
+     * Checks whether a source geometry is in each of the relations with a
+     * target geometry, one of which is the prepared indexed geometry. Only
+     * the relations whose envelope check passed are checked. Unless a DE-9IM
+     * pattern is among the relations, the geometries are first checked for
+     * an intersection, which all other relations imply, and the DE-9IM matrix
+     * is only computed for intersecting geometries.
+     */
+    private static void relate(PreparedGeometry indexed, Geometry probe, boolean indexSource, String[] relations,
+            boolean[] checked, boolean patterns, boolean[] holds) {
+        Arrays.fill(holds, false);
+        if (relations.length == 1) {
+            holds[0] = relate(indexed, probe, indexSource, relations[0]);
+            return;
+        }
+        if (!patterns && !indexed.intersects(probe)) {
+            return;
+        }
+        Geometry source = indexSource ? indexed.getGeometry() : probe;
+        Geometry target = indexSource ? probe : indexed.getGeometry();
+        IntersectionMatrix matrix = null;
+        for (int r = 0; r < relations.length; r++) {
+            if (!checked[r]) {
+                continue;
             }
-        } else {
-            for (int latIndex = mbbIndex.lat1; latIndex <= mbbIndex.lat2; latIndex++) {
-                for (int longIndex = mbbIndex.lon1; longIndex <= mbbIndex.lon2; longIndex++) {
-                    if (extIndex.getSquare(latIndex, longIndex) != null)
-                        result.add(latIndex, longIndex, mbbIndex);
-                }
+            if (!patterns && relations[r].equals(INTERSECTS)) {
+                holds[r] = true;
+                continue;
+            }
+            if (matrix == null) {
+                matrix = source.relate(target);
             }
+            holds[r] = holds(matrix, source.getDimension(), target.getDimension(), relations[r]);
+        }
+    }
+
+    /**
+     * Derives a relation of a source geometry to a target geometry from their
+     * DE-9IM matrix.
+     */
+    private static boolean holds(IntersectionMatrix matrix, int sourceDimension, int targetDimension,
+            String relation) {
+        switch (relation) {
+        case EQUALS:
+            return matrix.isEquals(sourceDimension, targetDimension);
+        case DISJOINT:
+            return matrix.isDisjoint();
+        case INTERSECTS:
+            return matrix.isIntersects();
+        case TOUCHES:
+            return matrix.isTouches(sourceDimension, targetDimension);
+        case CROSSES:
+            return matrix.isCrosses(sourceDimension, targetDimension);
+        case OVERLAPS:
+            return matrix.isOverlaps(sourceDimension, targetDimension);
+        case WITHIN:
+            return matrix.isWithin();
+        case CONTAINS:
+            return matrix.isContains();
+        case COVERS:
+            return matrix.isCovers();
+        case COVEREDBY:
+            return matrix.isCoveredBy();
+        default:
+            return matrix.matches(relation);
+        }
+    }
+
+    /**
+     * @return true if the relation is one of the relation constants, false
+     *         for a DE-9IM pattern
+     */
+    private static boolean isNamed(String relation) {
+        switch (relation) {
+        case EQUALS:
+        case DISJOINT:
+        case INTERSECTS:
+        case TOUCHES:
+        case CROSSES:
+        case OVERLAPS:
+        case WITHIN:
+        case CONTAINS:
+        case COVERS:
+        case COVEREDBY:
+            return true;
+        default:
+            return false;
         }
     }
 }
@@ -0,0 +1,488 @@
+package org.aksw.limes.core.measures.measure;
+
+import java.util.Arrays;
+import java.util.StringTokenizer;
+import java.util.TreeSet;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.HybridCache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.parser.Parser;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.mapper.string.EDJoinMapper;
+import org.aksw.limes.core.measures.measure.string.IStringMeasure;
+import org.aksw.limes.core.measures.measure.string.QGramSimilarityMeasure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Metric expression that is parsed once into a tree of measures with resolved
+ * property names and thresholds, and that can then be evaluated on any number
+ * of instance pairs. Returns the same similarities as
+ * {@link MeasureProcessor#getSimilarity(Instance, Instance, String, double, String, String)}
+ * without creating parsers, caches or mappers per pair. Atomic measures whose
+ * mappers compute their similarities differently from the corresponding
+ * {@link IMeasure} (PPJoinPlusPlus, EDJoin and FastNGram) are evaluated the way
+ * these mappers score a pair, so that filters return the same similarities as
+ * the mappers used by the canonical planner.
+ * <p>
+ * Instances of this class are immutable and can be shared between threads.
+ */
+public abstract class CompiledExpression {
+
+    static Logger logger = LoggerFactory.getLogger(CompiledExpression.class);
+
+    /** Delimiters used by PPJoinPlusPlus to tokenize strings */
+    private static final String PPJOIN_DELIMITERS = " .,?!\t";
+
+    /** q used by FastNGramMapper */
+    private static final int NGRAM_Q = 3;
+
+    /**
+     * Parses a metric expression into an executable tree.
+     *
+     * @param expression,
+     *            the metric expression
+     * @param threshold,
+     *            the threshold of the expression
+     * @param sourceVar,
+     *            the source variable
+     * @param targetVar,
+     *            the target variable
+     * @return the compiled expression
+     */
+    public static CompiledExpression compile(String expression, double threshold, String sourceVar,
+            String targetVar) {
+        Parser p = new Parser(expression, threshold);
+        if (p.isAtomic()) {
+            return compileAtomic(p, expression, threshold, sourceVar, targetVar);
+        }
+        String operator = p.getOperator();
+        CompiledExpression left = compile(p.getLeftTerm(), p.getThreshold1(), sourceVar, targetVar);
+        CompiledExpression right = compile(p.getRightTerm(), p.getThreshold2(), sourceVar, targetVar);
+        if (operator.equalsIgnoreCase(MeasureProcessor.MAX) || operator.equalsIgnoreCase(MeasureProcessor.OR)
+                || operator.equalsIgnoreCase(MeasureProcessor.XOR)) {
+            return new MaxNode(left, right, p.getThreshold(), p.getThreshold1(), p.getThreshold2());
+        }
+        if (operator.equalsIgnoreCase(MeasureProcessor.MIN) || operator.equalsIgnoreCase(MeasureProcessor.AND)) {
+            return new MinNode(left, right, p.getThreshold(), p.getThreshold1(), p.getThreshold2());
+        }
+        if (operator.equalsIgnoreCase(MeasureProcessor.ADD)) {
+            return new AddNode(left, right, p.getThreshold(), p.getThreshold1(), p.getThreshold2(),
+                    p.getLeftCoefficient(), p.getRightCoefficient());
+        }
+        return new MinusNode(left, right, p.getThreshold(), p.getThreshold1());
+    }
+
+    private static CompiledExpression compileAtomic(Parser p, String expression, double threshold,
+            String sourceVar, String targetVar) {
+        String[] properties = resolveProperties(p, sourceVar);
+        if (properties[0] == null || properties[1] == null) {
+            logger.error(MarkerFactory.getMarker("FATAL"), "Property values of " + expression
+                    + " could not be read. Similarity is set to 0.");
+            return Constant.ZERO;
+        }
+        if (threshold <= 0) {
+            logger.error("Invalid threshold " + threshold + " for " + expression + ". Similarity is set to 0.");
+            return Constant.ZERO;
+        }
+        MeasureType type;
+        try {
+            type = MeasureFactory.getMeasureType(p.getOperator());
+        } catch (RuntimeException e) {
+            logger.error("Unknown measure in " + expression + ". Similarity is set to 0.", e);
+            return Constant.ZERO;
+        }
+        switch (type) {
+        case COSINE:
+        case OVERLAP:
+        case JACCARD:
+            return new TokenOverlapLeaf(expression, threshold, properties[0], properties[1],
+                    (IStringMeasure) MeasureFactory.createMeasure(type));
+        case LEVENSHTEIN:
+            return new EditDistanceLeaf(expression, threshold, properties[0], properties[1]);
+        case QGRAMS:
+        case TRIGRAM:
+            return new MeasureLeaf(expression, threshold, properties[0], properties[1],
+                    new QGramSimilarityMeasure(NGRAM_Q));
+        case SHORTEST_PATH:
+        case LCH:
+        case LI:
+        case WUPALMER:
+            // semantic measures hold a dictionary that must be closed after
+            // use, hence their mapper takes care of the measure
+            return new MapperLeaf(expression, threshold, type, sourceVar, targetVar);
+        default:
+            IMeasure measure;
+            try {
+                measure = MeasureFactory.createMeasure(type);
+            } catch (RuntimeException e) {
+                return new MapperLeaf(expression, threshold, type, sourceVar, targetVar);
+            }
+            return new MeasureLeaf(expression, threshold, properties[0], properties[1], measure);
+        }
+    }
+
+    /**
+     * Resolves the property labels of an atomic expression, e.g.
+     * trigram(x.rdfs:label, y.name), to the property of the source and the
+     * property of the target.
+     */
+    private static String[] resolveProperties(Parser p, String sourceVar) {
+        String[] properties = new String[2];
+        resolveTerm("?" + p.getLeftTerm(), sourceVar, properties, 0);
+        resolveTerm("?" + p.getRightTerm(), sourceVar, properties, 1);
+        return properties;
+    }
+
+    private static void resolveTerm(String term, String sourceVar, String[] properties, int position) {
+        if (!term.contains(".")) {
+            properties[position] = term;
+            return;
+        }
+        int dot = term.indexOf('.');
+        String var = term.substring(0, dot);
+        String property = term.substring(dot + 1);
+        if (var.equals(sourceVar)) {
+            properties[0] = property;
+        } else {
+            properties[1] = property;
+        }
+    }
+
+    /**
+     * Returns similarity between two instances.
+     *
+     * @param sourceInstance,
+     *            the source instance
+     * @param targetInstance,
+     *            the target instance
+     * @return the similarity of sourceInstance and targetInstance, 0 if they
+     *         do not fulfill the expression
+     */
+    public abstract double getSimilarity(Instance sourceInstance, Instance targetInstance);
+
+    private static final class Constant extends CompiledExpression {
+        static final Constant ZERO = new Constant();
+
+        @Override
+        public double getSimilarity(Instance sourceInstance, Instance targetInstance) {
+            return 0;
+        }
+    }
+
+    /**
+     * Atomic measure. Exceptions thrown by the measure are logged and result
+     * in a similarity of 0, as in {@link MeasureProcessor}.
+     */
+    private abstract static class Leaf extends CompiledExpression {
+        final String expression;
+        final double threshold;
+        final String property1;
+        final String property2;
+
+        Leaf(String expression, double threshold, String property1, String property2) {
+            this.expression = expression;
+            this.threshold = threshold;
+            this.property1 = property1;
+            this.property2 = property2;
+        }
+
+        @Override
+        public double getSimilarity(Instance sourceInstance, Instance targetInstance) {
+            double similarity;
+            try {
+                similarity = compute(sourceInstance, targetInstance);
+            } catch (RuntimeException e) {
+                logger.warn("Could not compute " + expression + " for " + sourceInstance.getUri() + " and "
+                        + targetInstance.getUri(), e);
+                return 0;
+            }
+            return similarity >= threshold ? similarity : 0;
+        }
+
+        abstract double compute(Instance sourceInstance, Instance targetInstance);
+    }
+
+    private static final class MeasureLeaf extends Leaf {
+        private final IMeasure measure;
+
+        MeasureLeaf(String expression, double threshold, String property1, String property2, IMeasure measure) {
+            super(expression, threshold, property1, property2);
+            this.measure = measure;
+        }
+
+        @Override
+        double compute(Instance sourceInstance, Instance targetInstance) {
+            return measure.getSimilarity(sourceInstance, targetInstance, property1, property2);
+        }
+    }
+
+    /**
+     * Similarity as computed by PPJoinPlusPlus: token overlap of the values,
+     * where repeated tokens are counted as distinct tokens.
+     */
+    private static final class TokenOverlapLeaf extends Leaf {
+        /** Token buffers of each thread, reused for all pairs */
+        private static final ThreadLocal<TokenBuffer> BUFFERS = ThreadLocal.withInitial(TokenBuffer::new);
+
+        private final IStringMeasure measure;
+
+        TokenOverlapLeaf(String expression, double threshold, String property1, String property2,
+                IStringMeasure measure) {
+            super(expression, threshold, property1, property2);
+            this.measure = measure;
+        }
+
+        @Override
+        double compute(Instance sourceInstance, Instance targetInstance) {
+            double max = 0;
+            TreeSet<String> targetValues = targetInstance.getProperty(property2);
+            if (targetValues.isEmpty()) {
+                return 0;
+            }
+            // the source value is kept in the slot after the target values
+            TokenBuffer buffer = BUFFERS.get();
+            int source = targetValues.size();
+            buffer.ensureSlots(source + 1);
+            int i = 0;
+            for (String t : targetValues) {
+                buffer.tokenize(t, i++);
+            }
+            for (String s : sourceInstance.getProperty(property1)) {
+                buffer.tokenize(s, source);
+                String[] x = buffer.tokens[source];
+                int xLength = buffer.lengths[source];
+                for (int j = 0; j < source; j++) {
+                    int yLength = buffer.lengths[j];
+                    int overlap = overlap(x, xLength, buffer.tokens[j], yLength);
+                    if (overlap > 0) {
+                        // PPJoinPlusPlus passes the longer record first
+                        double sim = measure.getSimilarity(overlap, Math.max(xLength, yLength),
+                                Math.min(xLength, yLength));
+                        if (sim > max) {
+                            max = sim;
+                        }
+                    }
+                }
+            }
+            return max;
+        }
+
+        /** Size of the multiset intersection of two sorted token arrays */
+        private static int overlap(String[] x, int xLength, String[] y, int yLength) {
+            int i = 0, j = 0, overlap = 0;
+            while (i < xLength && j < yLength) {
+                int c = x[i].compareTo(y[j]);
+                if (c == 0) {
+                    overlap++;
+                    i++;
+                    j++;
+                } else if (c < 0) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return overlap;
+        }
+    }
+
+    /**
+     * Sorted tokens of several values. The arrays only grow, the number of
+     * tokens of a value is kept in {@link #lengths}.
+     */
+    private static final class TokenBuffer {
+        String[][] tokens = new String[0][];
+        int[] lengths = new int[0];
+
+        void ensureSlots(int slots) {
+            if (tokens.length < slots) {
+                int old = tokens.length;
+                tokens = Arrays.copyOf(tokens, slots);
+                lengths = Arrays.copyOf(lengths, slots);
+                for (int i = old; i < slots; i++) {
+                    tokens[i] = new String[8];
+                }
+            }
+        }
+
+        void tokenize(String value, int slot) {
+            StringTokenizer st = new StringTokenizer(value, PPJOIN_DELIMITERS);
+            int length = st.countTokens();
+            if (tokens[slot].length < length) {
+                tokens[slot] = new String[Math.max(length, 2 * tokens[slot].length)];
+            }
+            String[] slotTokens = tokens[slot];
+            for (int i = 0; i < length; i++) {
+                slotTokens[i] = st.nextToken();
+            }
+            Arrays.sort(slotTokens, 0, length);
+            lengths[slot] = length;
+        }
+    }
+
+    /** Similarity as computed by EDJoin: 1 / (1 + edit distance) */
+    private static final class EditDistanceLeaf extends Leaf {
+
+        EditDistanceLeaf(String expression, double threshold, String property1, String property2) {
+            super(expression, threshold, property1, property2);
+        }
+
+        @Override
+        double compute(Instance sourceInstance, Instance targetInstance) {
+            // distance threshold as used by EDJoin
+            double maxDistance = (1 - threshold) / threshold;
+            double max = 0;
+            for (String s : sourceInstance.getProperty(property1)) {
+                for (String t : targetInstance.getProperty(property2)) {
+                    // length filtering
+                    if (Math.abs(s.length() - t.length()) > maxDistance) {
+                        continue;
+                    }
+                    double sim = 1.0 / (1 + (double) EDJoinMapper.editDistance(s, t));
+                    if (sim > max) {
+                        max = sim;
+                    }
+                }
+            }
+            return max;
+        }
+    }
+
+    /**
+     * Runs the mapper of the measure on caches that contain the two instances
+     * only. Used for measures that cannot be evaluated outside their mapper.
+     */
+    private static final class MapperLeaf extends Leaf {
+        private final MeasureType type;
+        private final String sourceVar;
+        private final String targetVar;
+
+        MapperLeaf(String expression, double threshold, MeasureType type, String sourceVar, String targetVar) {
+            super(expression, threshold, null, null);
+            this.type = type;
+            this.sourceVar = sourceVar;
+            this.targetVar = targetVar;
+        }
+
+        @Override
+        double compute(Instance sourceInstance, Instance targetInstance) {
+            ACache source = new HybridCache();
+            ACache target = new HybridCache();
+            source.addInstance(sourceInstance);
+            target.addInstance(targetInstance);
+            AMapping m = MapperFactory.createMapper(type).getMapping(source, target, sourceVar, targetVar,
+                    expression, threshold);
+            double similarity = 0;
+            for (String s : m.getMap().keySet()) {
+                for (String t : m.getMap().get(s).keySet()) {
+                    similarity = m.getConfidence(s, t);
+                }
+            }
+            return similarity;
+        }
+    }
+
+    private abstract static class Node extends CompiledExpression {
+        final CompiledExpression left;
+        final CompiledExpression right;
+        final double threshold;
+        final double threshold1;
+        final double threshold2;
+
+        Node(CompiledExpression left, CompiledExpression right, double threshold, double threshold1,
+                double threshold2) {
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+            this.threshold1 = threshold1;
+            this.threshold2 = threshold2;
+        }
+    }
+
+    /** MAX, OR and XOR */
+    private static final class MaxNode extends Node {
+
+        MaxNode(CompiledExpression left, CompiledExpression right, double threshold, double threshold1,
+                double threshold2) {
+            super(left, right, threshold, threshold1, threshold2);
+        }
+
+        @Override
+        public double getSimilarity(Instance sourceInstance, Instance targetInstance) {
+            double firstChild = left.getSimilarity(sourceInstance, targetInstance);
+            double secondChild = right.getSimilarity(sourceInstance, targetInstance);
+            // (s,t) are not part of the union
+            if (firstChild < threshold1 && secondChild < threshold2) {
+                return 0;
+            }
+            double maxSimilarity = Math.max(firstChild, secondChild);
+            return maxSimilarity >= threshold ? maxSimilarity : 0;
+        }
+    }
+
+    /** MIN and AND */
+    private static final class MinNode extends Node {
+
+        MinNode(CompiledExpression left, CompiledExpression right, double threshold, double threshold1,
+                double threshold2) {
+            super(left, right, threshold, threshold1, threshold2);
+        }
+
+        @Override
+        public double getSimilarity(Instance sourceInstance, Instance targetInstance) {
+            double firstChild = left.getSimilarity(sourceInstance, targetInstance);
+            double secondChild = right.getSimilarity(sourceInstance, targetInstance);
+            // (s,t) are not part of the intersection
+            if (firstChild < threshold1 && secondChild < threshold2) {
+                return 0;
+            }
+            double minSimilarity = Math.min(firstChild, secondChild);
+            return minSimilarity >= threshold ? minSimilarity : 0;
+        }
+    }
+
+    /** Weighted sum of the children */
+    private static final class AddNode extends Node {
+        private final double leftCoefficient;
+        private final double rightCoefficient;
+
+        AddNode(CompiledExpression left, CompiledExpression right, double threshold, double threshold1,
+                double threshold2, double leftCoefficient, double rightCoefficient) {
+            super(left, right, threshold, threshold1, threshold2);
+            this.leftCoefficient = leftCoefficient;
+            this.rightCoefficient = rightCoefficient;
+        }
+
+        @Override
+        public double getSimilarity(Instance sourceInstance, Instance targetInstance) {
+            double firstChild = leftCoefficient * left.getSimilarity(sourceInstance, targetInstance);
+            double secondChild = rightCoefficient * right.getSimilarity(sourceInstance, targetInstance);
+            if (firstChild < threshold1 && secondChild < threshold2) {
+                return 0;
+            }
+            double sum = firstChild + secondChild;
+            return sum >= threshold ? sum : 0;
+        }
+    }
+
+    /** MINUS: the pair must not be part of the right child */
+    private static final class MinusNode extends Node {
+
+        MinusNode(CompiledExpression left, CompiledExpression right, double threshold, double threshold1) {
+            super(left, right, threshold, threshold1, 0);
+        }
+
+        @Override
+        public double getSimilarity(Instance sourceInstance, Instance targetInstance) {
+            double firstChild = left.getSimilarity(sourceInstance, targetInstance);
+            if (firstChild < threshold1 || firstChild < threshold) {
+                return 0;
+            }
+            return right.getSimilarity(sourceInstance, targetInstance) == 0 ? firstChild : 0;
+        }
+    }
+}
@@ -21,8 +21,9 @@ import org.aksw.limes.core.measures.measure.pointsets.sumofmin.NaiveSumOfMinMeas
 import org.aksw.limes.core.measures.measure.pointsets.surjection.FairSurjectionMeasure;
 import org.aksw.limes.core.measures.measure.pointsets.surjection.NaiveSurjectionMeasure;
 import org.aksw.limes.core.measures.measure.resourcesets.SetJaccardMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
-import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.memory.MemoryIndex;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.file.FileIndex;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.measures.LCHMeasure;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.measures.LiMeasure;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.measures.ShortestPathMeasure;
@@ -566,25 +567,25 @@ public class MeasureFactory {
             if (IndexerSP == null) {
                 throw new NullIndexerException("Cannot initialize " + SHORTEST_PATH + ". Index instance is null.");
             }
-            return new ShortestPathMeasure(IndexerSP);
+            return new ShortestPathMeasure(IndexerSP, SemanticDictionary.getSharedDictionary());
         case LCH:
             AIndex IndexerLCH = createIndexer();
             if (IndexerLCH == null) {
                 throw new NullIndexerException("Cannot initialize " + LCH + ". Index instance is null.");
             }
-            return new LCHMeasure(IndexerLCH);
+            return new LCHMeasure(IndexerLCH, SemanticDictionary.getSharedDictionary());
         case LI:
             AIndex IndexerLi = createIndexer();
             if (IndexerLi == null) {
                 throw new NullIndexerException("Cannot initialize " + LI + ". Index instance is null.");
             }
-            return new LiMeasure(IndexerLi);
+            return new LiMeasure(IndexerLi, SemanticDictionary.getSharedDictionary());
         case WUPALMER:
             AIndex IndexerWP = createIndexer();
             if (IndexerWP == null) {
                 throw new NullIndexerException("Cannot initialize " + WUPALMER + ". Index instance is null.");
             }
-            return new WuPalmerMeasure(IndexerWP);
+            return new WuPalmerMeasure(IndexerWP, SemanticDictionary.getSharedDictionary());
         default:
             throw new InvalidMeasureException(type.toString());
         }
@@ -592,9 +593,7 @@ public class MeasureFactory {
     }
 
     public static AIndex createIndexer() {
-        AIndex Indexer = new MemoryIndex();
-        Indexer.preIndex();
-        return Indexer;
+        return FileIndex.getSharedIndex();
     }
 
 }
\ No newline at end of file
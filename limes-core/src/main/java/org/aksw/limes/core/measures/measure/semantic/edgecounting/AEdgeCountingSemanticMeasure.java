@@ -2,7 +2,10 @@ package org.aksw.limes.core.measures.measure.semantic.edgecounting;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.measures.measure.AMeasure;
@@ -36,9 +39,26 @@ public abstract class AEdgeCountingSemanticMeasure extends AMeasure implements I
     protected static final int VERB_DEPTH = 13;
     protected static final int ADJECTIVE_DEPTH = 1;
     protected static final int ADVERB_DEPTH = 1;
+    // tolerance of the subsumer depth bounds against rounding errors
+    protected static final double DEPTH_BOUND_TOLERANCE = 1e-9;
+
+    // maximal number of token pairs in the shared similarity cache
+    private static int tokenCacheCapacity = 1000000;
+    // semantic similarities of token pairs, shared by all measure instances
+    private static final LinkedHashMap<String, Double> tokenSimilarities = new LinkedHashMap<String, Double>(16,
+            0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > tokenCacheCapacity;
+        }
+    };
 
     protected AIndex Indexer = null;
     protected SemanticDictionary dictionary = null;
+    // false if the dictionary is shared and must not be removed by close()
+    private boolean ownsDictionary = true;
 
     public AEdgeCountingSemanticMeasure(AIndex indexer) {
         dictionary = new SemanticDictionary();
@@ -48,6 +68,39 @@ public abstract class AEdgeCountingSemanticMeasure extends AMeasure implements I
 
     }
 
+    /**
+     * Constructor for a measure that uses an opened dictionary, which is not
+     * removed by {@link #close()}.
+     *
+     * @param indexer,
+     *            an index instance
+     * @param dictionary,
+     *            an opened semantic dictionary
+     */
+    public AEdgeCountingSemanticMeasure(AIndex indexer, SemanticDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.ownsDictionary = false;
+        Indexer = indexer;
+    }
+
+    /**
+     * Sets the maximal number of token pairs whose semantic similarity is
+     * kept in the cache shared by all measure instances.
+     *
+     * @param capacity,
+     *            the number of token pairs, 0 disables the cache
+     */
+    public static void setTokenCacheCapacity(int capacity) {
+        synchronized (tokenSimilarities) {
+            tokenCacheCapacity = Math.max(0, capacity);
+            Iterator<String> eldest = tokenSimilarities.keySet().iterator();
+            while (tokenSimilarities.size() > tokenCacheCapacity) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
     public SemanticDictionary getSemanticDictionary() {
         return dictionary;
     }
@@ -79,6 +132,26 @@ public abstract class AEdgeCountingSemanticMeasure extends AMeasure implements I
 
     }
 
+    /**
+     * Retrieves a lower bound for the depth of the common subsumer of two
+     * concepts whose similarity reaches a threshold. If the similarity of a
+     * concept with a hypernym path of the given length and another concept is
+     * at least the threshold, then one of the hypernym paths of the other
+     * concept shares at least that many concepts with this path, counted from
+     * the root. Measures without such a bound return 0.
+     *
+     * @param pathLength,
+     *            the length of a hypernym path of the first concept
+     * @param posNumber,
+     *            the POS number id of the concepts
+     * @param threshold,
+     *            the similarity threshold
+     * @return the minimal number of shared concepts or 0
+     */
+    public int getMinSubsumerDepth(int pathLength, int posNumber, double threshold) {
+        return 0;
+    }
+
     /**
      * Retrieves a IWord for a given IWordID
      * 
@@ -290,9 +363,6 @@ public abstract class AEdgeCountingSemanticMeasure extends AMeasure implements I
             targetInTokens.add(tempTokens);
         }
 
-        ///////////////////////////////////////////////////////////////////
-        HashMap<String, Double> similaritiesMap = new HashMap<String, Double>();
-
         for (String sourceValue : instance1.getProperty(property1)) {
             if (sourceValue.equals(""))
                 continue;
@@ -320,16 +390,7 @@ public abstract class AEdgeCountingSemanticMeasure extends AMeasure implements I
 
                             if (!flagTarget) {
 
-                                double targetTokenSim = 0.0d;
-
-                                double tempSim = checkSimilarity(similaritiesMap, sourceToken, targetToken);
-                                if (tempSim == Double.MAX_VALUE) {
-                                    targetTokenSim = (sourceToken.equals(targetToken) == true) ? 1d
-                                            : getSimilarity(sourceToken, targetToken);
-                                    similaritiesMap.put(sourceToken + "||" + targetToken, targetTokenSim);
-                                } else {
-                                    targetTokenSim = tempSim;
-                                }
+                                double targetTokenSim = getTokenSimilarity(sourceToken, targetToken);
                                 if (targetTokenSim > maxTargetTokenSim) {
                                     maxTargetTokenSim = targetTokenSim;
                                 }
@@ -368,11 +429,43 @@ public abstract class AEdgeCountingSemanticMeasure extends AMeasure implements I
     }
 
     /**
-     * Closes and removes the semantic dictionary from memory
+     * Calculates the semantic similarity between two tokens, which is 1 for
+     * equal tokens. The similarities are cached per measure and token pair,
+     * regardless of the order of the tokens.
+     *
+     * @param sourceToken,
+     *            the source input token
+     * @param targetToken,
+     *            the target input token
+     * @return the semantic similarity of the tokens
+     */
+    public double getTokenSimilarity(String sourceToken, String targetToken) {
+        if (sourceToken.equals(targetToken))
+            return 1d;
+        String key = sourceToken.compareTo(targetToken) < 0 ? sourceToken + "||" + targetToken
+                : targetToken + "||" + sourceToken;
+        key = getName() + "||" + key;
+        Double similarity;
+        synchronized (tokenSimilarities) {
+            similarity = tokenSimilarities.get(key);
+        }
+        if (similarity == null) {
+            similarity = getSimilarity(sourceToken, targetToken);
+            synchronized (tokenSimilarities) {
+                tokenSimilarities.put(key, similarity);
+            }
+        }
+        return similarity;
+    }
+
+    /**
+     * Closes and removes the semantic dictionary from memory, unless it is
+     * shared
      * 
      */
     public void close() {
-        dictionary.removeDictionary();
+        if (ownsDictionary)
+            dictionary.removeDictionary();
     }
 
     /*
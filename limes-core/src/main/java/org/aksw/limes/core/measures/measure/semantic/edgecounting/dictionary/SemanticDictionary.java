@@ -32,6 +32,24 @@ public class SemanticDictionary {
     private String wordNetFolder = System.getProperty("user.dir") + "/src/main/resources/wordnet/dict/";
     private String exFile = wordNetFolder + "JWI_Export_.wn";
     private static final Logger logger = LoggerFactory.getLogger(SemanticDictionary.class);
+    private static SemanticDictionary sharedDictionary = null;
+
+    /**
+     * Retrieves the dictionary shared by all semantic measures, which is
+     * exported and loaded to memory only once. It must not be removed by its
+     * users.
+     *
+     * @return the opened shared dictionary
+     */
+    public static synchronized SemanticDictionary getSharedDictionary() {
+        if (sharedDictionary == null) {
+            SemanticDictionary dictionary = new SemanticDictionary();
+            dictionary.exportDictionaryToFile();
+            dictionary.openDictionaryFromFile();
+            sharedDictionary = dictionary;
+        }
+        return sharedDictionary;
+    }
 
     /**
      * Exports the wordnet database files into one file.
@@ -140,6 +158,15 @@ public class SemanticDictionary {
         return dictionary.getSynset(hypernymId);
     }
 
+    /**
+     * Retrieves the folder of the wordnet database files
+     *
+     * @return the wordnet folder
+     */
+    public String getWordNetFolder() {
+        return wordNetFolder;
+    }
+
     /**
      * Retrieves the semantic wordnet dictionary
      * 
@@ -2,6 +2,7 @@ package org.aksw.limes.core.measures.measure.semantic.edgecounting.factory;
 
 import org.aksw.limes.core.exceptions.NullIndexerException;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.AEdgeCountingSemanticMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.measures.LCHMeasure;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.measures.LiMeasure;
@@ -54,6 +55,37 @@ public class SemanticFactory {
         return null;
     }
 
+    /**
+     * Factory function for retrieving the desired semantic measure instance,
+     * using an opened dictionary.
+     *
+     * @param measure,
+     *            Type of the measure
+     * @param Indexer,
+     *            an index instance
+     * @param dictionary,
+     *            an opened semantic dictionary, not removed by the measure
+     *
+     * @return a specific measure instance
+     *
+     */
+    public static AEdgeCountingSemanticMeasure createMeasure(SemanticType measure, AIndex Indexer,
+            SemanticDictionary dictionary) {
+        if (Indexer == null) {
+            throw new NullIndexerException("Cannot initialize " + measure + ". Index instance is null.");
+        }
+
+        if (measure == SemanticType.SHORTEST_PATH)
+            return new ShortestPathMeasure(Indexer, dictionary);
+        else if (measure == SemanticType.LI)
+            return new LiMeasure(Indexer, dictionary);
+        else if (measure == SemanticType.LCH)
+            return new LCHMeasure(Indexer, dictionary);
+        else if (measure == SemanticType.WUPALMER)
+            return new WuPalmerMeasure(Indexer, dictionary);
+        return null;
+    }
+
     /**
      * Factory function for retrieving a semantic measure name from the set of
      * allowed types.
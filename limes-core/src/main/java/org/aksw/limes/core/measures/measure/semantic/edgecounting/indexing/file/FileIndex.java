@@ -0,0 +1,299 @@
+package org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.file;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.finders.HypernymPathsFinder;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.ISynsetID;
+import edu.mit.jwi.item.POS;
+import edu.mit.jwi.item.SynsetID;
+
+/**
+ * Implements the file index class that computes the hypernym paths of every
+ * synset in wordnet once and stores them in a file next to the wordnet
+ * database files. Afterwards, the file is memory-mapped, so loading the index
+ * takes milliseconds and the paths of a synset are decoded from the file when
+ * they are retrieved. The depth of a synset is the length of its paths.
+ * <p>
+ * The file consists of a header (magic number, version, number of POS) and,
+ * per POS, the POS number, the number of synsets, their sorted offsets and
+ * the file positions of their paths. The paths of a synset are stored as the
+ * number of paths followed by the length and the synset offsets of each
+ * path, from the root to the synset.
+ */
+public class FileIndex extends AIndex {
+    private static final Logger logger = LoggerFactory.getLogger(FileIndex.class);
+
+    private static final int MAGIC = 0x4c495058;
+    private static final int VERSION = 1;
+    private static final String FILE_NAME = "JWI_Hypernym_Paths_.idx";
+
+    private static FileIndex sharedIndex = null;
+
+    private File indexFile = null;
+    private MappedByteBuffer buffer = null;
+    /** Per POS number: file position of the sorted synset offsets */
+    private final int[] offsetsStart = new int[POS.values().length + 2];
+    /** Per POS number: number of synsets */
+    private final int[] synsetCounts = new int[POS.values().length + 2];
+
+    public FileIndex() {
+    }
+
+    /**
+     * @param indexFile
+     *            the file of the index
+     */
+    public FileIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Retrieves the index shared by all semantic measures, which is built or
+     * loaded only once.
+     *
+     * @return the loaded shared index
+     */
+    public static synchronized FileIndex getSharedIndex() {
+        if (sharedIndex == null) {
+            FileIndex index = new FileIndex();
+            index.preIndex();
+            sharedIndex = index;
+        }
+        return sharedIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(boolean f) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Loads the index file and creates it first, if it does not exist.
+     */
+    @Override
+    public void preIndex() {
+        SemanticDictionary dictionary = null;
+        if (indexFile == null) {
+            dictionary = new SemanticDictionary();
+            indexFile = new File(dictionary.getWordNetFolder() + FILE_NAME);
+        }
+        if (!indexFile.exists()) {
+            if (dictionary == null) {
+                dictionary = new SemanticDictionary();
+            }
+            dictionary.exportDictionaryToFile();
+            dictionary.openDictionaryFromFile();
+            try {
+                write(dictionary);
+            } catch (IOException e) {
+                logger.error("Couldn't write index file " + indexFile + ". Exiting..");
+                throw new RuntimeException(e);
+            } finally {
+                dictionary.removeDictionary();
+            }
+        }
+        try {
+            load();
+        } catch (IOException e) {
+            logger.error("Couldn't load index file " + indexFile + ". Exiting..");
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Computes the hypernym paths of all synsets and writes them to the index
+     * file.
+     *
+     * @param dictionary
+     *            the opened semantic dictionary
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void write(SemanticDictionary dictionary) throws IOException {
+        logger.info("Indexing begins.");
+        POS[] posValues = POS.values();
+        int[][] offsets = new int[posValues.length][];
+        int[][][][] paths = new int[posValues.length][][][];
+        for (int i = 0; i < posValues.length; i++) {
+            List<ISynset> synsets = new ArrayList<ISynset>();
+            Iterator<ISynset> iterator = dictionary.getDictionary().getSynsetIterator(posValues[i]);
+            while (iterator.hasNext()) {
+                synsets.add(iterator.next());
+            }
+            synsets.sort((a, b) -> Integer.compare(a.getOffset(), b.getOffset()));
+            offsets[i] = new int[synsets.size()];
+            paths[i] = new int[synsets.size()][][];
+            for (int j = 0; j < synsets.size(); j++) {
+                ISynset synset = synsets.get(j);
+                offsets[i][j] = synset.getOffset();
+                ArrayList<ArrayList<ISynsetID>> trees = HypernymPathsFinder.getHypernymPaths(dictionary, synset);
+                paths[i][j] = new int[trees.size()][];
+                for (int k = 0; k < trees.size(); k++) {
+                    ArrayList<ISynsetID> tree = trees.get(k);
+                    paths[i][j][k] = new int[tree.size()];
+                    for (int l = 0; l < tree.size(); l++) {
+                        paths[i][j][k][l] = tree.get(l).getOffset();
+                    }
+                }
+            }
+        }
+        write(posValues, offsets, paths);
+        logger.info("Indexing done.");
+    }
+
+    /**
+     * Writes the hypernym paths of the synsets to the index file.
+     *
+     * @param posValues
+     *            the POS of the synsets
+     * @param offsets
+     *            per POS, the ascending offsets of the synsets
+     * @param paths
+     *            per POS and synset, the synset offsets of each hypernym path
+     *            from the root to the synset
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    void write(POS[] posValues, int[][] offsets, int[][][][] paths) throws IOException {
+        long headerSize = 3 * 4;
+        for (int i = 0; i < posValues.length; i++) {
+            headerSize += 2 * 4 + 2L * 4 * offsets[i].length;
+        }
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(posValues.length);
+            long position = headerSize;
+            for (int i = 0; i < posValues.length; i++) {
+                out.writeInt(posValues[i].getNumber());
+                out.writeInt(offsets[i].length);
+                for (int offset : offsets[i]) {
+                    out.writeInt(offset);
+                }
+                for (int[][] synsetPaths : paths[i]) {
+                    if (position > Integer.MAX_VALUE) {
+                        throw new IOException("Index file exceeds 2GB");
+                    }
+                    out.writeInt((int) position);
+                    position += 4;
+                    for (int[] path : synsetPaths) {
+                        position += 4 + 4L * path.length;
+                    }
+                }
+            }
+            for (int i = 0; i < posValues.length; i++) {
+                for (int[][] synsetPaths : paths[i]) {
+                    out.writeInt(synsetPaths.length);
+                    for (int[] path : synsetPaths) {
+                        out.writeInt(path.length);
+                        for (int offset : path) {
+                            out.writeInt(offset);
+                        }
+                    }
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Memory-maps the index file and reads its header.
+     *
+     * @throws IOException
+     *             if the file cannot be read or is no index file
+     */
+    private void load() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+                FileChannel channel = file.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Unknown index file format");
+        }
+        Arrays.fill(synsetCounts, 0);
+        int posCount = buffer.getInt(8);
+        int position = 12;
+        for (int i = 0; i < posCount; i++) {
+            int posNumber = buffer.getInt(position);
+            int count = buffer.getInt(position + 4);
+            synsetCounts[posNumber] = count;
+            offsetsStart[posNumber] = position + 8;
+            position += 8 + 8 * count;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArrayList<ArrayList<ISynsetID>> getHypernymPaths(ISynset synset) {
+        POS pos = synset.getPOS();
+        int posNumber = pos.getNumber();
+        int start = offsetsStart[posNumber];
+        int count = synsetCounts[posNumber];
+        // binary search of the synset offset
+        int offset = synset.getOffset();
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = buffer.getInt(start + 4 * mid);
+            if (value < offset) {
+                low = mid + 1;
+            } else if (value > offset) {
+                high = mid - 1;
+            } else {
+                return readPaths(buffer.getInt(start + 4 * count + 4 * mid), pos);
+            }
+        }
+        return null;
+    }
+
+    private ArrayList<ArrayList<ISynsetID>> readPaths(int position, POS pos) {
+        int pathCount = buffer.getInt(position);
+        position += 4;
+        ArrayList<ArrayList<ISynsetID>> paths = new ArrayList<ArrayList<ISynsetID>>(pathCount);
+        for (int i = 0; i < pathCount; i++) {
+            int length = buffer.getInt(position);
+            position += 4;
+            ArrayList<ISynsetID> path = new ArrayList<ISynsetID>(length);
+            for (int j = 0; j < length; j++) {
+                path.add(new SynsetID(buffer.getInt(position), pos));
+                position += 4;
+            }
+            paths.add(path);
+        }
+        return paths;
+    }
+
+}
@@ -3,6 +3,7 @@ package org.aksw.limes.core.measures.measure.semantic.edgecounting.measures;
 import java.util.ArrayList;
 
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.AEdgeCountingSemanticMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.finders.ShortestPathFinder;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
 
@@ -23,6 +24,10 @@ public class LCHMeasure extends AEdgeCountingSemanticMeasure {
         super(Indexer);
     }
 
+    public LCHMeasure(AIndex Indexer, SemanticDictionary dictionary) {
+        super(Indexer, dictionary);
+    }
+
     double maxValue = 1;
 
     /**
@@ -76,6 +81,18 @@ public class LCHMeasure extends AEdgeCountingSemanticMeasure {
 
     }
 
+    /**
+     * {@inheritDoc} For the LCH measure, the similarity reaches the threshold
+     * iff the shortest path between the concepts is at most (1 + 2D)^(1 -
+     * threshold) - 1, so at most that many concepts of the path are not
+     * shared.
+     */
+    @Override
+    public int getMinSubsumerDepth(int pathLength, int posNumber, double threshold) {
+        double maxPath = Math.pow(1.0 + 2.0 * getHierarchyDepth(posNumber), 1.0 - threshold) - 1.0;
+        return pathLength - (int) Math.floor(maxPath + DEPTH_BOUND_TOLERANCE);
+    }
+
     @Override
     public double getRuntimeApproximation(double mappingSize) {
         return mappingSize / 1000d;
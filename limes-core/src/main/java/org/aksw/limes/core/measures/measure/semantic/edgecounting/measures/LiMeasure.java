@@ -3,6 +3,7 @@ package org.aksw.limes.core.measures.measure.semantic.edgecounting.measures;
 import java.util.ArrayList;
 
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.AEdgeCountingSemanticMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.finders.LeastCommonSubsumerFinder;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
 
@@ -25,6 +26,10 @@ public class LiMeasure extends AEdgeCountingSemanticMeasure {
         super(Indexer);
     }
 
+    public LiMeasure(AIndex Indexer, SemanticDictionary dictionary) {
+        super(Indexer, dictionary);
+    }
+
     /**
      * Calculates the actual LI similarity.
      * 
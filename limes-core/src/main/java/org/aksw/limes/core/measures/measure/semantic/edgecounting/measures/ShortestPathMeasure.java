@@ -3,6 +3,7 @@ package org.aksw.limes.core.measures.measure.semantic.edgecounting.measures;
 import java.util.ArrayList;
 
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.AEdgeCountingSemanticMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.finders.ShortestPathFinder;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
 
@@ -25,6 +26,10 @@ public class ShortestPathMeasure extends AEdgeCountingSemanticMeasure {
         super(Indexer);
     }
 
+    public ShortestPathMeasure(AIndex Indexer, SemanticDictionary dictionary) {
+        super(Indexer, dictionary);
+    }
+
     /**
      * Calculates the actual Shortest Path similarity.
      * 
@@ -80,6 +85,17 @@ public class ShortestPathMeasure extends AEdgeCountingSemanticMeasure {
 
     }
 
+    /**
+     * {@inheritDoc} For the Shortest Path measure, the similarity reaches the
+     * threshold iff the shortest path between the concepts is at most 2D(1 -
+     * threshold), so at most that many concepts of the path are not shared.
+     */
+    @Override
+    public int getMinSubsumerDepth(int pathLength, int posNumber, double threshold) {
+        double maxPath = 2.0 * getHierarchyDepth(posNumber) * (1.0 - threshold);
+        return pathLength - (int) Math.floor(maxPath + DEPTH_BOUND_TOLERANCE);
+    }
+
     @Override
     public double getRuntimeApproximation(double mappingSize) {
         return mappingSize / 1000d;
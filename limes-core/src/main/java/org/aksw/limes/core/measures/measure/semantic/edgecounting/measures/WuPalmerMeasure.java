@@ -3,6 +3,7 @@ package org.aksw.limes.core.measures.measure.semantic.edgecounting.measures;
 import java.util.ArrayList;
 
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.AEdgeCountingSemanticMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.finders.LeastCommonSubsumerFinder;
 import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
 
@@ -24,6 +25,10 @@ public class WuPalmerMeasure extends AEdgeCountingSemanticMeasure {
         super(Indexer);
     }
 
+    public WuPalmerMeasure(AIndex Indexer, SemanticDictionary dictionary) {
+        super(Indexer, dictionary);
+    }
+
     /**
      * Calculates the actual WuPalmer similarity.
      * 
@@ -88,6 +93,17 @@ public class WuPalmerMeasure extends AEdgeCountingSemanticMeasure {
 
     }
 
+    /**
+     * {@inheritDoc} For the WuPalmer measure, the similarity of a pair of
+     * paths of lengths l1 and l2 that share d concepts is 2d / (l1 + l2). As
+     * d is at most l2, it reaches the threshold only if d is at least
+     * threshold * l1 / (2 - threshold).
+     */
+    @Override
+    public int getMinSubsumerDepth(int pathLength, int posNumber, double threshold) {
+        return (int) Math.ceil(threshold * pathLength / (2.0 - threshold) - DEPTH_BOUND_TOLERANCE);
+    }
+
     @Override
     public double getRuntimeApproximation(double mappingSize) {
         return mappingSize / 1000d;
@@ -58,6 +58,30 @@ abstract class AMinkowskiMeasure extends ASpaceMeasure {
         return 1.0 / (1.0 + outerPTerm(distance));
     }
 
+    /**
+     * Computes the similarity of two instances from their numeric values, as
+     * done by {@link #getSimilarity(Instance, Instance, String, String)} on
+     * the string values. For each dimension, the pair of values with the
+     * smallest distance is used.
+     *
+     * @param values1 values of the first instance, one array per dimension
+     * @param values2 values of the second instance, one array per dimension
+     * @return the similarity of the two instances
+     */
+    public double getSimilarity(double[][] values1, double[][] values2) {
+        double distance = 0;
+        for (int i = 0; i < values1.length; i++) {
+            double min = Double.MAX_VALUE;
+            for (double value1 : values1[i]) {
+                for (double value2 : values2[i]) {
+                    min = Math.min(min, innerPTerm(value1, value2));
+                }
+            }
+            distance = distance + min;
+        }
+        return 1.0 / (1.0 + outerPTerm(distance));
+    }
+
     /**
      * Implementation of the outer p-term.
      * @param sum the sum of over |x_i-y_i|^p for i in 0...n
@@ -71,6 +95,16 @@ abstract class AMinkowskiMeasure extends ASpaceMeasure {
      * @param yi value of y_i
      * @return |x_i-y_i|^p
      */
-    abstract double innerPTerm(String xi, String yi);
+    double innerPTerm(String xi, String yi) {
+        return innerPTerm(Double.parseDouble(xi), Double.parseDouble(yi));
+    }
+
+    /**
+     * Implementation for the inner p-term.
+     * @param xi value of x_i
+     * @param yi value of y_i
+     * @return |x_i-y_i|^p
+     */
+    abstract double innerPTerm(double xi, double yi);
 
 }
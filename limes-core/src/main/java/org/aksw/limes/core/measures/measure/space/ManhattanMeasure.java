@@ -14,8 +14,8 @@ public class ManhattanMeasure extends AMinkowskiMeasure {
     }
 
     @Override
-    double innerPTerm(String xi, String yi) {
-        return Math.abs(new Double(xi) - new Double(yi));
+    double innerPTerm(double xi, double yi) {
+        return Math.abs(xi - yi);
     }
 
     @Override
@@ -4,10 +4,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.aksw.limes.core.datastrutures.Tree;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoFMeasure;
 import org.aksw.limes.core.exceptions.UnsupportedMLImplementationException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
@@ -32,8 +34,6 @@ public class WombatComplete extends AWombat {
 
     protected static Logger logger = LoggerFactory.getLogger(WombatComplete.class);
 
-    protected static boolean usePruning = false;
-
     protected ExtendedRefinementNode bestSolutionNode = null;
     protected List<ExtendedClassifier> classifiers = null;
     protected int iterationNr = 0;
@@ -160,7 +160,7 @@ public class WombatComplete extends AWombat {
      * @author sherif
      */
     private void pruneTree(Tree<ExtendedRefinementNode> r, double f) {
-        if (!usePruning)
+        if (!isPruning())
             return;
         if (r.getchildren() != null && r.getchildren().size() > 0) {
             for (Tree<ExtendedRefinementNode> child : r.getchildren()) {
@@ -181,15 +181,24 @@ public class WombatComplete extends AWombat {
      * @author sherif
      */
     private Map<String, AMapping> computeClassifiersDiffPermutations(List<ExtendedClassifier> c) {
-        Map<String, AMapping> diffs = new HashMap<>();
+        List<Callable<Map<String, AMapping>>> tasks = new ArrayList<>();
         for (int i = 0; i < c.size(); i++) {
-            for (int j = 0; j < c.size(); j++) {
-                if (i != j) {
-                    AMapping m = MappingOperations.difference(c.get(i).getMapping(), c.get(j).getMapping());
-                    String e = "MINUS(" + c.get(i).getMetricExpression() + "," + c.get(j).getMetricExpression() + ")|0.0";
-                    diffs.put(e, m);
+            int x = i;
+            tasks.add(() -> {
+                Map<String, AMapping> row = new HashMap<>();
+                for (int j = 0; j < c.size(); j++) {
+                    if (x != j) {
+                        AMapping m = MappingOperations.difference(c.get(x).getMapping(), c.get(j).getMapping());
+                        String e = "MINUS(" + c.get(x).getMetricExpression() + "," + c.get(j).getMetricExpression() + ")|0.0";
+                        row.put(e, m);
+                    }
                 }
-            }
+                return row;
+            });
+        }
+        Map<String, AMapping> diffs = new HashMap<>();
+        for (Map<String, AMapping> row : ExecutionContext.invokeAll(tasks)) {
+            diffs.putAll(row);
         }
         return diffs;
     }
@@ -213,7 +222,7 @@ public class WombatComplete extends AWombat {
         // get the most promising child
         Tree<ExtendedRefinementNode> mostPromisingChild = new Tree<>(new ExtendedRefinementNode());
         for (Tree<ExtendedRefinementNode> child : r.getchildren()) {
-            if (usePruning && child.getValue().getMaxFMeasure() < mostPromisingChild.getValue().getFMeasure()) {
+            if (isPruning() && child.getValue().getMaxFMeasure() < mostPromisingChild.getValue().getFMeasure()) {
                 long time = System.currentTimeMillis();
                 prune(child);
                 pruningTime += System.currentTimeMillis() - time;
@@ -263,7 +272,9 @@ public class WombatComplete extends AWombat {
         t.getValue().setfMeasure(-Double.MAX_VALUE);
         t.getValue().setMaxFMeasure(-Double.MAX_VALUE);
         t.getValue().setMap(null);
-        t.getchildren().removeIf(x->true);
+        if (t.getchildren() != null) {
+            t.getchildren().removeIf(x->true);
+        }
     }
 
 
@@ -310,11 +321,7 @@ public class WombatComplete extends AWombat {
         String nodeMetricExpr = node.getValue().getMetricExpression();
         // is it the root of the tree?
         if (node.getParent() == null) {
-            for (String diffExpr : diffs.keySet()) {
-                AMapping diffMapping = diffs.get(diffExpr);
-                result.add(createNode(diffMapping, diffExpr));
-            }
-            return result;
+            return createDiffNodes();
         } else if (isAtomic(nodeMetricExpr)) {
             return createDisjunctionsWithDiffNodes(node);
         } else if (isDifference(nodeMetricExpr)) {
@@ -380,20 +387,31 @@ public class WombatComplete extends AWombat {
      * @return list of nodes L \cup A_i \ A_j | A_i \in P, A_j \in P, where P is the set if initial classifiers
      */
     private List<ExtendedRefinementNode> createDisjunctionsWithDiffNodes(Tree<ExtendedRefinementNode> node) {
-        List<ExtendedRefinementNode> result = new ArrayList<>();
+        AMapping nodeMaping;
+        if (saveMapping()) {
+            nodeMaping = node.getValue().getMapping();
+        } else {
+            nodeMaping = getMappingOfMetricExpression(node.getValue().getMetricExpression(), refinementTreeRoot);
+        }
+        List<Callable<ExtendedRefinementNode>> tasks = new ArrayList<>();
         for (String diffExpr : diffs.keySet()) {
             AMapping diffMapping = diffs.get(diffExpr);
             String childMetricExpr = "OR(" + node.getValue().getMetricExpression() + "," + diffExpr + ")|0.0";
-            AMapping nodeMaping;
-            if (saveMapping()) {
-                nodeMaping = node.getValue().getMapping();
-            } else {
-                nodeMaping = getMappingOfMetricExpression(node.getValue().getMetricExpression(), refinementTreeRoot);
-            }
-            AMapping childMap = MappingOperations.union(nodeMaping, diffMapping);
-            result.add(createNode(childMap, childMetricExpr));
+            tasks.add(() -> createNode(MappingOperations.union(nodeMaping, diffMapping), childMetricExpr));
         }
-        return result;
+        return ExecutionContext.invokeAll(tasks);
+    }
+
+    /**
+     * @return list of nodes A_i \ A_j | A_i \in P, A_j \in P, where P is the set if initial classifiers
+     */
+    private List<ExtendedRefinementNode> createDiffNodes() {
+        List<Callable<ExtendedRefinementNode>> tasks = new ArrayList<>();
+        for (String diffExpr : diffs.keySet()) {
+            AMapping diffMapping = diffs.get(diffExpr);
+            tasks.add(() -> createNode(diffMapping, diffExpr));
+        }
+        return ExecutionContext.invokeAll(tasks);
     }
 
 
@@ -428,20 +446,23 @@ public class WombatComplete extends AWombat {
      * @return list of nodes L \cup A_i \ A_j | A_i \in P, A_j \in P, where P is the set if initial classifiers
      */
     private List<ExtendedRefinementNode> createConjunctionsWithDiffNodes(Tree<ExtendedRefinementNode> node) {
-        List<ExtendedRefinementNode> result = new ArrayList<>();
+        AMapping nodeMaping;
+        if (saveMapping()) {
+            nodeMaping = node.getValue().getMapping();
+        } else {
+            nodeMaping = getMappingOfMetricExpression(node.getValue().getMetricExpression(), refinementTreeRoot);
+        }
+        if (isPruning() && maxFMeasureOfSubsets(nodeMaping) < node.getValue().getFMeasure()) {
+            // no conjunction can beat the node
+            return new ArrayList<>();
+        }
+        List<Callable<ExtendedRefinementNode>> tasks = new ArrayList<>();
         for (String diffExpr : diffs.keySet()) {
             AMapping diffMapping = diffs.get(diffExpr);
-            AMapping nodeMaping = MappingFactory.createDefaultMapping();
-            if (saveMapping()) {
-                nodeMaping = node.getValue().getMapping();
-            } else {
-                nodeMaping = getMappingOfMetricExpression(node.getValue().getMetricExpression(), refinementTreeRoot);
-            }
             String childMetricExpr = "AND(" + node.getValue().getMetricExpression() + "," + diffExpr + ")|0.0";
-            AMapping childMap = MappingOperations.intersection(nodeMaping, diffMapping);
-            result.add(createNode(childMap, childMetricExpr));
+            tasks.add(() -> createNode(MappingOperations.intersection(nodeMaping, diffMapping), childMetricExpr));
         }
-        return result;
+        return ExecutionContext.invokeAll(tasks);
     }
 
     /**
@@ -493,9 +514,7 @@ public class WombatComplete extends AWombat {
     private void createRefinementTreeRoot() {
         ExtendedRefinementNode initialNode = new ExtendedRefinementNode();
         refinementTreeRoot = new Tree<>(null, initialNode, null);
-        for (String diffExpr : diffs.keySet()) {
-            AMapping diffMapping = diffs.get(diffExpr);
-            ExtendedRefinementNode n = createNode(diffMapping, diffExpr);
+        for (ExtendedRefinementNode n : createDiffNodes()) {
             refinementTreeRoot.addChild(new Tree<>(refinementTreeRoot, n, null));
         }
         if (isVerbose()) {
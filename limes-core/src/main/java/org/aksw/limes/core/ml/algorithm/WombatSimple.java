@@ -1,11 +1,13 @@
 package org.aksw.limes.core.ml.algorithm;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 import org.aksw.limes.core.datastrutures.LogicOperator;
 import org.aksw.limes.core.datastrutures.Tree;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoFMeasure;
 import org.aksw.limes.core.exceptions.UnsupportedMLImplementationException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
@@ -263,30 +265,47 @@ public class WombatSimple extends AWombat {
     /**
      * Expand an input refinement node by applying
      * all available operators to the input refinement
-     * node's mapping with all other classifiers' mappings
+     * node's mapping with all other classifiers' mappings.
+     * The children are computed in parallel. If pruning
+     * is enabled, the conjunctions and differences are
+     * skipped if no subset of the node's mapping can
+     * beat the best node of the tree
      *
      * @param node
      *         Refinement node to be expanded
      * @author sherif
      */
     private void expandNode(Tree<RefinementNode> node) {
-        AMapping map = MappingFactory.createDefaultMapping();
+        AMapping nodeMapping = node.getValue().getMapping();
+        boolean pruneSubsets = isPruning()
+                && maxFMeasureOfSubsets(nodeMapping) < getBestNode(refinementTreeRoot).getValue().getFMeasure();
+        List<Callable<RefinementNode>> children = new ArrayList<>();
         for (ExtendedClassifier c : classifiers) {
+            if (node.getValue().getMetricExpression().equals(c.getMetricExpression())) { // do not create the same metricExpression again
+                continue;
+            }
             for (LogicOperator op : LogicOperator.values()) {
-                if (!node.getValue().getMetricExpression().equals(c.getMetricExpression())) { // do not create the same metricExpression again
+                if (pruneSubsets && !op.equals(LogicOperator.OR)) {
+                    continue;
+                }
+                String metricExpr = op + "(" + node.getValue().getMetricExpression() + "," + c.getMetricExpression() + ")|0";
+                children.add(() -> {
+                    AMapping map;
                     if (op.equals(LogicOperator.AND)) {
-                        map = MappingOperations.intersection(node.getValue().getMapping(), c.getMapping());
+                        map = MappingOperations.intersection(nodeMapping, c.getMapping());
                     } else if (op.equals(LogicOperator.OR)) {
-                        map = MappingOperations.union(node.getValue().getMapping(), c.getMapping());
-                    } else if (op.equals(LogicOperator.MINUS)) {
-                        map = MappingOperations.difference(node.getValue().getMapping(), c.getMapping());
+                        map = MappingOperations.union(nodeMapping, c.getMapping());
+                    } else {
+                        // XOR children are scored with the difference
+                        map = MappingOperations.difference(nodeMapping, c.getMapping());
                     }
-                    String metricExpr = op + "(" + node.getValue().getMetricExpression() + "," + c.getMetricExpression() + ")|0";
-                    RefinementNode child = createNode(map, metricExpr);
-                    node.addChild(new Tree<RefinementNode>(child));
-                }
+                    return createNode(map, metricExpr);
+                });
             }
         }
+        for (RefinementNode child : ExecutionContext.invokeAll(children)) {
+            node.addChild(new Tree<RefinementNode>(child));
+        }
         if (isVerbose()) {
             refinementTreeRoot.print();
         }
@@ -18,7 +18,6 @@ import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.ml.algorithm.eagle.util.CacheTrimmer;
 import org.jgap.gp.IGPProgram;
-import org.jgap.gp.impl.ProgramChromosome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,34 +107,23 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
         return instance;
     }
 
-    @Override
-    protected double evaluate(IGPProgram a_subject) {
-        return calculateRawFitness(a_subject);
-    }
-
     /**
-     * Calculates the fitness of the given GPProgram p. This is done as follows:
-     * 1.1 get the Metric Expression by executing (as object) the first
-     * chromosome. 1.2 get the mapping links with these settings 2. Calculate
+     * Calculates the fitness of the given link specification. This is done as
+     * follows: 1. get the mapping links of the specification 2. Calculate
      * either recall, precision or f-score and return 1 minus it. The evolution
      * could produce non wanted individuals especially those who compare
      * properties which are not part of the PropertyMapping (set in the
-     * ExpressionConfiguration). In such cases setp 1.1 throws an
-     * IllegalStateException. As a result the fitness value would be set to
+     * ExpressionConfiguration). In such cases the fitness value would be set to
      * rather bad one.
      *
-     * @param p
-     *            GPProgram fitness is calculated for.
+     * @param spec
+     *            link specification fitness is calculated for.
      * @return Double value. The closer to 0 the better.
      */
-    public double calculateRawFitness(IGPProgram p) {
-        p.getGPConfiguration().clearStack();
-        p.getGPConfiguration().clearMemory();
+    @Override
+    protected double calculateFitness(LinkSpecification spec) {
         // get actual Mapping
-        Object[] args = {};
-        ProgramChromosome pc = p.getChromosome(0);
         AMapping actualMapping = MappingFactory.createDefaultMapping();
-        LinkSpecification spec = (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
         String expr = spec.getFilterExpression();
 
         if (expr == null)
@@ -160,7 +148,6 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
             logger.info("Error Measure > 1: " + res + ". May want to normalize it?");
         }
         // get rid of Mapping
-        actualMapping.getMap().clear();
         actualMapping = null;
         // this could happen
         if (Double.isNaN(res)) {// so we manually return a bad fitness value
@@ -174,10 +161,8 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
     }
 
     public double calculateRawMeasure(IGPProgram p) {
-        ProgramChromosome pc = p.getChromosome(0);
         AMapping actualMapping = MappingFactory.createDefaultMapping();
-        Object[] args = {};
-        LinkSpecification spec = (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
+        LinkSpecification spec = getLinkSpecification(p);
         String expr = spec.getFilterExpression();
         if (expr.indexOf("falseProp") > -1) {
             return 0d;
@@ -234,6 +219,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
     }
 
     public void destroy() {
+        clearFitnessCache();
         instance = null;
     }
 
@@ -243,6 +229,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
 
             ExecutionEngine engine = ExecutionEngineFactory.getEngine(ExecutionEngineType.DEFAULT, sourceCache,
                     targetCache, this.m_config.source.getVar(), this.m_config.target.getVar(), 0, 1.0);
+            engine.setResultCache(resultCache);
             IPlanner planner = ExecutionPlannerFactory.getPlanner(ExecutionPlannerType.DEFAULT, sC, tC);
             return engine.execute(spec, planner);
         } catch (Exception e) {
@@ -263,6 +250,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      *            include non-matches.
      */
     public void trimKnowledgeBases(AMapping trainingData) {
+        clearFitnessCache();
         trimmedSourceCache = sC;
         trimmedTargetCache = tC;
         if (trainingData.size() <= 0) {
@@ -293,13 +281,12 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      * @param value
      */
     public void setUseFullCaches(boolean value) {
+        clearFitnessCache();
         this.useFullCaches = value;
     }
 
     public LinkSpecification getMetric(IGPProgram p) {
-        Object[] args = {};
-        ProgramChromosome pc = p.getChromosome(0);
-        return (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
+        return getLinkSpecification(p);
     }
 
     public AMapping getReferenceMapping() {
@@ -314,6 +301,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      *            A Mapping holding all matches.
      */
     public void setReferenceMapping(AMapping referenceData) {
+        clearFitnessCache();
         reference = referenceData;
     }
 
@@ -324,6 +312,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      *            Mapping of matches, designated as such by an oracle.
      */
     public void addToReference(AMapping m) {
+        clearFitnessCache();
         logger.info("Filling reference of size " + reference.size() + " with " + m.size() + " additional matches.");
         for (Entry<String, HashMap<String, Double>> e1 : m.getMap().entrySet()) {
             for (Entry<String, Double> e2 : e1.getValue().entrySet()) {
@@ -334,6 +323,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
     }
 
     public void fillCachesIncrementally(AMapping matches) {
+        clearFitnessCache();
         for (String sUri : matches.getMap().keySet())
             for (String tUri : matches.getMap().get(sUri).keySet()) {
                 if (!trimmedSourceCache.containsUri(sUri)) {
@@ -355,6 +345,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
     }
 
     public void setCaches(ACache sC, ACache tC) {
+        clearFitnessCache();
         this.sC = sC;
         this.tC = tC;
     }
@@ -1,21 +1,183 @@
 package org.aksw.limes.core.ml.algorithm.eagle.core;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.aksw.limes.core.execution.engine.ExecutionContext;
+import org.aksw.limes.core.execution.engine.ResultCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.jgap.gp.GPFitnessFunction;
+import org.jgap.gp.GPProgramBase;
+import org.jgap.gp.IGPProgram;
+import org.jgap.gp.impl.GPPopulation;
+import org.jgap.gp.impl.ProgramChromosome;
 
 /**
+ * Base class of EAGLEs fitness functions. The fitness of a program only
+ * depends on the link specification it encodes, so the fitness values are
+ * memoized per link specification: GP populations hold many duplicate
+ * individuals. Only the {@value #FITNESS_CACHE_SIZE} most recently used
+ * fitness values are kept, as the evolution keeps creating new link
+ * specifications. Link specifications are executed concurrently by
+ * {@link #calculateFitness(GPPopulation)}, hence implementations of
+ * {@link #calculateFitness(LinkSpecification)} must not change the state of
+ * the fitness function. Whenever that state is changed, e.g. the reference
+ * mapping or the caches, {@link #clearFitnessCache()} has to be called.
+ * The link specifications of a run share the mappings of their atomic
+ * measures through {@link #resultCache}.
+ *
  * @author Tommaso Soru (tsoru@informatik.uni-leipzig.de)
  *
  */
 public abstract class IGPFitnessFunction extends GPFitnessFunction implements IFitnessFunction {
 
 	/**
-	 * 
+	 *
 	 */
 	private static final long serialVersionUID = -94163100342394354L;
-	
+
+	/** Maximal number of fitness values kept by {@link #getFitness} */
+	public static final int FITNESS_CACHE_SIZE = 10000;
+
+	/** Fitness values of the recently evaluated link specifications */
+	private final Map<String, Double> fitnessCache = Collections
+			.synchronizedMap(new LinkedHashMap<String, Double>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+					return size() > FITNESS_CACHE_SIZE;
+				}
+			});
+
+	/** Mappings of the atomic measures executed in this run */
+	protected final transient ResultCache resultCache = new ResultCache();
+
 	public abstract void addToReference(AMapping m);
-	
+
 	public abstract void fillCachesIncrementally(AMapping matches);
-	
+
+	/**
+	 * Calculates the fitness of a link specification. May be called by several
+	 * threads at the same time.
+	 *
+	 * @param spec
+	 *            link specification
+	 * @return Double value. The closer to 0 the better.
+	 */
+	protected abstract double calculateFitness(LinkSpecification spec);
+
+	@Override
+	protected double evaluate(IGPProgram a_subject) {
+		return calculateRawFitness(a_subject);
+	}
+
+	/**
+	 * Calculates the fitness of the given GP program or returns the memoized
+	 * fitness of its link specification.
+	 *
+	 * @param p
+	 *            GP program
+	 * @return Double value. The closer to 0 the better.
+	 */
+	@Override
+	public double calculateRawFitness(IGPProgram p) {
+		return getFitness(getLinkSpecification(p));
+	}
+
+	/**
+	 * Calculates the fitness of all programs of the population that have not
+	 * been evaluated yet. The programs are executed one after the other, as they
+	 * share the stack and memory of the GP configuration, whereas the distinct
+	 * link specifications they encode are executed concurrently.
+	 *
+	 * @param population
+	 *            GP population
+	 */
+	public void calculateFitness(GPPopulation population) {
+		List<IGPProgram> programs = new ArrayList<>();
+		List<String> keys = new ArrayList<>();
+		// the values of this population, they may be evicted from the cache meanwhile
+		Map<String, Double> fitness = new HashMap<>();
+		Map<String, LinkSpecification> pending = new LinkedHashMap<>();
+		for (IGPProgram p : population.getGPPrograms()) {
+			if (p == null || (p instanceof GPProgramBase && ((GPProgramBase) p).getFitnessValueDirectly() >= 0)) {
+				continue;
+			}
+			LinkSpecification spec = getLinkSpecification(p);
+			String key = getKey(spec);
+			Double cached = fitnessCache.get(key);
+			if (cached != null) {
+				fitness.put(key, cached);
+			} else {
+				pending.put(key, spec);
+			}
+			programs.add(p);
+			keys.add(key);
+		}
+		List<Callable<Double>> tasks = new ArrayList<>();
+		for (LinkSpecification spec : pending.values()) {
+			tasks.add(() -> getFitness(spec));
+		}
+		List<Double> results = ExecutionContext.invokeAll(tasks);
+		int t = 0;
+		for (String key : pending.keySet()) {
+			fitness.put(key, results.get(t++));
+		}
+		for (int i = 0; i < programs.size(); i++) {
+			programs.get(i).setFitnessValue(fitness.get(keys.get(i)));
+		}
+	}
+
+	/**
+	 * Computes the link specification of a GP program.
+	 *
+	 * @param p
+	 *            GP program
+	 * @return the link specification encoded by p
+	 */
+	public LinkSpecification getLinkSpecification(IGPProgram p) {
+		synchronized (p.getGPConfiguration()) {
+			p.getGPConfiguration().clearStack();
+			p.getGPConfiguration().clearMemory();
+			Object[] args = {};
+			ProgramChromosome pc = p.getChromosome(0);
+			return (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
+		}
+	}
+
+	/**
+	 * @param spec
+	 *            link specification
+	 * @return the memoized fitness of spec
+	 */
+	protected double getFitness(LinkSpecification spec) {
+		String key = getKey(spec);
+		Double fitness = fitnessCache.get(key);
+		if (fitness == null) {
+			fitness = calculateFitness(spec);
+			fitnessCache.put(key, fitness);
+		}
+		return fitness;
+	}
+
+	/**
+	 * Forgets all memoized fitness values and mappings.
+	 */
+	public void clearFitnessCache() {
+		fitnessCache.clear();
+		if (resultCache != null) {
+			resultCache.clear();
+		}
+	}
+
+	private static String getKey(LinkSpecification spec) {
+		return spec.toString();
+	}
 }
@@ -1,5 +1,7 @@
 package org.aksw.limes.core.ml.algorithm.eagle.core;
 
+import java.util.List;
+
 import org.aksw.limes.core.datastrutures.GoldStandard;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoFMeasure;
 import org.aksw.limes.core.execution.engine.ExecutionEngine;
@@ -12,8 +14,8 @@ import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
 import org.jgap.gp.IGPProgram;
-import org.jgap.gp.impl.ProgramChromosome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,8 +35,17 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
     private static final long serialVersionUID = -7114137172832439294L;
     static Logger logger = LoggerFactory.getLogger("LIMES");
     private static PseudoFMeasureFitnessFunction instance = null;
+    /**
+     * @deprecated not used to compute the fitness any more: link
+     *             specifications are executed concurrently and engines hold
+     *             their intermediate mappings, so every execution creates its
+     *             own engine
+     */
+    @Deprecated
     public ExecutionEngine engine;
     ACache sourceCache, targetCache;
+    /** URIs of the caches, needed by the pseudo recall of every mapping */
+    private List<String> sourceUris, targetUris;
     LinkSpecGeneticLearnerConfig config;
     double beta = 1.0d;
 
@@ -72,27 +83,19 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
         }
     }
 
-    @Override
-    protected double evaluate(IGPProgram program) {
-        return calculateRawFitness(program);
-    }
-
     /**
-     * Determine fitness of the individual p;
+     * Determine fitness of the link specification;
      *
-     * @param p
-     *            GP programs
+     * @param spec
+     *            link specification
      * @return 1-PseudoFMeasure. Or if something wents wrong either 5d, iff p
      *         isn't fulfilling all constraints. 8d if executing p results in
      *         memory error.
      */
-    public double calculateRawFitness(IGPProgram p) {
-        double pseudoFMeasure = calculatePseudoMeasure(p);
+    @Override
+    protected double calculateFitness(LinkSpecification spec) {
+        double pseudoFMeasure = calculatePseudoMeasure(spec);
         if (!(pseudoFMeasure >= 0d && pseudoFMeasure <= 1d)) {
-            Object[] args = {};
-            ProgramChromosome pc = null;
-            pc = p.getChromosome(0);
-            LinkSpecification spec = (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
             logger.info("LS: " + spec);
             logger.error("Pseudo Measure was not in [0,1]");
             System.out.println("Pseudo Measure for (" + spec + ") was not in [0,1]");
@@ -106,15 +109,14 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
     }
 
     public AMapping calculateMapping(IGPProgram p) {
-        // execute individual
-        Object[] args = {};
-        ProgramChromosome pc = null;
-        pc = p.getChromosome(0);
+        return calculateMapping(getLinkSpecification(p));
+    }
+
+    private AMapping calculateMapping(LinkSpecification spec) {
         AMapping actualMapping = MappingFactory.createDefaultMapping();
-        LinkSpecification spec = (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
         // get Mapping
         try {
-            actualMapping = getMapping(sourceCache, targetCache, spec);
+            actualMapping = getMapping(sourceCache, targetCache, spec, MappingType.COMPACT_MAPPING);
         } catch (java.lang.OutOfMemoryError e) {
             e.printStackTrace(); // should not happen
 
@@ -129,10 +131,14 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
      * @return PseudoMeasure
      */
     public Double calculatePseudoMeasure(IGPProgram p) {
+        return calculatePseudoMeasure(getLinkSpecification(p));
+    }
+
+    private double calculatePseudoMeasure(LinkSpecification spec) {
         // mapping
-        AMapping mapping = calculateMapping(p);
+        AMapping mapping = calculateMapping(spec);
         // gold standard is not needed by pseudoFM
-        GoldStandard gold = new GoldStandard(mapping, sourceCache, targetCache);
+        GoldStandard gold = new GoldStandard(mapping, getSourceUris(), getTargetUris());
         return pfm.calculate(mapping, gold, beta);
     }
 
@@ -145,7 +151,16 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
      * @return Mapping m={sURI, tURI} of all pairs who satisfy the metric.
      */
     public AMapping getMapping(ACache sC, ACache tC, LinkSpecification spec) {
+        return getMapping(sC, tC, spec, MappingType.DEFAULT);
+    }
+
+    private AMapping getMapping(ACache sC, ACache tC, LinkSpecification spec, MappingType type) {
         try {
+            // engines hold the intermediate mappings, so each call needs its own
+            ExecutionEngine engine = ExecutionEngineFactory.getEngine(ExecutionEngineType.DEFAULT, sourceCache,
+                    targetCache, config.source.getVar(), config.target.getVar(), 0, 1.0);
+            engine.setMappingType(type);
+            engine.setResultCache(resultCache);
             IPlanner planner = ExecutionPlannerFactory.getPlanner(ExecutionPlannerType.DEFAULT, sC, tC);
             return engine.execute(spec, planner);
         } catch (Exception e) {
@@ -159,10 +174,25 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
 
     }
 
+    private synchronized List<String> getSourceUris() {
+        if (sourceUris == null) {
+            sourceUris = sourceCache.getAllUris();
+        }
+        return sourceUris;
+    }
+
+    private synchronized List<String> getTargetUris() {
+        if (targetUris == null) {
+            targetUris = targetCache.getAllUris();
+        }
+        return targetUris;
+    }
+
     /**
      * Needed between several runs
      */
     public void destroy() {
+        clearFitnessCache();
         instance = null;
     }
 
@@ -171,6 +201,7 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
     }
 
     public void setMeasure(PseudoFMeasure pfm) {
+        clearFitnessCache();
         this.pfm = pfm;
     }
 
@@ -179,6 +210,7 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
     }
 
     public void setBeta(double beta) {
+        clearFitnessCache();
         this.beta = beta;
     }
 
@@ -225,16 +225,8 @@ public class DefaultClassMapper implements OntologyClassMapper {
                         for (String instance : instanceToInstanceMap.get(bValue)) {
                             TreeSet<String> set = instanceToClassMap.get(instance);
                             for (String clas : set) {
-                                if (classToClassMapping.getMap().containsKey(x)) {
-                                    if (classToClassMapping.getMap().get(x).containsKey(clas)) {
-                                        classToClassMapping.getMap().get(x).put(clas,
-                                                classToClassMapping.getMap().get(x).get(clas) + 1);
-                                    } else {
-                                        classToClassMapping.getMap().get(x).put(clas, 1.0);
-                                    }
-                                } else {
-                                    classToClassMapping.add(x, clas, 1);
-                                }
+                                // add keeps the higher similarity, i.e., the incremented count
+                                classToClassMapping.add(x, clas, classToClassMapping.getConfidence(x, clas) + 1);
                             }
                         }
                     } catch (Exception e) {
@@ -349,11 +341,7 @@ public class DefaultClassMapper implements OntologyClassMapper {
                                 y = soln.get("y").toString();
                                 //logger.debug(y);
                                 sim = classToClass.getConfidence(className, y);
-                                if (sim > 0) {
-                                    classToClass.getMap().get(className).put(y, sim + 1);
-                                } else {
-                                    classToClass.add(className, y, 1.0);
-                                }
+                                classToClass.add(className, y, sim + 1);
 
                             } catch (Exception e) {
                                 e.printStackTrace();
@@ -194,11 +194,7 @@ public class DefaultPropertyMapper implements PropertyMapper{
                             try {
                                 p = soln.get("p").toString();
                                 sim = propertyToProperty.getConfidence(property, p);
-                                if (sim > 0) {
-                                    propertyToProperty.getMap().get(property).put(p, sim + 1);
-                                } else {
-                                    propertyToProperty.add(property, p, 1.0);
-                                }
+                                propertyToProperty.add(property, p, sim + 1);
 
                             } catch (Exception e) {
                                 e.printStackTrace();
@@ -10,6 +10,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.aksw.limes.core.datastrutures.GoldStandard;
 import org.aksw.limes.core.datastrutures.Tree;
@@ -17,9 +18,11 @@ import org.aksw.limes.core.evaluation.qualititativeMeasures.FMeasure;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.Precision;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoFMeasure;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.Recall;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.execution.engine.ExecutionEngine;
 import org.aksw.limes.core.execution.engine.ExecutionEngineFactory;
 import org.aksw.limes.core.execution.engine.ExecutionEngineFactory.ExecutionEngineType;
+import org.aksw.limes.core.execution.engine.ResultCache;
 import org.aksw.limes.core.execution.engine.SimpleExecutionEngine;
 import org.aksw.limes.core.execution.planning.plan.Instruction;
 import org.aksw.limes.core.execution.planning.plan.Plan;
@@ -66,6 +69,9 @@ public abstract class AWombat extends ACoreMLAlgorithm {
     public static final String PARAMETER_ATOMIC_MEASURES = "atomic measures";
     public static final String PARAMETER_SAVE_MAPPING = "save mapping";
     public static final String PARAMETER_FMEASURE_BETA = "beta";
+    public static final String PARAMETER_THRESHOLD_SWEEP = "threshold sweep";
+    public static final String PARAMETER_MAPPING_CACHE_SIZE = "mapping cache size";
+    public static final String PARAMETER_PRUNING = "pruning";
     public static List<String> sourceUris;
     public static List<String> targetUris;
     static Logger logger = LoggerFactory.getLogger(AWombat.class);
@@ -84,6 +90,9 @@ public abstract class AWombat extends ACoreMLAlgorithm {
     protected Set<String> wombatParameterNames = new HashSet<>();
     protected ACache sourceSample = new HybridCache();
     protected ACache targetSample = new HybridCache();
+    protected MappingCache mappingCache = new MappingCache(0);
+    /** Mappings of the atomic measures executed since the last init */
+    protected ResultCache resultCache = new ResultCache(0);
 
     protected AWombat() {
         super();
@@ -129,6 +138,7 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         Instruction inst = new Instruction(Instruction.Command.RUN, measureExpression, threshold + "", -1, -1, -1);
         ExecutionEngine ee = ExecutionEngineFactory.getEngine(ExecutionEngineType.DEFAULT, sourceCache, targetCache,
                 "?" + sourceVariable, "?" + targetVariable, 0, 1.0);
+        ee.setResultCache(resultCache);
         Plan plan = new Plan();
         plan.addInstruction(inst);
         return ((SimpleExecutionEngine) ee).executeInstructions(plan);
@@ -153,6 +163,7 @@ public abstract class AWombat extends ACoreMLAlgorithm {
     /**
      * Looks first for the input metricExpression in the already constructed
      * tree, if found the corresponding mapping is returned. Otherwise, the
+     * mapping is taken from the mapping cache or, if it is not cached, the
      * SetConstraintsMapper is generate the mapping from the metricExpression.
      *
      * @param metricExpression
@@ -165,9 +176,13 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         if (saveMapping()) {
             map = getMappingOfMetricFromTree(metricExpression, root);
         }
+        if (map == null) {
+            map = mappingCache.get(metricExpression);
+        }
         if (map == null) {
             double threshold = Double.parseDouble(metricExpression.substring(metricExpression.lastIndexOf("|") + 1));
             map = executeLS(new LinkSpecification(metricExpression, threshold), sourceCache, targetCache);
+            mappingCache.put(metricExpression, map);
         }
         return map;
     }
@@ -221,6 +236,7 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         ExecutionEngine engine = ExecutionEngineFactory.getEngine(ExecutionEngineType.DEFAULT, sCache, tCache,
                 "?" + sourceVariable, "?" + targetVariable, 0, 1.0);
         assert engine != null;
+        engine.setResultCache(resultCache);
         AMapping resultMap = engine.execute(rwLs, planner);
         return resultMap.getSubMap(ls.getThreshold());
     }
@@ -230,6 +246,8 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         super.init(lp, sourceCache, targetCache);
         sourcePropertiesCoverageMap = LinearSelfConfigurator.getPropertyStats(sourceCache, getMinPropertyCoverage());
         targetPropertiesCoverageMap = LinearSelfConfigurator.getPropertyStats(targetCache, getMinPropertyCoverage());
+        mappingCache = new MappingCache(getMappingCacheSize());
+        resultCache = new ResultCache();
     }
 
     public boolean isUnsupervised() {
@@ -284,20 +302,24 @@ public abstract class AWombat extends ACoreMLAlgorithm {
     }
 
     /**
+     * Computes the initial classifiers of all property pairs and atomic
+     * measures. The classifiers are computed in parallel in the pool of the
+     * {@link ExecutionContext}.
+     *
      * @return initial classifiers
      */
     protected final List<ExtendedClassifier> findInitialClassifiers() {
         logger.debug("Geting all initial classifiers ...");
-        List<ExtendedClassifier> initialClassifiers = new ArrayList<>();
+        Set<String> measures = getAtomicMeasures();
+        List<Callable<ExtendedClassifier>> tasks = new ArrayList<>();
         for (String p : sourcePropertiesCoverageMap.keySet()) {
             for (String q : targetPropertiesCoverageMap.keySet()) {
-                for (String m : getAtomicMeasures()) {
-                    ExtendedClassifier cp = findInitialClassifier(p, q, m);
-                    // only add if classifier covers all entries
-                    initialClassifiers.add(cp);
+                for (String m : measures) {
+                    tasks.add(() -> findInitialClassifier(p, q, m));
                 }
             }
         }
+        List<ExtendedClassifier> initialClassifiers = new ArrayList<>(ExecutionContext.invokeAll(tasks));
         logger.debug("Done computing all initial classifiers.");
         return initialClassifiers;
     }
@@ -312,7 +334,11 @@ public abstract class AWombat extends ACoreMLAlgorithm {
 
     /**
      * Computes the atomic classifiers by finding the highest possible F-measure
-     * achievable on a given property pair
+     * achievable on a given property pair. The thresholds are decreased from 1
+     * by the property learning rate. In threshold sweep mode, the measure is
+     * executed once with the smallest of these thresholds and the mappings of
+     * the larger ones are derived from its similarities. Otherwise, the
+     * measure is executed once per threshold.
      *
      * @param sourceProperty
      *            Property of source to use
@@ -328,13 +354,32 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         AMapping bestMapping = MappingFactory.createDefaultMapping();
 
         double minThreshold = this.getThreshold(measure);
+        List<Double> thresholds = new ArrayList<>();
         for (double threshold = 1d; threshold > minThreshold; threshold = threshold * getPropertyLearningRate()) {
-            AMapping mapping = executeAtomicMeasure(sourceProperty, targetProperty, measure, threshold);
-            double overlap = fMeasure(mapping);
-            if (maxOverlap < overlap) {
-                theta = threshold;
-                maxOverlap = overlap;
-                bestMapping = mapping;
+            thresholds.add(threshold);
+        }
+        if (isThresholdSweep() && !thresholds.isEmpty()) {
+            double lowest = thresholds.get(thresholds.size() - 1);
+            AMapping mapping = executeAtomicMeasure(sourceProperty, targetProperty, measure, lowest);
+            double[] overlaps = sweepFMeasures(mapping, thresholds);
+            for (int i = 0; i < thresholds.size(); i++) {
+                if (maxOverlap < overlaps[i]) {
+                    theta = thresholds.get(i);
+                    maxOverlap = overlaps[i];
+                }
+            }
+            if (maxOverlap > 0) {
+                bestMapping = theta == lowest ? mapping : mapping.getSubMap(theta);
+            }
+        } else {
+            for (double threshold : thresholds) {
+                AMapping mapping = executeAtomicMeasure(sourceProperty, targetProperty, measure, threshold);
+                double overlap = fMeasure(mapping);
+                if (maxOverlap < overlap) {
+                    theta = threshold;
+                    maxOverlap = overlap;
+                    bestMapping = mapping;
+                }
             }
         }
         ExtendedClassifier cp = new ExtendedClassifier(measure, theta, sourceProperty, targetProperty);
@@ -343,6 +388,91 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         return cp;
     }
 
+    /**
+     * Computes the F-measures of the links of a mapping that pass each of the
+     * given thresholds. The real F-measure is computed from the sorted
+     * similarities of all links and of the true positive links, the
+     * pseudo-F-measure from the sub-mapping of each threshold.
+     *
+     * @param mapping
+     *            Mapping computed with the smallest threshold
+     * @param thresholds
+     *            Thresholds in descending order
+     * @return F-measure of each threshold
+     */
+    private double[] sweepFMeasures(AMapping mapping, List<Double> thresholds) {
+        double[] result = new double[thresholds.size()];
+        if (isUnsupervised) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = fMeasure(i == result.length - 1 ? mapping : mapping.getSubMap(thresholds.get(i)));
+            }
+            return result;
+        }
+        double[] similarities = new double[mapping.size()];
+        double[] truePositives = new double[mapping.size()];
+        int links = 0;
+        int truePositiveLinks = 0;
+        for (String s : mapping.getMap().keySet()) {
+            for (Map.Entry<String, Double> t : mapping.getMap().get(s).entrySet()) {
+                similarities[links++] = t.getValue();
+                if (trainingData.contains(s, t.getKey()) && trainingData.getMap().get(s).get(t.getKey()) > 0) {
+                    truePositives[truePositiveLinks++] = t.getValue();
+                }
+            }
+        }
+        Arrays.sort(similarities, 0, links);
+        Arrays.sort(truePositives, 0, truePositiveLinks);
+        double references = (double) trainingData.getNumberofPositiveMappings();
+        double beta2 = Math.pow(getBeta(), 2);
+        for (int i = 0; i < result.length; i++) {
+            double threshold = thresholds.get(i);
+            int predicted = links - lowerBound(similarities, links, threshold);
+            double tp = truePositiveLinks - lowerBound(truePositives, truePositiveLinks, threshold);
+            // as computed by FMeasure
+            double p = predicted == 0 ? 0 : tp / (double) predicted;
+            double r = predicted == 0 ? 0 : tp / references;
+            result[i] = p + r > 0d ? (1 + beta2) * p * r / ((beta2 * p) + r) : 0d;
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the first of the n sorted values that is not smaller
+     *         than key
+     */
+    private static int lowerBound(double[] values, int n, double key) {
+        int from = 0;
+        int to = n;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (values[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Computes an upper bound of the F-measure of all mappings that are
+     * subsets of the input mapping, i.e., the F-measure of the mapping with
+     * the same recall and a precision of 1. Only the real F-measure has such
+     * a bound.
+     *
+     * @param predictions
+     *            Mapping
+     * @return upper bound of the F-measure or 1 in the unsupervised case
+     */
+    protected final double maxFMeasureOfSubsets(AMapping predictions) {
+        if (isUnsupervised) {
+            return 1d;
+        }
+        double r = recall(predictions);
+        double beta2 = Math.pow(getBeta(), 2);
+        return r > 0d ? (1 + beta2) * r / (beta2 + r) : 0d;
+    }
+
     /**
      * Get the most promising node as the node with the best F-score
      *
@@ -446,6 +576,9 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         double complexityPenaltyWeight = 1;
         double beta = 1;
         boolean saveMapping = true;
+        boolean thresholdSweep = true;
+        long mappingCacheSize = 1000000;
+        boolean pruning = false;
         double minPropertyCoverage = 0.4;
         double propertyLearningRate = 0.9;
         double overallPenaltyWeight = 0.5d;
@@ -481,6 +614,24 @@ public abstract class AWombat extends ACoreMLAlgorithm {
                 PARAMETER_ATOMIC_MEASURES));
         learningParameters.add(new LearningParameter(PARAMETER_SAVE_MAPPING, saveMapping, Boolean.class, 0, 1, 0,
                 PARAMETER_SAVE_MAPPING));
+        learningParameters.add(new LearningParameter(PARAMETER_THRESHOLD_SWEEP, thresholdSweep, Boolean.class, 0, 1, 0,
+                PARAMETER_THRESHOLD_SWEEP));
+        learningParameters.add(new LearningParameter(PARAMETER_MAPPING_CACHE_SIZE, mappingCacheSize, Long.class, 0d,
+                Long.MAX_VALUE, 1000d, PARAMETER_MAPPING_CACHE_SIZE));
+        learningParameters.add(new LearningParameter(PARAMETER_PRUNING, pruning, Boolean.class, 0, 1, 0,
+                PARAMETER_PRUNING));
+    }
+
+    protected long getMappingCacheSize() {
+        return Long.parseLong(getParameter(PARAMETER_MAPPING_CACHE_SIZE).toString());
+    }
+
+    protected boolean isPruning() {
+        return Boolean.parseBoolean(getParameter(PARAMETER_PRUNING).toString());
+    }
+
+    protected boolean isThresholdSweep() {
+        return Boolean.parseBoolean(getParameter(PARAMETER_THRESHOLD_SWEEP).toString());
     }
 
     protected boolean isVerbose() {
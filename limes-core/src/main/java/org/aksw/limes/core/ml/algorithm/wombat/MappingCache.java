@@ -0,0 +1,83 @@
+package org.aksw.limes.core.ml.algorithm.wombat;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+
+/**
+ * Least recently used cache of the mappings of metric expressions as
+ * computed by {@link AWombat}. The size of the cache is measured in links,
+ * i.e., the least recently used mappings are evicted as soon as their total
+ * number of links exceeds the capacity. Mappings with more links than the
+ * capacity are not cached at all. The metric expressions are normalized by
+ * removing all white space.
+ */
+public class MappingCache {
+
+    private final long capacity;
+    private long size = 0;
+    private final LinkedHashMap<String, AMapping> mappings = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param capacity
+     *            maximal total number of links of the cached mappings
+     */
+    public MappingCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param metricExpression
+     *            metric expression
+     * @return the cached mapping of the metric expression or null
+     */
+    public synchronized AMapping get(String metricExpression) {
+        return mappings.get(normalize(metricExpression));
+    }
+
+    /**
+     * Caches the mapping of a metric expression and evicts the least recently
+     * used mappings as long as the capacity is exceeded.
+     *
+     * @param metricExpression
+     *            metric expression
+     * @param mapping
+     *            mapping of the metric expression
+     */
+    public synchronized void put(String metricExpression, AMapping mapping) {
+        if (mapping.size() > capacity) {
+            return;
+        }
+        AMapping old = mappings.put(normalize(metricExpression), mapping);
+        if (old != null) {
+            size -= old.size();
+        }
+        size += mapping.size();
+        Iterator<Map.Entry<String, AMapping>> eldest = mappings.entrySet().iterator();
+        while (size > capacity) {
+            size -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    public synchronized void clear() {
+        mappings.clear();
+        size = 0;
+    }
+
+    /**
+     * @return the number of cached mappings
+     */
+    public synchronized int size() {
+        return mappings.size();
+    }
+
+    private static String normalize(String metricExpression) {
+        return metricExpression.replaceAll("\\s", "");
+    }
+}
@@ -2,7 +2,15 @@ package org.aksw.limes.core.util.datetime;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalField;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.TimeZone;
 
 /**
  * Enum class of the allowed date and time formats. Allowed formats are devised
@@ -34,16 +42,94 @@ public enum DateTimeFormat {
     FORMAT8("yyyy-MM"), 
     FORMAT9("yyyy");
 
+    // calendars that convert the parsed fields, one per thread
+    private static final ThreadLocal<Calendar> CALENDARS = ThreadLocal.withInitial(Calendar::getInstance);
+
     private String pattern;
+    // thread-safe parser of the time stamps that match the pattern exactly
+    private final DateTimeFormatter formatter;
 
     DateTimeFormat(String value) {
         pattern = value;
+        formatter = DateTimeFormatter.ofPattern(value.replace('y', 'u')).withResolverStyle(ResolverStyle.STRICT);
     }
 
     public String getPattern() {
         return this.pattern;
     }
 
+    /**
+     * Parses a time stamp with this format. The result is the same as the
+     * result of a SimpleDateFormat of the pattern, but the time stamps that
+     * match the pattern exactly are parsed without a SimpleDateFormat.
+     *
+     * @param timeStamp,
+     *            the input time stamp
+     * @return the milliseconds since the epoch of the time stamp
+     * @throws ParseException
+     *             if the format does not accept the time stamp
+     */
+    public long parseEpoch(String timeStamp) throws ParseException {
+        Long epoch = parseWellFormed(timeStamp);
+        if (epoch != null)
+            return epoch;
+        return new SimpleDateFormat(pattern).parse(timeStamp).getTime();
+    }
+
+    /**
+     * Returns the epoch value of a time stamp, parsed with the first format
+     * that accepts it, as {@link #getDate(String)} does. A time stamp that
+     * matches one of the patterns exactly is not accepted by any of the
+     * preceding formats, so these time stamps are parsed without a
+     * SimpleDateFormat. This method is thread-safe.
+     *
+     * @param timeStamp,
+     *            the input time stamp
+     * @return the milliseconds since the epoch of the time stamp
+     */
+    public static long getEpoch(String timeStamp) {
+        for (DateTimeFormat format : DateTimeFormat.values()) {
+            Long epoch = format.parseWellFormed(timeStamp);
+            if (epoch != null)
+                return epoch;
+        }
+        return getDate(timeStamp).getTime();
+    }
+
+    /**
+     * Parses a time stamp that matches the pattern exactly. The parsed fields
+     * are converted by the calendar of the current thread, in the same way as
+     * SimpleDateFormat converts them.
+     *
+     * @param timeStamp,
+     *            the input time stamp
+     * @return the milliseconds since the epoch of the time stamp or null
+     */
+    private Long parseWellFormed(String timeStamp) {
+        TemporalAccessor parsed;
+        try {
+            parsed = formatter.parse(timeStamp);
+        } catch (DateTimeException e) {
+            return null;
+        }
+        Calendar calendar = CALENDARS.get();
+        calendar.clear();
+        calendar.setTimeZone(TimeZone.getDefault());
+        calendar.set(get(parsed, ChronoField.YEAR, 1970), get(parsed, ChronoField.MONTH_OF_YEAR, 1) - 1,
+                get(parsed, ChronoField.DAY_OF_MONTH, 1), get(parsed, ChronoField.HOUR_OF_DAY, 0),
+                get(parsed, ChronoField.MINUTE_OF_HOUR, 0), get(parsed, ChronoField.SECOND_OF_MINUTE, 0));
+        calendar.set(Calendar.MILLISECOND, get(parsed, ChronoField.MILLI_OF_SECOND, 0));
+        if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+            calendar.set(Calendar.ZONE_OFFSET, get(parsed, ChronoField.OFFSET_SECONDS, 0) * 1000);
+            calendar.set(Calendar.DST_OFFSET, 0);
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    private static int get(TemporalAccessor parsed, TemporalField field, int defaultValue) {
+        return parsed.isSupported(field) ? (int) parsed.getLong(field) : defaultValue;
+    }
+
     /**
      * Returns the Date value of a time stamp
      *
@@ -6,6 +6,7 @@ package org.aksw.limes.core.evaluation;
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -13,9 +14,12 @@ import java.util.Set;
 
 import org.aksw.limes.core.datastrutures.GoldStandard;
 import org.aksw.limes.core.evaluation.evaluator.EvaluatorType;
+import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoPrecision;
+import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoRecall;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.QualitativeMeasuresEvaluator;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -170,6 +174,28 @@ public class QualitativeMeasuresTest {
 
 	}
 
+	@Test
+	public void testPseudoMeasuresOfCompactMapping() {
+		AMapping m = MappingFactory.createDefaultMapping();
+		m.add("S1", "T1", 1);
+		m.add("S1", "T2", 0.5);
+		m.add("S1", "T3", 0.5);
+		m.add("S2", "T1", 1);
+		m.add("S3", "T4", 0);
+		GoldStandard gs = new GoldStandard(null, Arrays.asList("S1", "S2", "S3", "S4"),
+				Arrays.asList("T1", "T2", "T3", "T4", "T5"));
+		for (AMapping predictions : Arrays.asList(m, MappingFactory.convert(m, MappingType.COMPACT_MAPPING))) {
+			assertEquals(0.625, new PseudoPrecision(true).calculate(predictions, gs), epsilon);
+			assertEquals(0.5, new PseudoPrecision(false).calculate(predictions, gs), epsilon);
+			assertEquals(7.0 / 9.0, new PseudoRecall().calculate(predictions, gs), epsilon);
+		}
+		AMapping compact = MappingFactory.convert(predWithNeg, MappingType.COMPACT_MAPPING);
+		Map<EvaluatorType, Double> calculations = testQualitativeEvaluator(compact, gold1toNWithNeg, initEvalMeasures());
+		assertEquals(0.8, calculations.get(EvaluatorType.P_PRECISION), epsilon);
+		assertEquals(0.5294117, calculations.get(EvaluatorType.P_RECALL), epsilon);
+		assertEquals(0.637168, calculations.get(EvaluatorType.PF_MEASURE), epsilon);
+	}
+
     private Map<EvaluatorType, Double> testQualitativeEvaluator(AMapping predictions, GoldStandard gs, Set<EvaluatorType> evaluationMeasure) {
         return new QualitativeMeasuresEvaluator().evaluate(predictions, gs, evaluationMeasure);
     }
@@ -0,0 +1,82 @@
+package org.aksw.limes.core.execution.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ExecutionContextTest {
+
+    private final int parallelism = ExecutionContext.getParallelism();
+
+    @After
+    public void resetParallelism() {
+        ExecutionContext.setParallelism(parallelism);
+    }
+
+    private static List<Callable<Integer>> createTasks(int n) {
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < n; i++) {
+            int x = i;
+            tasks.add(() -> x * x);
+        }
+        return tasks;
+    }
+
+    @Test
+    public void testResultOrder() {
+        ExecutionContext.setParallelism(4);
+        List<Integer> results = ExecutionContext.invokeAll(createTasks(100));
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * i, (int) results.get(i));
+        }
+    }
+
+    @Test
+    public void testSingleThread() {
+        ExecutionContext.setParallelism(1);
+        Thread caller = Thread.currentThread();
+        List<Callable<Thread>> tasks = new ArrayList<Callable<Thread>>();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(() -> Thread.currentThread());
+        }
+        for (Thread t : ExecutionContext.invokeAll(tasks)) {
+            assertTrue(t == caller);
+        }
+    }
+
+    @Test
+    public void testNestedTasks() {
+        // more nested tasks than threads must not block the pool
+        ExecutionContext.setParallelism(2);
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(() -> {
+                int sum = 0;
+                for (int x : ExecutionContext.invokeAll(createTasks(10))) {
+                    sum += x;
+                }
+                return sum;
+            });
+        }
+        for (int sum : ExecutionContext.invokeAll(tasks)) {
+            assertEquals(285, sum);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testException() {
+        ExecutionContext.setParallelism(2);
+        List<Callable<Integer>> tasks = createTasks(5);
+        tasks.add(() -> {
+            throw new IllegalStateException();
+        });
+        ExecutionContext.invokeAll(tasks);
+    }
+}
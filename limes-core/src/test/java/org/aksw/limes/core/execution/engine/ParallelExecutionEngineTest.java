@@ -0,0 +1,172 @@
+package org.aksw.limes.core.execution.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.aksw.limes.core.execution.planning.planner.CanonicalPlanner;
+import org.aksw.limes.core.execution.planning.planner.DynamicPlanner;
+import org.aksw.limes.core.execution.planning.planner.HeliosPlanner;
+import org.aksw.limes.core.execution.planning.planner.IPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelExecutionEngineTest {
+    public ACache source = new MemoryCache();
+    public ACache target = new MemoryCache();
+    private ForkJoinPool pool;
+
+    private static final String[] SPECS = {
+            "OR(qgrams(x.surname,y.surname)|0.4,trigrams(x.name,y.name)|0.4)",
+            "AND(euclidean(x.age,y.age)|0.5,qgrams(x.name,y.name)|0.5)",
+            "MINUS(trigrams(x.name,y.name)|0.3,qgrams(x.surname,y.surname)|0.8)",
+            "XOR(qgrams(x.surname,y.surname)|0.4,trigrams(x.name,y.name)|0.4)",
+            "OR(AND(euclidean(x.age,y.age)|0.5,jaccard(x.name,y.name)|0.3)|0.3,"
+                    + "OR(MINUS(trigrams(x.name,y.name)|0.3,qgrams(x.surname,y.surname)|0.8)|0.3,"
+                    + "cosine(x.surname,y.surname)|0.5)|0.3)",
+            "AND(OR(levenshtein(x.surname,y.surname)|0.3,trigrams(x.name,y.name)|0.4)|0.3,"
+                    + "OR(euclidean(x.age,y.age)|0.2,jaro(x.name,y.name)|0.6)|0.2)" };
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        source = new MemoryCache();
+        target = new MemoryCache();
+        // create source cache
+        source.addTriple("S1", "surname", "georgala");
+        source.addTriple("S1", "name", "kleanthi");
+        source.addTriple("S1", "age", "26");
+
+        source.addTriple("S2", "surname", "sandra");
+        source.addTriple("S2", "name", "lukas");
+        source.addTriple("S2", "age", "13");
+
+        source.addTriple("S3", "surname", "depp");
+        source.addTriple("S3", "name", "johny");
+        source.addTriple("S3", "age", "52");
+
+        source.addTriple("S4", "surname", "swift");
+        source.addTriple("S4", "name", "taylor,maria");
+        source.addTriple("S4", "age", "25");
+
+        source.addTriple("S5", "surname", "paok");
+        source.addTriple("S5", "name", "ole");
+        source.addTriple("S5", "age", "56");
+
+        target.addTriple("T1", "surname", "georg");
+        target.addTriple("T1", "name", "klea");
+        target.addTriple("T1", "age", "26");
+
+        target.addTriple("T2", "surname", "sandra");
+        target.addTriple("T2", "name", "lukas");
+        target.addTriple("T2", "age", "13");
+
+        target.addTriple("T3", "surname", "derp");
+        target.addTriple("T3", "name", "johnny");
+        target.addTriple("T3", "age", "52");
+
+        target.addTriple("T4", "surname", "swift");
+        target.addTriple("T4", "name", "taylor");
+        target.addTriple("T4", "age", "25");
+
+        target.addTriple("T5", "surname", "paok");
+        target.addTriple("T5", "name", "oleole");
+        target.addTriple("T5", "age", "56");
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+        source = null;
+        target = null;
+    }
+
+    private void compareWithSimpleEngine(String plannerName) {
+        for (String expression : SPECS) {
+            SimpleExecutionEngine simple = new SimpleExecutionEngine(source, target, "?x", "?y");
+            ParallelExecutionEngine parallel = new ParallelExecutionEngine(source, target, "?x", "?y", pool);
+            AMapping expected = simple.execute(new LinkSpecification(expression, 0.3), createPlanner(plannerName));
+            AMapping m = parallel.execute(new LinkSpecification(expression, 0.3), createPlanner(plannerName));
+            assertEquals(plannerName + ": " + expression, expected, m);
+        }
+    }
+
+    private IPlanner createPlanner(String plannerName) {
+        if (plannerName.equals("canonical")) {
+            return new CanonicalPlanner();
+        } else if (plannerName.equals("helios")) {
+            return new HeliosPlanner(source, target);
+        }
+        return new DynamicPlanner(source, target);
+    }
+
+    @Test
+    public void testCanonical() {
+        compareWithSimpleEngine("canonical");
+    }
+
+    @Test
+    public void testHelios() {
+        compareWithSimpleEngine("helios");
+    }
+
+    @Test
+    public void testDynamic() {
+        compareWithSimpleEngine("dynamic");
+    }
+
+    private void compareStreamedLinks(String plannerName) {
+        for (String expression : SPECS) {
+            SimpleExecutionEngine simple = new SimpleExecutionEngine(source, target, "?x", "?y");
+            AMapping expected = simple.execute(new LinkSpecification(expression, 0.3), createPlanner(plannerName));
+            ExecutionEngine[] engines = { new SimpleExecutionEngine(source, target, "?x", "?y"),
+                    new ParallelExecutionEngine(source, target, "?x", "?y", pool) };
+            for (ExecutionEngine engine : engines) {
+                AMapping m = MappingFactory.createDefaultMapping();
+                int[] count = new int[1];
+                engine.execute(new LinkSpecification(expression, 0.3), createPlanner(plannerName), (s, t, sim) -> {
+                    count[0]++;
+                    m.add(s, t, sim);
+                });
+                assertEquals(plannerName + ": " + expression, expected, m);
+                // every link is pushed exactly once
+                assertEquals(plannerName + ": " + expression, expected.getNumberofMappings(), count[0]);
+            }
+        }
+    }
+
+    @Test
+    public void testStreaming() {
+        compareStreamedLinks("canonical");
+        compareStreamedLinks("helios");
+        compareStreamedLinks("dynamic");
+    }
+
+    @Test
+    public void testCommonPool() {
+        ParallelExecutionEngine parallel = new ParallelExecutionEngine(source, target, "?x", "?y");
+        AMapping m = parallel.execute(new LinkSpecification(SPECS[0], 0.4), new CanonicalPlanner());
+        assertTrue(m.getNumberofMappings() > 0);
+    }
+
+    @Test
+    public void testParallelismChangedAfterConstruction() {
+        int parallelism = ExecutionContext.getParallelism();
+        try {
+            ParallelExecutionEngine parallel = new ParallelExecutionEngine(source, target, "?x", "?y");
+            ExecutionContext.getPool();
+            ExecutionContext.setParallelism(parallelism == 2 ? 3 : 2);
+            AMapping m = parallel.execute(new LinkSpecification(SPECS[0], 0.4), new CanonicalPlanner());
+            assertTrue(m.getNumberofMappings() > 0);
+        } finally {
+            ExecutionContext.setParallelism(parallelism);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.aksw.limes.core.execution.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.aksw.limes.core.execution.planning.planner.CanonicalPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultCacheTest {
+
+    private ResultCache cache;
+    private ACache source;
+    private ACache target;
+
+    @Before
+    public void setUp() {
+        cache = new ResultCache();
+        source = new MemoryCache();
+        target = new MemoryCache();
+        String[] names = { "kleanthi", "lukas", "johny", "taylor", "ole" };
+        String[] others = { "klea", "lukas", "johnny", "taylor", "oleole" };
+        for (int i = 0; i < names.length; i++) {
+            source.addTriple("S" + i, "name", names[i]);
+            target.addTriple("T" + i, "name", others[i]);
+        }
+    }
+
+    private AMapping get(String expression, double threshold) {
+        return cache.get(source, target, "?x", "?y", expression, threshold, MappingType.DEFAULT);
+    }
+
+    @Test
+    public void testGetAndPut() {
+        AMapping m = MappingFactory.createDefaultMapping();
+        m.add("S0", "T0", 0.5);
+        m.add("S1", "T1", 1.0);
+        assertTrue(cache.put(source, target, "?x", "?y", "trigrams(x.name, y.name)", 0.5, m));
+        AMapping cached = get("trigrams(x.name,y.name)", 0.5);
+        assertEquals(m.getMap(), cached.getMap());
+        cached.add("S2", "T2", 1.0);
+        assertEquals(2, get("trigrams(x.name,y.name)", 0.5).size());
+        AMapping filtered = get("trigrams(x.name,y.name)", 0.7);
+        assertEquals(1, filtered.size());
+        assertTrue(filtered.contains("S1", "T1"));
+        assertNull(get("trigrams(x.name,y.name)", 0.3));
+        assertNull(get("trigrams(x.name,y.surname)", 0.5));
+        assertNull(cache.get(source, target, "?s", "?t", "trigrams(x.name,y.name)", 0.5, MappingType.DEFAULT));
+        assertFalse(cache.put(source, target, "?x", "?y", "trigrams(x.name,y.name)", 0.7, m));
+        source.addTriple("S5", "name", "paok");
+        assertNull(get("trigrams(x.name,y.name)", 0.5));
+    }
+
+    @Test
+    public void testChangedInstance() {
+        AMapping m = MappingFactory.createDefaultMapping();
+        m.add("S0", "T0", 0.5);
+        assertTrue(cache.put(source, target, "?x", "?y", "trigrams(x.name,y.name)", 0.5, m));
+        // same size, but a changed value
+        target.getInstance("T0").addProperty("name", "kleanthi");
+        assertNull(get("trigrams(x.name,y.name)", 0.5));
+    }
+
+    @Test
+    public void testThresholdDependentMeasure() {
+        AMapping m = MappingFactory.createDefaultMapping();
+        m.add("S0", "T0", 0.9);
+        m.add("S1", "T1", 1.0);
+        assertTrue(cache.put(source, target, "?x", "?y", "jarowinkler(x.name,y.name)", 0.5, m));
+        assertEquals(m.getMap(), get("jarowinkler(x.name,y.name)", 0.5).getMap());
+        assertNull(get("jarowinkler(x.name,y.name)", 0.95));
+    }
+
+    @Test
+    public void testCapacity() {
+        cache.setCapacity(3);
+        AMapping m = MappingFactory.createDefaultMapping();
+        m.add("S0", "T0", 0.5);
+        m.add("S1", "T1", 1.0);
+        assertTrue(cache.put(source, target, "?x", "?y", "trigrams(x.name,y.name)", 0.5, m));
+        assertTrue(cache.put(source, target, "?x", "?y", "qgrams(x.name,y.name)", 0.5, m));
+        assertEquals(1, cache.size());
+        assertNull(get("trigrams(x.name,y.name)", 0.5));
+        AMapping large = MappingFactory.createDefaultMapping();
+        large.add("S0", "T0", 0.5);
+        large.add("S1", "T1", 1.0);
+        large.add("S2", "T2", 1.0);
+        assertFalse(cache.put(source, target, "?x", "?y", "trigrams(x.name,y.name)", 0.5, large));
+        cache.setCapacity(0);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExecuteRun() {
+        LinkSpecification low = new LinkSpecification("trigrams(x.name,y.name)", 0.3);
+        LinkSpecification high = new LinkSpecification("trigrams(x.name,y.name)", 0.6);
+        AMapping expectedLow = execute(low, null);
+        AMapping expectedHigh = execute(high, null);
+        assertTrue(expectedHigh.size() < expectedLow.size());
+
+        cache.setCapacity(0);
+        assertEquals(expectedLow.getMap(), execute(low, cache).getMap());
+        assertEquals(0, cache.size());
+
+        cache.setCapacity(ResultCache.DEFAULT_CAPACITY);
+        AMapping m = execute(low);
+        assertEquals(expectedLow.getMap(), m.getMap());
+        assertEquals(1, cache.size());
+        m.getMap().clear();
+        assertEquals(expectedHigh.getMap(), execute(high).getMap());
+        assertEquals(expectedLow.getMap(), execute(low).getMap());
+    }
+
+    private AMapping execute(LinkSpecification spec) {
+        return execute(spec, cache);
+    }
+
+    private AMapping execute(LinkSpecification spec, ResultCache results) {
+        SimpleExecutionEngine engine = new SimpleExecutionEngine(source, target, "?x", "?y");
+        engine.setResultCache(results);
+        return engine.execute(spec, new CanonicalPlanner());
+    }
+}
@@ -1,5 +1,6 @@
 package org.aksw.limes.core.execution.engine;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.aksw.limes.core.execution.engine.filter.LinearFilter;
@@ -686,5 +687,37 @@ public class SimpleExecutionEngineTest {
         System.out.println("---------------------------------");
 
     }
-    
+
+    @Test
+    public void testTopologicalRuns() {
+        ACache places = new MemoryCache();
+        places.addTriple("P1", "geom", "POINT (1 1)");
+        places.addTriple("P2", "geom", "POINT (2 1)");
+        places.addTriple("P3", "geom", "POINT (5 5)");
+        places.addTriple("P4", "geom", "LINESTRING (1 1, 3 1)");
+        ACache regions = new MemoryCache();
+        regions.addTriple("R1", "geom", "POLYGON ((0 0, 2 0, 2 2, 0 2, 0 0))");
+        regions.addTriple("R2", "geom", "POLYGON ((2 0, 4 0, 4 2, 2 2, 2 0))");
+
+        String[] specs = { "OR(top_within(x.geom,y.geom)|1.0,top_touches(x.geom,y.geom)|1.0)",
+                "MINUS(top_intersects(x.geom,y.geom)|1.0,top_within(x.geom,y.geom)|1.0)",
+                "OR(top_crosses(x.geom,y.geom)|1.0,top_disjoint(x.geom,y.geom)|1.0)" };
+        String[][][] links = { { { "P1", "R1" }, { "P2", "R1" }, { "P2", "R2" } },
+                { { "P2", "R1" }, { "P2", "R2" }, { "P4", "R1" }, { "P4", "R2" } },
+                { { "P4", "R1" }, { "P4", "R2" }, { "P1", "R2" }, { "P3", "R1" }, { "P3", "R2" } } };
+        for (int i = 0; i < specs.length; i++) {
+            AMapping expected = MappingFactory.createDefaultMapping();
+            for (String[] link : links[i]) {
+                expected.add(link[0], link[1], 1.0d);
+            }
+            ExecutionEngine[] engines = { new SimpleExecutionEngine(places, regions, "?x", "?y"),
+                    new ParallelExecutionEngine(places, regions, "?x", "?y") };
+            for (ExecutionEngine engine : engines) {
+                // the sibling measures are computed by one batched call
+                AMapping m = engine.execute(new LinkSpecification(specs[i], 1.0), new CanonicalPlanner());
+                assertEquals(specs[i], expected, m);
+            }
+        }
+    }
+
 }
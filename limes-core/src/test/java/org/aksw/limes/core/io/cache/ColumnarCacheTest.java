@@ -0,0 +1,239 @@
+package org.aksw.limes.core.io.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.preprocessing.Preprocessor;
+import org.aksw.limes.core.measures.mapper.space.HR3Mapper;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.complex.BeforeMapper;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.complex.DuringMapper;
+import org.aksw.limes.core.measures.mapper.temporal.simpleTemporal.ConcurrentMapper;
+import org.aksw.limes.core.measures.mapper.topology.IntersectsMapper;
+import org.aksw.limes.core.util.datetime.DateTimeFormat;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnarCacheTest {
+
+    private ColumnarCache cache;
+    private MemoryCache reference;
+
+    private void addTriple(String s, String p, String o) {
+        cache.addTriple(s, p, o);
+        reference.addTriple(s, p, o);
+    }
+
+    @Before
+    public void prepareData() {
+        cache = new ColumnarCache();
+        reference = new MemoryCache();
+        for (int i = 0; i < 40; i++) {
+            String uri = "http://example.org/" + i;
+            addTriple(uri, "label", "label " + i);
+            if (i % 3 == 0) {
+                addTriple(uri, "number", "" + i);
+            }
+        }
+        addTriple("http://example.org/0", "label", "a first label");
+        addTriple("http://example.org/0", "label", "zero");
+        addTriple("http://example.org/0", "label", "zero");
+        addTriple("http://example.org/3", "number", "three");
+        addTriple("http://example.org/3", "number", "3.5");
+    }
+
+    @Test
+    public void testContent() {
+        assertEquals(reference.size(), cache.size());
+        for (String uri : reference.getAllUris()) {
+            assertTrue(cache.containsUri(uri));
+            assertEquals(reference.getInstance(uri), cache.getInstance(uri));
+        }
+        assertEquals(reference.getAllProperties(), cache.getAllProperties());
+        assertFalse(cache.containsUri("http://example.org/unknown"));
+        assertNull(cache.getInstance("http://example.org/unknown"));
+        assertArrayEquals(new String[] { "a first label", "label 0", "zero" },
+                cache.getValues(cache.getPropertyId("label"), cache.getId("http://example.org/0")));
+        assertEquals(-1, cache.getPropertyId("unknown"));
+        assertEquals("number", cache.getPropertyName(cache.getPropertyId("number")));
+    }
+
+    @Test
+    public void testIteratorAndClone() {
+        int count = 0;
+        for (Instance i = cache.getNextInstance(); i != null; i = cache.getNextInstance()) {
+            assertEquals(reference.getInstance(i.getUri()), i);
+            count++;
+        }
+        assertEquals(reference.size(), count);
+        cache.resetIterator();
+        assertEquals(cache.getUri(0), cache.getNextInstance().getUri());
+        assertEquals(cache, cache.clone());
+    }
+
+    @Test
+    public void testAddAndReplaceInstance() {
+        Instance i = new Instance("http://example.org/1");
+        i.addProperty("label", "ignored");
+        cache.addInstance(i);
+        assertEquals(reference.getInstance("http://example.org/1"), cache.getInstance("http://example.org/1"));
+
+        cache.replaceInstance("http://example.org/1", i);
+        assertEquals(i, cache.getInstance("http://example.org/1"));
+        assertFalse(cache.getAllProperties().isEmpty());
+
+        Instance copy = cache.getInstance("http://example.org/2");
+        copy.addProperty("label", "detached");
+        assertFalse(cache.getInstance("http://example.org/2").getProperty("label").contains("detached"));
+    }
+
+    @Test
+    public void testPreprocessing() {
+        Map<String, Map<String, String>> functions = new HashMap<>();
+        Map<String, String> chain = new HashMap<>();
+        chain.put("upperLabel", "uppercase");
+        functions.put("label", chain);
+        ACache processed = Preprocessor.applyFunctionsToCache(cache, functions);
+        Preprocessor.applyFunctionsToCache(reference, functions);
+        assertEquals(reference.size(), processed.size());
+        for (String uri : reference.getAllUris()) {
+            assertEquals(reference.getInstance(uri), processed.getInstance(uri));
+        }
+        assertEquals(new TreeSet<>(Arrays.asList("LABEL 1")),
+                processed.getInstance("http://example.org/1").getProperty("upperLabel"));
+        assertTrue(processed.getInstance("http://example.org/1").getProperty("label").isEmpty());
+    }
+
+    @Test
+    public void testNumericColumn() {
+        NumericColumn column = cache.getNumericColumn("number");
+        assertEquals(cache.size(), column.size());
+        int id = cache.getId("http://example.org/3");
+        // "three" is not a number and is left out
+        assertArrayEquals(new double[] { 3, 3.5 }, column.getValues(id), 0);
+        assertEquals(0, column.getNumberOfValues(cache.getId("http://example.org/1")));
+        assertSame(column, cache.getNumericColumn("number"));
+
+        cache.addTriple("http://example.org/1", "number", "1");
+        NumericColumn updated = cache.getNumericColumn("number");
+        assertEquals(1, updated.getNumberOfValues(cache.getId("http://example.org/1")));
+        assertEquals(0, cache.getNumericColumn("unknown").getNumberOfValues(0));
+    }
+
+    @Test
+    public void testTemporalColumn() {
+        cache.addTriple("http://example.org/0", "begin", "2015-05-20T08:21:04+02:00");
+        cache.addTriple("http://example.org/1", "begin", "2015-05-20T08:21:04.500+02:00");
+        cache.addTriple("http://example.org/2", "begin", "not a date");
+        TemporalColumn column = cache.getTemporalColumn("begin");
+
+        int index = column.getStart(cache.getId("http://example.org/0"));
+        assertEquals(DateTimeFormat.FORMAT3, column.getFormat(index));
+        assertEquals(DateTimeFormat.getDate("2015-05-20T08:21:04+02:00").getTime(), column.getValue(index));
+
+        index = column.getStart(cache.getId("http://example.org/1"));
+        assertEquals(DateTimeFormat.FORMAT1, column.getFormat(index));
+        assertEquals(DateTimeFormat.getDate("2015-05-20T08:21:04.500+02:00").getTime(), column.getValue(index));
+
+        assertNull(column.getFormat(column.getStart(cache.getId("http://example.org/2"))));
+    }
+
+    @Test
+    public void testGeometryColumn() {
+        cache.addTriple("http://example.org/0", "asWKT", "POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))");
+        cache.addTriple("http://example.org/1", "asWKT", "POLYGON ((0 0, 0 10");
+        GeometryColumn column = cache.getGeometryColumn("asWKT");
+        assertEquals(100, column.getValue(column.getStart(cache.getId("http://example.org/0"))).getArea(), 0);
+        assertNull(column.getValue(column.getStart(cache.getId("http://example.org/1"))));
+    }
+
+    private static ColumnarCache toColumnarCache(ACache c) {
+        ColumnarCache columnar = new ColumnarCache();
+        for (Instance i : c.getAllInstances()) {
+            columnar.addInstance(i);
+        }
+        return columnar;
+    }
+
+    @Test
+    public void testHR3Mapper() {
+        MemoryCache source = new MemoryCache();
+        MemoryCache target = new MemoryCache();
+        for (int i = 0; i < 30; i++) {
+            source.addTriple("S" + i, "lat", "" + (i * 0.7));
+            source.addTriple("S" + i, "long", "" + (i * 1.3 % 11));
+            target.addTriple("T" + i, "lat", "" + (i * 0.65 + 0.2));
+            target.addTriple("T" + i, "long", "" + (i * 1.1 % 11));
+        }
+        source.addTriple("S3", "lat", "4.4");
+        target.addTriple("T5", "long", "0.5");
+        String expression = "euclidean(x.lat|long, y.lat|long)";
+        AMapping expected = new HR3Mapper().getMapping(source, target, "?x", "?y", expression, 0.5);
+        AMapping m = new HR3Mapper().getMapping(toColumnarCache(source), toColumnarCache(target), "?x", "?y",
+                expression, 0.5);
+        assertTrue(expected.getNumberofMappings() > 0);
+        assertEquals(expected, m);
+    }
+
+    @Test
+    public void testTemporalMappers() {
+        MemoryCache source = new MemoryCache();
+        MemoryCache target = new MemoryCache();
+        String[] times = { "08:21", "08:24", "08:31", "08:41", "08:51", "09:21" };
+        for (int i = 0; i < times.length; i++) {
+            source.addTriple("S" + i, "b", "2015-05-20T" + times[i] + ":04+02:00");
+            source.addTriple("S" + i, "e", "2015-05-20T" + times[(i + 2) % times.length] + ":04+02:00");
+            source.addTriple("S" + i, "m", "" + (i % 2));
+            target.addTriple("T" + i, "b", "2015-05-20T" + times[(i + 1) % times.length] + ":04+02:00");
+            target.addTriple("T" + i, "e", "2015-05-20T" + times[(i + 3) % times.length] + ":04+02:00");
+            target.addTriple("T" + i, "m", "" + (i % 3));
+        }
+        ColumnarCache columnarSource = toColumnarCache(source);
+        ColumnarCache columnarTarget = toColumnarCache(target);
+
+        String expression = "tmp_before(x.b|e, y.b|e)";
+        assertEquals(new BeforeMapper().getMapping(source, target, "?x", "?y", expression, 1.0),
+                new BeforeMapper().getMapping(columnarSource, columnarTarget, "?x", "?y", expression, 1.0));
+        expression = "tmp_during(x.b|e, y.b|e)";
+        assertEquals(new DuringMapper().getMapping(source, target, "?x", "?y", expression, 1.0),
+                new DuringMapper().getMapping(columnarSource, columnarTarget, "?x", "?y", expression, 1.0));
+        expression = "tmp_concurrent(x.b|m, y.b|m)";
+        assertEquals(new ConcurrentMapper().getMapping(source, target, "?x", "?y", expression, 0.5),
+                new ConcurrentMapper().getMapping(columnarSource, columnarTarget, "?x", "?y", expression, 0.5));
+    }
+
+    @Test
+    public void testRADON() {
+        MemoryCache source = new MemoryCache();
+        MemoryCache target = new MemoryCache();
+        source.addTriple("http://test.com/s/#1", "asWKT", "POLYGON ((-1 -1, -1 11, 11 11, 11 -1, -1 -1))");
+        source.addTriple("http://test.com/s/#2", "asWKT", "POLYGON ((-10 -10, 0 10, 10 10, 10 0, -10 -10))");
+        source.addTriple("http://test.com/s/#3", "asWKT", "POLYGON ((-10 -10");
+        target.addTriple("http://test.com/t/#1", "asWKT", "POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))");
+        target.addTriple("http://test.com/t/#2", "asWKT", "POLYGON ((-10 -10, -10 -20, -20 -20, -20 -10, -10 -10))");
+        String expression = "top_intersects(x.asWKT, y.asWKT)";
+        AMapping expected = new IntersectsMapper().getMapping(source, target, "?x", "?y", expression, 1.0);
+        AMapping m = new IntersectsMapper().getMapping(toColumnarCache(source), toColumnarCache(target), "?x", "?y",
+                expression, 1.0);
+        assertTrue(expected.getNumberofMappings() > 0);
+        assertEquals(expected, m);
+    }
+
+    @Test
+    public void testMultipleValuesAreSorted() {
+        ColumnarCache c = new ColumnarCache();
+        c.addTriple("s", "p", "c");
+        c.addTriple("s", "p", "a");
+        c.addTriple("s", "p", "b");
+        assertEquals(new TreeSet<String>(Arrays.asList("a", "b", "c")), c.getInstance("s").getProperty("p"));
+    }
+}
@@ -0,0 +1,178 @@
+package org.aksw.limes.core.io.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.aksw.limes.core.io.preprocessing.Preprocessor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileCacheTest {
+
+    // small buffer to force several spilled runs
+    private FileCache cache;
+    private MemoryCache reference;
+
+    @Before
+    public void prepareData() {
+        cache = new FileCache(7);
+        reference = new MemoryCache();
+        for (int i = 0; i < 50; i++) {
+            String uri = "http://example.org/" + ((i * 31) % 50);
+            cache.addTriple(uri, "label", "label " + i);
+            reference.addTriple(uri, "label", "label " + i);
+            if (i % 3 == 0) {
+                cache.addTriple(uri, "number", "" + i);
+                reference.addTriple(uri, "number", "" + i);
+            }
+        }
+        // second value for an instance that was already spilled
+        cache.addTriple("http://example.org/0", "label", "zero");
+        reference.addTriple("http://example.org/0", "label", "zero");
+    }
+
+    @After
+    public void cleanUp() {
+        cache.close();
+    }
+
+    @Test
+    public void testContent() {
+        assertEquals(reference.size(), cache.size());
+        for (String uri : reference.getAllUris()) {
+            assertTrue(cache.containsUri(uri));
+            assertEquals(reference.getInstance(uri), cache.getInstance(uri));
+        }
+        assertEquals(reference.getAllProperties(), cache.getAllProperties());
+        assertFalse(cache.containsUri("http://example.org/unknown"));
+        assertNull(cache.getInstance("http://example.org/unknown"));
+    }
+
+    @Test
+    public void testUrisAreSorted() {
+        ArrayList<String> expected = reference.getAllUris();
+        Collections.sort(expected);
+        assertEquals(expected, cache.getAllUris());
+    }
+
+    @Test
+    public void testGetNextInstance() {
+        cache.resetIterator();
+        int count = 0;
+        Instance i = cache.getNextInstance();
+        while (i != null) {
+            assertEquals(reference.getInstance(i.getUri()), i);
+            count++;
+            i = cache.getNextInstance();
+        }
+        assertEquals(reference.size(), count);
+    }
+
+    @Test
+    public void testWritesDuringIteration() {
+        cache.resetIterator();
+        int count = 0;
+        for (Instance i = cache.getNextInstance(); i != null; i = cache.getNextInstance()) {
+            // spills several runs without restarting the iteration
+            i.addProperty("visited", "" + count);
+            cache.replaceInstance(i.getUri(), i);
+            count++;
+        }
+        assertEquals(reference.size(), count);
+        assertEquals(reference.size(), cache.size());
+        for (String uri : reference.getAllUris()) {
+            assertEquals(1, cache.getInstance(uri).getProperty("visited").size());
+        }
+    }
+
+    @Test
+    public void testAddAndReplaceInstance() {
+        Instance existing = new Instance("http://example.org/1");
+        existing.addProperty("label", "ignored");
+        cache.addInstance(existing);
+        assertFalse(cache.getInstance("http://example.org/1").getProperty("label").contains("ignored"));
+
+        Instance replacement = new Instance("http://example.org/1");
+        replacement.addProperty("label", "replaced");
+        cache.replaceInstance("http://example.org/1", replacement);
+        assertEquals(new TreeSet<>(Collections.singleton("replaced")),
+                cache.getInstance("http://example.org/1").getProperty("label"));
+        assertEquals(reference.size(), cache.size());
+    }
+
+    @Test
+    public void testTriplesAfterAddInstance() {
+        // merges the spilled runs, the URIs below are on disk
+        assertEquals(reference.size(), cache.size());
+        Instance existing = new Instance("http://example.org/1");
+        existing.addProperty("label", "ignored");
+        Instance added = new Instance("http://example.org/new");
+        added.addProperty("label", "new");
+        for (ACache c : new ACache[] { cache, reference }) {
+            c.addInstance(existing);
+            c.addTriple("http://example.org/1", "label", "kept");
+            c.addInstance(added);
+            c.addTriple("http://example.org/new", "number", "1");
+        }
+        assertEquals(new TreeSet<>(Collections.singleton("ignored")), existing.getProperty("label"));
+        // once from the buffer, once after spilling and merging
+        for (int pass = 0; pass < 2; pass++) {
+            assertEquals(reference.getInstance("http://example.org/1"), cache.getInstance("http://example.org/1"));
+            assertEquals(reference.getInstance("http://example.org/new"), cache.getInstance("http://example.org/new"));
+            assertTrue(cache.getInstance("http://example.org/1").getProperty("label").contains("kept"));
+            assertEquals(reference.getAllUris().size(), cache.getAllUris().size());
+        }
+    }
+
+    @Test
+    public void testClone() {
+        FileCache cloned = cache.clone();
+        try {
+            assertTrue(cloned != cache);
+            assertEquals(cache, cloned);
+            assertEquals(cache.hashCode(), cloned.hashCode());
+            cloned.addTriple("http://example.org/new", "label", "new");
+            assertEquals(cache.size() + 1, cloned.size());
+        } finally {
+            cloned.close();
+        }
+    }
+
+    @Test
+    public void testBufferedWritesAreVisibleToLookups() {
+        assertEquals(reference.size(), cache.size());
+        cache.addTriple("http://example.org/2", "label", "buffered");
+        cache.addTriple("http://example.org/new", "label", "new");
+        assertTrue(cache.getInstance("http://example.org/2").getProperty("label").contains("buffered"));
+        assertTrue(cache.getInstance("http://example.org/2").getProperty("label").contains("label 42"));
+        assertTrue(cache.containsUri("http://example.org/new"));
+        // changing a returned copy does not change the buffered write
+        cache.getInstance("http://example.org/new").addProperty("label", "changed");
+        assertFalse(cache.getInstance("http://example.org/new").getProperty("label").contains("changed"));
+        assertEquals(reference.size() + 1, cache.size());
+    }
+
+    @Test
+    public void testPreprocessing() {
+        Map<String, Map<String, String>> functions = new HashMap<>();
+        Map<String, String> chain = new HashMap<>();
+        chain.put("upperLabel", "uppercase");
+        functions.put("label", chain);
+        ACache processed = Preprocessor.applyFunctionsToCache(cache, functions);
+        Preprocessor.applyFunctionsToCache(reference, functions);
+        assertEquals(reference.size(), processed.size());
+        for (String uri : reference.getAllUris()) {
+            assertEquals(reference.getInstance(uri), processed.getInstance(uri));
+            assertTrue(processed.getInstance(uri).getProperty("upperLabel").first().startsWith("LABEL"));
+        }
+    }
+}
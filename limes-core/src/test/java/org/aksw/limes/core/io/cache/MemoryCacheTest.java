@@ -1,6 +1,7 @@
 package org.aksw.limes.core.io.cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.aksw.limes.core.evaluation.evaluationDataLoader.DataSetChooser;
@@ -27,4 +28,20 @@ public class MemoryCacheTest {
 		assertTrue(cloned.getAllInstances() != cache.getAllInstances());
 		assertEquals(cache, cloned);
 	}
+
+	@Test
+	public void testModificationStamp() {
+		long stamp = cache.getModificationStamp();
+		cache.getAllInstances();
+		assertEquals(stamp, cache.getModificationStamp());
+		cache.addTriple("http://example.org/new", "name", "new");
+		assertNotEquals(stamp, cache.getModificationStamp());
+		stamp = cache.getModificationStamp();
+		// changed in place
+		cache.getInstance("http://example.org/new").addProperty("name", "newer");
+		assertNotEquals(stamp, cache.getModificationStamp());
+		stamp = cache.getModificationStamp();
+		cache.replaceInstance("http://example.org/new", new Instance("http://example.org/new"));
+		assertNotEquals(stamp, cache.getModificationStamp());
+	}
 }
@@ -0,0 +1,163 @@
+package org.aksw.limes.core.io.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.aksw.limes.core.execution.engine.SimpleExecutionEngine;
+import org.aksw.limes.core.execution.engine.filter.LinearFilter;
+import org.aksw.limes.core.execution.planning.planner.CanonicalPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
+import org.aksw.limes.core.measures.mapper.MappingOperations;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactMappingTest {
+
+    private CompactMapping mapping;
+    private AMapping reference;
+
+    @Before
+    public void prepareData() {
+        mapping = new CompactMapping();
+        reference = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 200; i++) {
+            String s = "http://example.org/s" + ((i * 31) % 50);
+            String t = "http://example.org/t" + ((i * 17) % 23);
+            double sim = ((i * 13) % 10) / 10d;
+            mapping.add(s, t, sim);
+            reference.add(s, t, sim);
+        }
+    }
+
+    private static void assertSameLinks(AMapping expected, AMapping m) {
+        assertEquals(expected.size(), m.size());
+        for (String s : expected.getMap().keySet()) {
+            for (String t : expected.getMap().get(s).keySet()) {
+                assertTrue(s + " " + t, m.contains(s, t));
+                assertEquals(expected.getConfidence(s, t), m.getConfidence(s, t), 0);
+            }
+        }
+        assertEquals(expected.getMap(), m.getMap());
+    }
+
+    private static AMapping createMapping(MappingType type, int offset) {
+        AMapping m = MappingFactory.createMapping(type);
+        for (int i = 0; i < 100; i++) {
+            m.add("s" + ((i + offset) % 13), "t" + ((i * 7 + offset) % 17), ((i + offset) % 10) / 10d);
+        }
+        return m;
+    }
+
+    @Test
+    public void testContent() {
+        assertSameLinks(reference, mapping);
+        assertEquals(reference.getNumberofPositiveMappings(), mapping.getNumberofPositiveMappings());
+        assertFalse(mapping.contains("http://example.org/s1", "http://example.org/unknown"));
+        assertEquals(0, mapping.getConfidence("http://example.org/unknown", "http://example.org/t1"), 0);
+        // a higher similarity replaces the stored one, a lower one is ignored
+        mapping.add("http://example.org/s0", "http://example.org/t0", 5);
+        mapping.add("http://example.org/s0", "http://example.org/t0", 0);
+        assertEquals(5, mapping.getConfidence("http://example.org/s0", "http://example.org/t0"), 0);
+        assertEquals(5, mapping.getMap().get("http://example.org/s0").get("http://example.org/t0"), 0);
+    }
+
+    @Test
+    public void testEqualsAcrossTypes() {
+        assertEquals(reference, mapping);
+        assertEquals(mapping, reference);
+        assertEquals(reference.hashCode(), mapping.hashCode());
+        AMapping file = MappingFactory.convert(reference, MappingType.FILE_MAPPING);
+        assertEquals(file, mapping);
+        assertEquals(mapping, file);
+        assertEquals(file.hashCode(), mapping.hashCode());
+        mapping.add("http://example.org/s0", "http://example.org/unknown", 1);
+        assertFalse(reference.equals(mapping));
+        assertFalse(mapping.equals(reference));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapIsReadOnly() {
+        mapping.getMap().get("http://example.org/s0").put("http://example.org/unknown", 1d);
+    }
+
+    @Test
+    public void testMapFollowsChanges() {
+        HashMap<String, HashMap<String, Double>> before = mapping.getMap();
+        assertTrue(before == mapping.getMap());
+        mapping.add("http://example.org/s0", "http://example.org/unknown", 1);
+        assertEquals(1, mapping.getMap().get("http://example.org/s0").get("http://example.org/unknown"), 0);
+        assertFalse(before.get("http://example.org/s0").containsKey("http://example.org/unknown"));
+    }
+
+    @Test
+    public void testDerivedMappings() {
+        for (double threshold : new double[] { 0, 0.3, 0.9, 1.1 }) {
+            assertSameLinks(reference.getSubMap(threshold), mapping.getSubMap(threshold));
+        }
+        assertSameLinks(reference.getOnlyPositiveExamples(), mapping.getOnlyPositiveExamples());
+        assertSameLinks(reference.reverseSourceTarget(), mapping.reverseSourceTarget());
+        assertSameLinks(reference.getBestOneToNMapping(), mapping.getBestOneToNMapping());
+        assertSameLinks(reference.getBestOneToOneMappings(reference), mapping.getBestOneToOneMappings(mapping));
+        assertEquals(mapping, CompactMapping.copyOf(reference));
+        assertEquals(mapping, mapping.reverseSourceTarget().reverseSourceTarget());
+    }
+
+    @Test
+    public void testSetOperations() {
+        AMapping m1 = createMapping(MappingType.DEFAULT, 0);
+        AMapping m2 = createMapping(MappingType.DEFAULT, 5);
+        CompactMapping c1 = (CompactMapping) createMapping(MappingType.COMPACT_MAPPING, 0);
+        // derived from c1, hence the merge runs on shared dictionaries
+        AMapping c2 = MappingOperations.union(c1.getSubMap(0.5), createMapping(MappingType.COMPACT_MAPPING, 5));
+        AMapping d2 = MappingOperations.union(m1.getSubMap(0.5), m2);
+        AMapping[][] operands = { { c1, c2 }, { c1, d2 }, { m1, c2 } };
+        for (AMapping[] o : operands) {
+            assertTrue(MappingOperations.union(o[0], o[1]) instanceof CompactMapping);
+            assertSameLinks(MappingOperations.union(m1, d2), MappingOperations.union(o[0], o[1]));
+            assertSameLinks(MappingOperations.intersection(m1, d2), MappingOperations.intersection(o[0], o[1]));
+            assertSameLinks(MappingOperations.difference(m1, d2), MappingOperations.difference(o[0], o[1]));
+            assertSameLinks(MappingOperations.difference(d2, m1), MappingOperations.difference(o[1], o[0]));
+        }
+    }
+
+    @Test
+    public void testConvert() {
+        AMapping m = MappingFactory.convert(reference, MappingType.COMPACT_MAPPING);
+        assertTrue(m instanceof CompactMapping);
+        assertSameLinks(reference, m);
+        assertTrue(m == MappingFactory.convert(m, MappingType.COMPACT_MAPPING));
+        assertTrue(reference == MappingFactory.convert(reference, MappingType.DEFAULT));
+        assertEquals(reference, MappingFactory.convert(m, MappingType.MEMORY_MAPPING));
+    }
+
+    @Test
+    public void testFilterAndEngine() {
+        LinearFilter filter = new LinearFilter(MappingType.COMPACT_MAPPING);
+        AMapping filtered = filter.filter(reference, 0.5);
+        assertTrue(filtered instanceof CompactMapping);
+        assertSameLinks(new LinearFilter().filter(reference, 0.5), filtered);
+
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        String[] names = { "kleanthi", "lukas", "johny", "taylor", "ole" };
+        for (int i = 0; i < names.length; i++) {
+            source.addTriple("S" + i, "name", names[i]);
+            target.addTriple("T" + i, "name", names[(i + 1) % names.length] + names[i].substring(1));
+        }
+        LinkSpecification spec = new LinkSpecification(
+                "OR(trigrams(x.name,y.name)|0.4,AND(qgrams(x.name,y.name)|0.3,jaccard(x.name,y.name)|0.2)|0.3)", 0.3);
+        SimpleExecutionEngine engine = new SimpleExecutionEngine(source, target, "?x", "?y");
+        AMapping expected = engine.execute(spec, new CanonicalPlanner());
+        engine = new SimpleExecutionEngine(source, target, "?x", "?y");
+        engine.setMappingType(MappingType.COMPACT_MAPPING);
+        AMapping m = engine.execute(spec, new CanonicalPlanner());
+        assertTrue(m instanceof CompactMapping);
+        assertSameLinks(expected, m);
+    }
+}
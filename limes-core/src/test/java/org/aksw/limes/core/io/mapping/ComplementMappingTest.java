@@ -0,0 +1,162 @@
+package org.aksw.limes.core.io.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aksw.limes.core.io.mapping.MappingFactory.MappingType;
+import org.aksw.limes.core.measures.mapper.MappingOperations;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ComplementMappingTest {
+
+    private List<String> sources;
+    private List<String> targets;
+    private AMapping excluded;
+    private ComplementMapping mapping;
+    private AMapping reference;
+
+    @Before
+    public void prepareData() {
+        sources = new ArrayList<>();
+        targets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sources.add("s" + i);
+        }
+        for (int i = 0; i < 15; i++) {
+            targets.add("t" + i);
+        }
+        excluded = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 60; i++) {
+            excluded.add("s" + ((i * 7) % 20), "t" + ((i * 11) % 15), 0.5d);
+        }
+        // links outside of S x T are ignored
+        excluded.add("s1", "unknown", 1.0d);
+        mapping = new ComplementMapping(sources, targets, excluded, 1.0d);
+        reference = MappingFactory.createDefaultMapping();
+        for (String s : sources) {
+            for (String t : targets) {
+                if (!excluded.contains(s, t)) {
+                    reference.add(s, t, 1.0d);
+                }
+            }
+        }
+    }
+
+    private static void assertSameLinks(AMapping expected, AMapping m) {
+        assertEquals(expected.getMap(), m.getMap());
+        assertEquals(expected.size(), m.size());
+        for (String s : expected.getMap().keySet()) {
+            for (String t : expected.getMap().get(s).keySet()) {
+                assertTrue(s + " " + t, m.contains(s, t));
+                assertEquals(expected.getConfidence(s, t), m.getConfidence(s, t), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testContent() {
+        assertSameLinks(reference, mapping);
+        assertEquals(reference.size(), mapping.getNumberOfLinks());
+        assertFalse(mapping.contains("s1", "unknown"));
+        assertEquals(0, mapping.getConfidence("unknown", "t1"), 0);
+        assertTrue(mapping.equals(reference));
+        assertTrue(reference.equals(mapping));
+        assertEquals(reference.hashCode(), mapping.hashCode());
+        AMapping changed = MappingFactory.createDefaultMapping();
+        reference.stream(changed::add);
+        changed.add("s1", "unknown", 1.0d);
+        assertFalse(mapping.equals(changed));
+        assertFalse(changed.equals(mapping));
+
+        AMapping streamed = MappingFactory.createDefaultMapping();
+        int[] count = new int[1];
+        mapping.stream((s, t, sim) -> {
+            count[0]++;
+            streamed.add(s, t, sim);
+        });
+        assertEquals(reference.size(), count[0]);
+        assertEquals(reference.getMap(), streamed.getMap());
+    }
+
+    @Test
+    public void testSize() {
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            many.add("u" + i);
+        }
+        AMapping excluded = MappingFactory.createDefaultMapping();
+        excluded.add("u1", "u2", 1.0d);
+        ComplementMapping large = new ComplementMapping(many, many, excluded, 1.0d);
+        assertEquals(10000000000L - 1, large.getNumberOfLinks());
+        assertEquals(Integer.MAX_VALUE, large.size());
+        assertFalse(large.contains("u1", "u2"));
+        assertTrue(large.contains("u2", "u1"));
+    }
+
+    @Test
+    public void testDerivedMappings() {
+        AMapping subMap = mapping.getSubMap(0.8);
+        assertTrue(subMap instanceof ComplementMapping);
+        assertSameLinks(reference, subMap);
+        assertEquals(0, mapping.getSubMap(1.1).size());
+        assertSameLinks(reference.reverseSourceTarget(), mapping.reverseSourceTarget());
+        assertSameLinks(reference, mapping.getBestOneToNMapping());
+        assertSame(mapping, MappingFactory.convert(mapping, MappingType.DEFAULT));
+        AMapping compact = MappingFactory.convert(mapping, MappingType.COMPACT_MAPPING);
+        assertTrue(compact instanceof CompactMapping);
+        assertSameLinks(reference, compact);
+        AMapping memory = MappingFactory.convert(mapping, MappingType.MEMORY_MAPPING);
+        assertTrue(memory instanceof MemoryMapping);
+        assertSameLinks(reference, memory);
+    }
+
+    @Test
+    public void testAdd() {
+        AMapping subMap = mapping.getSubMap(0.8);
+        mapping.add("s1", "unknown", 0.7d);
+        assertFalse(mapping.isComplement());
+        reference.add("s1", "unknown", 0.7d);
+        assertSameLinks(reference, mapping);
+        assertEquals(reference, mapping);
+        assertEquals(reference.hashCode(), mapping.hashCode());
+        // derived mappings do not share the changes
+        assertFalse(subMap.contains("s1", "unknown"));
+        assertSameLinks(MappingOperations.intersection(reference, subMap),
+                MappingOperations.intersection(mapping, subMap));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapIsReadOnly() {
+        mapping.getMap().get("s0").put("unknown", 1d);
+    }
+
+    @Test
+    public void testOperations() {
+        AMapping other = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 40; i++) {
+            other.add("s" + ((i * 3) % 25), "t" + ((i * 5) % 18), 0.6d);
+        }
+        AMapping difference = MappingOperations.difference(mapping, other);
+        assertTrue(difference instanceof ComplementMapping);
+        assertSameLinks(MappingOperations.difference(reference, other), difference);
+        assertSameLinks(MappingOperations.difference(other, reference), MappingOperations.difference(other, mapping));
+        assertSameLinks(MappingOperations.intersection(reference, other), MappingOperations.intersection(mapping, other));
+        assertSameLinks(MappingOperations.intersection(other, reference), MappingOperations.intersection(other, mapping));
+        assertSameLinks(MappingOperations.union(reference, other), MappingOperations.union(mapping, other));
+
+        ComplementMapping second = new ComplementMapping(sources.subList(5, 20), targets, other, 0.9d);
+        AMapping secondReference = MappingFactory.createDefaultMapping();
+        second.stream(secondReference::add);
+        AMapping intersection = MappingOperations.intersection(mapping, second);
+        assertTrue(intersection instanceof ComplementMapping);
+        assertSameLinks(MappingOperations.intersection(reference, secondReference), intersection);
+        assertSameLinks(MappingOperations.difference(reference, secondReference),
+                MappingOperations.difference(mapping, second));
+    }
+}
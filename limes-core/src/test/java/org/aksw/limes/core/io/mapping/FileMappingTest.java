@@ -0,0 +1,167 @@
+package org.aksw.limes.core.io.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.aksw.limes.core.measures.mapper.MappingOperations;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileMappingTest {
+
+    // small buffer to force several spilled runs
+    private FileMapping mapping;
+    private AMapping reference;
+
+    @Before
+    public void prepareData() {
+        mapping = new FileMapping(7);
+        reference = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 200; i++) {
+            String s = "http://example.org/s" + ((i * 31) % 50);
+            String t = "http://example.org/t" + ((i * 17) % 23);
+            double sim = ((i * 13) % 10) / 10d;
+            mapping.add(s, t, sim);
+            reference.add(s, t, sim);
+        }
+    }
+
+    @After
+    public void cleanUp() {
+        mapping.close();
+    }
+
+    private static void assertSameLinks(AMapping expected, AMapping m) {
+        assertEquals(expected.size(), m.size());
+        for (String s : expected.getMap().keySet()) {
+            for (String t : expected.getMap().get(s).keySet()) {
+                assertTrue(s + " " + t, m.contains(s, t));
+                assertEquals(expected.getConfidence(s, t), m.getConfidence(s, t), 0);
+            }
+        }
+        assertEquals(expected.getMap(), m.getMap());
+    }
+
+    @Test
+    public void testContent() {
+        assertSameLinks(reference, mapping);
+        assertEquals(reference.getNumberofPositiveMappings(), mapping.getNumberofPositiveMappings());
+        assertFalse(mapping.contains("http://example.org/s1", "http://example.org/unknown"));
+        assertEquals(0, mapping.getConfidence("http://example.org/unknown", "http://example.org/t1"), 0);
+        // a higher similarity replaces the stored one, a lower one is ignored
+        mapping.add("http://example.org/s0", "http://example.org/t0", 5);
+        mapping.add("http://example.org/s0", "http://example.org/t0", 0);
+        assertEquals(5, mapping.getConfidence("http://example.org/s0", "http://example.org/t0"), 0);
+    }
+
+    @Test
+    public void testManyLinks() {
+        FileMapping large = new FileMapping(100);
+        AMapping expected = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 3000; i++) {
+            large.add("s" + (i % 97), "t" + i, i / 3000d);
+            expected.add("s" + (i % 97), "t" + i, i / 3000d);
+        }
+        assertSameLinks(expected, large);
+        assertFalse(large.contains("s0", "t1"));
+        assertFalse(large.contains("s99", "t1"));
+        large.close();
+    }
+
+    @Test
+    public void testIteratorIsSorted() {
+        List<String> keys = new ArrayList<>();
+        for (FileMapping.Link link : mapping) {
+            keys.add(link.getSource() + " " + link.getTarget());
+            assertEquals(reference.getConfidence(link.getSource(), link.getTarget()), link.getSimilarity(), 0);
+        }
+        List<String> sorted = new ArrayList<>(keys);
+        sorted.sort(null);
+        assertEquals(sorted, keys);
+        assertEquals(reference.size(), keys.size());
+    }
+
+    @Test
+    public void testDerivedMappings() {
+        assertSameLinks(reference.getSubMap(0.5), mapping.getSubMap(0.5));
+        assertSameLinks(reference.getOnlyPositiveExamples(), mapping.getOnlyPositiveExamples());
+        assertSameLinks(reference.reverseSourceTarget(), mapping.reverseSourceTarget());
+        assertSameLinks(reference.getBestOneToNMapping(), mapping.getBestOneToNMapping());
+    }
+
+    @Test
+    public void testSetOperations() {
+        AMapping other = MappingFactory.createDefaultMapping();
+        FileMapping otherFile = new FileMapping(5);
+        for (int i = 0; i < 100; i++) {
+            String s = "http://example.org/s" + ((i * 7) % 60);
+            String t = "http://example.org/t" + ((i * 3) % 23);
+            other.add(s, t, ((i * 3) % 10) / 10d);
+            otherFile.add(s, t, ((i * 3) % 10) / 10d);
+        }
+        assertSameLinks(MappingOperations.union(reference, other), MappingOperations.union(mapping, other));
+        assertSameLinks(MappingOperations.intersection(reference, other),
+                MappingOperations.intersection(mapping, otherFile));
+        assertSameLinks(MappingOperations.difference(reference, other),
+                MappingOperations.difference(mapping, otherFile));
+        assertSameLinks(MappingOperations.difference(other, reference), MappingOperations.difference(other, mapping));
+        otherFile.close();
+    }
+
+    @Test
+    public void testEqualsAndSetMap() {
+        FileMapping copy = new FileMapping(3);
+        copy.setMap(reference.getMap());
+        assertEquals(mapping, copy);
+        assertEquals(mapping.hashCode(), copy.hashCode());
+        copy.add("http://example.org/new", "http://example.org/new", 1);
+        assertFalse(mapping.equals(copy));
+        copy.close();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapIsReadOnly() {
+        mapping.getMap().get("http://example.org/s0").put("http://example.org/unknown", 1d);
+    }
+
+    @Test
+    public void testMapFollowsChanges() {
+        FileMapping small = new FileMapping(1000);
+        small.add("http://example.org/s0", "http://example.org/t0", 1);
+        // before and after the first spill
+        for (FileMapping m : new FileMapping[] { small, mapping }) {
+            HashMap<String, HashMap<String, Double>> before = m.getMap();
+            m.add("http://example.org/s0", "http://example.org/unknown", 1);
+            assertEquals(1, m.getMap().get("http://example.org/s0").get("http://example.org/unknown"), 0);
+            assertFalse(before.get("http://example.org/s0").containsKey("http://example.org/unknown"));
+        }
+        small.close();
+    }
+
+    @Test
+    public void testHybridMapping() {
+        AMapping m = MappingFactory.createMapping(MappingFactory.MappingType.HYBIRD_MAPPING);
+        assertTrue(m instanceof HybridMapping);
+        HashMap<String, Double> targets = new HashMap<>();
+        targets.put("http://example.org/t", 0.5);
+        m.add("http://example.org/s", targets);
+        // the materialized map is kept until the next change
+        assertTrue(m.getMap() == m.getMap());
+        assertEquals(1, m.size());
+
+        HybridMapping small = new HybridMapping(10 * HybridMapping.BYTES_PER_LINK);
+        for (String s : reference.getMap().keySet()) {
+            small.add(s, reference.getMap().get(s));
+        }
+        assertSameLinks(reference, small);
+        assertTrue(small.getSubMap(0.5) instanceof HybridMapping);
+        small.close();
+        assertTrue(MappingFactory.createMapping(MappingFactory.MappingType.FILE_MAPPING) instanceof FileMapping);
+    }
+}
@@ -0,0 +1,88 @@
+package org.aksw.limes.core.io.serializer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.mapper.MappingOperations;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LinkStreamWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static TreeSet<String> readLines(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath());
+        return new TreeSet<String>(lines);
+    }
+
+    private void compareWithWriteToFile(String format) throws IOException {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 30; i++) {
+            m.add("http://example.com/s" + (i % 7), "http://example.com/t" + i, (i % 10) / 10d);
+        }
+        Map<String, String> prefixes = new HashMap<String, String>();
+        prefixes.put("owl", "http://www.w3.org/2002/07/owl#");
+
+        String accepted = folder.newFile().getAbsolutePath();
+        String verification = folder.newFile().getAbsolutePath();
+        ISerializer acceptanceOutput = SerializerFactory.createSerializer(format);
+        acceptanceOutput.setPrefixes(prefixes);
+        ISerializer verificationOutput = SerializerFactory.createSerializer(format);
+        verificationOutput.setPrefixes(prefixes);
+        try (LinkStreamWriter writer = new LinkStreamWriter(acceptanceOutput, "owl:sameAs", accepted,
+                verificationOutput, "owl:sameAs", verification, 0.7)) {
+            for (Entry<String, HashMap<String, Double>> s : m.getMap().entrySet()) {
+                for (Entry<String, Double> t : s.getValue().entrySet()) {
+                    writer.add(s.getKey(), t.getKey(), t.getValue());
+                }
+            }
+            assertEquals(9, writer.getAcceptanceSize());
+            assertEquals(21, writer.getVerificationSize());
+        }
+
+        String expectedAccepted = folder.newFile().getAbsolutePath();
+        String expectedVerification = folder.newFile().getAbsolutePath();
+        ISerializer output = SerializerFactory.createSerializer(format);
+        output.setPrefixes(prefixes);
+        AMapping acceptanceMapping = m.getSubMap(0.7);
+        output.writeToFile(acceptanceMapping, "owl:sameAs", expectedAccepted);
+        output.writeToFile(MappingOperations.difference(m, acceptanceMapping), "owl:sameAs", expectedVerification);
+
+        assertEquals(format, readLines(new File(expectedAccepted)), readLines(new File(accepted)));
+        assertEquals(format, readLines(new File(expectedVerification)), readLines(new File(verification)));
+    }
+
+    @Test
+    public void testNt() throws IOException {
+        compareWithWriteToFile("nt");
+    }
+
+    @Test
+    public void testTtl() throws IOException {
+        compareWithWriteToFile("ttl");
+    }
+
+    @Test
+    public void testCsv() throws IOException {
+        compareWithWriteToFile("csv");
+    }
+
+    @Test
+    public void testTab() throws IOException {
+        compareWithWriteToFile("tab");
+    }
+
+}
@@ -0,0 +1,144 @@
+package org.aksw.limes.core.measures.mapper.semantic.edgecounting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.AEdgeCountingSemanticMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.SyntheticHierarchy;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.measures.LCHMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.measures.ShortestPathMeasure;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.measures.WuPalmerMeasure;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EdgeCountingSemanticMapperTest {
+
+    private ACache source;
+    private ACache target;
+
+    @Before
+    public void prepareData() {
+        source = new MemoryCache();
+        target = new MemoryCache();
+        List<String> tokens = SyntheticHierarchy.getTokens();
+        int n = tokens.size();
+        for (int i = 0; i < 30; i++) {
+            source.addTriple("S" + i, "label", tokens.get(i % n) + " " + tokens.get((i * 7 + 3) % n));
+            target.addTriple("T" + i, "label", "the " + tokens.get((i * 5 + 1) % n));
+            if (i % 4 == 0) {
+                target.addTriple("T" + i, "label", tokens.get((i * 3) % n) + " and " + tokens.get((i + 11) % n));
+            }
+        }
+        // tokens without concepts and values of stop words only
+        source.addTriple("S30", "label", "unknown dog");
+        target.addTriple("T30", "label", "the");
+        target.addTriple("T31", "label", "");
+        // a token with two concepts and a pair of similarity 1
+        source.addTriple("S31", "label", "cat puppy");
+        target.addTriple("T32", "label", "dog cat");
+    }
+
+    @After
+    public void cleanUp() {
+        // drop the similarities of the synthetic tokens
+        AEdgeCountingSemanticMeasure.setTokenCacheCapacity(0);
+        AEdgeCountingSemanticMeasure.setTokenCacheCapacity(1000000);
+    }
+
+    /**
+     * Computes the mapping pair by pair by the similarity of the instances,
+     * without caching token similarities.
+     */
+    private AMapping getExpected(AEdgeCountingSemanticMeasure measure, double threshold) {
+        AEdgeCountingSemanticMeasure.setTokenCacheCapacity(0);
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (Instance s : source.getAllInstances()) {
+            for (Instance t : target.getAllInstances()) {
+                double similarity = measure.getSimilarity(s, t, "label", "label");
+                if (similarity >= threshold) {
+                    m.add(s.getUri(), t.getUri(), similarity);
+                }
+            }
+        }
+        return m;
+    }
+
+    private AMapping getMapping(AEdgeCountingSemanticMeasure measure, double threshold) {
+        EdgeCountingSemanticMapper mapper = new EdgeCountingSemanticMapper();
+        mapper.measure = measure;
+        return mapper.getMapping(source, target, "label", "label", threshold);
+    }
+
+    private static void assertSameLinks(AMapping expected, AMapping m) {
+        assertEquals(expected.size(), m.size());
+        for (String s : expected.getMap().keySet()) {
+            for (String t : expected.getMap().get(s).keySet()) {
+                assertTrue(s + " " + t, m.contains(s, t));
+                assertEquals(expected.getConfidence(s, t), m.getConfidence(s, t), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testTokenCache() {
+        AEdgeCountingSemanticMeasure measure = new WuPalmerMeasure(SyntheticHierarchy.getIndex(),
+                SyntheticHierarchy.getDictionary());
+        for (double threshold : new double[] { 0.3, 0.6, 0.9 }) {
+            AMapping expected = getExpected(measure, threshold);
+            assertTrue(expected.size() > 0);
+            // few cached token pairs, hence many evictions
+            AEdgeCountingSemanticMeasure.setTokenCacheCapacity(3);
+            assertSameLinks(expected, getMapping(measure, threshold));
+            AEdgeCountingSemanticMeasure.setTokenCacheCapacity(1000000);
+            assertSameLinks(expected, getMapping(measure, threshold));
+            // answered from the cache
+            assertSameLinks(expected, getMapping(measure, threshold));
+        }
+    }
+
+    @Test
+    public void testPruning() {
+        AEdgeCountingSemanticMeasure[] pruned = {
+                new WuPalmerMeasure(SyntheticHierarchy.getIndex(), SyntheticHierarchy.getDictionary()),
+                new LCHMeasure(SyntheticHierarchy.getIndex(), SyntheticHierarchy.getDictionary()),
+                new ShortestPathMeasure(SyntheticHierarchy.getIndex(), SyntheticHierarchy.getDictionary()) };
+        // the same measures without a minimal subsumer depth score every
+        // token pair
+        AEdgeCountingSemanticMeasure[] unpruned = {
+                new WuPalmerMeasure(SyntheticHierarchy.getIndex(), SyntheticHierarchy.getDictionary()) {
+                    @Override
+                    public int getMinSubsumerDepth(int pathLength, int posNumber, double threshold) {
+                        return 0;
+                    }
+                }, new LCHMeasure(SyntheticHierarchy.getIndex(), SyntheticHierarchy.getDictionary()) {
+                    @Override
+                    public int getMinSubsumerDepth(int pathLength, int posNumber, double threshold) {
+                        return 0;
+                    }
+                }, new ShortestPathMeasure(SyntheticHierarchy.getIndex(), SyntheticHierarchy.getDictionary()) {
+                    @Override
+                    public int getMinSubsumerDepth(int pathLength, int posNumber, double threshold) {
+                        return 0;
+                    }
+                } };
+        for (int i = 0; i < pruned.length; i++) {
+            for (double threshold : new double[] { 0.1, 0.3, 0.5, 0.7, 0.9, 1.0 }) {
+                AEdgeCountingSemanticMeasure.setTokenCacheCapacity(0);
+                AMapping expected = getMapping(unpruned[i], threshold);
+                AMapping m = getMapping(pruned[i], threshold);
+                assertTrue(pruned[i].getName() + " " + threshold, expected.size() > 0);
+                assertSameLinks(expected, m);
+                // the unpruned mapper scores the same pairs as the measure
+                assertSameLinks(getExpected(pruned[i], threshold), expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.aksw.limes.core.measures.mapper.space;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.junit.Test;
+
+public class HR3MapperTest {
+
+    private static ACache createCache(String prefix, int size, long seed, boolean withNonNumbers) {
+        ACache cache = new MemoryCache();
+        Random r = new Random(seed);
+        for (int i = 0; i < size; i++) {
+            String uri = prefix + i;
+            cache.addTriple(uri, "lat", "" + (50 + r.nextInt(2000) / 100d));
+            cache.addTriple(uri, "long", "" + (10 + r.nextInt(2000) / 100d));
+            cache.addTriple(uri, "height", "" + r.nextInt(500) / 100d);
+        }
+        // several values, values that are not numbers and missing values
+        cache.addTriple(prefix + 1, "lat", "55.5");
+        if (withNonNumbers) {
+            cache.addTriple(prefix + 2, "long", "not a number");
+        }
+        cache.addTriple(prefix + "missing", "lat", "52.1");
+        return cache;
+    }
+
+    private static void compareWithSequential(String expression, double threshold, boolean withNonNumbers) {
+        ACache source = createCache("S", 3000, 1, withNonNumbers);
+        ACache target = createCache("T", 3000, 2, withNonNumbers);
+        HR3Mapper sequential = new HR3Mapper();
+        sequential.numberOfThreads = 1;
+        AMapping expected = sequential.getMapping(source, target, "?x", "?y", expression, threshold);
+        HR3Mapper parallel = new HR3Mapper();
+        parallel.numberOfThreads = 4;
+        AMapping m = parallel.getMapping(source, target, "?x", "?y", expression, threshold);
+        assertTrue(expression, expected.getNumberofMappings() > 0);
+        assertEquals(expected.getNumberofMappings(), m.getNumberofMappings());
+        assertEquals(expected, m);
+    }
+
+    @Test
+    public void testEuclidean() {
+        compareWithSequential("euclidean(x.lat|long, y.lat|long)", 0.9, true);
+        compareWithSequential("euclidean(x.lat|long|height, y.lat|long|height)", 0.8, true);
+        compareWithSequential("euclidean(x.lat, y.lat)", 0.95, true);
+    }
+
+    @Test
+    public void testOrthodromic() {
+        compareWithSequential("geo_orthodromic(x.lat|long, y.lat|long)", 0.99, false);
+    }
+}
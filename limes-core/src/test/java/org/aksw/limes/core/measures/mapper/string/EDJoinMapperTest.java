@@ -0,0 +1,94 @@
+package org.aksw.limes.core.measures.mapper.string;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.aksw.limes.core.execution.engine.ExecutionContext;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.junit.After;
+import org.junit.Test;
+
+public class EDJoinMapperTest {
+
+    private static final String[] SYLLABLES = { "ka", "lo", "mi", "ne", "ru", "sa", "te", "x" };
+
+    private final int parallelism = ExecutionContext.getParallelism();
+
+    @After
+    public void resetParallelism() {
+        ExecutionContext.setParallelism(parallelism);
+    }
+
+    private static ACache[] createCaches(int size) {
+        Random r = new Random(7);
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = r.nextInt(6); j > 0; j--) {
+                word.append(SYLLABLES[r.nextInt(SYLLABLES.length)]);
+            }
+            char[] typo = word.toString().toCharArray();
+            if (typo.length > 0 && r.nextBoolean()) {
+                typo[r.nextInt(typo.length)] = 'z';
+            }
+            source.addTriple("s" + i, "name", word.toString());
+            target.addTriple("t" + i, "name", new String(typo) + (r.nextInt(4) == 0 ? "q" : ""));
+        }
+        return new ACache[] { source, target };
+    }
+
+    private static AMapping getMapping(ACache[] caches, double threshold) {
+        return new EDJoinMapper().getMapping(caches[0], caches[1], "?x", "?y", "levenshtein(x.name,y.name)",
+                threshold);
+    }
+
+    @Test
+    public void testGetMapping() {
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        source.addTriple("S1", "name", "kleanthi");
+        source.addTriple("S2", "name", "ab");
+        source.addTriple("S3", "name", "georgala");
+        target.addTriple("T1", "name", "kleanthy");
+        target.addTriple("T2", "name", "abc");
+        target.addTriple("T3", "name", "georgalas");
+        target.addTriple("T3", "name", "geargala");
+        AMapping m = new EDJoinMapper().getMapping(source, target, "?x", "?y", "levenshtein(x.name,y.name)", 0.5);
+        assertEquals(3, m.size());
+        assertEquals(0.5, m.getConfidence("S1", "T1"), 0);
+        assertEquals(0.5, m.getConfidence("S2", "T2"), 0);
+        assertEquals(0.5, m.getConfidence("S3", "T3"), 0);
+        assertFalse(m.contains("S1", "T3"));
+    }
+
+    @Test
+    public void testPartitions() {
+        ACache[] caches = createCaches(5000);
+        for (double threshold : new double[] { 0.3, 0.5, 0.9 }) {
+            ExecutionContext.setParallelism(1);
+            AMapping expected = getMapping(caches, threshold);
+            ExecutionContext.setParallelism(4);
+            AMapping m = getMapping(caches, threshold);
+            assertTrue(expected.size() > 0);
+            assertEquals(expected.getMap(), m.getMap());
+        }
+    }
+
+    @Test
+    public void testConcurrentMappings() {
+        ACache[] caches = createCaches(3000);
+        AMapping expected1 = getMapping(caches, 0.5);
+        AMapping expected2 = getMapping(caches, 0.9);
+        CompletableFuture<AMapping> m1 = CompletableFuture.supplyAsync(() -> getMapping(caches, 0.5));
+        CompletableFuture<AMapping> m2 = CompletableFuture.supplyAsync(() -> getMapping(caches, 0.9));
+        assertEquals(expected1.getMap(), m1.join().getMap());
+        assertEquals(expected2.getMap(), m2.join().getMap());
+    }
+}
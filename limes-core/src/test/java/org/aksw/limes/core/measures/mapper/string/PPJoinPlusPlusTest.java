@@ -0,0 +1,96 @@
+package org.aksw.limes.core.measures.mapper.string;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.aksw.limes.core.execution.engine.ExecutionContext;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.junit.After;
+import org.junit.Test;
+
+public class PPJoinPlusPlusTest {
+
+    private final int parallelism = ExecutionContext.getParallelism();
+
+    @After
+    public void resetParallelism() {
+        ExecutionContext.setParallelism(parallelism);
+    }
+
+    private static ACache[] createCaches(int size) {
+        Random r = new Random(11);
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            StringBuilder title = new StringBuilder();
+            StringBuilder other = new StringBuilder();
+            for (int j = 1 + r.nextInt(6); j > 0; j--) {
+                String word = "w" + (int) Math.abs(r.nextGaussian() * 50);
+                title.append(word).append(' ');
+                other.append(r.nextInt(4) == 0 ? "v" + r.nextInt(100) : word).append(", ");
+            }
+            source.addTriple("s" + i, "title", title.toString());
+            target.addTriple("t" + i, "title", other.toString());
+        }
+        return new ACache[] { source, target };
+    }
+
+    private static AMapping getMapping(ACache[] caches, String measure, double threshold) {
+        return new PPJoinPlusPlus().getMapping(caches[0], caches[1], "?x", "?y",
+                measure + "(x.title,y.title)", threshold);
+    }
+
+    @Test
+    public void testGetMapping() {
+        ACache[] caches = { new MemoryCache(), new MemoryCache() };
+        caches[0].addTriple("S1", "title", "a b c d");
+        caches[0].addTriple("S2", "title", "a b");
+        caches[1].addTriple("T1", "title", "a b c e");
+        caches[1].addTriple("T2", "title", "a, b");
+        AMapping m = getMapping(caches, "jaccard", 0.5);
+        assertEquals(2, m.size());
+        assertEquals(0.6, m.getConfidence("S1", "T1"), 1e-9);
+        assertEquals(1.0, m.getConfidence("S2", "T2"), 1e-9);
+        m = getMapping(caches, "cosine", 0.5);
+        assertEquals(4, m.size());
+        assertEquals(0.75, m.getConfidence("S1", "T1"), 1e-9);
+        assertEquals(Math.sqrt(0.5), m.getConfidence("S1", "T2"), 1e-9);
+        m = getMapping(caches, "cosine", 1);
+        assertEquals(1, m.size());
+        assertFalse(m.contains("S1", "T1"));
+    }
+
+    @Test
+    public void testIndexReuse() {
+        ACache[] caches = createCaches(100);
+        PPJoinIndex index = PPJoinIndex.get(caches[0], caches[1], "title", "title");
+        assertTrue(index == PPJoinIndex.get(caches[0], caches[1], "title", "title"));
+        assertFalse(index == PPJoinIndex.get(caches[1], caches[0], "title", "title"));
+        caches[1].addTriple("t100", "title", "w1 w2");
+        assertFalse(index == PPJoinIndex.get(caches[0], caches[1], "title", "title"));
+        // a changed value without a change of the size
+        index = PPJoinIndex.get(caches[0], caches[1], "title", "title");
+        caches[0].getInstance(caches[0].getAllUris().get(0)).addProperty("title", "w3");
+        assertFalse(index == PPJoinIndex.get(caches[0], caches[1], "title", "title"));
+    }
+
+    @Test
+    public void testPartitions() {
+        ACache[] caches = createCaches(5000);
+        for (String measure : new String[] { "cosine", "jaccard", "overlap" }) {
+            for (double threshold : new double[] { 0.4, 0.7 }) {
+                ExecutionContext.setParallelism(1);
+                AMapping expected = getMapping(caches, measure, threshold);
+                ExecutionContext.setParallelism(4);
+                AMapping m = getMapping(caches, measure, threshold);
+                assertTrue(expected.size() > 0);
+                assertEquals(expected.getMap(), m.getMap());
+            }
+        }
+    }
+}
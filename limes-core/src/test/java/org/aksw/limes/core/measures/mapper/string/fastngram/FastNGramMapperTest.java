@@ -0,0 +1,106 @@
+package org.aksw.limes.core.measures.mapper.string.fastngram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.aksw.limes.core.execution.engine.ExecutionContext;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.measure.string.QGramSimilarityMeasure;
+import org.junit.After;
+import org.junit.Test;
+
+public class FastNGramMapperTest {
+
+    private static final String[] SYLLABLES = { "ber", "lin", "ham", "burg", "ost", "west", "see", "dorf", " " };
+
+    private final int parallelism = ExecutionContext.getParallelism();
+
+    @After
+    public void resetParallelism() {
+        ExecutionContext.setParallelism(parallelism);
+    }
+
+    private static ACache[] createCaches(int size) {
+        Random r = new Random(5);
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            StringBuilder label = new StringBuilder();
+            for (int j = r.nextInt(5); j >= 0; j--) {
+                label.append(SYLLABLES[r.nextInt(SYLLABLES.length)]);
+            }
+            char[] typo = label.toString().toCharArray();
+            if (r.nextBoolean()) {
+                typo[r.nextInt(typo.length)] = 'x';
+            }
+            source.addTriple("s" + i, "label", label.toString());
+            target.addTriple("t" + i, "label", new String(typo) + (r.nextInt(4) == 0 ? "e" : ""));
+        }
+        return new ACache[] { source, target };
+    }
+
+    private static AMapping getMapping(ACache[] caches, double threshold) {
+        return new FastNGramMapper().getMapping(caches[0], caches[1], "?x", "?y", "trigrams(x.label,y.label)",
+                threshold);
+    }
+
+    @Test
+    public void testGetMapping() {
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        source.addTriple("S1", "label", "berlin");
+        source.addTriple("S2", "label", "hamburg");
+        target.addTriple("T1", "label", "berlin");
+        target.addTriple("T2", "label", "berlim");
+        target.addTriple("T3", "label", "hamburg");
+        target.addTriple("T3", "label", "berlin");
+        AMapping m = new FastNGramMapper().getMapping(source, target, "?x", "?y", "trigrams(x.label,y.label)", 0.4);
+        assertEquals(4, m.size());
+        assertEquals(1.0, m.getConfidence("S1", "T1"), 0);
+        assertEquals(5d / 11, m.getConfidence("S1", "T2"), 1e-9);
+        assertEquals(1.0, m.getConfidence("S1", "T3"), 0);
+        assertEquals(1.0, m.getConfidence("S2", "T3"), 0);
+        assertFalse(m.contains("S2", "T1"));
+    }
+
+    @Test
+    public void testCompute() {
+        // the similarities must be those of the measure for any q
+        Set<String> strings = new HashSet<String>(Arrays.asList("", "a", "ab", "abc", "abcd", "abcde", "bcdab"));
+        for (int q = 1; q <= 5; q++) {
+            AMapping m = FastNGramMapper.compute(strings, strings, q, 0.1);
+            for (String s : strings) {
+                for (String t : strings) {
+                    double similarity = new QGramSimilarityMeasure().getSimilarity(
+                            new NGramTokenizer().tokenize(s, q), new NGramTokenizer().tokenize(t, q));
+                    if (similarity >= 0.1) {
+                        assertEquals(similarity, m.getConfidence(s, t), 0);
+                    } else {
+                        assertFalse(m.contains(s, t));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPartitions() {
+        ACache[] caches = createCaches(5000);
+        for (double threshold : new double[] { 0.4, 0.7, 1 }) {
+            ExecutionContext.setParallelism(1);
+            AMapping expected = getMapping(caches, threshold);
+            ExecutionContext.setParallelism(4);
+            AMapping m = getMapping(caches, threshold);
+            assertTrue(expected.size() > 0);
+            assertEquals(expected.getMap(), m.getMap());
+        }
+    }
+}
@@ -3,7 +3,15 @@ package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.TreeMap;
 
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.ColumnarCache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.complex.DuringMapper;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.complex.OverlapsMapper;
 import org.junit.Test;
 
 public class AAtomicAllenAlgebraMapperTest {
@@ -57,4 +65,59 @@ public class AAtomicAllenAlgebraMapperTest {
 
     }
 
+    private void fill(ACache cache, String prefix) {
+        String[][] events = new String[][] {
+                { "2015-05-20T08:00:00Z", "2015-05-20T10:00:00Z" },
+                { "2015-05-20T09:00:00Z", "2015-05-20T09:30:00Z" },
+                { "2015-05-20T07:00:00Z", "2015-05-20T12:00:00Z" },
+                { "2015-05-20T08:00:00Z", "2015-05-20T09:00:00+02:00" },
+                { "2015-05-20T10:00:00+02:00", "2015-05-20" },
+                { "2015-05-20T11:00", "2015-05-20T11:30:00Z" } };
+        for (int i = 0; i < events.length; i++) {
+            cache.addTriple(prefix + i, "beginDate", events[i][0]);
+            cache.addTriple(prefix + i, "endDate", events[i][1]);
+        }
+        // an event with several time stamps and one without time stamps
+        cache.addTriple(prefix + "multi", "beginDate", "2015-05-20T08:00:00Z");
+        cache.addTriple(prefix + "multi", "beginDate", "2015-05-20T09:00:00Z");
+        cache.addTriple(prefix + "multi", "endDate", "2015-05-20T09:30:00Z");
+        cache.addTriple(prefix + "multi", "endDate", "2015-05-20T12:00:00Z");
+        cache.addTriple(prefix + "none", "label", "none");
+    }
+
+    @Test
+    public void testGetMapping() {
+        String expression = "tmp_during(x.beginDate|endDate,y.beginDate|endDate)";
+        for (boolean columnar : new boolean[] { false, true }) {
+            ACache source = columnar ? new ColumnarCache() : new MemoryCache();
+            ACache target = columnar ? new ColumnarCache() : new MemoryCache();
+            fill(source, "S");
+            fill(target, "T");
+            BeginBegin bb = new BeginBegin();
+            EndEnd ee = new EndEnd();
+            EndBegin eb = new EndBegin();
+
+            ArrayList<TreeMap<String, Set<String>>> maps = new ArrayList<TreeMap<String, Set<String>>>();
+            maps.add(ee.getPredecessorEvents(source, target, expression));
+            maps.add(bb.getConcurrentEvents(source, target, expression));
+            maps.add(bb.getPredecessorEvents(source, target, expression));
+            DuringMapper during = new DuringMapper();
+            AMapping expected = during.getMapping(maps);
+            AMapping m = during.getMapping(source, target, "?x", "?y", expression, 1.0);
+            assertTrue(expected.size() > 0);
+            assertEquals(expected.getMap(), m.getMap());
+
+            maps.clear();
+            maps.add(bb.getPredecessorEvents(source, target, expression));
+            maps.add(ee.getPredecessorEvents(source, target, expression));
+            maps.add(eb.getConcurrentEvents(source, target, expression));
+            maps.add(eb.getPredecessorEvents(source, target, expression));
+            OverlapsMapper overlaps = new OverlapsMapper();
+            expected = overlaps.getMapping(maps);
+            m = overlaps.getMapping(source, target, "?x", "?y", expression, 1.0);
+            assertTrue(expected.size() > 0);
+            assertEquals(expected.getMap(), m.getMap());
+        }
+    }
+
 }
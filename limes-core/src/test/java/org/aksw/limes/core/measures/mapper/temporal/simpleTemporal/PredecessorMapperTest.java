@@ -1,5 +1,6 @@
 package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.aksw.limes.core.execution.engine.ExecutionEngine;
@@ -277,4 +278,26 @@ public class PredecessorMapperTest {
 
     }
 
+    @Test
+    public void testOrderOfEpochs() {
+        // the epoch of 1990 has fewer digits than the epochs after 2001
+        ACache s = new MemoryCache();
+        ACache t = new MemoryCache();
+        s.addTriple("S1", "b", "2015-05-20T08:21:04+02:00");
+        s.addTriple("S2", "b", "1990-05-20T08:21:04+02:00");
+        t.addTriple("T1", "b", "1990-05-20T08:21:04Z");
+        t.addTriple("T2", "b", "2010-05-20T08:21:04+02:00");
+        t.addTriple("T3", "b", "2010-05-20T06:21:04Z");
+        t.addTriple("T4", "b", "1980-05-20T08:21:04+02:00");
+        String expression = "tmp_predecessor(x.b,y.b)";
+        AMapping m = new PredecessorMapper().getMapping(s, t, "?x", "?y", expression, 1.0);
+        assertEquals(3, m.size());
+        assertTrue(m.contains("S1", "T2"));
+        assertTrue(m.contains("S1", "T3"));
+        assertTrue(m.contains("S2", "T4"));
+        m = new SuccessorMapper().getMapping(s, t, "?x", "?y", expression, 1.0);
+        assertEquals(1, m.size());
+        assertTrue(m.contains("S2", "T1"));
+    }
+
 }
@@ -2,11 +2,20 @@ package org.aksw.limes.core.measures.mapper.topology;
 
 import static org.aksw.limes.core.measures.mapper.pointsets.OrchidMapper.getPoints;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 
+import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.measures.mapper.pointsets.Polygon;
 import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
 
 public class RADONTest {
 
@@ -62,4 +71,37 @@ public class RADONTest {
 
     }
 
+    @Test
+    public void testGetMapping() throws ParseException {
+        WKTReader reader = new WKTReader();
+        Map<String, Geometry> regions = new HashMap<>();
+        regions.put("A", reader.read("POLYGON ((0 0, 2 0, 2 2, 0 2, 0 0))"));
+        regions.put("B", reader.read("POLYGON ((2 0, 4 0, 4 2, 2 2, 2 0))"));
+        // the envelope of C is taken to cross the antimeridian
+        regions.put("C", reader.read("POLYGON ((-179 0, 179 0, 179 1, -179 1, -179 0))"));
+        Map<String, Geometry> points = new HashMap<>();
+        points.put("p", reader.read("POINT (1 1.5)"));
+        points.put("q", reader.read("POINT (2 1.5)"));
+        points.put("r", reader.read("POINT (3 3)"));
+        points.put("s", reader.read("POINT (179.5 0.5)"));
+        points.put("t", reader.read("POINT (0.5 0.5)"));
+
+        // the regions are indexed for within and the points for contains
+        AMapping within = new RADON(RADON.WITHIN).getMapping(points, regions);
+        assertEquals(2, within.size());
+        assertTrue(within.contains("p", "A"));
+        assertTrue(within.contains("t", "A"));
+        AMapping contains = new RADON(RADON.CONTAINS).getMapping(regions, points);
+        assertEquals(within.reverseSourceTarget().getMap(), contains.getMap());
+
+        AMapping intersects = new RADON(RADON.INTERSECTS).getMapping(points, regions);
+        assertEquals(4, intersects.size());
+        assertTrue(intersects.contains("q", "A"));
+        assertTrue(intersects.contains("q", "B"));
+        assertTrue(!intersects.contains("s", "C"));
+
+        AMapping disjoint = new RADON(RADON.DISJOINT).getMapping(points, regions);
+        assertEquals(points.size() * regions.size() - intersects.size(), disjoint.size());
+    }
+
 }
@@ -0,0 +1,132 @@
+package org.aksw.limes.core.measures.measure;
+
+import static org.junit.Assert.assertEquals;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledExpressionTest {
+
+    private ACache source;
+    private ACache target;
+
+    @Before
+    public void prepareData() {
+        source = new MemoryCache();
+        target = new MemoryCache();
+        source.addTriple("S1", "name", "the quick brown fox");
+        source.addTriple("S1", "age", "12");
+        source.addTriple("S2", "name", "lazy dog");
+        source.addTriple("S2", "name", "the lazy dog");
+        source.addTriple("S2", "age", "30");
+        source.addTriple("S3", "name", "brown brown fox");
+        source.addTriple("S3", "age", "31");
+
+        target.addTriple("T1", "label", "the quick brown fox");
+        target.addTriple("T1", "age", "13");
+        target.addTriple("T2", "label", "quick brown fox jumps");
+        target.addTriple("T2", "age", "31");
+        target.addTriple("T3", "label", "brown fox brown");
+        target.addTriple("T3", "age", "29");
+        target.addTriple("T4", "label", "a lazy dog");
+        target.addTriple("T4", "age", "30");
+    }
+
+    /**
+     * The compiled expression must return the similarities of the mapper the
+     * canonical planner uses for the atomic measure.
+     */
+    private void assertSameAsMapper(String measure, double threshold) {
+        String expression = measure + "(x.name, y.label)";
+        AMapping m = MapperFactory.createMapper(MeasureFactory.getMeasureType(measure)).getMapping(source, target,
+                "?x", "?y", expression, threshold);
+        CompiledExpression compiled = CompiledExpression.compile(expression, threshold, "?x", "?y");
+        for (Instance s : source.getAllInstances()) {
+            for (Instance t : target.getAllInstances()) {
+                double expected = m.contains(s.getUri(), t.getUri()) ? m.getConfidence(s.getUri(), t.getUri()) : 0;
+                assertEquals(measure + " " + s.getUri() + " " + t.getUri(), expected, compiled.getSimilarity(s, t),
+                        1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testAtomicMeasures() {
+        assertSameAsMapper("trigram", 0.3);
+        assertSameAsMapper("qgrams", 0.3);
+        assertSameAsMapper("jaccard", 0.3);
+        assertSameAsMapper("cosine", 0.3);
+        assertSameAsMapper("overlap", 0.3);
+        assertSameAsMapper("levenshtein", 0.1);
+        assertSameAsMapper("jaro", 0.5);
+    }
+
+    /**
+     * Asserts the similarities of an expression for all pairs, rows are the
+     * source instances S1 to S3, columns the target instances T1 to T4.
+     */
+    private void assertSimilarities(String expression, double[][] expected) {
+        CompiledExpression compiled = MeasureProcessor.compile(expression, 0.3, "?x", "?y");
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected[i].length; j++) {
+                Instance s = source.getInstance("S" + (i + 1));
+                Instance t = target.getInstance("T" + (j + 1));
+                String message = expression + " " + s.getUri() + " " + t.getUri();
+                assertEquals(message, expected[i][j], compiled.getSimilarity(s, t), 1e-9);
+                assertEquals(message, expected[i][j],
+                        MeasureProcessor.getSimilarity(s, t, expression, 0.3, "?x", "?y"), 1e-9);
+            }
+        }
+    }
+
+    /*
+     * PPJoinPlusPlus jaccard of the names and labels, o / (2 * max - o) for an
+     * overlap o and the longer token count max:
+     * S1: 1, 3/5, 1/3, 0; S2: 1/7, 0, 0, 1/2; S3: 1/3, 1/3, 1, 0.
+     * Cosine, o / sqrt(|x| * |y|):
+     * S1: 1, 3/4, 2/sqrt(12), 0; S2: 1/sqrt(12), 0, 0, 2/sqrt(6);
+     * S3: 2/sqrt(12), 2/sqrt(12), 1, 0.
+     * Euclidean of the ages, 1 / (1 + |a - b|):
+     * S1: 1/2, 1/20, 1/18, 1/19; S2: 1/18, 1/2, 1/2, 1; S3: 1/19, 1, 1/3, 1/2.
+     */
+
+    @Test
+    public void testAnd() {
+        // minimum of both children if both reach their thresholds
+        assertSimilarities("AND(jaccard(x.name, y.label)|0.3, euclidean(x.age, y.age)|0.4)",
+                new double[][] { { 0.5, 0, 0, 0 }, { 0, 0, 0, 0.5 }, { 0, 1.0 / 3, 0, 0 } });
+    }
+
+    @Test
+    public void testOr() {
+        // maximum of the children that reach their thresholds
+        assertSimilarities("OR(jaccard(x.name, y.label)|0.9, euclidean(x.age, y.age)|0.4)",
+                new double[][] { { 1, 0, 0, 0 }, { 0, 0.5, 0.5, 1 }, { 0, 1, 1, 0.5 } });
+    }
+
+    @Test
+    public void testMinus() {
+        // left child if the right child does not reach its threshold
+        assertSimilarities("MINUS(jaccard(x.name, y.label)|0.3, euclidean(x.age, y.age)|0.4)",
+                new double[][] { { 0, 0.6, 1.0 / 3, 0 }, { 0, 0, 0, 0 }, { 1.0 / 3, 0, 1, 0 } });
+    }
+
+    @Test
+    public void testAdd() {
+        // the child thresholds are |0.3 - 0.5| / 0.5 = 0.4 and apply to the
+        // child similarities as well as to the weighted ones
+        assertSimilarities("ADD(0.5*jaccard(x.name, y.label)|0.2, 0.5*cosine(y.label, x.name)|0.2)",
+                new double[][] { { 1, 0, 0, 0 }, { 0, 0, 0, 0.25 + 1 / Math.sqrt(6) }, { 0, 0, 1, 0 } });
+    }
+
+    @Test
+    public void testMissingProperty() {
+        CompiledExpression compiled = CompiledExpression.compile("trigram(x.name, x.label)", 0.3, "?x", "?y");
+        assertEquals(0.0, compiled.getSimilarity(source.getInstance("S1"), target.getInstance("T1")), 0);
+    }
+}
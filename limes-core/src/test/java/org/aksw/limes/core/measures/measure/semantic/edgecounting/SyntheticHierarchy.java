@@ -0,0 +1,200 @@
+package org.aksw.limes.core.measures.measure.semantic.edgecounting;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.dictionary.SemanticDictionary;
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.AIndex;
+
+import edu.mit.jwi.item.IIndexWord;
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.ISynsetID;
+import edu.mit.jwi.item.IWord;
+import edu.mit.jwi.item.IWordID;
+import edu.mit.jwi.item.POS;
+import edu.mit.jwi.item.SynsetID;
+
+/**
+ * Small noun hierarchy to test the edge-counting measures and mappers without
+ * the wordnet files. Concept 1 is the root, the hypernym paths of a concept
+ * are derived from the parents of the concepts. Some concepts have two
+ * parents and some tokens have two concepts.
+ */
+public class SyntheticHierarchy {
+
+    /** Parents of each concept, concept 0 is not used */
+    private static final int[][] PARENTS = { {}, {}, { 1 }, { 1 }, { 2 }, { 2 }, { 4 }, { 4 }, { 6 }, { 6 },
+            { 8 }, { 8 }, { 9 }, { 7 }, { 5 }, { 14 }, { 14 }, { 3 }, { 8, 5 }, { 17 }, { 10 } };
+
+    /** Tokens and their concepts */
+    private static final Object[][] SENSES = { { "entity", 1 }, { "object", 2 }, { "abstraction", 3 },
+            { "organism", 4 }, { "artifact", 5 }, { "animal", 6 }, { "plant", 7, 13 }, { "mammal", 8 },
+            { "bird", 9 }, { "dog", 10, 20 }, { "cat", 11 }, { "sparrow", 12 }, { "tree", 13 }, { "vehicle", 14 },
+            { "car", 15 }, { "bicycle", 16 }, { "idea", 17 }, { "robot", 18, 5 }, { "plan", 19 },
+            { "puppy", 20 } };
+
+    private static final Map<Integer, ISynset> synsets = new HashMap<Integer, ISynset>();
+    private static final Map<String, List<IWordID>> wordIDs = new LinkedHashMap<String, List<IWordID>>();
+    private static final Map<IWordID, IWord> words = new HashMap<IWordID, IWord>();
+
+    static {
+        for (int offset = 1; offset < PARENTS.length; offset++) {
+            Map<String, Object> values = new HashMap<String, Object>();
+            values.put("getOffset", offset);
+            values.put("getPOS", POS.NOUN);
+            values.put("getType", POS.NOUN.getNumber());
+            values.put("getID", new SynsetID(offset, POS.NOUN));
+            synsets.put(offset, proxy(ISynset.class, values));
+        }
+        for (Object[] sense : SENSES) {
+            List<IWordID> ids = new ArrayList<IWordID>();
+            for (int i = 1; i < sense.length; i++) {
+                IWordID id = proxy(IWordID.class, Collections.<String, Object> emptyMap());
+                words.put(id, proxy(IWord.class, Collections.<String, Object> singletonMap("getSynset",
+                        synsets.get((Integer) sense[i]))));
+                ids.add(id);
+            }
+            wordIDs.put((String) sense[0], ids);
+        }
+    }
+
+    /**
+     * Creates an implementation of an interface whose methods return fixed
+     * values.
+     */
+    private static <T> T proxy(Class<T> type, Map<String, Object> values) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (p, method, args) -> {
+                    switch (method.getName()) {
+                    case "equals":
+                        return p == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(p);
+                    case "toString":
+                        return type.getSimpleName() + values;
+                    default:
+                        if (!values.containsKey(method.getName())) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        return values.get(method.getName());
+                    }
+                }));
+    }
+
+    /**
+     * @return the tokens that have concepts in the hierarchy
+     */
+    public static List<String> getTokens() {
+        return new ArrayList<String>(wordIDs.keySet());
+    }
+
+    /**
+     * @param offset
+     *            the offset of a concept
+     * @return the concept
+     */
+    public static ISynset getSynset(int offset) {
+        return synsets.get(offset);
+    }
+
+    /**
+     * @return the offsets of all concepts in ascending order
+     */
+    public static int[] getOffsets() {
+        int[] offsets = new int[PARENTS.length - 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = i + 1;
+        }
+        return offsets;
+    }
+
+    /**
+     * @param offset
+     *            the offset of a concept
+     * @return the offsets of the concepts of each hypernym path of the
+     *         concept, from the root to the concept
+     */
+    public static int[][] getPaths(int offset) {
+        List<int[]> paths = new ArrayList<int[]>();
+        if (PARENTS[offset].length == 0) {
+            paths.add(new int[] { offset });
+        }
+        for (int parent : PARENTS[offset]) {
+            for (int[] path : getPaths(parent)) {
+                int[] extended = Arrays.copyOf(path, path.length + 1);
+                extended[path.length] = offset;
+                paths.add(extended);
+            }
+        }
+        return paths.toArray(new int[paths.size()][]);
+    }
+
+    /**
+     * @return an index of the hypernym paths of the hierarchy
+     */
+    public static AIndex getIndex() {
+        return new AIndex() {
+
+            @Override
+            public void preIndex() {
+            }
+
+            @Override
+            public void init(boolean f) {
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public ArrayList<ArrayList<ISynsetID>> getHypernymPaths(ISynset synset) {
+                ArrayList<ArrayList<ISynsetID>> paths = new ArrayList<ArrayList<ISynsetID>>();
+                for (int[] path : getPaths(synset.getOffset())) {
+                    ArrayList<ISynsetID> ids = new ArrayList<ISynsetID>();
+                    for (int offset : path) {
+                        ids.add(new SynsetID(offset, POS.NOUN));
+                    }
+                    paths.add(ids);
+                }
+                return paths;
+            }
+        };
+    }
+
+    /**
+     * @return a dictionary of the tokens of the hierarchy, which are all nouns
+     */
+    public static SemanticDictionary getDictionary() {
+        return new SemanticDictionary() {
+
+            @Override
+            public IIndexWord getIndexWord(String str, POS pos) {
+                List<IWordID> ids = wordIDs.get(str);
+                if (ids == null || pos != POS.NOUN) {
+                    return null;
+                }
+                Map<String, Object> values = new HashMap<String, Object>();
+                values.put("getLemma", str);
+                values.put("getPOS", POS.NOUN);
+                values.put("getWordIDs", ids);
+                return proxy(IIndexWord.class, values);
+            }
+
+            @Override
+            public IWord getWord(IWordID wordID) {
+                return words.get(wordID);
+            }
+
+            @Override
+            public void removeDictionary() {
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package org.aksw.limes.core.measures.measure.semantic.edgecounting.indexing.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.aksw.limes.core.measures.measure.semantic.edgecounting.SyntheticHierarchy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.ISynsetID;
+import edu.mit.jwi.item.POS;
+import edu.mit.jwi.item.SynsetID;
+
+public class FileIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File file = new File(folder.getRoot(), "paths.idx");
+        // the synsets of the hierarchy as nouns, no synsets of the other POS
+        POS[] posValues = POS.values();
+        int[][] offsets = new int[posValues.length][];
+        int[][][][] paths = new int[posValues.length][][][];
+        for (int i = 0; i < posValues.length; i++) {
+            offsets[i] = posValues[i] == POS.NOUN ? SyntheticHierarchy.getOffsets() : new int[0];
+            paths[i] = new int[offsets[i].length][][];
+            for (int j = 0; j < offsets[i].length; j++) {
+                paths[i][j] = SyntheticHierarchy.getPaths(offsets[i][j]);
+            }
+        }
+        new FileIndex(file).write(posValues, offsets, paths);
+
+        // the file exists, hence it is only loaded
+        FileIndex index = new FileIndex(file);
+        index.preIndex();
+        for (int offset : SyntheticHierarchy.getOffsets()) {
+            ISynset synset = SyntheticHierarchy.getSynset(offset);
+            ArrayList<ArrayList<ISynsetID>> expected = new ArrayList<ArrayList<ISynsetID>>();
+            for (int[] path : SyntheticHierarchy.getPaths(offset)) {
+                ArrayList<ISynsetID> ids = new ArrayList<ISynsetID>();
+                for (int id : path) {
+                    ids.add(new SynsetID(id, POS.NOUN));
+                }
+                expected.add(ids);
+            }
+            assertEquals("synset " + offset, expected, index.getHypernymPaths(synset));
+        }
+        assertEquals(2, index.getHypernymPaths(SyntheticHierarchy.getSynset(18)).size());
+        // depth of a synset is the length of its paths
+        assertEquals(6, index.getHypernymPaths(SyntheticHierarchy.getSynset(10)).get(0).size());
+    }
+
+    @Test
+    public void testUnknownSynset() throws IOException {
+        File file = new File(folder.getRoot(), "paths.idx");
+        POS[] posValues = POS.values();
+        int[][] offsets = new int[posValues.length][];
+        int[][][][] paths = new int[posValues.length][][][];
+        for (int i = 0; i < posValues.length; i++) {
+            // some synsets only
+            offsets[i] = posValues[i] == POS.NOUN ? new int[] { 1, 3, 17 } : new int[0];
+            paths[i] = new int[offsets[i].length][][];
+            for (int j = 0; j < offsets[i].length; j++) {
+                paths[i][j] = SyntheticHierarchy.getPaths(offsets[i][j]);
+            }
+        }
+        new FileIndex(file).write(posValues, offsets, paths);
+        FileIndex index = new FileIndex(file);
+        index.preIndex();
+        assertEquals(1, index.getHypernymPaths(SyntheticHierarchy.getSynset(3)).size());
+        assertNull(index.getHypernymPaths(SyntheticHierarchy.getSynset(2)));
+        assertNull(index.getHypernymPaths(SyntheticHierarchy.getSynset(20)));
+    }
+}
@@ -1,9 +1,11 @@
 package org.aksw.limes.core.ml.algorithm;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoFMeasure;
 import org.aksw.limes.core.exceptions.UnsupportedMLImplementationException;
+import org.aksw.limes.core.execution.engine.ExecutionContext;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.ml.algorithm.ActiveMLAlgorithm;
@@ -13,6 +15,12 @@ import org.aksw.limes.core.ml.algorithm.MLImplementationType;
 import org.aksw.limes.core.ml.algorithm.MLResults;
 import org.aksw.limes.core.ml.algorithm.SupervisedMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.UnsupervisedMLAlgorithm;
+import org.aksw.limes.core.ml.algorithm.eagle.core.ExpressionProblem;
+import org.aksw.limes.core.ml.algorithm.eagle.core.LinkSpecGeneticLearnerConfig;
+import org.aksw.limes.core.ml.algorithm.eagle.core.PseudoFMeasureFitnessFunction;
+import org.jgap.InvalidConfigurationException;
+import org.jgap.gp.IGPProgram;
+import org.jgap.gp.impl.GPGenotype;
 import org.junit.Test;
 
 
@@ -113,8 +121,41 @@ public class EagleTest extends MLAlgorithmTest{
         logger.info("new resultMap: "+resultMap);
         assert (resultMap.getMapping() != null);  
     }
-    
-    
-    
+
+    @Test
+    public void testPopulationFitness() throws InvalidConfigurationException {
+        int parallelism = ExecutionContext.getParallelism();
+        pm.setDefault(config.getSourceInfo(), config.getTargetInfo());
+        LinkSpecGeneticLearnerConfig jgapConfig = new LinkSpecGeneticLearnerConfig(config.getSourceInfo(),
+                config.getTargetInfo(), pm);
+        jgapConfig.sC = sc;
+        jgapConfig.tC = tc;
+        jgapConfig.setPopulationSize(50);
+        jgapConfig.setPropertyMapping(pm);
+        PseudoFMeasureFitnessFunction fitness = PseudoFMeasureFitnessFunction.getInstance(jgapConfig,
+                new PseudoFMeasure(), sc, tc);
+        org.jgap.Configuration.reset();
+        jgapConfig.setFitnessFunction(fitness);
+        try {
+            ExecutionContext.setParallelism(4);
+            GPGenotype gp = new ExpressionProblem(jgapConfig).create();
+            for (int gen = 0; gen < 5; gen++) {
+                fitness.calculateFitness(gp.getGPPopulation());
+                IGPProgram[] programs = gp.getGPPopulation().getGPPrograms();
+                double[] expected = new double[programs.length];
+                for (int i = 0; i < programs.length; i++) {
+                    expected[i] = programs[i].getFitnessValue();
+                }
+                fitness.clearFitnessCache();
+                for (int i = 0; i < programs.length; i++) {
+                    assertEquals(expected[i], fitness.calculateRawFitness(programs[i]), 0d);
+                }
+                gp.evolve();
+            }
+        } finally {
+            ExecutionContext.setParallelism(parallelism);
+            fitness.destroy();
+        }
+    }
 
 }
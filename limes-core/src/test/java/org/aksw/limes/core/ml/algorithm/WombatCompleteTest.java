@@ -1,5 +1,7 @@
 package org.aksw.limes.core.ml.algorithm;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.LinkedList;
@@ -19,6 +21,7 @@ import org.aksw.limes.core.ml.algorithm.SupervisedMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.UnsupervisedMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.WombatComplete;
 import org.aksw.limes.core.ml.algorithm.eagle.util.PropertyMapping;
+import org.aksw.limes.core.ml.algorithm.wombat.AWombat;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -81,6 +84,16 @@ public class WombatCompleteTest {
         assert (resultMap.equals(refMap));
     }
 
+    @Test
+    public void testPruning() throws UnsupportedMLImplementationException {
+        SupervisedMLAlgorithm wombatComplete = MLAlgorithmFactory.createMLAlgorithm(WombatComplete.class,
+                MLImplementationType.SUPERVISED_BATCH).asSupervised();
+        wombatComplete.setParameter(AWombat.PARAMETER_PRUNING, true);
+        wombatComplete.init(null, sc, tc);
+        MLResults mlModel = wombatComplete.learn(trainingMap);
+        assertTrue(mlModel.getQuality() > 0);
+        assertEquals(refMap, wombatComplete.predict(sc, tc, mlModel));
+    }
 
     @Test
     public void testUnsupervised() throws UnsupportedMLImplementationException {
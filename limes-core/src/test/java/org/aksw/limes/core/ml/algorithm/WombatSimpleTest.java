@@ -1,9 +1,11 @@
 package org.aksw.limes.core.ml.algorithm;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoFMeasure;
 import org.aksw.limes.core.exceptions.UnsupportedMLImplementationException;
@@ -20,6 +22,7 @@ import org.aksw.limes.core.ml.algorithm.SupervisedMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.UnsupervisedMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.WombatSimple;
 import org.aksw.limes.core.ml.algorithm.eagle.util.PropertyMapping;
+import org.aksw.limes.core.ml.algorithm.wombat.AWombat;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -121,6 +124,48 @@ public class WombatSimpleTest {
         assert (resultMap.equals(refMap));
     }
     
+    @Test
+    public void testThresholdSweep() throws UnsupportedMLImplementationException {
+        // deriving the thresholds from one mapping must learn the same
+        // classifiers as executing each threshold
+        Random r = new Random(3);
+        String[] names = { "klaus", "john", "claus", "maria", "anna", "peter" };
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        AMapping training = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 100; i++) {
+            String name = names[r.nextInt(names.length)] + " " + names[r.nextInt(names.length)] + r.nextInt(10);
+            source.addTriple("s" + i, "name", name);
+            target.addTriple("t" + i, "name", r.nextBoolean() ? name + "s" : name.replace('a', 'e'));
+            if (i % 4 == 0) {
+                training.add("s" + i, "t" + i, 1d);
+            }
+        }
+        for (boolean unsupervised : new boolean[] { false, true }) {
+            MLResults[] results = new MLResults[2];
+            for (int sweep = 0; sweep < 2; sweep++) {
+                if (unsupervised) {
+                    UnsupervisedMLAlgorithm wombat = MLAlgorithmFactory
+                            .createMLAlgorithm(WombatSimple.class, MLImplementationType.UNSUPERVISED)
+                            .asUnsupervised();
+                    wombat.setParameter(AWombat.PARAMETER_THRESHOLD_SWEEP, sweep == 1);
+                    wombat.init(null, source, target);
+                    results[sweep] = wombat.learn(new PseudoFMeasure());
+                } else {
+                    SupervisedMLAlgorithm wombat = MLAlgorithmFactory
+                            .createMLAlgorithm(WombatSimple.class, MLImplementationType.SUPERVISED_BATCH)
+                            .asSupervised();
+                    wombat.setParameter(AWombat.PARAMETER_THRESHOLD_SWEEP, sweep == 1);
+                    wombat.init(null, source, target);
+                    results[sweep] = wombat.learn(training);
+                }
+            }
+            assertEquals(results[0].getLinkSpecification(), results[1].getLinkSpecification());
+            assertEquals(results[0].getQuality(), results[1].getQuality(), 0);
+            assertEquals(results[0].getMapping(), results[1].getMapping());
+        }
+    }
+
     private AMapping oracleFeedback(AMapping predictionMapping, AMapping referenceMapping) {
         AMapping result = MappingFactory.createDefaultMapping();
 
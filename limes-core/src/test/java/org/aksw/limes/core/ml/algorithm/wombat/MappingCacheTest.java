@@ -0,0 +1,51 @@
+package org.aksw.limes.core.ml.algorithm.wombat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.junit.Test;
+
+public class MappingCacheTest {
+
+    private static AMapping createMapping(int size) {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < size; i++) {
+            m.add("s" + i, "t" + i, 1d);
+        }
+        return m;
+    }
+
+    @Test
+    public void testNormalization() {
+        MappingCache cache = new MappingCache(10);
+        AMapping m = createMapping(2);
+        cache.put("jaccard(x.name, y.name)|0.5", m);
+        assertTrue(m == cache.get("jaccard(x.name,y.name)|0.5"));
+        assertNull(cache.get("jaccard(x.name,y.name)|0.6"));
+    }
+
+    @Test
+    public void testEviction() {
+        MappingCache cache = new MappingCache(10);
+        cache.put("a|1.0", createMapping(4));
+        cache.put("b|1.0", createMapping(4));
+        cache.get("a|1.0");
+        // c exceeds the capacity, so the least recently used b is evicted
+        cache.put("c|1.0", createMapping(4));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b|1.0"));
+        assertEquals(4, cache.get("a|1.0").size());
+        // mappings larger than the cache are not cached
+        cache.put("d|1.0", createMapping(11));
+        assertNull(cache.get("d|1.0"));
+        assertEquals(2, cache.size());
+        // replacing a mapping frees its links
+        cache.put("a|1.0", createMapping(6));
+        assertEquals(2, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}